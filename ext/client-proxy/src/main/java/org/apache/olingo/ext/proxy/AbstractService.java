@@ -21,6 +21,9 @@ package org.apache.olingo.ext.proxy;
 import java.io.ByteArrayInputStream;
 import java.io.ObjectInputStream;
 import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.zip.GZIPInputStream;
@@ -42,6 +45,7 @@ import org.apache.olingo.ext.proxy.commons.EntityContainerInvocationHandler;
 import org.apache.olingo.ext.proxy.commons.NonTransactionalPersistenceManagerImpl;
 import org.apache.olingo.ext.proxy.commons.TransactionalPersistenceManagerImpl;
 import org.apache.olingo.ext.proxy.context.Context;
+import org.apache.olingo.ext.proxy.utils.ProxyTypeDescriptor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -62,8 +66,17 @@ public abstract class AbstractService<C extends EdmEnabledODataClient> {
 
   private final boolean transactional;
 
+  /**
+   * Descriptors of the types of this service; they are only weakly referenced by {@link ProxyTypeDescriptor}.
+   */
+  private final List<ProxyTypeDescriptor> typeDescriptors = new ArrayList<ProxyTypeDescriptor>();
+
   private PersistenceManager persistenceManager;
 
+  private int flushBatchSize = 0;
+
+  private boolean parallelFlush = false;
+
   protected AbstractService(final String compressedMetadata, final String metadataETag,
       final ODataServiceVersion version, final String serviceRoot, final boolean transactional) {
 
@@ -101,6 +114,16 @@ public abstract class AbstractService<C extends EdmEnabledODataClient> {
     this.context = new Context();
   }
 
+  /**
+   * Builds in advance the descriptors of the given entity or complex type interfaces, so that property access on
+   * proxies does not need to inspect the interfaces reflectively. The descriptors are kept as long as this service.
+   *
+   * @param typeRefs entity or complex type interfaces.
+   */
+  protected void initTypeDescriptors(final Collection<Class<?>> typeRefs) {
+    typeDescriptors.addAll(ProxyTypeDescriptor.init(typeRefs));
+  }
+
   public abstract Class<?> getEntityTypeClass(String name);
 
   public abstract Class<?> getComplexTypeClass(String name);
@@ -122,6 +145,42 @@ public abstract class AbstractService<C extends EdmEnabledODataClient> {
     return transactional;
   }
 
+  /**
+   * Gets the maximum number of changes sent by a transactional flush with a single batch request.
+   *
+   * @return maximum number of changes per batch request; zero or less if all changes are sent with one batch request
+   */
+  public int getFlushBatchSize() {
+    return flushBatchSize;
+  }
+
+  /**
+   * Sets the maximum number of changes sent by a transactional flush with a single batch request.
+   * <br/>
+   * Larger sets of changes are split into several batch requests, each with its own change set; changes referring
+   * to each other (e.g. an entity and the links to it) are always kept in the same batch request. Atomicity is
+   * therefore guaranteed per batch request only.
+   *
+   * @param flushBatchSize maximum number of changes per batch request; zero or less to send all changes at once
+   */
+  public void setFlushBatchSize(final int flushBatchSize) {
+    this.flushBatchSize = flushBatchSize;
+  }
+
+  public boolean isParallelFlush() {
+    return parallelFlush;
+  }
+
+  /**
+   * Sets whether the batch requests of a transactional flush split by {@link #setFlushBatchSize(int)} are sent in
+   * parallel, by means of the executor of the client configuration.
+   *
+   * @param parallelFlush <tt>true</tt> to send the batch requests in parallel
+   */
+  public void setParallelFlush(final boolean parallelFlush) {
+    this.parallelFlush = parallelFlush;
+  }
+
   public PersistenceManager getPersistenceManager() {
     synchronized (this) {
       if (persistenceManager == null) {
@@ -0,0 +1,41 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.ext.proxy.api;
+
+import java.util.Map;
+
+/**
+ * Property accessors of an entity or complex type interface, generated by <tt>pojogen-maven-plugin</tt>
+ * (parameter <tt>generateAccessors</tt>) as nested class <tt>Accessors</tt> of the interface.
+ * <br/>
+ * They map the getter names to the EDM property names, so that getters and setters can be dispatched without
+ * reflective lookups of their annotations on each call.
+ */
+public interface PropertyAccessors {
+
+  /**
+   * @return getter names mapped to the names of the structural properties.
+   */
+  Map<String, String> getProperties();
+
+  /**
+   * @return getter names mapped to the names of the navigation properties.
+   */
+  Map<String, String> getNavigationProperties();
+}
@@ -396,7 +396,7 @@ abstract class AbstractPersistenceManager implements PersistenceManager {
     LOG.debug("Create '{}'", handler);
 
     changeset.addChange(service.getClient().getCUDRequestFactory().
-        getEntityCreateRequest(handler.getEntitySetURI(), entity), handler);
+        getEntityCreateRequest(handler.getEntitySetURI(), entity), handler, entity);
   }
 
   private void queueUpdateMediaEntity(
@@ -461,7 +461,7 @@ abstract class AbstractPersistenceManager implements PersistenceManager {
       req.setIfMatch(handler.getETag());
     }
 
-    changeset.addChange(req, handler);
+    changeset.addChange(req, handler, changes);
   }
 
   private boolean queueUpdateLinkViaRef(
@@ -506,7 +506,7 @@ abstract class AbstractPersistenceManager implements PersistenceManager {
       req.setIfMatch(handler.getETag());
     }
 
-    changeset.addChange(req, handler);
+    changeset.addChange(req, handler, changes);
   }
 
   private void queueDelete(
@@ -65,6 +65,7 @@ import org.apache.olingo.ext.proxy.context.EntityContext;
 import org.apache.olingo.ext.proxy.context.EntityUUID;
 import org.apache.olingo.ext.proxy.utils.ClassUtils;
 import org.apache.olingo.ext.proxy.utils.CoreUtils;
+import org.apache.olingo.ext.proxy.utils.ProxyTypeDescriptor;
 import org.apache.olingo.ext.proxy.utils.ProxyUtils;
 
 public abstract class AbstractStructuredInvocationHandler extends AbstractInvocationHandler {
@@ -75,6 +76,8 @@ public abstract class AbstractStructuredInvocationHandler extends AbstractInvoca
 
   protected final Class<?> typeRef;
 
+  private ProxyTypeDescriptor typeDescriptor;
+
   protected EntityInvocationHandler entityHandler;
 
   protected Object internal;
@@ -153,6 +156,14 @@ public abstract class AbstractStructuredInvocationHandler extends AbstractInvoca
 
   @Override
   public Object invoke(final Object proxy, final Method method, final Object[] args) throws Throwable {
+    if (typeDescriptor == null) {
+      typeDescriptor = ProxyTypeDescriptor.getInstance(typeRef);
+    }
+    final ProxyTypeDescriptor.PropertyMethod propertyMethod = typeDescriptor.getPropertyMethod(method.getName());
+    if (propertyMethod != null) {
+      return invokePropertyMethod(propertyMethod, args);
+    }
+
   	if (method.getName().startsWith("get")) {  
   		// Here need check "get"/"set" first for better get-/set- performance because
   		// the below if-statements are really time-consuming, even twice slower than "get" body.
@@ -238,6 +249,27 @@ public abstract class AbstractStructuredInvocationHandler extends AbstractInvoca
     }
   }
 
+  private Object invokePropertyMethod(final ProxyTypeDescriptor.PropertyMethod propertyMethod, final Object[] args) {
+    final Property property = propertyMethod.getProperty();
+    final NavigationProperty navProp = propertyMethod.getNavigationProperty();
+
+    if (propertyMethod.isSetter()) {
+      if (ArrayUtils.isEmpty(args) || args.length != 1) {
+        throw new IllegalArgumentException("Invalid argument");
+      }
+      if (property == null) {
+        setNavigationPropertyValue(navProp, args[0]);
+      } else {
+        setPropertyValue(property, args[0]);
+      }
+      return null;
+    }
+
+    return property == null
+        ? getNavigationPropertyValue(navProp, propertyMethod.getGetter())
+        : getPropertyValue(property.name(), propertyMethod.getType());
+  }
+
   public void delete(final String name) {
     if (baseURI != null) {
       getContext().entityContext().addFurtherDeletes(
@@ -395,6 +427,18 @@ public abstract class AbstractStructuredInvocationHandler extends AbstractInvoca
   protected void setPropertyValue(final Property property, final Object value) {
     if (EdmPrimitiveTypeKind.Stream.getFullQualifiedName().toString().equalsIgnoreCase(property.type())) {
       setStreamedProperty(property, (EdmStreamValue) value);
+    } else if (isOriginalValue(property.name(), value)) {
+      // nothing to be sent: the property is not (or no longer) modified
+      if (propertyChanges.remove(property.name()) != null) {
+        propertyCache.put(property.name(), value);
+
+        // the entity was marked as changed when the property was first set: no update is due anymore
+        final EntityInvocationHandler entityHandler = getEntityHandler();
+        if (entityHandler != null && !entityHandler.isChanged() && entityHandler.getAnnotations().isEmpty()) {
+          getContext().entityContext().resetStatus(entityHandler);
+        }
+      }
+      return;
     } else {
       addPropertyChanges(property.name(), value);
 
@@ -421,6 +465,34 @@ public abstract class AbstractStructuredInvocationHandler extends AbstractInvoca
     attach(AttachedEntityStatus.CHANGED);
   }
 
+  /**
+   * Checks whether the given value is the value of the property as loaded from the service, so that setting it does
+   * not need to be sent. Only simple values are compared: complex values and collections always count as changes.
+   */
+  private boolean isOriginalValue(final String name, final Object value) {
+    if (value instanceof Proxy || value instanceof Collection) {
+      return false;
+    }
+
+    final Object original;
+    if (propertyCache.containsKey(name)) {
+      original = propertyCache.get(name);
+    } else {
+      final ClientProperty property = getInternalProperty(name);
+      if (property == null) {
+        return false;
+      } else if (property.hasNullValue()) {
+        original = null;
+      } else if (property.hasPrimitiveValue()) {
+        original = property.getPrimitiveValue().toValue();
+      } else {
+        return false;
+      }
+    }
+
+    return value == null ? original == null : value.equals(original);
+  }
+
   private void setStreamedProperty(final Property property, final EdmStreamValue input) {
     final Object obj = streamedPropertyChanges.get(property.name());
     if (obj instanceof InputStream) {
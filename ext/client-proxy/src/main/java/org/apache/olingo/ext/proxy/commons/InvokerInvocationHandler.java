@@ -132,8 +132,7 @@ public class InvokerInvocationHandler<T, O extends Operations> extends AbstractI
         return (T) ClassUtils.returnVoid();
       }
 
-      final EdmTypeInfo returnType = new EdmTypeInfo.Builder().
-              setEdm(service.getClient().getCachedEdm()).setTypeExpression(operation.returnType()).build();
+      final EdmTypeInfo returnType = CoreUtils.getTypeInfo(service.getClient(), operation.returnType());
 
       if (returnType.isEntityType()) {
         if (returnType.isCollection()) {
@@ -248,8 +247,7 @@ public class InvokerInvocationHandler<T, O extends Operations> extends AbstractI
       invokeSelfMethod(method, args);
       return proxy;
     } else if ("operations".equals(method.getName()) && ArrayUtils.isEmpty(args)) {
-      final EdmTypeInfo returnType = new EdmTypeInfo.Builder().
-              setEdm(service.getClient().getCachedEdm()).setTypeExpression(operation.returnType()).build();
+      final EdmTypeInfo returnType = CoreUtils.getTypeInfo(service.getClient(), operation.returnType());
 
       final URI prefixURI = URIUtils.buildFunctionInvokeURI(this.baseURI, parameters);
 
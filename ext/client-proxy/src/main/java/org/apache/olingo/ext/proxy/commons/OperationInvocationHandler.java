@@ -178,8 +178,7 @@ final class OperationInvocationHandler extends AbstractInvocationHandler {
                     "Parameter " + parameter.getKey().name() + " is not nullable but a null value was provided");
           }
 
-          final EdmTypeInfo parameterType = new EdmTypeInfo.Builder().
-                  setEdm(service.getClient().getCachedEdm()).setTypeExpression(parameter.getKey().type()).build();
+          final EdmTypeInfo parameterType = CoreUtils.getTypeInfo(service.getClient(), parameter.getKey().type());
 
           final ClientValue paramValue = parameter.getValue() == null
                   ? null
@@ -190,8 +189,8 @@ final class OperationInvocationHandler extends AbstractInvocationHandler {
 
         final EdmTypeInfo returnType = edmOperation.getValue().getReturnType() == null
                 ? null
-                : new EdmTypeInfo.Builder().setEdm(service.getClient().getCachedEdm()).setTypeExpression(
-                        edmOperation.getValue().getReturnType().getType().getFullQualifiedName().toString()).build();
+                : CoreUtils.getTypeInfo(service.getClient(),
+                        edmOperation.getValue().getReturnType().getType().getFullQualifiedName().toString());
 
         final InvokerInvocationHandler handler = returnType != null
                 && (returnType.isEntityType() || returnType.isComplexType()) && operation.isComposable()
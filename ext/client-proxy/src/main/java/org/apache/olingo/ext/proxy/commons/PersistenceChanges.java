@@ -19,7 +19,9 @@
 package org.apache.olingo.ext.proxy.commons;
 
 import org.apache.olingo.client.api.communication.request.ODataBatchableRequest;
+import org.apache.olingo.client.api.domain.ClientEntity;
 
+import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.Map;
 
@@ -28,10 +30,28 @@ public class PersistenceChanges {
   private final Map<ODataBatchableRequest, EntityInvocationHandler> requests =
           new LinkedHashMap<ODataBatchableRequest, EntityInvocationHandler>();
 
+  private final Map<ODataBatchableRequest, ClientEntity> entities = new HashMap<ODataBatchableRequest, ClientEntity>();
+
   public void addChange(final ODataBatchableRequest request, final EntityInvocationHandler handler) {
     this.requests.put(request, handler);
   }
 
+  public void addChange(
+          final ODataBatchableRequest request, final EntityInvocationHandler handler, final ClientEntity entity) {
+    addChange(request, handler);
+    this.entities.put(request, entity);
+  }
+
+  /**
+   * Gets the entity sent as payload by the given request.
+   *
+   * @param request create or update request
+   * @return entity payload or <tt>null</tt> if the request was not queued with its entity
+   */
+  public ClientEntity getEntity(final ODataBatchableRequest request) {
+    return entities.get(request);
+  }
+
   public Map<ODataBatchableRequest, EntityInvocationHandler> getChanges() {
     return requests;
   }
@@ -20,78 +20,127 @@ package org.apache.olingo.ext.proxy.commons;
 
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.HashSet;
+import java.util.HashMap;
+import java.util.LinkedList;
 import java.util.List;
-import java.util.Set;
+import java.util.Map;
 
+/**
+ * Positions of the entities processed by a flush; the same entity can be registered at several positions.
+ * <br/>
+ * Lookups by entity and by position are hashed, so that flushing many entities does not scan the items over and over.
+ */
 public class TransactionItems {
 
-  private final List<EntityInvocationHandler> keys = new ArrayList<EntityInvocationHandler>();
+  private static final class Item {
 
-  private final List<Integer> values = new ArrayList<Integer>();
+    private final EntityInvocationHandler key;
 
-  public EntityInvocationHandler get(final Integer value) {
-    if (value != null && values.contains(value)) {
-      return keys.get(values.indexOf(value));
-    } else {
-      return null;
+    private final Integer value;
+
+    private boolean removed = false;
+
+    private Item(final EntityInvocationHandler key, final Integer value) {
+      this.key = key;
+      this.value = value;
     }
   }
 
+  private final List<Item> items = new ArrayList<Item>();
+
+  private final Map<EntityInvocationHandler, LinkedList<Item>> byKey =
+      new HashMap<EntityInvocationHandler, LinkedList<Item>>();
+
+  private final Map<Integer, LinkedList<Item>> byValue = new HashMap<Integer, LinkedList<Item>>();
+
+  private int size = 0;
+
+  public EntityInvocationHandler get(final Integer value) {
+    final LinkedList<Item> found = value == null ? null : byValue.get(value);
+    return found == null || found.isEmpty() ? null : found.getFirst().key;
+  }
+
   public Integer get(final EntityInvocationHandler key) {
-    if (key != null && keys.contains(key)) {
-      return values.get(keys.indexOf(key));
-    } else {
-      return null;
-    }
+    final LinkedList<Item> found = key == null ? null : byKey.get(key);
+    return found == null || found.isEmpty() ? null : found.getFirst().value;
   }
 
   public void remove(final EntityInvocationHandler key) {
-    if (keys.contains(key)) {
-      values.remove(keys.indexOf(key));
-      keys.remove(key);
+    final LinkedList<Item> found = byKey.get(key);
+    if (found != null && !found.isEmpty()) {
+      unindex(found.getFirst());
     }
   }
 
   public void normalize() {
-    final Set<Integer> toBeRemoved = new HashSet<Integer>();
-    for (EntityInvocationHandler key : keys) {
-      int i = keys.indexOf(key);
-      if (values.get(i) == null) {
-        toBeRemoved.add(i);
+    final LinkedList<Item> nullValued = byValue.get(null);
+    if (nullValued != null) {
+      for (Item item : new ArrayList<Item>(nullValued)) {
+        unindex(item);
       }
     }
 
-    for (int i : toBeRemoved) {
-      keys.remove(i);
-      values.remove(i);
+    final List<Item> retained = new ArrayList<Item>(size);
+    for (Item item : items) {
+      if (!item.removed) {
+        retained.add(item);
+      }
     }
+    items.clear();
+    items.addAll(retained);
   }
 
   public void put(final EntityInvocationHandler key, final Integer value) {
     // replace just in case of null current value; otherwise add the new entry
-    if (key != null && keys.contains(key) && values.get(keys.indexOf(key)) == null) {
-      remove(key);
+    final LinkedList<Item> found = key == null ? null : byKey.get(key);
+    if (found != null && !found.isEmpty() && found.getFirst().value == null) {
+      unindex(found.getFirst());
     }
-    keys.add(key);
-    values.add(value);
+
+    final Item item = new Item(key, value);
+    items.add(item);
+    index(byKey, key, item);
+    index(byValue, value, item);
+    size++;
   }
 
   public List<Integer> sortedValues() {
-    final List<Integer> sortedValues = new ArrayList<Integer>(values);
+    final List<Integer> sortedValues = new ArrayList<Integer>(size);
+    for (Item item : items) {
+      if (!item.removed) {
+        sortedValues.add(item.value);
+      }
+    }
     Collections.<Integer>sort(sortedValues);
     return sortedValues;
   }
 
   public boolean contains(final EntityInvocationHandler key) {
-    return keys.contains(key);
+    final LinkedList<Item> found = byKey.get(key);
+    return found != null && !found.isEmpty();
   }
 
   public int size() {
-    return keys.size();
+    return size;
   }
 
   public boolean isEmpty() {
-    return keys.isEmpty();
+    return size == 0;
+  }
+
+  private <K> void index(final Map<K, LinkedList<Item>> index, final K key, final Item item) {
+    LinkedList<Item> indexed = index.get(key);
+    if (indexed == null) {
+      indexed = new LinkedList<Item>();
+      index.put(key, indexed);
+    }
+    indexed.add(item);
+  }
+
+  private void unindex(final Item item) {
+    byKey.get(item.key).remove(item);
+    byValue.get(item.value).remove(item);
+    item.removed = true;
+    size--;
   }
 }
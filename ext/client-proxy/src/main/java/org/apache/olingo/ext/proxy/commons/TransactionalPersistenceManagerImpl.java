@@ -18,10 +18,16 @@
  */
 package org.apache.olingo.ext.proxy.commons;
 
+import java.net.URI;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
-import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 
 import org.apache.olingo.client.api.communication.ODataServerErrorException;
 import org.apache.olingo.client.api.communication.request.ODataBatchableRequest;
@@ -35,6 +41,9 @@ import org.apache.olingo.client.api.communication.response.ODataBatchResponse;
 import org.apache.olingo.client.api.communication.response.ODataEntityCreateResponse;
 import org.apache.olingo.client.api.communication.response.ODataEntityUpdateResponse;
 import org.apache.olingo.client.api.communication.response.ODataResponse;
+import org.apache.olingo.client.api.domain.ClientEntity;
+import org.apache.olingo.client.api.domain.ClientLink;
+import org.apache.olingo.client.api.domain.ClientLinkType;
 import org.apache.olingo.client.core.communication.header.ODataErrorResponseChecker;
 import org.apache.olingo.client.core.communication.request.batch.ODataChangesetResponseItem;
 import org.apache.olingo.ext.proxy.AbstractService;
@@ -56,9 +65,133 @@ public class TransactionalPersistenceManagerImpl extends AbstractPersistenceMana
 
   /**
    * Transactional changes commit.
+   * <br/>
+   * If a flush batch size is set on the service, changes are sent with several batch requests (in parallel, if
+   * requested); see {@link AbstractService#setFlushBatchSize(int)}. Unless the client is configured to continue on
+   * error, no further batch request is sent once one of them failed.
    */
   @Override
   protected void doFlush(final PersistenceChanges changes, final TransactionItems items) {
+    final List<ODataBatchableRequest> requests =
+            new ArrayList<ODataBatchableRequest>(changes.getChanges().keySet());
+    final List<Integer> positions = items.sortedValues();
+
+    final List<int[]> chunks = chunk(changes, requests, service.getFlushBatchSize());
+    if (chunks.size() > 1) {
+      LOG.debug("Flushing {} changes with {} batch requests", requests.size(), chunks.size());
+      for (int[] chunk : chunks) {
+        renumber(changes, requests, chunk[0], chunk[1]);
+      }
+    }
+
+    final boolean continueOnError = service.getClient().getConfiguration().isContinueOnError();
+    int statusCode = 0;
+    final List<ODataResponseError> errors = new ArrayList<ODataResponseError>();
+    if (chunks.size() > 1 && service.isParallelFlush()) {
+      // batch requests are sent by the executor; responses are applied to the entities by this thread only
+      final List<Future<ChunkResult>> futures = new ArrayList<Future<ChunkResult>>();
+      for (final int[] chunk : chunks) {
+        futures.add(service.getClient().getConfiguration().getExecutor().submit(new Callable<ChunkResult>() {
+          @Override
+          public ChunkResult call() {
+            return send(requests, chunk[0], chunk[1], positions);
+          }
+        }));
+      }
+
+      RuntimeException failure = null;
+      for (Future<ChunkResult> future : futures) {
+        final ChunkResult result;
+        try {
+          result = future.get();
+        } catch (CancellationException e) {
+          // not sent, since a previous batch request failed
+          continue;
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          throw new IllegalStateException(e);
+        } catch (ExecutionException e) {
+          if (failure == null) {
+            failure = e.getCause() instanceof RuntimeException
+                    ? (RuntimeException) e.getCause()
+                    : new IllegalStateException(e.getCause());
+          }
+          cancel(futures);
+          continue;
+        }
+
+        apply(result, positions, items);
+        if (!result.errors.isEmpty()) {
+          statusCode = result.statusCode;
+          errors.addAll(result.errors);
+          if (!continueOnError) {
+            cancel(futures);
+          }
+        }
+      }
+      if (failure != null) {
+        throw failure;
+      }
+    } else {
+      for (int[] chunk : chunks) {
+        final ChunkResult result = send(requests, chunk[0], chunk[1], positions);
+        apply(result, positions, items);
+        if (!result.errors.isEmpty()) {
+          statusCode = result.statusCode;
+          errors.addAll(result.errors);
+          if (!continueOnError) {
+            break;
+          }
+        }
+      }
+    }
+
+    if (!errors.isEmpty()) {
+      throw new ODataFlushException(statusCode, errors);
+    }
+  }
+
+  private void cancel(final List<Future<ChunkResult>> futures) {
+    for (Future<ChunkResult> future : futures) {
+      future.cancel(false);
+    }
+  }
+
+  /**
+   * Responses to the batch request sending the changes in [start, end), in the order of the changes.
+   */
+  static class ChunkResult {
+
+    private final int start;
+
+    private final int statusCode;
+
+    private final List<ODataResponse> responses = new ArrayList<ODataResponse>();
+
+    private final List<ODataResponseError> errors = new ArrayList<ODataResponseError>();
+
+    ChunkResult(final int start, final int statusCode) {
+      this.start = start;
+      this.statusCode = statusCode;
+    }
+
+    void add(final ODataResponse response) {
+      responses.add(response);
+    }
+
+    void addError(final ODataResponseError error) {
+      errors.add(error);
+    }
+  }
+
+  /**
+   * Sends the requests in [start, end) with a single batch request and a single change set.
+   * <br/>
+   * This method may be called by several threads at once: it must not modify any entity of the flush.
+   */
+  ChunkResult send(final List<ODataBatchableRequest> requests, final int start, final int end,
+          final List<Integer> positions) {
+
     final ODataBatchRequest request =
             service.getClient().getBatchRequestFactory().getBatchRequest(service.getClient().getServiceRoot());
     ((ODataRequest) request).setAccept(
@@ -66,11 +199,9 @@ public class TransactionalPersistenceManagerImpl extends AbstractPersistenceMana
 
     final BatchManager batchManager = (BatchManager) ((ODataStreamedRequest<?,?>) request).payloadManager();
 
-    final List<ODataRequest> requests = new ArrayList<ODataRequest>(changes.getChanges().size());
     final ODataChangeset changeset = batchManager.addChangeset();
-    for (Map.Entry<ODataBatchableRequest, EntityInvocationHandler> entry : changes.getChanges().entrySet()) {
-      changeset.addRequest(entry.getKey());
-      requests.add(entry.getKey());
+    for (ODataBatchableRequest req : requests.subList(start, end)) {
+      changeset.addRequest(req);
     }
 
     final ODataBatchResponse response = batchManager.getResponse();
@@ -81,9 +212,8 @@ public class TransactionalPersistenceManagerImpl extends AbstractPersistenceMana
       throw new ODataServerErrorException(new ResponseStatusLine(response));
     }
 
-    if (!items.isEmpty()) {
-      final List<ODataResponseError> errors = new ArrayList<ODataResponseError>();
-
+    final ChunkResult result = new ChunkResult(start, response.getStatusCode());
+    if (!positions.isEmpty()) {
       final Iterator<ODataBatchResponseItem> batchResItor = response.getBody();
       if (!batchResItor.hasNext()) {
         throw new IllegalStateException("Unexpected operation result");
@@ -96,50 +226,169 @@ public class TransactionalPersistenceManagerImpl extends AbstractPersistenceMana
 
       final ODataChangesetResponseItem chgres = (ODataChangesetResponseItem) item;
 
-      int index = 0;
-      for (final Iterator<Integer> itor = items.sortedValues().iterator(); itor.hasNext(); index++) {
-        final Integer changesetItemId = itor.next();
-        LOG.debug("Expected changeset item {}", changesetItemId);
+      for (int index = start; index < end && index < positions.size(); index++) {
+        LOG.debug("Expected changeset item {}", positions.get(index));
 
         final ODataResponse res = chgres.next();
         if (res.getStatusCode() >= 400) {
-          errors.add(new ODataResponseError(ODataErrorResponseChecker.checkResponse(
+          result.addError(new ODataResponseError(ODataErrorResponseChecker.checkResponse(
                   service.getClient(),
                   new ResponseStatusLine(res),
                   res.getRawResponse(),
                   ((ODataRequest) request).getAccept()), index, requests.get(index)));
           if (!service.getClient().getConfiguration().isContinueOnError()) {
-            throw new ODataFlushException(response.getStatusCode(), errors);
+            break;
           }
+        } else if (res instanceof ODataEntityCreateResponse && res.getStatusCode() == 201) {
+          // read the created entity before the batch response is closed
+          ((ODataEntityCreateResponse<?>) res).getBody();
         }
+        result.add(res);
+      }
+    }
+    response.close();
 
-        final EntityInvocationHandler handler = items.get(changesetItemId);
-
-        if (handler != null) {
-          if (res instanceof ODataEntityCreateResponse && (res.getStatusCode() == 201 || res
-              .getStatusCode() == 204)) {
-            if (res.getStatusCode() == 201) {
-              handler.setEntity(((ODataEntityCreateResponse<?>) res).getBody());
-              LOG.debug("Upgrade created object '{}'", handler);
-            } else {
-              handler.applyChanges();
-            }
-          } else if (res instanceof ODataEntityUpdateResponse && (res.getStatusCode() == 200 || res
-              .getStatusCode() == 204)) {
-            if (res.getStatusCode() == 201) {
-              handler.setEntity(((ODataEntityUpdateResponse<?>) res).getBody());
-              LOG.debug("Upgrade updated object '{}'", handler);
-            } else {
-              handler.applyChanges();
-            }
-          }
+    return result;
+  }
+
+  private void apply(final ChunkResult result, final List<Integer> positions, final TransactionItems items) {
+    for (int i = 0; i < result.responses.size(); i++) {
+      apply(items.get(positions.get(result.start + i)), result.responses.get(i));
+    }
+  }
+
+  private void apply(final EntityInvocationHandler handler, final ODataResponse res) {
+    if (handler != null) {
+      if (res instanceof ODataEntityCreateResponse && (res.getStatusCode() == 201 || res
+          .getStatusCode() == 204)) {
+        if (res.getStatusCode() == 201) {
+          handler.setEntity(((ODataEntityCreateResponse<?>) res).getBody());
+          LOG.debug("Upgrade created object '{}'", handler);
+        } else {
+          handler.applyChanges();
+        }
+      } else if (res instanceof ODataEntityUpdateResponse && (res.getStatusCode() == 200 || res
+          .getStatusCode() == 204)) {
+        if (res.getStatusCode() == 201) {
+          handler.setEntity(((ODataEntityUpdateResponse<?>) res).getBody());
+          LOG.debug("Upgrade updated object '{}'", handler);
+        } else {
+          handler.applyChanges();
+        }
+      }
+    }
+  }
+
+  /**
+   * Splits the requests into ranges of at most <tt>size</tt> requests (if possible) such that no request refers by
+   * content id to a request in another range.
+   */
+  private List<int[]> chunk(final PersistenceChanges changes, final List<ODataBatchableRequest> requests,
+          final int size) {
+
+    final List<int[]> chunks = new ArrayList<int[]>();
+    if (size <= 0 || requests.size() <= size) {
+      chunks.add(new int[] {0, requests.size()});
+      return chunks;
+    }
+
+    // index of the last request referring to each request
+    final int[] lastReference = new int[requests.size()];
+    for (int i = 0; i < requests.size(); i++) {
+      lastReference[i] = i;
+      for (Integer contentId : getContentIdReferences(changes, requests.get(i))) {
+        if (contentId > 0 && contentId <= i) {
+          lastReference[contentId - 1] = i;
         }
       }
+    }
 
-      if (!errors.isEmpty()) {
-        throw new ODataFlushException(response.getStatusCode(), errors);
+    int start = 0;
+    int reach = 0;
+    for (int i = 0; i < requests.size(); i++) {
+      reach = Math.max(reach, lastReference[i]);
+      if (i == requests.size() - 1 || (i + 1 - start >= size && reach <= i)) {
+        chunks.add(new int[] {start, i + 1});
+        start = i + 1;
       }
     }
-    response.close();
+    return chunks;
+  }
+
+  private Set<Integer> getContentIdReferences(final PersistenceChanges changes, final ODataBatchableRequest request) {
+    final Set<Integer> references = new HashSet<Integer>();
+
+    final Integer uriReference = getContentIdReference(request.getURI());
+    if (uriReference != null) {
+      references.add(uriReference);
+    }
+
+    final ClientEntity entity = changes.getEntity(request);
+    if (entity != null) {
+      for (ClientLink link : entity.getNavigationLinks()) {
+        final Integer linkReference = getContentIdReference(link.getLink());
+        if (linkReference != null) {
+          references.add(linkReference);
+        }
+      }
+    }
+
+    return references;
+  }
+
+  /**
+   * Content ids restart from 1 in each change set: shifts the references of the requests in [start, end).
+   */
+  private void renumber(final PersistenceChanges changes, final List<ODataBatchableRequest> requests,
+          final int start, final int end) {
+
+    if (start == 0) {
+      return;
+    }
+
+    for (ODataBatchableRequest request : requests.subList(start, end)) {
+      final URI uri = request.getURI();
+      if (getContentIdReference(uri) != null) {
+        ((ODataRequest) request).setURI(shift(uri, start));
+      }
+
+      final ClientEntity entity = changes.getEntity(request);
+      if (entity != null) {
+        final List<ClientLink> links = new ArrayList<ClientLink>(entity.getNavigationLinks());
+        for (int i = 0; i < links.size(); i++) {
+          final ClientLink link = links.get(i);
+          if (getContentIdReference(link.getLink()) != null) {
+            links.set(i, link.getType() == ClientLinkType.ENTITY_SET_NAVIGATION
+                    ? service.getClient().getObjectFactory().
+                    newEntitySetNavigationLink(link.getName(), shift(link.getLink(), start))
+                    : service.getClient().getObjectFactory().
+                    newEntityNavigationLink(link.getName(), shift(link.getLink(), start)));
+          }
+        }
+        entity.getNavigationLinks().clear();
+        entity.getNavigationLinks().addAll(links);
+      }
+    }
+  }
+
+  private static Integer getContentIdReference(final URI uri) {
+    final String value = uri == null ? null : uri.toASCIIString();
+    if (value == null || !value.startsWith("$")) {
+      return null;
+    }
+
+    final int slashIndex = value.indexOf('/');
+    try {
+      return Integer.valueOf(value.substring(1, slashIndex < 0 ? value.length() : slashIndex));
+    } catch (NumberFormatException e) {
+      return null;
+    }
+  }
+
+  private static URI shift(final URI uri, final int offset) {
+    final String value = uri.toASCIIString();
+    final int slashIndex = value.indexOf('/');
+    final int contentId = getContentIdReference(uri);
+    return URI.create("$" + (contentId - offset) + (slashIndex < 0 ? "" : value.substring(slashIndex)));
   }
 }
@@ -194,6 +194,17 @@ public class EntityContext implements Iterable<AttachedEntity> {
     }
   }
 
+  /**
+   * Turns a changed entity back to attached, once all its pending changes have been reverted.
+   *
+   * @param entity attached entity; nothing is done unless its status is {@link AttachedEntityStatus#CHANGED}.
+   */
+  public void resetStatus(final EntityInvocationHandler entity) {
+    if (allAttachedEntities.get(entity) == AttachedEntityStatus.CHANGED) {
+      allAttachedEntities.put(entity, AttachedEntityStatus.ATTACHED);
+    }
+  }
+
   /**
    * Checks if an entity is already attached.
    *
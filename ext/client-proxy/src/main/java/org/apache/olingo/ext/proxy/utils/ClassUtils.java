@@ -20,9 +20,10 @@ package org.apache.olingo.ext.proxy.utils;
 
 import org.apache.olingo.ext.proxy.api.annotations.CompoundKey;
 import org.apache.olingo.ext.proxy.api.annotations.EntityType;
-import org.apache.olingo.ext.proxy.api.annotations.Key;
 import org.apache.olingo.ext.proxy.api.annotations.KeyRef;
 import org.apache.olingo.ext.proxy.api.annotations.Namespace;
+import org.apache.olingo.ext.proxy.api.annotations.NavigationProperty;
+import org.apache.olingo.ext.proxy.api.annotations.Property;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -35,8 +36,6 @@ import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Proxy;
 import java.lang.reflect.Type;
 import java.lang.reflect.TypeVariable;
-import java.util.HashSet;
-import java.util.Set;
 
 public final class ClassUtils {
 
@@ -45,6 +44,11 @@ public final class ClassUtils {
    */
   private static final Logger LOG = LoggerFactory.getLogger(ClassUtils.class);
 
+  /**
+   * Instance returned by void methods, created once.
+   */
+  private static volatile Void voidInstance;
+
   private ClassUtils() {
     // Empty private constructor for static utility classes
   }
@@ -78,6 +82,13 @@ public final class ClassUtils {
 
   public static Method findGetterByAnnotatedName(
           final Class<?> clazz, final Class<? extends Annotation> ann, final String name) {
+    if (clazz.isInterface() && (ann == Property.class || ann == NavigationProperty.class)) {
+      final ProxyTypeDescriptor.PropertyMethod getter = ann == Property.class
+              ? ProxyTypeDescriptor.getInstance(clazz).getProperty(name)
+              : ProxyTypeDescriptor.getInstance(clazz).getNavigationProperty(name);
+      return getter == null ? null : getter.getGetter();
+    }
+
     final Method[] methods = clazz.getMethods();
 
     Method result = null;
@@ -118,17 +129,8 @@ public final class ClassUtils {
     Class<?> res = getCompoundKeyRef(entityTypeRef);
 
     if (res == null) {
-      final Set<Method> keyGetters = new HashSet<Method>();
-
-      for (Method method : entityTypeRef.getDeclaredMethods()) {
-        if (method.getName().startsWith("get") && method.getAnnotation(Key.class) != null) {
-          keyGetters.add(method);
-        }
-      }
-
-      if (keyGetters.size() == 1) {
-        res = keyGetters.iterator().next().getReturnType();
-      } else {
+      res = ProxyTypeDescriptor.getInstance(entityTypeRef).getKeyRef();
+      if (res == null) {
         throw new IllegalStateException(entityTypeRef.getSimpleName() + "'s key reference not found");
       }
     }
@@ -158,9 +160,12 @@ public final class ClassUtils {
           throws NoSuchMethodException, InstantiationException, IllegalAccessException,
           IllegalArgumentException, InvocationTargetException {
 
-    final Constructor<Void> voidConstructor = Void.class.getDeclaredConstructor();
-    voidConstructor.setAccessible(true);
-    return voidConstructor.newInstance();
+    if (voidInstance == null) {
+      final Constructor<Void> voidConstructor = Void.class.getDeclaredConstructor();
+      voidConstructor.setAccessible(true);
+      voidInstance = voidConstructor.newInstance();
+    }
+    return voidInstance;
   }
 
   public static Type[] getTypeArguments(final Type type) {
@@ -19,6 +19,7 @@
 package org.apache.olingo.ext.proxy.utils;
 
 import java.lang.annotation.Annotation;
+import java.lang.ref.SoftReference;
 import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
@@ -35,6 +36,9 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeSet;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.apache.commons.lang3.StringUtils;
 import org.apache.olingo.client.api.EdmEnabledODataClient;
@@ -49,6 +53,7 @@ import org.apache.olingo.client.api.domain.ClientLink;
 import org.apache.olingo.client.api.domain.ClientPrimitiveValue;
 import org.apache.olingo.client.api.domain.ClientProperty;
 import org.apache.olingo.client.api.domain.ClientValue;
+import org.apache.olingo.commons.api.edm.Edm;
 import org.apache.olingo.commons.api.edm.EdmElement;
 import org.apache.olingo.commons.api.edm.EdmPrimitiveTypeException;
 import org.apache.olingo.commons.api.edm.EdmPrimitiveTypeKind;
@@ -66,7 +71,6 @@ import org.apache.olingo.ext.proxy.api.annotations.ComplexType;
 import org.apache.olingo.ext.proxy.api.annotations.CompoundKey;
 import org.apache.olingo.ext.proxy.api.annotations.CompoundKeyElement;
 import org.apache.olingo.ext.proxy.api.annotations.EnumType;
-import org.apache.olingo.ext.proxy.api.annotations.Key;
 import org.apache.olingo.ext.proxy.api.annotations.Namespace;
 import org.apache.olingo.ext.proxy.api.annotations.NavigationProperty;
 import org.apache.olingo.ext.proxy.api.annotations.Property;
@@ -84,10 +88,48 @@ public final class CoreUtils {
    */
   private static final Logger LOG = LoggerFactory.getLogger(CoreUtils.class);
 
+  /**
+   * Type information already resolved, per EDM and type expression. The type information references the EDM, so it
+   * is only softly referenced: otherwise the EDM keys would never become unreachable.
+   */
+  private static final Map<Edm, SoftReference<ConcurrentMap<String, EdmTypeInfo>>> TYPE_INFOS =
+      new WeakHashMap<Edm, SoftReference<ConcurrentMap<String, EdmTypeInfo>>>();
+
   private CoreUtils() {
     // Empty private constructor for static utility classes
   }
 
+  /**
+   * Gets the type information for the given type expression, resolved against the client's EDM only once.
+   *
+   * @param client client.
+   * @param typeExpression type expression, e.g. <tt>Collection(Edm.String)</tt>.
+   * @return type information.
+   */
+  public static EdmTypeInfo getTypeInfo(final EdmEnabledODataClient client, final String typeExpression) {
+    final Edm edm = client.getCachedEdm();
+    if (edm == null) {
+      return new EdmTypeInfo.Builder().setTypeExpression(typeExpression).build();
+    }
+
+    ConcurrentMap<String, EdmTypeInfo> typeInfos;
+    synchronized (TYPE_INFOS) {
+      final SoftReference<ConcurrentMap<String, EdmTypeInfo>> reference = TYPE_INFOS.get(edm);
+      typeInfos = reference == null ? null : reference.get();
+      if (typeInfos == null) {
+        typeInfos = new ConcurrentHashMap<String, EdmTypeInfo>();
+        TYPE_INFOS.put(edm, new SoftReference<ConcurrentMap<String, EdmTypeInfo>>(typeInfos));
+      }
+    }
+
+    EdmTypeInfo typeInfo = typeInfos.get(typeExpression);
+    if (typeInfo == null) {
+      typeInfo = new EdmTypeInfo.Builder().setEdm(edm).setTypeExpression(typeExpression).build();
+      typeInfos.putIfAbsent(typeExpression, typeInfo);
+    }
+    return typeInfo;
+  }
+
   public static ClientValue getODataValue(
       final EdmEnabledODataClient client, final EdmTypeInfo type, final Object obj) {
 
@@ -96,8 +138,7 @@ public final class CoreUtils {
     if (type.isCollection()) {
       value = client.getObjectFactory().newCollectionValue(type.getFullQualifiedName().toString());
 
-      final EdmTypeInfo intType = new EdmTypeInfo.Builder().
-          setEdm(client.getCachedEdm()).setTypeExpression(type.getFullQualifiedName().toString()).build();
+      final EdmTypeInfo intType = getTypeInfo(client, type.getFullQualifiedName().toString());
 
       for (Object collectionItem : (Collection<?>) obj) {
         if (intType.isPrimitiveType()) {
@@ -177,10 +218,9 @@ public final class CoreUtils {
     } else {
       final EdmType edmType = edmProperty.getType();
 
-      type = new EdmTypeInfo.Builder().setEdm(client.getCachedEdm()).setTypeExpression(
-          edmProperty.isCollection()
-              ? "Collection(" + edmType.getFullQualifiedName().toString() + ")"
-              : edmType.getFullQualifiedName().toString()).build();
+      type = getTypeInfo(client, edmProperty.isCollection()
+          ? "Collection(" + edmType.getFullQualifiedName().toString() + ")"
+          : edmType.getFullQualifiedName().toString());
     }
 
     return getODataProperty(client, property, type, obj);
@@ -196,8 +236,7 @@ public final class CoreUtils {
     } else {
       final EdmTypeInfo valueType = type == null
           ? guessTypeFromObject(client, obj)
-          : new EdmTypeInfo.Builder().setEdm(client.getCachedEdm()).
-              setTypeExpression(type.getFullQualifiedName().toString()).build();
+          : getTypeInfo(client, type.getFullQualifiedName().toString());
 
       annotation = new ClientAnnotationImpl(term, getODataValue(client, valueType, obj));
     }
@@ -241,22 +280,20 @@ public final class CoreUtils {
   private static EdmTypeInfo guessTypeFromObject(
       final EdmEnabledODataClient client, final Object obj) {
 
-    final EdmTypeInfo.Builder edmTypeInfo = new EdmTypeInfo.Builder().setEdm(client.getCachedEdm());
-
     if (Collection.class.isAssignableFrom(obj.getClass())) {
       final EdmTypeInfo type = guessPrimitiveType(client, ClassUtils.extractTypeArg(obj.getClass(),
           EntityCollection.class, ComplexCollection.class, Collection.class));
-      return edmTypeInfo.setTypeExpression("Collection(" + type.getFullQualifiedName() + ")").build();
+      return getTypeInfo(client, "Collection(" + type.getFullQualifiedName() + ")");
     } else if (obj instanceof Proxy) {
       final Class<?> typeRef = obj.getClass().getInterfaces()[0];
       final String ns = typeRef.getAnnotation(Namespace.class).value();
       final String name = typeRef.getAnnotation(ComplexType.class).name();
-      return edmTypeInfo.setTypeExpression(new FullQualifiedName(ns, name).toString()).build();
+      return getTypeInfo(client, new FullQualifiedName(ns, name).toString());
     } else if (obj.getClass().getAnnotation(EnumType.class) != null) {
       final Class<?> typeRef = obj.getClass();
       final String ns = typeRef.getAnnotation(Namespace.class).value();
       final String name = typeRef.getAnnotation(EnumType.class).name();
-      return edmTypeInfo.setTypeExpression(new FullQualifiedName(ns, name).toString()).build();
+      return getTypeInfo(client, new FullQualifiedName(ns, name).toString());
     } else {
       return guessPrimitiveType(client, obj.getClass());
     }
@@ -269,7 +306,7 @@ public final class CoreUtils {
       final Class<?> target = EdmPrimitiveTypeFactory.getInstance(kind).getDefaultType();
 
       if (clazz.equals(target)) {
-        return new EdmTypeInfo.Builder().setEdm(client.getCachedEdm()).setTypeExpression(kind.toString()).build();
+        return getTypeInfo(client, kind.toString());
       } else if (target.isAssignableFrom(clazz)) {
         bckCandidate = kind;
       } else if (target == Timestamp.class && kind == EdmPrimitiveTypeKind.DateTimeOffset) {
@@ -280,7 +317,7 @@ public final class CoreUtils {
     if (bckCandidate == null) {
       throw new IllegalArgumentException(clazz.getSimpleName() + " is not a simple type");
     } else {
-      return new EdmTypeInfo.Builder().setEdm(client.getCachedEdm()).setTypeExpression(bckCandidate.toString()).build();
+      return getTypeInfo(client, bckCandidate.toString());
     }
   }
 
@@ -363,6 +400,12 @@ public final class CoreUtils {
   }
 
   private static Class<?> getPropertyClass(final Class<?> entityClass, final String propertyName) {
+    final ProxyTypeDescriptor.PropertyMethod property =
+        ProxyTypeDescriptor.getInstance(entityClass).getProperty(propertyName);
+    if (property != null) {
+      return property.getGetter().getReturnType();
+    }
+
     Class<?> propertyClass = null;
     try {
       final Method getter = entityClass.getMethod("get" + StringUtils.capitalize(propertyName));
@@ -638,15 +681,8 @@ public final class CoreUtils {
   }
 
   private static String firstValidEntityKey(final Class<?> entityTypeRef) {
-    for (Method method : entityTypeRef.getDeclaredMethods()) {
-      if (method.getAnnotation(Key.class) != null) {
-        final Annotation ann = method.getAnnotation(Property.class);
-        if (ann != null) {
-          return ((Property) ann).name();
-        }
-      }
-    }
-    return null;
+    final List<String> keys = ProxyTypeDescriptor.getInstance(entityTypeRef).getKeyPropertyNames();
+    return keys.isEmpty() ? null : keys.get(0);
   }
 
   public static URI getMediaEditLink(final String name, final ClientEntity entity) {
@@ -0,0 +1,348 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.ext.proxy.utils;
+
+import java.lang.ref.WeakReference;
+import java.lang.reflect.Method;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+
+import org.apache.olingo.ext.proxy.api.PropertyAccessors;
+import org.apache.olingo.ext.proxy.api.annotations.CompoundKey;
+import org.apache.olingo.ext.proxy.api.annotations.EntityType;
+import org.apache.olingo.ext.proxy.api.annotations.Key;
+import org.apache.olingo.ext.proxy.api.annotations.KeyRef;
+import org.apache.olingo.ext.proxy.api.annotations.NavigationProperty;
+import org.apache.olingo.ext.proxy.api.annotations.Property;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Getters and setters of an entity or complex type interface with their property annotations, key flags and key
+ * reference, resolved once per interface.
+ * <br/>
+ * Getters are taken from the {@link PropertyAccessors} generated into the interface (and its super-interfaces) or,
+ * when no accessors have been generated, from the annotated getters of the interface.
+ */
+public final class ProxyTypeDescriptor {
+
+  private static final Logger LOG = LoggerFactory.getLogger(ProxyTypeDescriptor.class);
+
+  private static final String ACCESSORS_CLASS_SUFFIX = "$Accessors";
+
+  /**
+   * Descriptors by interface. As a descriptor references its interface (through the getters), the descriptors are
+   * only weakly referenced here, so that the interfaces and their class loader can be unloaded; the services keep
+   * the descriptors of their types (see {@link #init(Collection)}).
+   */
+  private static final Map<Class<?>, WeakReference<ProxyTypeDescriptor>> DESCRIPTORS =
+      new WeakHashMap<Class<?>, WeakReference<ProxyTypeDescriptor>>();
+
+  /**
+   * Getter or setter of a (navigation) property.
+   */
+  public static final class PropertyMethod {
+
+    private final Method getter;
+
+    private final Type type;
+
+    private final Property property;
+
+    private final NavigationProperty navigationProperty;
+
+    private final boolean key;
+
+    private final boolean setter;
+
+    private PropertyMethod(final Method getter, final Property property, final NavigationProperty navigationProperty,
+        final boolean setter) {
+
+      this.getter = getter;
+      this.type = getter.getGenericReturnType();
+      this.property = property;
+      this.navigationProperty = navigationProperty;
+      this.key = getter.getAnnotation(Key.class) != null;
+      this.setter = setter;
+    }
+
+    /**
+     * @return the getter (also for setters).
+     */
+    public Method getGetter() {
+      return getter;
+    }
+
+    /**
+     * @return generic return type of the getter.
+     */
+    public Type getType() {
+      return type;
+    }
+
+    /**
+     * @return property annotation; <tt>null</tt> for navigation properties.
+     */
+    public Property getProperty() {
+      return property;
+    }
+
+    /**
+     * @return navigation property annotation; <tt>null</tt> for structural properties.
+     */
+    public NavigationProperty getNavigationProperty() {
+      return navigationProperty;
+    }
+
+    /**
+     * @return whether the property is (part of) the entity key.
+     */
+    public boolean isKey() {
+      return key;
+    }
+
+    public boolean isSetter() {
+      return setter;
+    }
+
+    private PropertyMethod toSetter() {
+      return new PropertyMethod(getter, property, navigationProperty, true);
+    }
+  }
+
+  private final Map<String, PropertyMethod> methods;
+
+  private final Map<String, PropertyMethod> properties;
+
+  private final Map<String, PropertyMethod> navigationProperties;
+
+  private final List<String> keyPropertyNames;
+
+  private final Class<?> keyRef;
+
+  private ProxyTypeDescriptor(final Class<?> typeRef, final Map<String, PropertyMethod> methods,
+      final Map<String, PropertyMethod> properties, final Map<String, PropertyMethod> navigationProperties) {
+
+    this.methods = methods;
+    this.properties = properties;
+    this.navigationProperties = navigationProperties;
+
+    final List<String> keys = new ArrayList<String>();
+    Class<?> singleKeyRef = null;
+    for (PropertyMethod getter : properties.values()) {
+      if (getter.isKey()) {
+        keys.add(getter.getProperty().name());
+        singleKeyRef = getter.getGetter().getReturnType();
+      }
+    }
+    this.keyPropertyNames = Collections.unmodifiableList(keys);
+
+    final Class<?> compoundKeyRef = getCompoundKeyRef(typeRef);
+    this.keyRef = compoundKeyRef == null && keys.size() == 1 ? singleKeyRef : compoundKeyRef;
+  }
+
+  /**
+   * Gets the descriptor of the given interface.
+   *
+   * @param typeRef entity or complex type interface.
+   * @return descriptor (built on first request).
+   */
+  public static ProxyTypeDescriptor getInstance(final Class<?> typeRef) {
+    final ProxyTypeDescriptor descriptor = get(typeRef);
+    if (descriptor != null) {
+      return descriptor;
+    }
+
+    final ProxyTypeDescriptor built = build(typeRef);
+    synchronized (DESCRIPTORS) {
+      final ProxyTypeDescriptor previous = get(typeRef);
+      if (previous != null) {
+        return previous;
+      }
+      DESCRIPTORS.put(typeRef, new WeakReference<ProxyTypeDescriptor>(built));
+      return built;
+    }
+  }
+
+  private static ProxyTypeDescriptor get(final Class<?> typeRef) {
+    synchronized (DESCRIPTORS) {
+      final WeakReference<ProxyTypeDescriptor> reference = DESCRIPTORS.get(typeRef);
+      return reference == null ? null : reference.get();
+    }
+  }
+
+  /**
+   * Builds in advance the descriptors of the given interfaces.
+   * The descriptors are kept only as long as the returned list is referenced.
+   *
+   * @param typeRefs entity or complex type interfaces.
+   * @return the descriptors.
+   */
+  public static List<ProxyTypeDescriptor> init(final Collection<Class<?>> typeRefs) {
+    final List<ProxyTypeDescriptor> descriptors = new ArrayList<ProxyTypeDescriptor>(typeRefs.size());
+    for (Class<?> typeRef : typeRefs) {
+      descriptors.add(getInstance(typeRef));
+    }
+    return descriptors;
+  }
+
+  /**
+   * Gets the property getter or setter with the given name.
+   *
+   * @param methodName method name.
+   * @return property method or <tt>null</tt> if the method is not a known getter or setter.
+   */
+  public PropertyMethod getPropertyMethod(final String methodName) {
+    return methods.get(methodName);
+  }
+
+  /**
+   * Gets the getter of the structural property with the given name.
+   *
+   * @param name property name, as declared by {@link Property#name()}.
+   * @return getter or <tt>null</tt> if not found.
+   */
+  public PropertyMethod getProperty(final String name) {
+    return properties.get(name);
+  }
+
+  /**
+   * Gets the getter of the navigation property with the given name.
+   *
+   * @param name navigation property name, as declared by {@link NavigationProperty#name()}.
+   * @return getter or <tt>null</tt> if not found.
+   */
+  public PropertyMethod getNavigationProperty(final String name) {
+    return navigationProperties.get(name);
+  }
+
+  /**
+   * @return names of the key properties; empty for complex types.
+   */
+  public List<String> getKeyPropertyNames() {
+    return keyPropertyNames;
+  }
+
+  /**
+   * @return compound key class or type of the single key property; <tt>null</tt> if no key reference is available.
+   */
+  public Class<?> getKeyRef() {
+    return keyRef;
+  }
+
+  private static Class<?> getCompoundKeyRef(final Class<?> typeRef) {
+    final KeyRef ann = typeRef.getAnnotation(KeyRef.class);
+    return typeRef.getAnnotation(EntityType.class) == null
+        || ann == null || ann.value().getAnnotation(CompoundKey.class) == null
+        ? null
+        : ann.value();
+  }
+
+  private static ProxyTypeDescriptor build(final Class<?> typeRef) {
+    final Set<String> getterNames = new LinkedHashSet<String>();
+    collectAccessors(typeRef, getterNames);
+    if (getterNames.isEmpty()) {
+      for (Method method : typeRef.getMethods()) {
+        if (method.getName().startsWith("get") && method.getParameterTypes().length == 0
+            && (method.getAnnotation(Property.class) != null
+            || method.getAnnotation(NavigationProperty.class) != null)) {
+
+          getterNames.add(method.getName());
+        }
+      }
+    }
+
+    final Map<String, PropertyMethod> methods = new HashMap<String, PropertyMethod>();
+    final Map<String, PropertyMethod> properties = new LinkedHashMap<String, PropertyMethod>();
+    final Map<String, PropertyMethod> navigationProperties = new HashMap<String, PropertyMethod>();
+    for (String getterName : getterNames) {
+      final Method getter = getGetter(typeRef, getterName);
+      if (getter == null) {
+        continue;
+      }
+
+      final Property property = ClassUtils.getAnnotation(Property.class, getter);
+      final NavigationProperty navProp =
+          property == null ? ClassUtils.getAnnotation(NavigationProperty.class, getter) : null;
+      if (property != null || navProp != null) {
+        final PropertyMethod propertyMethod = new PropertyMethod(getter, property, navProp, false);
+        methods.put(getterName, propertyMethod);
+        methods.put(getSetterName(getterName), propertyMethod.toSetter());
+        if (property == null) {
+          navigationProperties.put(navProp.name(), propertyMethod);
+        } else {
+          properties.put(property.name(), propertyMethod);
+        }
+      }
+    }
+    return new ProxyTypeDescriptor(typeRef, methods, properties, navigationProperties);
+  }
+
+  private static void collectAccessors(final Class<?> type, final Set<String> getterNames) {
+    for (Class<?> superType : type.getInterfaces()) {
+      collectAccessors(superType, getterNames);
+    }
+
+    final PropertyAccessors accessors = loadAccessors(type);
+    if (accessors != null) {
+      getterNames.addAll(accessors.getProperties().keySet());
+      getterNames.addAll(accessors.getNavigationProperties().keySet());
+    }
+  }
+
+  private static PropertyAccessors loadAccessors(final Class<?> type) {
+    if (type.getClassLoader() == null) {
+      return null;
+    }
+    try {
+      final Class<?> accessorsClass =
+          Class.forName(type.getName() + ACCESSORS_CLASS_SUFFIX, true, type.getClassLoader());
+      return PropertyAccessors.class.isAssignableFrom(accessorsClass)
+          ? (PropertyAccessors) accessorsClass.newInstance()
+          : null;
+    } catch (final ClassNotFoundException e) {
+      return null;
+    } catch (final Exception e) {
+      LOG.warn("Error instantiating property accessors of {}", type.getName(), e);
+      return null;
+    }
+  }
+
+  private static Method getGetter(final Class<?> typeRef, final String getterName) {
+    try {
+      return typeRef.getMethod(getterName);
+    } catch (final NoSuchMethodException e) {
+      LOG.warn("Getter {} not found in {}", getterName, typeRef.getName());
+      return null;
+    }
+  }
+
+  private static String getSetterName(final String getterName) {
+    return "set" + getterName.substring(3);
+  }
+}
@@ -0,0 +1,162 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.ext.proxy.commons;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Type;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.olingo.client.api.domain.ClientProperty;
+import org.apache.olingo.ext.proxy.AbstractService;
+import org.apache.olingo.ext.proxy.api.annotations.Key;
+import org.apache.olingo.ext.proxy.api.annotations.NavigationProperty;
+import org.apache.olingo.ext.proxy.api.annotations.Property;
+import org.apache.olingo.ext.proxy.utils.ClassUtils;
+import org.junit.Test;
+
+public class AbstractStructuredInvocationHandlerTest {
+
+  interface Person {
+
+    @Key
+    @Property(name = "PersonID", type = "Edm.Int32", nullable = false)
+    Integer getPersonID();
+
+    void setPersonID(Integer value);
+
+    @Property(name = "Emails", type = "Edm.String")
+    Collection<String> getEmails();
+
+    void setEmails(Collection<String> value);
+
+    @NavigationProperty(name = "Parent", type = "NS.Person",
+        targetSchema = "NS", targetContainer = "Container", targetEntitySet = "People")
+    Person getParent();
+
+    void setParent(Person value);
+  }
+
+  interface Employee extends Person {
+
+    @Property(name = "Title", type = "Edm.String")
+    String getTitle();
+
+    void setTitle(String value);
+  }
+
+  /**
+   * Records the property access a proxy method is dispatched to.
+   */
+  private static class RecordingHandler extends AbstractStructuredInvocationHandler {
+
+    private String call;
+
+    RecordingHandler(final Class<?> typeRef) {
+      super(typeRef, (AbstractService<?>) null);
+    }
+
+    @Override
+    protected Object getPropertyValue(final String name, final Type type) {
+      call = "get " + name + " " + type;
+      return null;
+    }
+
+    @Override
+    protected void setPropertyValue(final Property property, final Object value) {
+      call = "set " + property.name() + " " + value;
+    }
+
+    @Override
+    protected Object getNavigationPropertyValue(final NavigationProperty property, final Method getter) {
+      call = "navigate " + property.name() + " " + getter.getGenericReturnType();
+      return null;
+    }
+
+    @Override
+    protected void load() {
+      // nothing to load
+    }
+
+    @Override
+    protected <T extends ClientProperty> List<T> getInternalProperties() {
+      return Collections.emptyList();
+    }
+
+    @Override
+    protected ClientProperty getInternalProperty(final String name) {
+      return null;
+    }
+  }
+
+  /**
+   * Resolves the property access of a proxy method reflectively, from the annotations of the getter.
+   */
+  private String resolveReflectively(final Class<?> typeRef, final Method method, final Object[] args)
+      throws Exception {
+    final boolean setter = method.getName().startsWith("set");
+    final Method getter = typeRef.getMethod(setter ? method.getName().replaceFirst("set", "get") : method.getName());
+    final Property property = ClassUtils.getAnnotation(Property.class, getter);
+    if (property != null) {
+      return setter
+          ? "set " + property.name() + " " + args[0]
+          : "get " + property.name() + " " + getter.getGenericReturnType();
+    }
+    final NavigationProperty navProp = ClassUtils.getAnnotation(NavigationProperty.class, getter);
+    assertNotNull(navProp);
+    return "navigate " + navProp.name() + " " + getter.getGenericReturnType();
+  }
+
+  private Object[] createArguments(final Method method) {
+    if (method.getParameterTypes().length == 0) {
+      return null;
+    }
+    final Class<?> type = method.getParameterTypes()[0];
+    return new Object[] { type == Integer.class ? Integer.valueOf(42)
+        : type == String.class ? "value"
+        : Collections.singletonList("a@b.c") };
+  }
+
+  private void assertDispatch(final Class<?> typeRef) throws Throwable {
+    int checked = 0;
+    for (Method method : typeRef.getMethods()) {
+      // setting navigation properties needs a persistence context
+      if (method.getName().startsWith("set") && method.getParameterTypes()[0].isInterface()
+          && !Collection.class.isAssignableFrom(method.getParameterTypes()[0])) {
+        continue;
+      }
+      final Object[] args = createArguments(method);
+      final RecordingHandler handler = new RecordingHandler(typeRef);
+      handler.invoke(null, method, args);
+      assertEquals(method.getName(), resolveReflectively(typeRef, method, args), handler.call);
+      checked++;
+    }
+    assertEquals(typeRef == Employee.class ? 7 : 5, checked);
+  }
+
+  @Test
+  public void dispatchLikeReflection() throws Throwable {
+    assertDispatch(Person.class);
+    assertDispatch(Employee.class);
+  }
+}
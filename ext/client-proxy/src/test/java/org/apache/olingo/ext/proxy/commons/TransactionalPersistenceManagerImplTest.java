@@ -0,0 +1,265 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.ext.proxy.commons;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.apache.olingo.client.api.EdmEnabledODataClient;
+import org.apache.olingo.client.api.communication.request.ODataBatchableRequest;
+import org.apache.olingo.client.api.communication.request.cud.UpdateType;
+import org.apache.olingo.client.api.domain.ClientEntity;
+import org.apache.olingo.client.api.domain.ClientLink;
+import org.apache.olingo.commons.api.edm.FullQualifiedName;
+import org.apache.olingo.commons.api.edm.constants.ODataServiceVersion;
+import org.apache.olingo.commons.api.ex.ODataRuntimeException;
+import org.apache.olingo.ext.proxy.AbstractService;
+import org.apache.olingo.ext.proxy.api.AbstractTerm;
+import org.apache.olingo.ext.proxy.api.ODataFlushException;
+import org.apache.olingo.ext.proxy.api.ODataResponseError;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TransactionalPersistenceManagerImplTest {
+
+  private static final String SERVICE_ROOT = "http://localhost/service";
+
+  private static class TestService extends AbstractService<EdmEnabledODataClient> {
+
+    TestService() {
+      super("", null, ODataServiceVersion.V40, SERVICE_ROOT, true);
+    }
+
+    @Override
+    public Class<?> getEntityTypeClass(final String name) {
+      return null;
+    }
+
+    @Override
+    public Class<?> getComplexTypeClass(final String name) {
+      return null;
+    }
+
+    @Override
+    public Class<?> getEnumTypeClass(final String name) {
+      return null;
+    }
+
+    @Override
+    public Class<? extends AbstractTerm> getTermClass(final String name) {
+      return null;
+    }
+  }
+
+  /**
+   * Records the batch requests instead of sending them; the batch requests starting at the given indexes fail.
+   */
+  private static class RecordingManager extends TransactionalPersistenceManagerImpl {
+
+    private static final long serialVersionUID = 1L;
+
+    private final List<String> sent = Collections.synchronizedList(new ArrayList<String>());
+
+    private final Set<Integer> failing = new HashSet<Integer>();
+
+    private PersistenceChanges changes;
+
+    RecordingManager(final AbstractService<?> service) {
+      super(service);
+    }
+
+    @Override
+    ChunkResult send(final List<ODataBatchableRequest> requests, final int start, final int end,
+        final List<Integer> positions) {
+
+      final StringBuilder chunk = new StringBuilder().append(start).append('-').append(end);
+      for (ODataBatchableRequest request : requests.subList(start, end)) {
+        chunk.append(' ').append(request.getURI().toASCIIString());
+        final ClientEntity entity = changes.getEntity(request);
+        if (entity != null) {
+          for (ClientLink link : entity.getNavigationLinks()) {
+            chunk.append(' ').append(link.getName()).append('=').append(link.getLink().toASCIIString());
+          }
+        }
+      }
+      sent.add(chunk.toString());
+
+      final ChunkResult result = new ChunkResult(start, 200);
+      if (failing.contains(start)) {
+        result.addError(new ODataResponseError(new ODataRuntimeException("Failed"), start, requests.get(start)));
+      }
+      return result;
+    }
+
+    void flush(final PersistenceChanges changes) {
+      this.changes = changes;
+      doFlush(changes, new TransactionItems());
+    }
+  }
+
+  private TestService service;
+
+  private RecordingManager manager;
+
+  @Before
+  public void setUp() {
+    service = new TestService();
+    manager = new RecordingManager(service);
+  }
+
+  private ClientEntity newEntity() {
+    return service.getClient().getObjectFactory().newEntity(new FullQualifiedName("NS", "Person"));
+  }
+
+  private void create(final PersistenceChanges changes, final ClientEntity entity) {
+    changes.addChange(service.getClient().getCUDRequestFactory().
+        getEntityCreateRequest(URI.create(SERVICE_ROOT + "/People"), entity), null, entity);
+  }
+
+  private void update(final PersistenceChanges changes, final String uri) {
+    final ClientEntity entity = newEntity();
+    changes.addChange(service.getClient().getCUDRequestFactory().
+        getEntityUpdateRequest(URI.create(uri), UpdateType.PATCH, entity), null, entity);
+  }
+
+  private PersistenceChanges creates(final int count) {
+    final PersistenceChanges changes = new PersistenceChanges();
+    for (int i = 0; i < count; i++) {
+      create(changes, newEntity());
+    }
+    return changes;
+  }
+
+  private List<String> ranges() {
+    final List<String> ranges = new ArrayList<String>();
+    for (String chunk : manager.sent) {
+      ranges.add(chunk.substring(0, chunk.indexOf(' ')));
+    }
+    Collections.sort(ranges);
+    return ranges;
+  }
+
+  @Test
+  public void chunkBoundaries() {
+    manager.flush(creates(5));
+    assertEquals(Arrays.asList("0-5"), ranges());
+
+    service.setFlushBatchSize(5);
+    manager.sent.clear();
+    manager.flush(creates(5));
+    assertEquals(Arrays.asList("0-5"), ranges());
+
+    service.setFlushBatchSize(2);
+    manager.sent.clear();
+    manager.flush(creates(5));
+    assertEquals(Arrays.asList("0-2", "2-4", "4-5"), ranges());
+
+    manager.sent.clear();
+    manager.flush(creates(6));
+    assertEquals(Arrays.asList("0-2", "2-4", "4-6"), ranges());
+  }
+
+  @Test
+  public void referencesAcrossChunks() {
+    final PersistenceChanges changes = creates(2);
+    update(changes, "$1");
+    create(changes, newEntity());
+    final ClientEntity linking = newEntity();
+    linking.getNavigationLinks().add(
+        service.getClient().getObjectFactory().newEntityNavigationLink("Friend", URI.create("$4")));
+    create(changes, linking);
+    update(changes, "$5/Name");
+
+    service.setFlushBatchSize(2);
+    manager.flush(changes);
+
+    // requests are kept with the requests they refer to, and refer to them by their content id in their change set
+    final String people = SERVICE_ROOT + "/People";
+    assertEquals(Arrays.asList(
+        "0-3 " + people + " " + people + " $1",
+        "3-6 " + people + " " + people + " Friend=$1 $2/Name"),
+        manager.sent);
+  }
+
+  @Test
+  public void failureInMiddleChunk() {
+    service.setFlushBatchSize(2);
+    manager.failing.add(2);
+
+    try {
+      manager.flush(creates(6));
+      fail("Flush error expected");
+    } catch (ODataFlushException e) {
+      assertEquals(1, e.getErrors().size());
+      assertEquals(2, e.getErrors().get(0).getIndex());
+    }
+    // the last batch request is not sent
+    assertEquals(Arrays.asList("0-2", "2-4"), ranges());
+
+    service.getClient().getConfiguration().setContinueOnError(true);
+    manager.sent.clear();
+    try {
+      manager.flush(creates(6));
+      fail("Flush error expected");
+    } catch (ODataFlushException e) {
+      assertEquals(1, e.getErrors().size());
+      assertEquals(2, e.getErrors().get(0).getIndex());
+    }
+    assertEquals(Arrays.asList("0-2", "2-4", "4-6"), ranges());
+  }
+
+  @Test
+  public void failureInMiddleChunkParallel() {
+    service.setFlushBatchSize(2);
+    service.setParallelFlush(true);
+    manager.failing.add(2);
+
+    try {
+      manager.flush(creates(6));
+      fail("Flush error expected");
+    } catch (ODataFlushException e) {
+      assertEquals(1, e.getErrors().size());
+      assertEquals(2, e.getErrors().get(0).getIndex());
+    }
+    // the last batch request may have been sent already
+    assertTrue(ranges().containsAll(Arrays.asList("0-2", "2-4")));
+
+    service.getClient().getConfiguration().setContinueOnError(true);
+    manager.sent.clear();
+    manager.failing.add(0);
+    try {
+      manager.flush(creates(6));
+      fail("Flush error expected");
+    } catch (ODataFlushException e) {
+      assertEquals(2, e.getErrors().size());
+      assertEquals(0, e.getErrors().get(0).getIndex());
+      assertEquals(2, e.getErrors().get(1).getIndex());
+    }
+    assertEquals(Arrays.asList("0-2", "2-4", "4-6"), ranges());
+  }
+}
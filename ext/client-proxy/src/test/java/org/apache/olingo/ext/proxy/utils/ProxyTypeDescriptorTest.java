@@ -0,0 +1,241 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.ext.proxy.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.olingo.client.api.EdmEnabledODataClient;
+import org.apache.olingo.client.core.ODataClientFactory;
+import org.apache.olingo.commons.api.edm.Edm;
+import org.apache.olingo.commons.core.edm.EdmTypeInfo;
+import org.apache.olingo.ext.proxy.api.PropertyAccessors;
+import org.apache.olingo.ext.proxy.api.annotations.CompoundKey;
+import org.apache.olingo.ext.proxy.api.annotations.CompoundKeyElement;
+import org.apache.olingo.ext.proxy.api.annotations.EntityType;
+import org.apache.olingo.ext.proxy.api.annotations.Key;
+import org.apache.olingo.ext.proxy.api.annotations.KeyRef;
+import org.apache.olingo.ext.proxy.api.annotations.NavigationProperty;
+import org.apache.olingo.ext.proxy.api.annotations.Property;
+import org.junit.Test;
+
+public class ProxyTypeDescriptorTest {
+
+  private static final String METADATA = "<edmx:Edmx xmlns:edmx=\"http://docs.oasis-open.org/odata/ns/edmx\""
+      + " Version=\"4.0\"><edmx:DataServices>"
+      + "<Schema xmlns=\"http://docs.oasis-open.org/odata/ns/edm\" Namespace=\"NS\">"
+      + "<EntityType Name=\"Person\"><Key><PropertyRef Name=\"PersonID\"/></Key>"
+      + "<Property Name=\"PersonID\" Type=\"Edm.Int32\" Nullable=\"false\"/></EntityType>"
+      + "</Schema></edmx:DataServices></edmx:Edmx>";
+
+  @EntityType(name = "Person")
+  interface Person {
+
+    @Key
+    @Property(name = "PersonID", type = "Edm.Int32", nullable = false)
+    Integer getPersonID();
+
+    void setPersonID(Integer value);
+
+    @NavigationProperty(name = "Parent", type = "NS.Person",
+        targetSchema = "NS", targetContainer = "Container", targetEntitySet = "People")
+    Person getParent();
+
+    void setParent(Person value);
+  }
+
+  @EntityType(name = "Employee", baseType = "NS.Person")
+  interface Employee extends Person {
+
+    @Property(name = "Title", type = "Edm.String")
+    String getTitle();
+
+    void setTitle(String value);
+  }
+
+  @CompoundKey
+  public static class OrderDetailKey {
+
+    private Integer orderID;
+
+    private Integer productID;
+
+    @CompoundKeyElement(name = "OrderID", position = 0)
+    public Integer getOrderID() {
+      return orderID;
+    }
+
+    public void setOrderID(final Integer orderID) {
+      this.orderID = orderID;
+    }
+
+    @CompoundKeyElement(name = "ProductID", position = 1)
+    public Integer getProductID() {
+      return productID;
+    }
+
+    public void setProductID(final Integer productID) {
+      this.productID = productID;
+    }
+  }
+
+  @EntityType(name = "OrderDetail")
+  @KeyRef(OrderDetailKey.class)
+  interface OrderDetail {
+
+    @Key
+    @Property(name = "OrderID", type = "Edm.Int32", nullable = false)
+    Integer getOrderID();
+
+    @Key
+    @Property(name = "ProductID", type = "Edm.Int32", nullable = false)
+    Integer getProductID();
+  }
+
+  @EntityType(name = "Product")
+  interface Product {
+
+    @Property(name = "Name", type = "Edm.String")
+    String getName();
+
+    void setName(String value);
+
+    @NavigationProperty(name = "Category", type = "NS.Category",
+        targetSchema = "NS", targetContainer = "Container", targetEntitySet = "Categories")
+    Object getCategory();
+
+    // not listed by the accessors below
+    @Property(name = "Internal", type = "Edm.String")
+    String getInternal();
+
+    /**
+     * As generated by pojogen-maven-plugin with generateAccessors.
+     */
+    final class Accessors implements PropertyAccessors {
+
+      private static final Map<String, String> PROPERTIES = new HashMap<String, String>();
+
+      private static final Map<String, String> NAVIGATION_PROPERTIES = new HashMap<String, String>();
+
+      static {
+        PROPERTIES.put("getName", "Name");
+        NAVIGATION_PROPERTIES.put("getCategory", "Category");
+      }
+
+      @Override
+      public Map<String, String> getProperties() {
+        return PROPERTIES;
+      }
+
+      @Override
+      public Map<String, String> getNavigationProperties() {
+        return NAVIGATION_PROPERTIES;
+      }
+    }
+  }
+
+  @Test
+  public void cachedPerInterface() {
+    final ProxyTypeDescriptor person = ProxyTypeDescriptor.getInstance(Person.class);
+    assertSame(person, ProxyTypeDescriptor.getInstance(Person.class));
+
+    final List<ProxyTypeDescriptor> initialized =
+        ProxyTypeDescriptor.init(Arrays.<Class<?>> asList(Person.class, Employee.class));
+    assertSame(person, initialized.get(0));
+    assertSame(initialized.get(1), ProxyTypeDescriptor.getInstance(Employee.class));
+  }
+
+  @Test
+  public void propertyMethods() throws Exception {
+    final ProxyTypeDescriptor employee = ProxyTypeDescriptor.getInstance(Employee.class);
+
+    assertEquals("Title", employee.getPropertyMethod("getTitle").getProperty().name());
+    assertTrue(employee.getPropertyMethod("setTitle").isSetter());
+    assertEquals("PersonID", employee.getPropertyMethod("setPersonID").getProperty().name());
+    assertEquals("Parent", employee.getPropertyMethod("getParent").getNavigationProperty().name());
+    assertNull(employee.getPropertyMethod("getClass"));
+    assertNotNull(employee.getProperty("PersonID"));
+    assertNull(employee.getProperty("Parent"));
+    assertNotNull(employee.getNavigationProperty("Parent"));
+
+    assertEquals(Employee.class.getMethod("getTitle"),
+        ClassUtils.findGetterByAnnotatedName(Employee.class, Property.class, "Title"));
+  }
+
+  @Test
+  public void generatedAccessors() {
+    final ProxyTypeDescriptor product = ProxyTypeDescriptor.getInstance(Product.class);
+
+    assertEquals("Name", product.getPropertyMethod("getName").getProperty().name());
+    assertTrue(product.getPropertyMethod("setName").isSetter());
+    assertEquals("Category", product.getPropertyMethod("getCategory").getNavigationProperty().name());
+    // getters are taken from the accessors, without scanning the interface
+    assertNull(product.getPropertyMethod("getInternal"));
+  }
+
+  @Test
+  public void inheritedKey() {
+    assertEquals(Collections.singletonList("PersonID"), ProxyTypeDescriptor.getInstance(Person.class)
+        .getKeyPropertyNames());
+    // the key getter is declared by the base type only
+    assertEquals(Collections.singletonList("PersonID"), ProxyTypeDescriptor.getInstance(Employee.class)
+        .getKeyPropertyNames());
+    assertEquals(Integer.class, ClassUtils.getKeyRef(Person.class));
+    assertEquals(Integer.class, ClassUtils.getKeyRef(Employee.class));
+  }
+
+  @Test
+  public void compoundKey() {
+    final ProxyTypeDescriptor orderDetail = ProxyTypeDescriptor.getInstance(OrderDetail.class);
+    assertEquals(2, orderDetail.getKeyPropertyNames().size());
+    assertTrue(orderDetail.getKeyPropertyNames().containsAll(Arrays.asList("OrderID", "ProductID")));
+    assertEquals(OrderDetailKey.class, orderDetail.getKeyRef());
+    assertEquals(OrderDetailKey.class, ClassUtils.getKeyRef(OrderDetail.class));
+  }
+
+  @Test
+  public void typeInfoCachedPerEdm() throws Exception {
+    final Edm edm = ODataClientFactory.getClient().getReader()
+        .readMetadata(new ByteArrayInputStream(METADATA.getBytes("UTF-8")));
+    final EdmEnabledODataClient client = ODataClientFactory.getEdmEnabledClient("http://host/service", edm, null);
+
+    final EdmTypeInfo person = CoreUtils.getTypeInfo(client, "NS.Person");
+    assertTrue(person.isEntityType());
+    assertSame(person, CoreUtils.getTypeInfo(client, "NS.Person"));
+    assertTrue(CoreUtils.getTypeInfo(client, "Collection(NS.Person)").isCollection());
+
+    // another EDM instance gets its own type information
+    final Edm other = ODataClientFactory.getClient().getReader()
+        .readMetadata(new ByteArrayInputStream(METADATA.getBytes("UTF-8")));
+    final EdmTypeInfo otherPerson =
+        CoreUtils.getTypeInfo(ODataClientFactory.getEdmEnabledClient("http://host/service", other, null), "NS.Person");
+    assertTrue(otherPerson != person);
+    assertSame(other.getEntityType(otherPerson.getFullQualifiedName()), otherPerson.getEntityType());
+  }
+}
@@ -88,6 +88,13 @@ public abstract class AbstractPOJOGenMojo extends AbstractMojo {
   @Parameter(property = "basePackage", required = false)
   protected String basePackage;
 
+  /**
+   * Whether property accessors should be generated into entity and complex type interfaces; they allow the proxy
+   * to dispatch getters and setters without reflective lookups.
+   */
+  @Parameter(property = "generateAccessors", defaultValue = "false", required = false)
+  protected boolean generateAccessors;
+
   protected final Set<String> namespaces = new HashSet<String>();
 
   protected static String TOOL_DIR = "ojc-plugin";
@@ -147,6 +154,7 @@ public abstract class AbstractPOJOGenMojo extends AbstractMojo {
     ctx.put("namespace", getUtility().getNamespace());
     ctx.put("namespaces", namespaces);
     ctx.put("odataVersion", getVersion());
+    ctx.put("generateAccessors", generateAccessors);
 
     return ctx;
   }
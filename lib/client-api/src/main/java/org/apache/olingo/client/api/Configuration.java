@@ -20,8 +20,10 @@ package org.apache.olingo.client.api;
 
 import java.util.concurrent.ExecutorService;
 
+import org.apache.olingo.client.api.http.AsyncHttpClientFactory;
 import org.apache.olingo.client.api.http.HttpClientFactory;
 import org.apache.olingo.client.api.http.HttpUriRequestFactory;
+import org.apache.olingo.client.api.http.ResponseCache;
 import org.apache.olingo.commons.api.format.ContentType;
 
 /**
@@ -266,4 +268,52 @@ public interface Configuration {
    * @param executorService new executor services.
    */
   void setExecutor(ExecutorService executorService);
+
+  /**
+   * Gets the factory of non-blocking HTTP clients used by asynchronously executed requests.
+   *
+   * @return provided implementation; <tt>null</tt> if asynchronously executed requests are run by the executor
+   * service (default).
+   */
+  AsyncHttpClientFactory getAsyncHttpClientFactory();
+
+  /**
+   * Sets the factory of non-blocking HTTP clients used by asynchronously executed requests.
+   *
+   * @param factory implementation of <tt>AsyncHttpClientFactory</tt>; <tt>null</tt> to run asynchronously executed
+   * requests by the executor service.
+   * @see AsyncHttpClientFactory
+   * @see org.apache.olingo.client.api.communication.request.ODataNonBlockingRequest
+   */
+  void setAsyncHttpClientFactory(AsyncHttpClientFactory factory);
+
+  /**
+   * Gets the cache of GET responses.
+   *
+   * @return response cache; <tt>null</tt> if responses are not cached (default).
+   */
+  ResponseCache getResponseCache();
+
+  /**
+   * Sets the cache of GET responses.
+   *
+   * @param responseCache response cache; <tt>null</tt> to disable caching.
+   * @see ResponseCache
+   */
+  void setResponseCache(ResponseCache responseCache);
+
+  /**
+   * Gets the maximum size of a response body stored in the response cache.
+   *
+   * @return maximum size in bytes; default is 1 MB.
+   */
+  long getResponseCacheMaxEntitySize();
+
+  /**
+   * Sets the maximum size of a response body stored in the response cache.
+   * Larger responses and responses without known content length are not cached.
+   *
+   * @param maxEntitySize maximum size in bytes.
+   */
+  void setResponseCacheMaxEntitySize(long maxEntitySize);
 }
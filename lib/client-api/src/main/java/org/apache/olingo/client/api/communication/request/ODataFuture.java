@@ -0,0 +1,39 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.client.api.communication.request;
+
+import java.util.concurrent.Future;
+
+/**
+ * Future result of an asynchronously executed request which notifies registered callbacks on completion,
+ * so that callers do not need to block a thread in {@link #get()} for each request in flight.
+ *
+ * @param <T> OData response type.
+ */
+public interface ODataFuture<T> extends Future<T> {
+
+  /**
+   * Registers a callback notified on completion.
+   * If the request has already been completed the callback is notified immediately.
+   *
+   * @param callback callback.
+   * @return the current future.
+   */
+  ODataFuture<T> addCallback(ODataFutureCallback<? super T> callback);
+}
@@ -0,0 +1,44 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.client.api.communication.request;
+
+/**
+ * Callback notified when an asynchronously executed request has completed.
+ * <p>
+ * Callbacks are invoked by the thread completing the request (or by the thread registering the callback if the
+ * request has already been completed); they should therefore return quickly and must not block.
+ *
+ * @param <T> OData response type.
+ */
+public interface ODataFutureCallback<T> {
+
+  /**
+   * Called when the request has been executed successfully.
+   *
+   * @param response response of the request.
+   */
+  void onSuccess(T response);
+
+  /**
+   * Called when the request has failed or has been cancelled.
+   *
+   * @param cause the failure; a {@link java.util.concurrent.CancellationException} if the request has been cancelled.
+   */
+  void onFailure(Throwable cause);
+}
@@ -0,0 +1,44 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.client.api.communication.request;
+
+import org.apache.olingo.client.api.communication.response.ODataResponse;
+
+/**
+ * OData request which can be executed without blocking a thread while waiting for the response.
+ * <br/>
+ * All basic requests created by the request factories of the client implement this interface.
+ * If an {@link org.apache.olingo.client.api.http.AsyncHttpClientFactory} is configured the request is sent through
+ * the non-blocking HTTP client it provides; otherwise it is executed by the configured executor service.
+ *
+ * @param <T> OData response type corresponding to the request implementation.
+ * @see org.apache.olingo.client.api.Configuration#setAsyncHttpClientFactory
+ */
+public interface ODataNonBlockingRequest<T extends ODataResponse> {
+
+  /**
+   * Async request execute notifying the given callback on completion.
+   * <br/>
+   * When the request is sent through a non-blocking HTTP client the callback is notified by a thread of that client.
+   *
+   * @param callback callback notified with the response or the failure.
+   * @return <code>ODataFuture&lt;ODataResponse&gt;</code> about the executed request.
+   */
+  ODataFuture<T> asyncExecute(ODataFutureCallback<? super T> callback);
+}
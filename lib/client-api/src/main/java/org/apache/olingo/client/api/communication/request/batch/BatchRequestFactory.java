@@ -28,4 +28,22 @@ public interface BatchRequestFactory {
    * @return new ODataBatchRequest instance.
    */
   ODataBatchRequest getBatchRequest(String serviceRoot);
+
+  /**
+   * Gets a batch request object instance whose body is written directly into the connection.
+   *
+   * @param serviceRoot service root.
+   * @return new ODataStreamingBatchRequest instance.
+   */
+  ODataStreamingBatchRequest getStreamingBatchRequest(String serviceRoot);
+
+  /**
+   * Gets a coalescer sending concurrently submitted retrieve requests together as batch requests.
+   *
+   * @param serviceRoot service root.
+   * @param windowMillis time in milliseconds pending requests are held back at most.
+   * @param maxBatchSize number of pending requests which are sent immediately.
+   * @return new ODataRequestCoalescer instance.
+   */
+  ODataRequestCoalescer getRequestCoalescer(String serviceRoot, long windowMillis, int maxBatchSize);
 }
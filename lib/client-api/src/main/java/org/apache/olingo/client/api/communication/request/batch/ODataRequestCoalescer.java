@@ -0,0 +1,60 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.client.api.communication.request.batch;
+
+import java.util.concurrent.Future;
+
+import org.apache.olingo.client.api.communication.request.retrieve.ODataRetrieveRequest;
+import org.apache.olingo.client.api.communication.response.ODataRetrieveResponse;
+
+/**
+ * Collects retrieve requests submitted by (possibly) concurrent callers and sends them together as one batch request.
+ * <p>
+ * Submitted requests are held back until either the configured time window has elapsed since the first pending
+ * request or the configured maximum number of requests is pending; then all pending requests are sent as single
+ * items of one batch request and the response items are dispatched to the futures returned by
+ * {@link #submit(ODataRetrieveRequest)}. A window with just one request is executed as plain request.
+ * <p>
+ * The payload of each response is read completely before its future is completed, so responses can be consumed
+ * independently of each other. A failed item completes its future with an
+ * {@link java.util.concurrent.ExecutionException} (the cause is an
+ * {@link org.apache.olingo.client.api.communication.ODataClientErrorException} for error responses);
+ * all other items are not affected.
+ */
+public interface ODataRequestCoalescer {
+
+  /**
+   * Submits a retrieve request to be sent with the next batch.
+   *
+   * @param <T> type of the retrieved result.
+   * @param request retrieve request.
+   * @return future response.
+   */
+  <T> Future<ODataRetrieveResponse<T>> submit(ODataRetrieveRequest<T> request);
+
+  /**
+   * Sends all pending requests immediately.
+   */
+  void flush();
+
+  /**
+   * Sends all pending requests and stops the coalescer; further submissions are rejected.
+   */
+  void close();
+}
@@ -0,0 +1,79 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.client.api.communication.request.batch;
+
+import java.util.Iterator;
+
+import org.apache.olingo.client.api.communication.request.ODataBasicRequest;
+import org.apache.olingo.client.api.communication.request.ODataBatchableRequest;
+import org.apache.olingo.client.api.communication.response.ODataBatchResponse;
+
+/**
+ * Batch request whose multipart body is written directly into the connection when the request is executed.
+ * <p>
+ * In contrast to {@link ODataBatchRequest} no piped streams and no background thread are used; the items are only
+ * registered when they are added and serialized one after the other while the body is sent.
+ * Items can also be provided lazily by iterators, so that large change sets never need to be held in memory.
+ * <p>
+ * If items are provided by iterators the request body is not repeatable, i.e., it can not be sent again
+ * (e.g., after an authentication challenge).
+ */
+public interface ODataStreamingBatchRequest extends ODataBasicRequest<ODataBatchResponse> {
+
+  /**
+   * Adds a single request as batch item.
+   *
+   * @param request request to be batched.
+   * @return the current batch request.
+   */
+  ODataStreamingBatchRequest addRequest(ODataBatchableRequest request);
+
+  /**
+   * Adds the provided requests as single batch items; the iterator is consumed while the body is sent.
+   *
+   * @param requests requests to be batched.
+   * @return the current batch request.
+   */
+  ODataStreamingBatchRequest addRequests(Iterator<? extends ODataBatchableRequest> requests);
+
+  /**
+   * Adds a change set with the given requests.
+   *
+   * @param requests requests of the change set (GET requests are not allowed).
+   * @return the current batch request.
+   */
+  ODataStreamingBatchRequest addChangeset(Iterable<? extends ODataBatchableRequest> requests);
+
+  /**
+   * Adds a change set with the provided requests; the iterator is consumed while the body is sent.
+   *
+   * @param requests requests of the change set (GET requests are not allowed).
+   * @return the current batch request.
+   */
+  ODataStreamingBatchRequest addChangeset(Iterator<? extends ODataBatchableRequest> requests);
+
+  /**
+   * Sets whether the service should continue processing after a failed batch item.
+   * The default is taken from the client configuration.
+   *
+   * @param continueOnError 'TRUE' to continue processing after errors.
+   * @return the current batch request.
+   */
+  ODataStreamingBatchRequest setContinueOnError(boolean continueOnError);
+}
@@ -27,5 +27,15 @@ import org.apache.olingo.client.api.domain.ClientEntitySet;
  */
 public interface ODataEntitySetIteratorRequest<ES extends ClientEntitySet, E extends ClientEntity>
         extends ODataRetrieveRequest<ClientEntitySetIterator<ES, E>> {
-//No additional methods needed for now.
+
+  /**
+   * Sets the number of pages retrieved ahead while iterating.
+   * <br/>
+   * With a depth greater than zero the iterator returned as response body continues with the pages referenced by
+   * the next links, retrieving up to the given number of pages in parallel with the iteration.
+   * The default is 0, i.e., only the entities of the first page are iterated.
+   *
+   * @param prefetchDepth number of pages retrieved ahead.
+   */
+  void setPrefetchDepth(int prefetchDepth);
 }
@@ -24,11 +24,19 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.net.URI;
+import java.util.Collections;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 
 import org.apache.commons.io.IOUtils;
 import org.apache.olingo.client.api.ODataClient;
+import org.apache.olingo.client.api.communication.request.retrieve.ODataEntitySetRequest;
 import org.apache.olingo.client.api.data.ResWrap;
 import org.apache.olingo.client.api.serialization.ODataDeserializerException;
 import org.apache.olingo.commons.api.Constants;
@@ -41,6 +49,12 @@ import org.slf4j.LoggerFactory;
  * OData entity set iterator class.
  * <br/>
  * <b>Please don't forget to call the <tt>close()>/</tt> method when not needed any more.</b>
+ * <br/>
+ * With a prefetch depth greater than zero the iterator continues with the pages referenced by the next links:
+ * as soon as the next link of a page is known the next page is retrieved and parsed by the executor of the
+ * client configuration while the caller consumes the current one. At most <i>depth</i> pages are retrieved ahead,
+ * so memory consumption is bounded by the page size of the service. The headers of the original request
+ * (e.g., for authorization or preferences) are sent with each of these requests.
  *
  * @param <E> concrete ODataEntity implementation
  * @param <T> concrete ODataEntitySet implementation
@@ -69,6 +83,32 @@ public class ClientEntitySetIterator<T extends ClientEntitySet, E extends Client
 
   private boolean available = true;
 
+  private final int prefetchDepth;
+
+  /**
+   * Headers of the original request, sent with the requests for the pages retrieved ahead.
+   */
+  private final Map<String, String> headers;
+
+  /**
+   * Pages retrieved ahead (in progress or completed); guarded by itself.
+   */
+  private final LinkedList<Future<ClientEntitySet>> prefetched = new LinkedList<Future<ClientEntitySet>>();
+
+  /**
+   * Next link of the last retrieved page which has not been scheduled yet because of the prefetch depth.
+   */
+  private URI unscheduled;
+
+  private boolean prefetchClosed = false;
+
+  /**
+   * Entities of the current prefetched page.
+   */
+  private Iterator<ClientEntity> prefetchedEntities;
+
+  private URI next;
+
   /**
    * Constructor.
    *
@@ -78,8 +118,41 @@ public class ClientEntitySetIterator<T extends ClientEntitySet, E extends Client
    */
   public ClientEntitySetIterator(final ODataClient odataClient, final InputStream stream,
                                  final ContentType contentType) {
+    this(odataClient, stream, contentType, 0);
+  }
 
+  /**
+   * Constructor.
+   *
+   * @param odataClient client instance getting this request
+   * @param stream source stream.
+   * @param contentType OData format.
+   * @param prefetchDepth number of pages retrieved ahead; 0 to iterate just the entities of the given stream.
+   */
+  public ClientEntitySetIterator(final ODataClient odataClient, final InputStream stream,
+                                 final ContentType contentType, final int prefetchDepth) {
+    this(odataClient, stream, contentType, prefetchDepth, Collections.<String, String> emptyMap());
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param odataClient client instance getting this request
+   * @param stream source stream.
+   * @param contentType OData format.
+   * @param prefetchDepth number of pages retrieved ahead; 0 to iterate just the entities of the given stream.
+   * @param headers headers of the original request, to be sent with the requests for the pages retrieved ahead.
+   */
+  public ClientEntitySetIterator(final ODataClient odataClient, final InputStream stream,
+                                 final ContentType contentType, final int prefetchDepth,
+                                 final Map<String, String> headers) {
+
+    if (prefetchDepth < 0) {
+      throw new IllegalArgumentException("Prefetch depth must not be negative");
+    }
     this.odataClient = odataClient;
+    this.prefetchDepth = prefetchDepth;
+    this.headers = new LinkedHashMap<String, String>(headers);
     this.stream = stream;
     this.contentType = contentType;
     this.osEntitySet = new ByteArrayOutputStream();
@@ -106,6 +179,10 @@ public class ClientEntitySetIterator<T extends ClientEntitySet, E extends Client
   @SuppressWarnings("unchecked")
   @Override
   public boolean hasNext() {
+    if (entitySet != null && prefetchDepth > 0) {
+      return hasNextPrefetched();
+    }
+
     if (available && cached == null) {
       if (contentType.isCompatible(ContentType.APPLICATION_ATOM_SVC)
           || contentType.isCompatible(ContentType.APPLICATION_ATOM_XML)) {
@@ -122,17 +199,97 @@ public class ClientEntitySetIterator<T extends ClientEntitySet, E extends Client
         } catch (final ODataDeserializerException e) {
           available = false;
         }
-        close();
+        closeStream();
+
+        if (entitySet != null && prefetchDepth > 0) {
+          next = entitySet.getNext();
+          schedule(next);
+          return hasNextPrefetched();
+        }
       }
     }
 
     return available;
   }
 
+  private boolean hasNextPrefetched() {
+    while (prefetchedEntities == null || !prefetchedEntities.hasNext()) {
+      final Future<ClientEntitySet> page;
+      synchronized (prefetched) {
+        page = prefetched.poll();
+        if (page != null && unscheduled != null) {
+          final URI link = unscheduled;
+          unscheduled = null;
+          submit(link);
+        }
+      }
+      if (page == null) {
+        return false;
+      }
+
+      final ClientEntitySet pageEntitySet;
+      try {
+        pageEntitySet = page.get();
+      } catch (final ExecutionException e) {
+        close();
+        if (e.getCause() instanceof RuntimeException) {
+          throw (RuntimeException) e.getCause();
+        }
+        throw new IllegalStateException(e.getCause());
+      } catch (final InterruptedException e) {
+        close();
+        Thread.currentThread().interrupt();
+        throw new IllegalStateException(e);
+      }
+      prefetchedEntities = pageEntitySet.getEntities().iterator();
+      next = pageEntitySet.getNext();
+    }
+    return true;
+  }
+
+  /**
+   * Retrieves the page referenced by the given next link ahead, if the prefetch depth allows it.
+   *
+   * @param link next link; <tt>null</tt> at the end of the entity set.
+   */
+  private void schedule(final URI link) {
+    synchronized (prefetched) {
+      if (link == null || prefetchClosed) {
+        return;
+      }
+      if (prefetched.size() < prefetchDepth) {
+        submit(link);
+      } else {
+        unscheduled = link;
+      }
+    }
+  }
+
+  private void submit(final URI link) {
+    LOG.debug("Prefetching page {}", link);
+    prefetched.add(odataClient.getConfiguration().getExecutor().submit(new Callable<ClientEntitySet>() {
+      @Override
+      public ClientEntitySet call() {
+        final ODataEntitySetRequest<ClientEntitySet> request =
+            odataClient.getRetrieveRequestFactory().getEntitySetRequest(link);
+        for (Map.Entry<String, String> header : headers.entrySet()) {
+          request.addCustomHeader(header.getKey(), header.getValue());
+        }
+        request.setAccept(contentType.toContentTypeString());
+        final ClientEntitySet page = request.execute().getBody();
+        schedule(page.getNext());
+        return page;
+      }
+    }));
+  }
+
+  @SuppressWarnings("unchecked")
   @Override
   public E next() {
     if (hasNext()) {
-      @SuppressWarnings("unchecked")
+      if (prefetchedEntities != null) {
+        return (E) prefetchedEntities.next();
+      }
       final E res = (E) odataClient.getBinder().getODataEntity(cached);
       cached = null;
       return res;
@@ -150,15 +307,30 @@ public class ClientEntitySetIterator<T extends ClientEntitySet, E extends Client
   }
 
   /**
-   * Closes the current iterator.
+   * Closes the current iterator; pages retrieved ahead are discarded.
    */
   public void close() {
+    closeStream();
+    synchronized (prefetched) {
+      prefetchClosed = true;
+      unscheduled = null;
+      for (Future<ClientEntitySet> page : prefetched) {
+        page.cancel(true);
+      }
+      prefetched.clear();
+    }
+  }
+
+  private void closeStream() {
     IOUtils.closeQuietly(stream);
     IOUtils.closeQuietly(osEntitySet);
   }
 
   /**
    * Gets the next link if exists.
+   * <br/>
+   * With a prefetch depth greater than zero this is the next link of the last page whose entities have been
+   * iterated, i.e., <tt>null</tt> after the last page.
    *
    * @return next link if exists; null otherwise.
    */
@@ -166,7 +338,7 @@ public class ClientEntitySetIterator<T extends ClientEntitySet, E extends Client
     if (entitySet == null) {
       throw new IllegalStateException("Iteration must be completed in order to retrieve the link for next page");
     }
-    return entitySet.getNext();
+    return prefetchDepth > 0 ? next : entitySet.getNext();
   }
 
   private ResWrap<Entity> nextJSONEntityFromEntitySet(final InputStream input, final OutputStream osEntitySet) {
@@ -0,0 +1,46 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.client.api.http;
+
+import java.util.concurrent.Future;
+
+import org.apache.http.HttpResponse;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.concurrent.FutureCallback;
+
+/**
+ * Non-blocking HTTP client: the request is sent and the response is received without holding a thread while
+ * waiting for the server.
+ *
+ * @see AsyncHttpClientFactory
+ */
+public interface AsyncHttpClient {
+
+  /**
+   * Sends the given request.
+   * <br/>
+   * The callback is notified by a thread of the client once the response has been received completely; the body
+   * of the response is available in memory at that time.
+   *
+   * @param request request to be sent.
+   * @param callback callback notified with the response or the failure.
+   * @return <code>Future&lt;HttpResponse&gt;</code> about the sent request.
+   */
+  Future<HttpResponse> execute(HttpUriRequest request, FutureCallback<HttpResponse> callback);
+}
@@ -0,0 +1,113 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.client.api.http;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Raw HTTP response held by a {@link ResponseCache}: status, headers and the complete body.
+ */
+public class CachedResponse implements Serializable {
+
+  private static final long serialVersionUID = -5326540424108361283L;
+
+  private final int statusCode;
+
+  private final String reasonPhrase;
+
+  private final LinkedHashMap<String, ArrayList<String>> headers;
+
+  private final byte[] body;
+
+  private final String eTag;
+
+  private volatile long expires;
+
+  /**
+   * Constructor.
+   *
+   * @param statusCode HTTP status code.
+   * @param reasonPhrase HTTP reason phrase.
+   * @param headers response headers.
+   * @param body response body.
+   * @param eTag entity tag of the response; may be <tt>null</tt>.
+   * @param expires time in milliseconds since the epoch until which the response can be used without revalidation.
+   */
+  public CachedResponse(final int statusCode, final String reasonPhrase, final Map<String, List<String>> headers,
+      final byte[] body, final String eTag, final long expires) {
+
+    this.statusCode = statusCode;
+    this.reasonPhrase = reasonPhrase;
+    this.headers = new LinkedHashMap<String, ArrayList<String>>();
+    for (Map.Entry<String, List<String>> header : headers.entrySet()) {
+      this.headers.put(header.getKey(), new ArrayList<String>(header.getValue()));
+    }
+    this.body = body;
+    this.eTag = eTag;
+    this.expires = expires;
+  }
+
+  public int getStatusCode() {
+    return statusCode;
+  }
+
+  public String getReasonPhrase() {
+    return reasonPhrase;
+  }
+
+  public Map<String, ? extends List<String>> getHeaders() {
+    return Collections.unmodifiableMap(headers);
+  }
+
+  public byte[] getBody() {
+    return body;
+  }
+
+  public String getETag() {
+    return eTag;
+  }
+
+  public long getExpires() {
+    return expires;
+  }
+
+  /**
+   * Sets the expiration after a successful revalidation.
+   *
+   * @param expires time in milliseconds since the epoch until which the response can be used without revalidation.
+   */
+  public void setExpires(final long expires) {
+    this.expires = expires;
+  }
+
+  /**
+   * Checks whether the response can be used without revalidation.
+   *
+   * @param now current time in milliseconds since the epoch.
+   * @return <tt>true</tt> if the response has not expired yet.
+   */
+  public boolean isFresh(final long now) {
+    return now < expires;
+  }
+}
@@ -0,0 +1,55 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.client.api.http;
+
+/**
+ * Cache of raw HTTP responses of GET requests, used by the request pipeline if configured via
+ * {@link org.apache.olingo.client.api.Configuration#setResponseCache(ResponseCache)}.
+ * <p>
+ * Keys consist of the request URI followed by a line feed and the values of the request headers which select
+ * the representation (e.g. <tt>Accept</tt>). Entries are revalidated with <tt>If-None-Match</tt> when they are
+ * not fresh any more; a <tt>304 Not Modified</tt> response is answered from the cached body.
+ * Implementations must be thread-safe.
+ */
+public interface ResponseCache {
+
+  /**
+   * Gets a cached response.
+   *
+   * @param key cache key.
+   * @return cached response or <tt>null</tt> if there is none.
+   */
+  CachedResponse get(String key);
+
+  /**
+   * Stores a response, replacing a response cached for the same key.
+   *
+   * @param key cache key.
+   * @param response response to be cached.
+   */
+  void put(String key, CachedResponse response);
+
+  /**
+   * Removes all responses cached for the given request URI (in all representations),
+   * e.g. because the resource has been modified by this client.
+   *
+   * @param uri request URI.
+   */
+  void invalidate(String uri);
+}
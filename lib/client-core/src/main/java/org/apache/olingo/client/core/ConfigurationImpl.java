@@ -24,8 +24,10 @@ import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 
 import org.apache.olingo.client.api.Configuration;
+import org.apache.olingo.client.api.http.AsyncHttpClientFactory;
 import org.apache.olingo.client.api.http.HttpClientFactory;
 import org.apache.olingo.client.api.http.HttpUriRequestFactory;
+import org.apache.olingo.client.api.http.ResponseCache;
 import org.apache.olingo.client.core.http.DefaultHttpClientFactory;
 import org.apache.olingo.client.core.http.DefaultHttpUriRequestFactory;
 import org.apache.olingo.commons.api.format.ContentType;
@@ -42,6 +44,8 @@ public class ConfigurationImpl implements Configuration {
 
   private static final String HTTP_CLIENT_FACTORY = "httpClientFactory";
 
+  private static final String ASYNC_HTTP_CLIENT_FACTORY = "asyncHttpClientFactory";
+
   private static final String HTTP_URI_REQUEST_FACTORY = "httpUriRequestFactory";
 
   private static final String USE_XHTTP_METHOD = "useHTTPMethod";
@@ -58,6 +62,12 @@ public class ConfigurationImpl implements Configuration {
 
   private static final String CONTINUE_ON_ERROR = "continueOnError";
 
+  private static final String RESPONSE_CACHE = "responseCache";
+
+  private static final String RESPONSE_CACHE_MAX_ENTITY_SIZE = "responseCacheMaxEntitySize";
+
+  private static final long DEFAULT_RESPONSE_CACHE_MAX_ENTITY_SIZE = 1024L * 1024L;
+
   private final Map<String, Object> CONF = new HashMap<String, Object>();
 
   private transient ExecutorService executor = Executors.newFixedThreadPool(10);
@@ -220,6 +230,36 @@ public class ConfigurationImpl implements Configuration {
     setProperty(CONTINUE_ON_ERROR, value);
   }
 
+  @Override
+  public ResponseCache getResponseCache() {
+    return (ResponseCache) getProperty(RESPONSE_CACHE, null);
+  }
+
+  @Override
+  public void setResponseCache(final ResponseCache responseCache) {
+    setProperty(RESPONSE_CACHE, responseCache);
+  }
+
+  @Override
+  public long getResponseCacheMaxEntitySize() {
+    return (Long) getProperty(RESPONSE_CACHE_MAX_ENTITY_SIZE, DEFAULT_RESPONSE_CACHE_MAX_ENTITY_SIZE);
+  }
+
+  @Override
+  public void setResponseCacheMaxEntitySize(final long maxEntitySize) {
+    setProperty(RESPONSE_CACHE_MAX_ENTITY_SIZE, maxEntitySize);
+  }
+
+  @Override
+  public AsyncHttpClientFactory getAsyncHttpClientFactory() {
+    return (AsyncHttpClientFactory) getProperty(ASYNC_HTTP_CLIENT_FACTORY, null);
+  }
+
+  @Override
+  public void setAsyncHttpClientFactory(final AsyncHttpClientFactory factory) {
+    setProperty(ASYNC_HTTP_CLIENT_FACTORY, factory);
+  }
+
   @Override
   public ExecutorService getExecutor() {
     return executor;
@@ -20,6 +20,7 @@ package org.apache.olingo.client.core.communication.request;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.net.URI;
 import java.nio.charset.Charset;
 import java.util.concurrent.Callable;
@@ -27,12 +28,20 @@ import java.util.concurrent.Future;
 
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.StringUtils;
+import org.apache.http.HttpResponse;
+import org.apache.http.concurrent.FutureCallback;
 import org.apache.olingo.client.api.ODataBatchConstants;
 import org.apache.olingo.client.api.ODataClient;
 import org.apache.olingo.client.api.communication.request.ODataBasicRequest;
+import org.apache.olingo.client.api.communication.request.ODataFuture;
+import org.apache.olingo.client.api.communication.request.ODataFutureCallback;
+import org.apache.olingo.client.api.communication.request.ODataNonBlockingRequest;
 import org.apache.olingo.client.api.communication.request.ODataStreamer;
 import org.apache.olingo.client.api.communication.request.batch.ODataBatchRequest;
 import org.apache.olingo.client.api.communication.response.ODataResponse;
+import org.apache.olingo.client.api.http.AsyncHttpClient;
+import org.apache.olingo.client.api.http.AsyncHttpClientFactory;
+import org.apache.olingo.client.api.http.HttpClientException;
 import org.apache.olingo.commons.api.format.ContentType;
 import org.apache.olingo.commons.api.http.HttpMethod;
 
@@ -42,7 +51,7 @@ import org.apache.olingo.commons.api.http.HttpMethod;
  * @param <T> OData response type corresponding to the request implementation.
  */
 public abstract class AbstractODataBasicRequest<T extends ODataResponse>
-    extends AbstractODataRequest implements ODataBasicRequest<T> {
+    extends AbstractODataRequest implements ODataBasicRequest<T>, ODataNonBlockingRequest<T> {
 
   private static final Charset DEFAULT_CHARSET = Charset.forName("UTF-8");
 
@@ -68,12 +77,108 @@ public abstract class AbstractODataBasicRequest<T extends ODataResponse>
 
   @Override
   public final Future<T> asyncExecute() {
-    return odataClient.getConfiguration().getExecutor().submit(new Callable<T>() {
+    return asyncExecute(null);
+  }
+
+  /**
+   * {@inheritDoc}
+   * <br/>
+   * If an {@link AsyncHttpClientFactory} is configured the request is prepared by the calling thread, sent without
+   * blocking and its response is built by the thread of the non-blocking client. Otherwise it is executed by the
+   * configured executor service.
+   */
+  @Override
+  public final ODataFuture<T> asyncExecute(final ODataFutureCallback<? super T> callback) {
+    final AsyncHttpClientFactory factory = odataClient.getConfiguration().getAsyncHttpClientFactory();
+    final ODataFutureTask<T> future;
+    if (factory == null || !isNonBlockingSupported()) {
+      future = new ODataFutureTask<T>(new Callable<T>() {
+        @Override
+        public T call() throws Exception { //NOSONAR
+          return execute();
+        }
+      });
+      if (callback != null) {
+        future.addCallback(callback);
+      }
+      odataClient.getConfiguration().getExecutor().execute(future);
+    } else {
+      future = new ODataFutureTask<T>();
+      if (callback != null) {
+        future.addCallback(callback);
+      }
+      executeNonBlocking(factory, future);
+    }
+    return future;
+  }
+
+  /**
+   * Whether this request can be sent through an {@link AsyncHttpClientFactory}; this requires the
+   * <tt>execute()</tt> method to send a single HTTP request by means of {@link #doExecute()}.
+   *
+   * @return <tt>true</tt> by default.
+   */
+  protected boolean isNonBlockingSupported() {
+    return true;
+  }
+
+  private void executeNonBlocking(final AsyncHttpClientFactory factory, final ODataFutureTask<T> future) {
+    final NonBlockingExchange nonBlocking = new NonBlockingExchange();
+    exchange = nonBlocking;
+    try {
+      // completes without sending if the response is taken from the cache
+      future.succeed(execute());
+      exchange = null;
+      return;
+    } catch (RuntimeException e) {
+      if (e != NonBlockingExchange.PREPARED) {
+        exchange = null;
+        future.fail(e);
+        return;
+      }
+    }
+
+    try {
+      send(factory, nonBlocking, future);
+    } catch (RuntimeException e) {
+      exchange = null;
+      future.fail(e);
+    }
+  }
+
+  private void send(final AsyncHttpClientFactory factory, final NonBlockingExchange nonBlocking,
+      final ODataFutureTask<T> future) {
+
+    final AsyncHttpClient client = factory.create(method, uri);
+    future.setTransport(client.execute(nonBlocking.getRequest(), new FutureCallback<HttpResponse>() {
+
+      @Override
+      public void completed(final HttpResponse response) {
+        factory.close(client);
+        nonBlocking.received(response);
+        try {
+          future.succeed(execute());
+        } catch (RuntimeException e) {
+          future.fail(e);
+        } finally {
+          exchange = null;
+        }
+      }
+
       @Override
-      public T call() throws Exception { //NOSONAR
-        return execute();
+      public void failed(final Exception e) {
+        factory.close(client);
+        exchange = null;
+        future.fail(new HttpClientException(e));
       }
-    });
+
+      @Override
+      public void cancelled() {
+        factory.close(client);
+        exchange = null;
+        future.cancel(false);
+      }
+    }));
   }
 
   /**
@@ -83,6 +188,18 @@ public abstract class AbstractODataBasicRequest<T extends ODataResponse>
    */
   protected abstract InputStream getPayload();
 
+  @Override
+  protected void writeBatchPayload(final OutputStream output) throws IOException {
+    final InputStream payload = getPayload();
+    if (payload != null) {
+      try {
+        IOUtils.copy(payload, output);
+      } finally {
+        IOUtils.closeQuietly(payload);
+      }
+    }
+  }
+
   /**
    * Serializes the full request into the given batch request.
    *
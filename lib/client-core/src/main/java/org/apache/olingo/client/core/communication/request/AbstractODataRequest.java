@@ -21,6 +21,7 @@ package org.apache.olingo.client.core.communication.request;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.lang.reflect.Constructor;
 import java.net.URI;
 import java.nio.charset.Charset;
@@ -30,17 +31,24 @@ import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.http.Header;
 import org.apache.http.HttpEntity;
+import org.apache.http.HttpEntityEnclosingRequest;
 import org.apache.http.HttpResponse;
+import org.apache.http.HttpStatus;
 import org.apache.http.client.HttpClient;
 import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.entity.BufferedHttpEntity;
 import org.apache.http.impl.client.DecompressingHttpClient;
 import org.apache.http.util.EntityUtils;
+import org.apache.olingo.client.api.ODataBatchConstants;
 import org.apache.olingo.client.api.ODataClient;
 import org.apache.olingo.client.api.communication.header.ODataHeaders;
 import org.apache.olingo.client.api.communication.request.ODataRequest;
 import org.apache.olingo.client.api.communication.request.ODataStreamer;
 import org.apache.olingo.client.api.communication.response.ODataResponse;
+import org.apache.olingo.client.api.http.CachedResponse;
 import org.apache.olingo.client.api.http.HttpClientException;
+import org.apache.olingo.client.api.http.ResponseCache;
+import org.apache.olingo.client.core.http.ResponseCacheSupport;
 import org.apache.olingo.commons.api.ex.ODataRuntimeException;
 import org.apache.olingo.commons.api.http.HttpHeader;
 import org.apache.olingo.commons.api.format.ContentType;
@@ -83,6 +91,11 @@ public abstract class AbstractODataRequest extends AbstractRequest implements OD
    */
   protected HttpUriRequest request;
 
+  /**
+   * Non-blocking execution in progress, if any.
+   */
+  NonBlockingExchange exchange;
+
   /**
    * Constructor.
    *
@@ -248,6 +261,38 @@ public abstract class AbstractODataRequest extends AbstractRequest implements OD
     }
   }
 
+  /**
+   * Writes the full request (request line, headers and payload) as batch item into the given stream.
+   * <p>
+   * In contrast to <code>batch(ODataBatchRequest, String)</code>, no intermediate byte arrays are built for the
+   * payload; it is written by {@link #writeBatchPayload(OutputStream)}.
+   *
+   * @param output destination stream of the batch request body.
+   * @param contentId ContentId header value to be added to the serialization; <code>null</code> if not needed.
+   * @throws IOException in case of write errors.
+   */
+  public void writeBatchItem(final OutputStream output, final String contentId) throws IOException {
+    output.write(toByteArray());
+    if (StringUtils.isNotBlank(contentId)) {
+      output.write((ODataBatchConstants.CHANGESET_CONTENT_ID_NAME + ": " + contentId).getBytes(DEFAULT_CHARSET));
+      output.write(ODataStreamer.CRLF);
+    }
+    output.write(ODataStreamer.CRLF);
+    writeBatchPayload(output);
+  }
+
+  /**
+   * Writes the payload of this request as part of a batch item.
+   * <br/>
+   * This default implementation writes nothing, i.e., it is suitable for requests without payload.
+   *
+   * @param output destination stream of the batch request body.
+   * @throws IOException in case of write errors.
+   */
+  protected void writeBatchPayload(final OutputStream output) throws IOException {
+    // no payload
+  }
+
   @Override
   public InputStream rawExecute() {
      HttpEntity httpEntity = null;
@@ -270,6 +315,10 @@ public abstract class AbstractODataRequest extends AbstractRequest implements OD
    * @return HttpReponse object.
    */
   protected HttpResponse doExecute() {
+    if (exchange != null && exchange.getResponse() != null) {
+      return handleResponse(exchange.getCacheKey(), exchange.getCached(), exchange.getResponse());
+    }
+
     checkRequest(odataClient, request);
 
     // Set Content-Type and Accept headers with default values, if not yet set
@@ -296,7 +345,35 @@ public abstract class AbstractODataRequest extends AbstractRequest implements OD
       }
     }
 
-    HttpResponse response;
+    final ResponseCache cache = odataClient.getConfiguration().getResponseCache();
+    String cacheKey = null;
+    CachedResponse cached = null;
+    if (cache != null) {
+      if (method == HttpMethod.GET && ResponseCacheSupport.isCacheable(request)) {
+        cacheKey = ResponseCacheSupport.getKey(request);
+        cached = cache.get(cacheKey);
+        if (cached != null && cached.isFresh(System.currentTimeMillis())) {
+          LOG.debug("Response of {} taken from cache", request.getURI());
+          return ResponseCacheSupport.toHttpResponse(cached);
+        }
+        if (cached != null && cached.getETag() != null && request.getFirstHeader(HttpHeader.IF_NONE_MATCH) == null) {
+          request.addHeader(HttpHeader.IF_NONE_MATCH, cached.getETag());
+        } else {
+          cached = null;
+        }
+      } else if (method != HttpMethod.GET) {
+        cache.invalidate(request.getURI().toASCIIString());
+      }
+    }
+
+    if (exchange != null) {
+      // the request is sent without blocking and this method is called again with the response
+      bufferEntity();
+      exchange.prepared(request, cacheKey, cached);
+      throw NonBlockingExchange.PREPARED;
+    }
+
+    final HttpResponse response;
     try {
       response = httpClient.execute(request);
     } catch (IOException e) {
@@ -306,6 +383,24 @@ public abstract class AbstractODataRequest extends AbstractRequest implements OD
       throw new HttpClientException(e);
     }
 
+    return handleResponse(cacheKey, cached, response);
+  }
+
+  private HttpResponse handleResponse(final String cacheKey, final CachedResponse cached,
+      final HttpResponse received) {
+
+    HttpResponse response = received;
+    if (cacheKey != null) {
+      final ResponseCache cache = odataClient.getConfiguration().getResponseCache();
+      if (cached != null && response.getStatusLine().getStatusCode() == HttpStatus.SC_NOT_MODIFIED) {
+        LOG.debug("Cached response of {} revalidated", request.getURI());
+        response = ResponseCacheSupport.revalidated(cache, cacheKey, cached, response, System.currentTimeMillis());
+      } else {
+        response = ResponseCacheSupport.store(cache, cacheKey, response, System.currentTimeMillis(),
+            odataClient.getConfiguration().getResponseCacheMaxEntitySize());
+      }
+    }
+
     try {
       checkResponse(odataClient, response, getAccept());
     } catch (ODataRuntimeException e) {
@@ -316,6 +411,23 @@ public abstract class AbstractODataRequest extends AbstractRequest implements OD
     return response;
   }
 
+  /**
+   * Buffers a request body which can be written only once, as it is written by the I/O thread of the non-blocking
+   * client after the <tt>execute()</tt> method of the request may have closed its source.
+   */
+  private void bufferEntity() {
+    if (request instanceof HttpEntityEnclosingRequest) {
+      final HttpEntityEnclosingRequest enclosing = (HttpEntityEnclosingRequest) request;
+      if (enclosing.getEntity() != null && !enclosing.getEntity().isRepeatable()) {
+        try {
+          enclosing.setEntity(new BufferedHttpEntity(enclosing.getEntity()));
+        } catch (IOException e) {
+          throw new HttpClientException(e);
+        }
+      }
+    }
+  }
+
   /**
    * Gets an empty response that can be initialized by a stream.
    * <br/>
@@ -0,0 +1,90 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.client.core.communication.request;
+
+import org.apache.http.HttpResponse;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.olingo.client.api.http.CachedResponse;
+
+/**
+ * State of a request executed through an {@link org.apache.olingo.client.api.http.AsyncHttpClient}.
+ * <br/>
+ * The request is executed in two passes of its <tt>execute()</tt> method. In the first pass
+ * {@link AbstractODataRequest#doExecute()} prepares the HTTP request and stops by throwing {@link #PREPARED} instead
+ * of sending it; the request is then sent without blocking. In the second pass, once the response has been received,
+ * <tt>doExecute()</tt> returns that response and the OData response is built out of it as usual.
+ */
+final class NonBlockingExchange {
+
+  /**
+   * Thrown by the first pass once the HTTP request is ready to be sent.
+   */
+  static final RuntimeException PREPARED = new Prepared();
+
+  private HttpUriRequest request;
+
+  private String cacheKey;
+
+  private CachedResponse cached;
+
+  private HttpResponse response;
+
+  void prepared(final HttpUriRequest request, final String cacheKey, final CachedResponse cached) {
+    this.request = request;
+    this.cacheKey = cacheKey;
+    this.cached = cached;
+  }
+
+  /**
+   * @return the prepared HTTP request; <tt>null</tt> if the first pass has not reached the point of sending it
+   */
+  HttpUriRequest getRequest() {
+    return request;
+  }
+
+  String getCacheKey() {
+    return cacheKey;
+  }
+
+  CachedResponse getCached() {
+    return cached;
+  }
+
+  HttpResponse getResponse() {
+    return response;
+  }
+
+  void received(final HttpResponse response) {
+    this.response = response;
+  }
+
+  private static final class Prepared extends RuntimeException {
+
+    private static final long serialVersionUID = 5393398357484045387L;
+
+    private Prepared() {
+      super("Request prepared for non-blocking execution");
+    }
+
+    @Override
+    public synchronized Throwable fillInStackTrace() {
+      return this;
+    }
+  }
+}
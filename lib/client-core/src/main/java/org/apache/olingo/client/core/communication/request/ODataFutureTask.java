@@ -0,0 +1,149 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.client.core.communication.request;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+
+import org.apache.olingo.client.api.communication.request.ODataFuture;
+import org.apache.olingo.client.api.communication.request.ODataFutureCallback;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * {@link FutureTask} notifying the registered {@link ODataFutureCallback}s when the task is done.
+ *
+ * @param <T> OData response type.
+ */
+public class ODataFutureTask<T> extends FutureTask<T> implements ODataFuture<T> {
+
+  private static final Logger LOG = LoggerFactory.getLogger(ODataFutureTask.class);
+
+  private final List<ODataFutureCallback<? super T>> callbacks = new ArrayList<ODataFutureCallback<? super T>>();
+
+  private boolean completed = false;
+
+  private volatile Future<?> transport;
+
+  public ODataFutureTask(final Callable<T> callable) {
+    super(callable);
+  }
+
+  /**
+   * Creates a future which is not run but completed by {@link #succeed(Object)} or {@link #fail(Throwable)}.
+   */
+  ODataFutureTask() {
+    super(new Callable<T>() {
+      @Override
+      public T call() {
+        throw new IllegalStateException("Completed by the non-blocking HTTP client");
+      }
+    });
+  }
+
+  void succeed(final T result) {
+    set(result);
+  }
+
+  void fail(final Throwable cause) {
+    setException(cause);
+  }
+
+  /**
+   * Sets the future of the HTTP exchange, cancelled together with this future.
+   */
+  void setTransport(final Future<?> transport) {
+    this.transport = transport;
+    if (isCancelled()) {
+      transport.cancel(true);
+    }
+  }
+
+  @Override
+  public boolean cancel(final boolean mayInterruptIfRunning) {
+    final boolean cancelled = super.cancel(mayInterruptIfRunning);
+    final Future<?> current = transport;
+    if (cancelled && current != null) {
+      current.cancel(true);
+    }
+    return cancelled;
+  }
+
+  @Override
+  public ODataFuture<T> addCallback(final ODataFutureCallback<? super T> callback) {
+    synchronized (callbacks) {
+      if (!completed) {
+        callbacks.add(callback);
+        return this;
+      }
+    }
+    fireCallback(callback);
+    return this;
+  }
+
+  @Override
+  protected void done() {
+    final List<ODataFutureCallback<? super T>> toNotify;
+    synchronized (callbacks) {
+      completed = true;
+      toNotify = new ArrayList<ODataFutureCallback<? super T>>(callbacks);
+      callbacks.clear();
+    }
+    for (ODataFutureCallback<? super T> callback : toNotify) {
+      fireCallback(callback);
+    }
+  }
+
+  private void fireCallback(final ODataFutureCallback<? super T> callback) {
+    final T result;
+    try {
+      result = get();
+    } catch (final CancellationException e) {
+      notifyFailure(callback, e);
+      return;
+    } catch (final ExecutionException e) {
+      notifyFailure(callback, e.getCause());
+      return;
+    } catch (final InterruptedException e) {
+      // not possible, the task is done
+      Thread.currentThread().interrupt();
+      notifyFailure(callback, e);
+      return;
+    }
+
+    try {
+      callback.onSuccess(result);
+    } catch (final RuntimeException e) {
+      LOG.error("Error in callback of asynchronous request", e);
+    }
+  }
+
+  private void notifyFailure(final ODataFutureCallback<? super T> callback, final Throwable cause) {
+    try {
+      callback.onFailure(cause);
+    } catch (final RuntimeException e) {
+      LOG.error("Error in callback of asynchronous request", e);
+    }
+  }
+}
@@ -0,0 +1,197 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.client.core.communication.request;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.Collection;
+import java.util.Collections;
+
+import org.apache.commons.io.output.CloseShieldOutputStream;
+import org.apache.commons.io.output.CountingOutputStream;
+import org.apache.commons.io.output.NullOutputStream;
+import org.apache.http.entity.AbstractHttpEntity;
+import org.apache.olingo.client.api.ODataClient;
+import org.apache.olingo.client.api.domain.ClientEntity;
+import org.apache.olingo.client.api.domain.ClientProperty;
+import org.apache.olingo.client.api.serialization.ODataSerializer;
+import org.apache.olingo.client.api.serialization.ODataSerializerException;
+import org.apache.olingo.commons.api.Constants;
+import org.apache.olingo.commons.api.data.Entity;
+import org.apache.olingo.commons.api.format.ContentType;
+
+/**
+ * Repeatable HTTP entity which serializes its payload directly into the output stream of the connection.
+ * <p/>
+ * In contrast to an entity built from the result of the <code>ODataWriter</code>, the payload is never held
+ * in memory as a whole; it is serialized again for each call of {@link #writeTo(OutputStream)} (e.g., when
+ * the request is repeated after an authentication challenge).
+ * If chunked transfer encoding is switched off, the content length is determined by serializing the payload
+ * once without keeping the output.
+ */
+public abstract class ODataSerializingEntity extends AbstractHttpEntity {
+
+  protected final ODataClient client;
+
+  protected final ContentType contentType;
+
+  private long contentLength = -1;
+
+  protected ODataSerializingEntity(final ODataClient client, final ContentType contentType) {
+    this.client = client;
+    this.contentType = contentType;
+    setChunked(client.getConfiguration().isUseChuncked());
+  }
+
+  /**
+   * Creates an entity serializing the given client entities.
+   *
+   * @param client OData client
+   * @param entities entities to be serialized
+   * @param contentType format
+   * @return HTTP entity
+   */
+  public static ODataSerializingEntity forEntities(final ODataClient client,
+      final Collection<? extends ClientEntity> entities, final ContentType contentType) {
+
+    return new ODataSerializingEntity(client, contentType) {
+      @Override
+      protected void write(final ODataSerializer serializer, final Writer writer) throws ODataSerializerException {
+        for (ClientEntity entity : entities) {
+          serializer.write(writer, client.getBinder().getEntity(entity));
+        }
+      }
+    };
+  }
+
+  /**
+   * Creates an entity serializing the given client entity.
+   *
+   * @param client OData client
+   * @param entity entity to be serialized
+   * @param contentType format
+   * @return HTTP entity
+   */
+  public static ODataSerializingEntity forEntity(final ODataClient client, final ClientEntity entity,
+      final ContentType contentType) {
+
+    return forEntities(client, Collections.singleton(entity), contentType);
+  }
+
+  /**
+   * Creates an entity serializing the given (already converted) entity.
+   *
+   * @param client OData client
+   * @param entity entity to be serialized
+   * @param contentType format
+   * @return HTTP entity
+   */
+  public static ODataSerializingEntity forEntity(final ODataClient client, final Entity entity,
+      final ContentType contentType) {
+
+    return new ODataSerializingEntity(client, contentType) {
+      @Override
+      protected void write(final ODataSerializer serializer, final Writer writer) throws ODataSerializerException {
+        serializer.write(writer, entity);
+      }
+    };
+  }
+
+  /**
+   * Creates an entity serializing the given client property.
+   *
+   * @param client OData client
+   * @param property property to be serialized
+   * @param contentType format
+   * @return HTTP entity
+   */
+  public static ODataSerializingEntity forProperty(final ODataClient client, final ClientProperty property,
+      final ContentType contentType) {
+
+    return new ODataSerializingEntity(client, contentType) {
+      @Override
+      protected void write(final ODataSerializer serializer, final Writer writer) throws ODataSerializerException {
+        serializer.write(writer, client.getBinder().getProperty(property));
+      }
+    };
+  }
+
+  /**
+   * Writes the payload.
+   *
+   * @param serializer serializer for the content type of this entity
+   * @param writer target writer
+   * @throws ODataSerializerException in case of serialization errors
+   */
+  protected abstract void write(ODataSerializer serializer, Writer writer) throws ODataSerializerException;
+
+  @Override
+  public boolean isRepeatable() {
+    return true;
+  }
+
+  @Override
+  public boolean isStreaming() {
+    return false;
+  }
+
+  @Override
+  public long getContentLength() {
+    if (isChunked()) {
+      return -1;
+    }
+    if (contentLength < 0) {
+      final CountingOutputStream counter = new CountingOutputStream(new NullOutputStream());
+      try {
+        writeTo(counter);
+      } catch (final IOException e) {
+        return -1;
+      }
+      contentLength = counter.getByteCount();
+    }
+    return contentLength;
+  }
+
+  @Override
+  public InputStream getContent() throws IOException {
+    final ByteArrayOutputStream output = new ByteArrayOutputStream();
+    writeTo(output);
+    return new ByteArrayInputStream(output.toByteArray());
+  }
+
+  @Override
+  public void writeTo(final OutputStream outstream) throws IOException {
+    if (outstream == null) {
+      throw new IllegalArgumentException("Output stream may not be null");
+    }
+    // the connection stream is closed by the HTTP client, not by the serializer
+    final Writer writer = new OutputStreamWriter(new CloseShieldOutputStream(outstream), Constants.UTF8);
+    try {
+      write(client.getSerializer(contentType), writer);
+      writer.flush();
+    } catch (final ODataSerializerException e) {
+      throw new IOException(e.getMessage(), e);
+    }
+  }
+}
@@ -21,6 +21,8 @@ package org.apache.olingo.client.core.communication.request.batch;
 import org.apache.olingo.client.api.ODataClient;
 import org.apache.olingo.client.api.communication.request.batch.BatchRequestFactory;
 import org.apache.olingo.client.api.communication.request.batch.ODataBatchRequest;
+import org.apache.olingo.client.api.communication.request.batch.ODataRequestCoalescer;
+import org.apache.olingo.client.api.communication.request.batch.ODataStreamingBatchRequest;
 
 public class BatchRequestFactoryImpl implements BatchRequestFactory {
 
@@ -34,4 +36,15 @@ public class BatchRequestFactoryImpl implements BatchRequestFactory {
   public ODataBatchRequest getBatchRequest(final String serviceRoot) {
     return new ODataBatchRequestImpl(client, client.newURIBuilder(serviceRoot).appendBatchSegment().build());
   }
+
+  @Override
+  public ODataStreamingBatchRequest getStreamingBatchRequest(final String serviceRoot) {
+    return new ODataStreamingBatchRequestImpl(client, client.newURIBuilder(serviceRoot).appendBatchSegment().build());
+  }
+
+  @Override
+  public ODataRequestCoalescer getRequestCoalescer(final String serviceRoot, final long windowMillis,
+      final int maxBatchSize) {
+    return new ODataRequestCoalescerImpl(client, serviceRoot, windowMillis, maxBatchSize);
+  }
 }
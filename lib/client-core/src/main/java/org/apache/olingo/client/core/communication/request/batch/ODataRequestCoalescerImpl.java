@@ -0,0 +1,359 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.client.core.communication.request.batch;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.apache.http.HttpVersion;
+import org.apache.http.message.BasicStatusLine;
+import org.apache.olingo.client.api.ODataClient;
+import org.apache.olingo.client.api.communication.request.batch.ODataBatchResponseItem;
+import org.apache.olingo.client.api.communication.request.batch.ODataRequestCoalescer;
+import org.apache.olingo.client.api.communication.request.batch.ODataStreamingBatchRequest;
+import org.apache.olingo.client.api.communication.request.retrieve.ODataRetrieveRequest;
+import org.apache.olingo.client.api.communication.response.AsyncResponse;
+import org.apache.olingo.client.api.communication.response.ODataBatchResponse;
+import org.apache.olingo.client.api.communication.response.ODataResponse;
+import org.apache.olingo.client.api.communication.response.ODataRetrieveResponse;
+import org.apache.olingo.client.core.communication.header.ODataErrorResponseChecker;
+import org.apache.olingo.client.core.communication.response.AbstractODataResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Request coalescer sending the pending requests of a window as {@link ODataStreamingBatchRequest}.
+ * <p>
+ * Windows are closed by a daemon timer thread or by the submitting thread (if the maximum batch size is reached);
+ * the batch requests themselves are executed by the executor of the client configuration.
+ */
+public class ODataRequestCoalescerImpl implements ODataRequestCoalescer {
+
+  private static final Logger LOG = LoggerFactory.getLogger(ODataRequestCoalescer.class);
+
+  private final ODataClient odataClient;
+
+  private final String serviceRoot;
+
+  private final long windowMillis;
+
+  private final int maxBatchSize;
+
+  private final ScheduledExecutorService timer;
+
+  private final Object lock = new Object();
+
+  private List<PendingRequest<?>> pending = new ArrayList<PendingRequest<?>>();
+
+  private ScheduledFuture<?> scheduledFlush;
+
+  private boolean closed;
+
+  /**
+   * Constructor.
+   *
+   * @param odataClient client instance.
+   * @param serviceRoot service root.
+   * @param windowMillis time in milliseconds pending requests are held back at most.
+   * @param maxBatchSize number of pending requests which are sent immediately.
+   */
+  public ODataRequestCoalescerImpl(final ODataClient odataClient, final String serviceRoot,
+      final long windowMillis, final int maxBatchSize) {
+
+    if (windowMillis < 0) {
+      throw new IllegalArgumentException("Window must not be negative.");
+    }
+    if (maxBatchSize <= 0) {
+      throw new IllegalArgumentException("Maximum batch size must be greater than zero.");
+    }
+    this.odataClient = odataClient;
+    this.serviceRoot = serviceRoot;
+    this.windowMillis = windowMillis;
+    this.maxBatchSize = maxBatchSize;
+    this.timer = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+      @Override
+      public Thread newThread(final Runnable runnable) {
+        final Thread thread = new Thread(runnable, "olingo-request-coalescer");
+        thread.setDaemon(true);
+        return thread;
+      }
+    });
+  }
+
+  @Override
+  public <T> Future<ODataRetrieveResponse<T>> submit(final ODataRetrieveRequest<T> request) {
+    final PendingRequest<T> pendingRequest = new PendingRequest<T>(request);
+    List<PendingRequest<?>> window = null;
+
+    synchronized (lock) {
+      if (closed) {
+        throw new IllegalStateException("Request coalescer has been closed");
+      }
+      pending.add(pendingRequest);
+      if (pending.size() >= maxBatchSize) {
+        window = takePending();
+      } else if (pending.size() == 1) {
+        scheduledFlush = timer.schedule(new Runnable() {
+          @Override
+          public void run() {
+            flush();
+          }
+        }, windowMillis, TimeUnit.MILLISECONDS);
+      }
+    }
+
+    if (window != null) {
+      send(window);
+    }
+    return pendingRequest;
+  }
+
+  @Override
+  public void flush() {
+    final List<PendingRequest<?>> window;
+    synchronized (lock) {
+      window = takePending();
+    }
+    send(window);
+  }
+
+  @Override
+  public void close() {
+    synchronized (lock) {
+      closed = true;
+    }
+    flush();
+    timer.shutdown();
+  }
+
+  private List<PendingRequest<?>> takePending() {
+    if (scheduledFlush != null) {
+      scheduledFlush.cancel(false);
+      scheduledFlush = null;
+    }
+    final List<PendingRequest<?>> window = pending;
+    pending = new ArrayList<PendingRequest<?>>();
+    return window;
+  }
+
+  private void send(final List<PendingRequest<?>> window) {
+    if (window.isEmpty()) {
+      return;
+    }
+    try {
+      odataClient.getConfiguration().getExecutor().execute(new Runnable() {
+        @Override
+        public void run() {
+          process(window);
+        }
+      });
+    } catch (final RejectedExecutionException e) {
+      for (PendingRequest<?> pendingRequest : window) {
+        pendingRequest.fail(e);
+      }
+    }
+  }
+
+  /**
+   * Executes the requests of a window.
+   *
+   * @param window pending requests.
+   */
+  protected void process(final List<PendingRequest<?>> window) {
+    final List<PendingRequest<?>> requests = new ArrayList<PendingRequest<?>>(window.size());
+    for (PendingRequest<?> pendingRequest : window) {
+      if (!pendingRequest.isDone()) {
+        requests.add(pendingRequest);
+      }
+    }
+
+    if (requests.size() == 1) {
+      requests.get(0).executeSingle();
+    } else if (!requests.isEmpty()) {
+      executeBatch(requests);
+    }
+  }
+
+  private void executeBatch(final List<PendingRequest<?>> requests) {
+    LOG.debug("Sending {} coalesced requests as batch", requests.size());
+
+    final ODataStreamingBatchRequest batchRequest =
+        odataClient.getBatchRequestFactory().getStreamingBatchRequest(serviceRoot);
+    batchRequest.setContinueOnError(true);
+    for (PendingRequest<?> pendingRequest : requests) {
+      batchRequest.addRequest(pendingRequest.request);
+    }
+
+    ODataBatchResponse batchResponse = null;
+    try {
+      batchResponse = batchRequest.execute();
+
+      final Iterator<ODataBatchResponseItem> items = batchResponse.getBody();
+      for (PendingRequest<?> pendingRequest : requests) {
+        if (!items.hasNext()) {
+          pendingRequest.fail(new IllegalStateException("Batch response item missing"));
+          continue;
+        }
+        final ODataBatchResponseItem item = items.next();
+        if (item.hasNext()) {
+          pendingRequest.complete(item.next());
+        } else {
+          pendingRequest.fail(new IllegalStateException("Batch response item is empty"));
+        }
+      }
+    } catch (final RuntimeException e) {
+      LOG.error("Error executing coalesced requests", e);
+      for (PendingRequest<?> pendingRequest : requests) {
+        pendingRequest.fail(e);
+      }
+    } finally {
+      if (batchResponse != null) {
+        batchResponse.close();
+      }
+    }
+  }
+
+  /**
+   * Future response of a submitted request.
+   *
+   * @param <T> type of the retrieved result.
+   */
+  protected class PendingRequest<T> implements Future<ODataRetrieveResponse<T>> {
+
+    private final ODataRetrieveRequest<T> request;
+
+    private final CountDownLatch done = new CountDownLatch(1);
+
+    private ODataRetrieveResponse<T> response;
+
+    private Throwable failure;
+
+    private boolean cancelled;
+
+    private boolean completed;
+
+    PendingRequest(final ODataRetrieveRequest<T> request) {
+      this.request = request;
+    }
+
+    private void executeSingle() {
+      try {
+        set(request.execute(), null);
+      } catch (final RuntimeException e) {
+        set(null, e);
+      }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void complete(final ODataResponse itemResponse) {
+      try {
+        if (itemResponse.getStatusCode() >= 400) {
+          fail(ODataErrorResponseChecker.checkResponse(odataClient,
+              new BasicStatusLine(HttpVersion.HTTP_1_1, itemResponse.getStatusCode(), itemResponse.getStatusMessage()),
+              itemResponse.getRawResponse(), request.getAccept()));
+        } else if (itemResponse instanceof AsyncResponse) {
+          fail(new IllegalStateException("Unexpected asynchronous batch item response"));
+        } else {
+          // the payload is a slice of the batch response and would be lost when the next item is read
+          ((AbstractODataResponse) itemResponse).bufferPayload();
+          set((ODataRetrieveResponse<T>) itemResponse, null);
+        }
+      } catch (final RuntimeException e) {
+        fail(e);
+      }
+    }
+
+    private void fail(final Throwable cause) {
+      set(null, cause);
+    }
+
+    private void set(final ODataRetrieveResponse<T> response, final Throwable failure) {
+      synchronized (this) {
+        if (completed) {
+          return;
+        }
+        completed = true;
+        this.response = response;
+        this.failure = failure;
+      }
+      done.countDown();
+    }
+
+    @Override
+    public boolean cancel(final boolean mayInterruptIfRunning) {
+      synchronized (this) {
+        if (completed) {
+          return false;
+        }
+        completed = true;
+        cancelled = true;
+      }
+      done.countDown();
+      return true;
+    }
+
+    @Override
+    public synchronized boolean isCancelled() {
+      return cancelled;
+    }
+
+    @Override
+    public boolean isDone() {
+      return done.getCount() == 0;
+    }
+
+    @Override
+    public ODataRetrieveResponse<T> get() throws InterruptedException, ExecutionException {
+      done.await();
+      return getResult();
+    }
+
+    @Override
+    public ODataRetrieveResponse<T> get(final long timeout, final TimeUnit unit)
+        throws InterruptedException, ExecutionException, TimeoutException {
+
+      if (!done.await(timeout, unit)) {
+        throw new TimeoutException();
+      }
+      return getResult();
+    }
+
+    private synchronized ODataRetrieveResponse<T> getResult() throws ExecutionException {
+      if (cancelled) {
+        throw new CancellationException();
+      }
+      if (failure != null) {
+        throw new ExecutionException(failure);
+      }
+      return response;
+    }
+  }
+}
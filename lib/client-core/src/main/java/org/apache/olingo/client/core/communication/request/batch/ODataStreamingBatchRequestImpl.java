@@ -0,0 +1,408 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.client.core.communication.request.batch;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.UUID;
+
+import org.apache.http.HttpResponse;
+import org.apache.http.client.HttpClient;
+import org.apache.http.client.methods.HttpEntityEnclosingRequestBase;
+import org.apache.http.entity.AbstractHttpEntity;
+import org.apache.olingo.client.api.ODataBatchConstants;
+import org.apache.olingo.client.api.ODataClient;
+import org.apache.olingo.client.api.communication.header.ODataPreferences;
+import org.apache.olingo.client.api.communication.request.ODataBatchableRequest;
+import org.apache.olingo.client.api.communication.request.ODataStreamer;
+import org.apache.olingo.client.api.communication.request.batch.ODataBatchRequest;
+import org.apache.olingo.client.api.communication.request.batch.ODataBatchResponseItem;
+import org.apache.olingo.client.api.communication.request.batch.ODataStreamingBatchRequest;
+import org.apache.olingo.client.api.communication.response.ODataBatchResponse;
+import org.apache.olingo.client.core.communication.request.AbstractODataBasicRequest;
+import org.apache.olingo.client.core.communication.request.AbstractODataRequest;
+import org.apache.olingo.client.core.communication.response.AbstractODataResponse;
+import org.apache.olingo.client.core.communication.response.batch.ODataStreamingBatchResponseManager;
+import org.apache.olingo.commons.api.format.ContentType;
+import org.apache.olingo.commons.api.http.HttpHeader;
+import org.apache.olingo.commons.api.http.HttpMethod;
+
+/**
+ * Batch request writing its multipart body directly in {@link org.apache.http.HttpEntity#writeTo(OutputStream)}.
+ * The response is read by an {@link ODataStreamingBatchResponseManager}.
+ */
+public class ODataStreamingBatchRequestImpl extends AbstractODataBasicRequest<ODataBatchResponse>
+    implements ODataStreamingBatchRequest {
+
+  private static final Charset DEFAULT_CHARSET = Charset.forName("UTF-8");
+
+  /**
+   * Batch request boundary.
+   */
+  private final String boundary;
+
+  /**
+   * Registered batch items.
+   */
+  private final List<BatchItem> items = new ArrayList<BatchItem>();
+
+  /**
+   * Expected batch response items; filled while the body is written.
+   */
+  private final List<ODataBatchResponseItem> expectedResItems = new ArrayList<ODataBatchResponseItem>();
+
+  /**
+   * Whether the processing continues after failed items.
+   */
+  private boolean continueOnError;
+
+  /**
+   * Constructor.
+   *
+   * @param odataClient client instance getting this request
+   * @param uri batch request URI (http://serviceRoot/$batch)
+   */
+  ODataStreamingBatchRequestImpl(final ODataClient odataClient, final URI uri) {
+    super(odataClient, HttpMethod.POST, uri);
+
+    // create a random UUID value for boundary
+    boundary = "batch_" + UUID.randomUUID().toString();
+
+    setContentType(ContentType.MULTIPART_MIXED + ";" + ODataBatchConstants.BOUNDARY + "=" + boundary);
+    setAccept(odataClient.getConfiguration().getDefaultBatchAcceptFormat().toContentTypeString());
+    continueOnError = odataClient.getConfiguration().isContinueOnError();
+  }
+
+  @Override
+  public ContentType getDefaultFormat() {
+    return odataClient.getConfiguration().getDefaultBatchAcceptFormat();
+  }
+
+  /**
+   * {@inheritDoc}
+   * <br/>
+   * Only the accepted format is set; the content type of a batch request is determined by its boundary.
+   */
+  @Override
+  public void setFormat(final ContentType contentType) {
+    if (contentType != null) {
+      setAccept(contentType.toContentTypeString());
+    }
+  }
+
+  @Override
+  public ODataStreamingBatchRequest setContinueOnError(final boolean continueOnError) {
+    this.continueOnError = continueOnError;
+    return this;
+  }
+
+  @Override
+  public ODataStreamingBatchRequest addRequest(final ODataBatchableRequest request) {
+    checkRequest(request, false);
+    items.add(new BatchItem(false, Collections.singletonList(request), null));
+    return this;
+  }
+
+  @Override
+  public ODataStreamingBatchRequest addRequests(final Iterator<? extends ODataBatchableRequest> requests) {
+    items.add(new BatchItem(false, null, requests));
+    return this;
+  }
+
+  @Override
+  public ODataStreamingBatchRequest addChangeset(final Iterable<? extends ODataBatchableRequest> requests) {
+    for (ODataBatchableRequest request : requests) {
+      checkRequest(request, true);
+    }
+    items.add(new BatchItem(true, requests, null));
+    return this;
+  }
+
+  @Override
+  public ODataStreamingBatchRequest addChangeset(final Iterator<? extends ODataBatchableRequest> requests) {
+    items.add(new BatchItem(true, null, requests));
+    return this;
+  }
+
+  /**
+   * The payload is written by the HTTP entity of this request.
+   */
+  @Override
+  protected InputStream getPayload() {
+    return null;
+  }
+
+  @Override
+  public ODataBatchResponse execute() {
+    if (continueOnError) {
+      setPrefer(new ODataPreferences().continueOnError());
+    }
+    ((HttpEntityEnclosingRequestBase) request).setEntity(createEntity());
+
+    return new ODataBatchResponseImpl(odataClient, httpClient, doExecute());
+  }
+
+  /**
+   * {@inheritDoc}
+   * <br/>
+   * This operation is unsupported by a batch request.
+   */
+  @Override
+  public void batch(final ODataBatchRequest req) {
+    throw new UnsupportedOperationException("A batch request is not batchable");
+  }
+
+  /**
+   * {@inheritDoc}
+   * <br/>
+   * This operation is unsupported by a batch request.
+   */
+  @Override
+  public void batch(final ODataBatchRequest req, final String contentId) {
+    throw new UnsupportedOperationException("A batch request is not batchable");
+  }
+
+  /**
+   * Creates the HTTP entity which writes the batch body.
+   *
+   * @return HTTP entity
+   */
+  AbstractHttpEntity createEntity() {
+    return new BatchEntity();
+  }
+
+  /**
+   * @return the expected batch response items (known after the body has been written)
+   */
+  List<ODataBatchResponseItem> getExpectedResItems() {
+    return expectedResItems;
+  }
+
+  private static AbstractODataRequest checkRequest(final ODataBatchableRequest request, final boolean changeset) {
+    if (changeset && request.getMethod() == HttpMethod.GET) {
+      throw new IllegalArgumentException("Invalid request. GET method not allowed in changeset");
+    }
+    if (!(request instanceof AbstractODataRequest)) {
+      throw new IllegalArgumentException("Unsupported batch item " + request.getClass().getName());
+    }
+    return (AbstractODataRequest) request;
+  }
+
+  /**
+   * Writes the complete multipart body; the expected response items are collected on the way.
+   */
+  private void writeBody(final OutputStream output) throws IOException {
+    expectedResItems.clear();
+    for (BatchItem item : items) {
+      if (item.changeset) {
+        writeChangeset(output, item.requests());
+      } else {
+        final Iterator<? extends ODataBatchableRequest> requests = item.requests();
+        while (requests.hasNext()) {
+          writeSingleRequest(output, checkRequest(requests.next(), false));
+        }
+      }
+    }
+
+    // close-delimiter
+    output.write(ODataStreamer.CRLF);
+    write(output, "--" + boundary + "--");
+  }
+
+  private void writeSingleRequest(final OutputStream output, final AbstractODataRequest request) throws IOException {
+    writeDashBoundary(output, boundary);
+
+    final ODataStreamingResponseItem expectedResItem = new ODataStreamingResponseItem(false, continueOnError);
+    expectedResItems.add(expectedResItem);
+
+    if (request.getMethod() == HttpMethod.GET) {
+      writeItemHeader(output, null);
+      request.writeBatchItem(output, null);
+    } else {
+      writeItemHeader(output, ODataSingleResponseItem.SINGLE_CONTENT_ID);
+      request.writeBatchItem(output, ODataSingleResponseItem.SINGLE_CONTENT_ID);
+    }
+    expectedResItem.addResponse(ODataSingleResponseItem.SINGLE_CONTENT_ID, request.getResponseTemplate());
+  }
+
+  private void writeChangeset(final OutputStream output, final Iterator<? extends ODataBatchableRequest> requests)
+      throws IOException {
+
+    // an empty changeset is skipped: a multipart part needs a body, and no response would match it
+    if (!requests.hasNext()) {
+      return;
+    }
+
+    writeDashBoundary(output, boundary);
+
+    final ODataStreamingResponseItem expectedResItem = new ODataStreamingResponseItem(true, continueOnError);
+    expectedResItems.add(expectedResItem);
+
+    final String changesetBoundary = "changeset_" + UUID.randomUUID().toString();
+    write(output, HttpHeader.CONTENT_TYPE + ": " + ContentType.MULTIPART_MIXED + ";boundary=" + changesetBoundary);
+    output.write(ODataStreamer.CRLF);
+    output.write(ODataStreamer.CRLF);
+
+    int contentId = 0;
+    while (requests.hasNext()) {
+      final AbstractODataRequest request = checkRequest(requests.next(), true);
+      final String id = String.valueOf(++contentId);
+
+      writeDashBoundary(output, changesetBoundary);
+      writeItemHeader(output, id);
+      request.writeBatchItem(output, id);
+
+      expectedResItem.addResponse(id, request.getResponseTemplate());
+    }
+
+    // changeset close-delimiter
+    output.write(ODataStreamer.CRLF);
+    write(output, "--" + changesetBoundary + "--");
+    output.write(ODataStreamer.CRLF);
+    output.write(ODataStreamer.CRLF);
+  }
+
+  private void writeDashBoundary(final OutputStream output, final String boundary) throws IOException {
+    // preamble
+    output.write(ODataStreamer.CRLF);
+    write(output, "--" + boundary);
+    output.write(ODataStreamer.CRLF);
+  }
+
+  private void writeItemHeader(final OutputStream output, final String contentId) throws IOException {
+    write(output, ODataBatchConstants.ITEM_CONTENT_TYPE_LINE);
+    output.write(ODataStreamer.CRLF);
+    write(output, ODataBatchConstants.ITEM_TRANSFER_ENCODING_LINE);
+    output.write(ODataStreamer.CRLF);
+    if (contentId != null) {
+      write(output, ODataBatchConstants.CHANGESET_CONTENT_ID_NAME + ":" + contentId);
+      output.write(ODataStreamer.CRLF);
+    }
+    output.write(ODataStreamer.CRLF);
+  }
+
+  private void write(final OutputStream output, final String value) throws IOException {
+    output.write(value.getBytes(DEFAULT_CHARSET));
+  }
+
+  /**
+   * Batch item: a single request, a sequence of single requests, or a changeset.
+   */
+  private static class BatchItem {
+
+    private final boolean changeset;
+
+    private final Iterable<? extends ODataBatchableRequest> iterable;
+
+    private final Iterator<? extends ODataBatchableRequest> iterator;
+
+    BatchItem(final boolean changeset, final Iterable<? extends ODataBatchableRequest> iterable,
+        final Iterator<? extends ODataBatchableRequest> iterator) {
+
+      this.changeset = changeset;
+      this.iterable = iterable;
+      this.iterator = iterator;
+    }
+
+    Iterator<? extends ODataBatchableRequest> requests() {
+      return iterable == null ? iterator : iterable.iterator();
+    }
+
+    boolean isRepeatable() {
+      return iterable != null;
+    }
+  }
+
+  /**
+   * HTTP entity writing the batch body; it is repeatable if no items are provided by iterators.
+   */
+  private class BatchEntity extends AbstractHttpEntity {
+
+    BatchEntity() {
+      setChunked(true);
+    }
+
+    @Override
+    public boolean isRepeatable() {
+      for (BatchItem item : items) {
+        if (!item.isRepeatable()) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    @Override
+    public boolean isStreaming() {
+      return false;
+    }
+
+    @Override
+    public long getContentLength() {
+      return -1;
+    }
+
+    @Override
+    public InputStream getContent() throws IOException {
+      final ByteArrayOutputStream output = new ByteArrayOutputStream();
+      writeTo(output);
+      return new ByteArrayInputStream(output.toByteArray());
+    }
+
+    @Override
+    public void writeTo(final OutputStream outstream) throws IOException {
+      if (outstream == null) {
+        throw new IllegalArgumentException("Output stream may not be null");
+      }
+      writeBody(outstream);
+      outstream.flush();
+    }
+  }
+
+  protected class ODataBatchResponseImpl extends AbstractODataResponse implements ODataBatchResponse {
+
+    protected ODataBatchResponseImpl(
+            final ODataClient odataClient, final HttpClient httpClient, final HttpResponse res) {
+
+      super(odataClient, httpClient, res);
+    }
+
+    @Override
+    public Iterator<ODataBatchResponseItem> getBody() {
+      return new ODataStreamingBatchResponseManager(this, expectedResItems, continueOnError);
+    }
+
+    @Override
+    public void close() {
+      for (ODataBatchResponseItem resItem : expectedResItems) {
+        resItem.close();
+      }
+      super.close();
+    }
+  }
+}
@@ -0,0 +1,205 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.client.core.communication.request.batch;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collection;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+import org.apache.olingo.client.api.ODataBatchConstants;
+import org.apache.olingo.client.api.communication.request.batch.ODataBatchLineIterator;
+import org.apache.olingo.client.api.communication.response.ODataResponse;
+import org.apache.olingo.client.core.communication.response.AbstractODataResponse;
+import org.apache.olingo.client.core.communication.response.AsyncResponseImpl;
+import org.apache.olingo.client.core.communication.response.batch.ODataBatchErrorResponse;
+import org.apache.olingo.client.core.communication.response.batch.ODataBatchPartReader;
+
+/**
+ * Batch response item (single request or changeset) read by an {@link ODataBatchPartReader}.
+ * <p>
+ * The payload of each response is a stream slice of the batch response; it has to be consumed before the next
+ * response is requested.
+ */
+public class ODataStreamingResponseItem extends AbstractODataBatchResponseItem {
+
+  private final boolean continueOnError;
+
+  /**
+   * Body of an <code>application/http</code> part (single response or error response for a changeset).
+   */
+  private InputStream part;
+
+  /**
+   * Reader of the changeset parts.
+   */
+  private ODataBatchPartReader changesetReader;
+
+  /**
+   * Constructor.
+   *
+   * @param changeset 'TRUE' if the item is a changeset.
+   * @param continueOnError 'TRUE' if the processing continues after an error response.
+   */
+  public ODataStreamingResponseItem(final boolean changeset, final boolean continueOnError) {
+    super(changeset);
+    this.continueOnError = continueOnError;
+  }
+
+  /**
+   * Unsupported operation: this item is initialized by {@link #initFromPart(InputStream)}
+   * or {@link #initFromChangeset(ODataBatchPartReader)}.
+   */
+  @Override
+  public void initFromBatch(final ODataBatchLineIterator batchLineIterator, final String boundary) {
+    throw new UnsupportedOperationException("Streaming batch item can not be initialized from lines");
+  }
+
+  /**
+   * Initializes the item with the body of an <code>application/http</code> part.
+   * For a changeset this is an error response for the whole changeset.
+   *
+   * @param part body of the part.
+   */
+  public void initFromPart(final InputStream part) {
+    checkOpen();
+    this.part = part;
+  }
+
+  /**
+   * Initializes the changeset item with a reader of its parts.
+   *
+   * @param changesetReader reader of the changeset parts.
+   */
+  public void initFromChangeset(final ODataBatchPartReader changesetReader) {
+    checkOpen();
+    this.changesetReader = changesetReader;
+  }
+
+  @Override
+  public ODataResponse next() {
+    if (isChangeset() && current != null) {
+      current.close();
+    }
+
+    checkOpen();
+
+    if (!hasNext()) {
+      throw new NoSuchElementException("No item found");
+    }
+
+    try {
+      if (part != null) {
+        return nextFromPart();
+      } else if (changesetReader != null) {
+        return nextFromChangeset();
+      } else {
+        throw new IllegalStateException("Item not initialized");
+      }
+    } catch (final IOException e) {
+      LOG.error("Error reading batch item", e);
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private ODataResponse nextFromPart() throws IOException {
+    final InputStream body = part;
+    part = null;
+
+    // consume item (used like a counter)
+    final ODataResponse expected = expectedItemsIterator.next();
+
+    final Map.Entry<Integer, String> responseLine = ODataBatchPartReader.readResponseLine(body);
+    LOG.debug("Retrieved item response {}", responseLine);
+
+    final Map<String, Collection<String>> headers = ODataBatchPartReader.readHeaders(body);
+    LOG.debug("Retrieved item headers {}", headers);
+
+    if (responseLine.getKey() == 202) {
+      // generate async response
+      current = new AsyncResponseImpl(responseLine, headers, body);
+      breaking = true;
+    } else if (responseLine.getKey() >= 400) {
+      // generate error response
+      current = new ODataBatchErrorResponse(responseLine, headers, body);
+      breaking = true;
+    } else if (isChangeset()) {
+      throw new IllegalStateException("Expected item not found");
+    } else {
+      current = ((AbstractODataResponse) expected).initFromBatchPart(responseLine, headers, body);
+    }
+
+    return current;
+  }
+
+  private ODataResponse nextFromChangeset() throws IOException {
+    // consume item (used like a counter)
+    expectedItemsIterator.next();
+
+    if (!changesetReader.next()) {
+      throw new IllegalStateException("Expected item not found");
+    }
+    final InputStream body = changesetReader.getBody();
+
+    final Map.Entry<Integer, String> responseLine = ODataBatchPartReader.readResponseLine(body);
+    LOG.debug("Retrieved item response {}", responseLine);
+
+    final Map<String, Collection<String>> headers = ODataBatchPartReader.readHeaders(body);
+    LOG.debug("Retrieved item headers {}", headers);
+
+    Collection<String> contentId = changesetReader.getHeaders().get(ODataBatchConstants.CHANGESET_CONTENT_ID_NAME);
+    if (contentId == null || contentId.isEmpty()) {
+      contentId = headers.get(ODataBatchConstants.CHANGESET_CONTENT_ID_NAME);
+
+      if (contentId == null || contentId.isEmpty()) {
+        throw new IllegalStateException("Content-ID is missing");
+      }
+    }
+
+    current = getResponse(contentId.iterator().next());
+
+    if (current == null) {
+      throw new IllegalStateException("Unexpected '" + contentId + "' item found");
+    }
+
+    ((AbstractODataResponse) current).initFromBatchPart(responseLine, headers, body);
+
+    if (current.getStatusCode() >= 400 && !continueOnError) {
+      // found error ....
+      breaking = true;
+    }
+
+    return current;
+  }
+
+  private void checkOpen() {
+    if (closed) {
+      throw new IllegalStateException("Invalid request - the item has been closed");
+    }
+  }
+
+  /**
+   * Unsupported operation.
+   */
+  @Override
+  public void remove() {
+    throw new UnsupportedOperationException("Operation not supported.");
+  }
+}
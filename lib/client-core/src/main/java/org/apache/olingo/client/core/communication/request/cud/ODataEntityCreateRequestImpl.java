@@ -18,10 +18,11 @@
  */
 package org.apache.olingo.client.core.communication.request.cud;
 
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.net.URI;
 
-import org.apache.commons.io.IOUtils;
 import org.apache.http.HttpResponse;
 import org.apache.http.client.HttpClient;
 import org.apache.http.client.methods.HttpPost;
@@ -33,8 +34,8 @@ import org.apache.olingo.client.api.domain.ClientEntity;
 import org.apache.olingo.client.api.serialization.ODataDeserializerException;
 import org.apache.olingo.client.api.serialization.ODataSerializerException;
 import org.apache.olingo.client.core.communication.request.AbstractODataBasicRequest;
+import org.apache.olingo.client.core.communication.request.ODataSerializingEntity;
 import org.apache.olingo.client.core.communication.response.AbstractODataResponse;
-import org.apache.olingo.client.core.uri.URIUtils;
 import org.apache.olingo.commons.api.data.Entity;
 import org.apache.olingo.commons.api.format.ContentType;
 import org.apache.olingo.commons.api.http.HttpMethod;
@@ -79,16 +80,20 @@ public class ODataEntityCreateRequestImpl<E extends ClientEntity>
     }
   }
 
+  private ODataSerializingEntity getPayloadEntity() {
+    return ODataSerializingEntity.forEntity(odataClient, entity, ContentType.parse(getContentType()));
+  }
+
+  @Override
+  protected void writeBatchPayload(final OutputStream output) throws IOException {
+    getPayloadEntity().writeTo(output);
+  }
+
   @Override
   public ODataEntityCreateResponse<E> execute() {
-    final InputStream input = getPayload();
-    ((HttpPost) request).setEntity(URIUtils.buildInputStreamEntity(odataClient, input));
+    ((HttpPost) request).setEntity(getPayloadEntity());
 
-    try {
-      return new ODataEntityCreateResponseImpl(odataClient, httpClient, doExecute());
-    } finally {
-      IOUtils.closeQuietly(input);
-    }
+    return new ODataEntityCreateResponseImpl(odataClient, httpClient, doExecute());
   }
 
   /**
@@ -18,10 +18,11 @@
  */
 package org.apache.olingo.client.core.communication.request.cud;
 
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.net.URI;
 
-import org.apache.commons.io.IOUtils;
 import org.apache.http.HttpResponse;
 import org.apache.http.HttpStatus;
 import org.apache.http.client.HttpClient;
@@ -34,8 +35,8 @@ import org.apache.olingo.client.api.domain.ClientEntity;
 import org.apache.olingo.client.api.serialization.ODataDeserializerException;
 import org.apache.olingo.client.api.serialization.ODataSerializerException;
 import org.apache.olingo.client.core.communication.request.AbstractODataBasicRequest;
+import org.apache.olingo.client.core.communication.request.ODataSerializingEntity;
 import org.apache.olingo.client.core.communication.response.AbstractODataResponse;
-import org.apache.olingo.client.core.uri.URIUtils;
 import org.apache.olingo.commons.api.data.Entity;
 import org.apache.olingo.commons.api.format.ContentType;
 import org.apache.olingo.commons.api.http.HttpMethod;
@@ -83,22 +84,26 @@ public class ODataEntityUpdateRequestImpl<E extends ClientEntity>
     }
   }
 
+  private ODataSerializingEntity getPayloadEntity() {
+    return ODataSerializingEntity.forEntity(odataClient, changes, ContentType.parse(getContentType()));
+  }
+
+  @Override
+  protected void writeBatchPayload(final OutputStream output) throws IOException {
+    getPayloadEntity().writeTo(output);
+  }
+
   @Override
   public ODataEntityUpdateResponse<E> execute() {
-    final InputStream input = getPayload();
-    ((HttpEntityEnclosingRequestBase) request).setEntity(URIUtils.buildInputStreamEntity(odataClient, input));
+    ((HttpEntityEnclosingRequestBase) request).setEntity(getPayloadEntity());
 
-    try {
-      final HttpResponse httpResponse = doExecute();
-      final ODataEntityUpdateResponseImpl response =
-              new ODataEntityUpdateResponseImpl(odataClient, httpClient, httpResponse);
-      if (httpResponse.getStatusLine().getStatusCode() == HttpStatus.SC_NO_CONTENT) {
-        response.close();
-      }
-      return response;
-    } finally {
-      IOUtils.closeQuietly(input);
+    final HttpResponse httpResponse = doExecute();
+    final ODataEntityUpdateResponseImpl response =
+            new ODataEntityUpdateResponseImpl(odataClient, httpClient, httpResponse);
+    if (httpResponse.getStatusLine().getStatusCode() == HttpStatus.SC_NO_CONTENT) {
+      response.close();
     }
+    return response;
   }
 
   /**
@@ -18,10 +18,11 @@
  */
 package org.apache.olingo.client.core.communication.request.cud;
 
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.net.URI;
 
-import org.apache.commons.io.IOUtils;
 import org.apache.http.HttpResponse;
 import org.apache.http.client.HttpClient;
 import org.apache.http.client.methods.HttpEntityEnclosingRequestBase;
@@ -33,8 +34,8 @@ import org.apache.olingo.client.api.domain.ClientProperty;
 import org.apache.olingo.client.api.serialization.ODataDeserializerException;
 import org.apache.olingo.client.api.serialization.ODataSerializerException;
 import org.apache.olingo.client.core.communication.request.AbstractODataBasicRequest;
+import org.apache.olingo.client.core.communication.request.ODataSerializingEntity;
 import org.apache.olingo.client.core.communication.response.AbstractODataResponse;
-import org.apache.olingo.client.core.uri.URIUtils;
 import org.apache.olingo.commons.api.data.Property;
 import org.apache.olingo.commons.api.format.ContentType;
 import org.apache.olingo.commons.api.http.HttpMethod;
@@ -73,14 +74,9 @@ public class ODataPropertyUpdateRequestImpl extends AbstractODataBasicRequest<OD
 
   @Override
   public ODataPropertyUpdateResponse execute() {
-    final InputStream input = getPayload();
-    ((HttpEntityEnclosingRequestBase) request).setEntity(URIUtils.buildInputStreamEntity(odataClient, input));
+    ((HttpEntityEnclosingRequestBase) request).setEntity(getPayloadEntity());
 
-    try {
-      return new ODataPropertyUpdateResponseImpl(odataClient, httpClient, doExecute());
-    } finally {
-      IOUtils.closeQuietly(input);
-    }
+    return new ODataPropertyUpdateResponseImpl(odataClient, httpClient, doExecute());
   }
 
   @Override
@@ -92,6 +88,15 @@ public class ODataPropertyUpdateRequestImpl extends AbstractODataBasicRequest<OD
     }
   }
 
+  private ODataSerializingEntity getPayloadEntity() {
+    return ODataSerializingEntity.forProperty(odataClient, property, ContentType.parse(getContentType()));
+  }
+
+  @Override
+  protected void writeBatchPayload(final OutputStream output) throws IOException {
+    getPayloadEntity().writeTo(output);
+  }
+
   /**
    * Response class about an ODataPropertyUpdateRequest.
    */
@@ -72,6 +72,14 @@ class EdmMetadataRequestImpl extends AbstractMetadataRequestImpl<Edm> implements
     return getPrivateResponse().getXMLMetadata();
   }
 
+  /**
+   * Metadata and its references are retrieved by separate requests.
+   */
+  @Override
+  protected boolean isNonBlockingSupported() {
+    return false;
+  }
+
   @Override
   public ODataRetrieveResponse<Edm> execute() {
     return getPrivateResponse();
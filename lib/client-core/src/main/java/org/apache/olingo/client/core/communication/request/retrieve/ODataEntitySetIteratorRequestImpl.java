@@ -19,6 +19,8 @@
 package org.apache.olingo.client.core.communication.request.retrieve;
 
 import java.net.URI;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 import org.apache.http.HttpResponse;
 import org.apache.http.client.HttpClient;
@@ -39,6 +41,8 @@ public class ODataEntitySetIteratorRequestImpl<ES extends ClientEntitySet, E ext
 
   private ClientEntitySetIterator<ES, E> entitySetIterator = null;
 
+  private int prefetchDepth = 0;
+
   /**
    * Private constructor.
    *
@@ -54,6 +58,14 @@ public class ODataEntitySetIteratorRequestImpl<ES extends ClientEntitySet, E ext
     return odataClient.getConfiguration().getDefaultPubFormat();
   }
 
+  @Override
+  public void setPrefetchDepth(final int prefetchDepth) {
+    if (prefetchDepth < 0) {
+      throw new IllegalArgumentException("Prefetch depth must not be negative");
+    }
+    this.prefetchDepth = prefetchDepth;
+  }
+
   @Override
   public ODataRetrieveResponse<ClientEntitySetIterator<ES, E>> execute() {
     final HttpResponse res = doExecute();
@@ -74,8 +86,12 @@ public class ODataEntitySetIteratorRequestImpl<ES extends ClientEntitySet, E ext
     @Override
     public ClientEntitySetIterator<ES, E> getBody() {
       if (entitySetIterator == null) {
+        final Map<String, String> headers = new LinkedHashMap<String, String>();
+        for (String name : ODataEntitySetIteratorRequestImpl.this.getHeaderNames()) {
+          headers.put(name, ODataEntitySetIteratorRequestImpl.this.getHeader(name));
+        }
         entitySetIterator = new ClientEntitySetIterator<ES, E>(
-                odataClient, getRawResponse(), ContentType.parse(getContentType()));
+                odataClient, getRawResponse(), ContentType.parse(getContentType()), prefetchDepth, headers);
       }
       return entitySetIterator;
     }
@@ -45,6 +45,14 @@ public class XMLMetadataRequestImpl
     super(odataClient, uri);
   }
 
+  /**
+   * Metadata and its references are retrieved by separate requests.
+   */
+  @Override
+  protected boolean isNonBlockingSupported() {
+    return false;
+  }
+
   @Override
   public ODataRetrieveResponse<XMLMetadata> execute() {
     SingleXMLMetadatRequestImpl rootReq = new SingleXMLMetadatRequestImpl(odataClient, uri);
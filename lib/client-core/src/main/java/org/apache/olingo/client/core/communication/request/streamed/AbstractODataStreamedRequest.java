@@ -20,6 +20,7 @@ package org.apache.olingo.client.core.communication.request.streamed;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.net.URI;
 import java.nio.charset.Charset;
 import java.util.concurrent.Callable;
@@ -124,6 +125,18 @@ public abstract class AbstractODataStreamedRequest<V extends ODataResponse, T ex
     return (T) payloadManager;
   }
 
+  @Override
+  protected void writeBatchPayload(final OutputStream output) throws IOException {
+    final InputStream input = getPayloadManager().getBody();
+    try {
+      // finalize the body
+      getPayloadManager().finalizeBody();
+      IOUtils.copy(input, output);
+    } finally {
+      IOUtils.closeQuietly(input);
+    }
+  }
+
   /**
    * Writes (and consume) the request onto the given batch stream.
    * <p>
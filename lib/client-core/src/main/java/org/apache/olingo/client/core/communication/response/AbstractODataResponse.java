@@ -198,6 +198,54 @@ public abstract class AbstractODataResponse implements ODataResponse {
     return this;
   }
 
+  /**
+   * Initializes the response from a batch item whose body is provided as stream.
+   * <p>
+   * The payload stream is used as it is; it has to be consumed before the next batch item is read.
+   *
+   * @param responseLine status code and reason phrase of the batch item.
+   * @param headers headers of the batch item.
+   * @param payload body of the batch item.
+   * @return the current response.
+   */
+  public ODataResponse initFromBatchPart(
+      final Map.Entry<Integer, String> responseLine,
+      final Map<String, Collection<String>> headers,
+      final InputStream payload) {
+
+    if (hasBeenInitialized) {
+      throw new IllegalStateException("Request already initialized");
+    }
+
+    this.statusCode = responseLine.getKey();
+    this.statusMessage = responseLine.getValue();
+    this.headers.putAll(headers);
+    this.payload = payload;
+
+    this.hasBeenInitialized = true;
+    return this;
+  }
+
+  /**
+   * Reads the payload completely into memory.
+   * <p>
+   * This is needed for responses of batch items whose payload is a slice of the batch response if the payload
+   * has to be accessed after further batch items have been read.
+   *
+   * @return the current response.
+   */
+  public ODataResponse bufferPayload() {
+    if (payload != null && !(payload instanceof ByteArrayInputStream)) {
+      try {
+        payload = new ByteArrayInputStream(IOUtils.toByteArray(payload));
+      } catch (final IOException e) {
+        LOG.error("Error buffering payload", e);
+        throw new IllegalStateException(e);
+      }
+    }
+    return this;
+  }
+
   @Override
   public ODataResponse initFromEnclosedPart(final InputStream part) {
     try {
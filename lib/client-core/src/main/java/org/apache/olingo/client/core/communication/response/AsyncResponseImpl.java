@@ -18,6 +18,7 @@
  */
 package org.apache.olingo.client.core.communication.response;
 
+import java.io.InputStream;
 import java.util.Collection;
 import java.util.Map;
 
@@ -62,4 +63,16 @@ public class AsyncResponseImpl extends AbstractODataResponse implements AsyncRes
     this.statusMessage = responseLine.getValue();
     this.headers.putAll(headers);
   }
+
+  /**
+   * Constructor to be used inside a batch item whose body is provided as stream.
+   */
+  public AsyncResponseImpl(
+          final Map.Entry<Integer, String> responseLine,
+          final Map<String, Collection<String>> headers,
+          final InputStream payload) {
+
+    super(null, null, null);
+    initFromBatchPart(responseLine, headers, payload);
+  }
 }
@@ -18,6 +18,7 @@
  */
 package org.apache.olingo.client.core.communication.response.batch;
 
+import java.io.InputStream;
 import java.util.Collection;
 import java.util.Map;
 
@@ -48,6 +49,22 @@ public class ODataBatchErrorResponse extends AbstractODataResponse {
     this.headers.putAll(headers);
   }
 
+  /**
+   * Constructor for batch items whose body is provided as stream.
+   *
+   * @param responseLine status code and reason phrase of the batch item.
+   * @param headers headers of the batch item.
+   * @param payload body of the batch item.
+   */
+  public ODataBatchErrorResponse(
+          final Map.Entry<Integer, String> responseLine,
+          final Map<String, Collection<String>> headers,
+          final InputStream payload) {
+
+    super(null, null, null);
+    initFromBatchPart(responseLine, headers, payload);
+  }
+
   @Override
   public String getETag() {
     return null;
@@ -0,0 +1,455 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.client.core.communication.response.batch;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.util.AbstractMap;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.olingo.client.core.communication.request.batch.ODataBatchUtilities;
+
+/**
+ * Reader for multipart (batch and changeset) bodies working on bytes.
+ * <p>
+ * The body of each part is provided as {@link InputStream} slice of the underlying stream which ends at the next
+ * delimiter, so part bodies can be fed directly into deserializers without building lines or strings.
+ * Only the (small) part headers are decoded. A part body has to be consumed before the next part is requested;
+ * unread content is skipped by {@link #next()}.
+ */
+public class ODataBatchPartReader {
+
+  private static final Charset HEADER_CHARSET = Charset.forName("UTF-8");
+
+  private static final int BUFFER_SIZE = 8192;
+
+  private static final byte CR = '\r';
+
+  private static final byte LF = '\n';
+
+  private static final byte DASH = '-';
+
+  /**
+   * Response line syntax.
+   */
+  private static final Pattern RESPONSE_PATTERN =
+      Pattern.compile("HTTP/\\d\\.\\d (\\d+) (.*)", Pattern.CASE_INSENSITIVE);
+
+  private final InputStream input;
+
+  /**
+   * Delimiter: CRLF followed by the dash boundary.
+   */
+  private final byte[] delimiter;
+
+  private byte[] buffer;
+
+  private int head = 0;
+
+  private int tail = 0;
+
+  private boolean eof = false;
+
+  private boolean finished = false;
+
+  /**
+   * Position of the delimiter found in the buffer or -1.
+   */
+  private int delimiterIndex = -1;
+
+  /**
+   * Position up to which the buffer has been searched for the delimiter.
+   */
+  private int searched = 0;
+
+  private PartInputStream current;
+
+  private Map<String, Collection<String>> headers = Collections.emptyMap();
+
+  /**
+   * Constructor.
+   *
+   * @param input multipart body.
+   * @param boundary boundary with or without leading dashes (as returned by
+   * {@link ODataBatchUtilities#getBoundaryFromHeader(Collection)}).
+   */
+  public ODataBatchPartReader(final InputStream input, final String boundary) {
+    this.input = input;
+    final String dashBoundary = boundary.startsWith("--") ? boundary : "--" + boundary;
+    delimiter = ("\r\n" + dashBoundary).getBytes(HEADER_CHARSET);
+    buffer = new byte[Math.max(BUFFER_SIZE, 2 * delimiter.length)];
+    // the first delimiter may be at the very beginning of the body, i.e., without preceding CRLF
+    buffer[tail++] = CR;
+    buffer[tail++] = LF;
+  }
+
+  /**
+   * Moves to the next part, skipping the unread content of the current part (or the preamble).
+   *
+   * @return <code>false</code> if there is no further part (close delimiter or end of stream reached)
+   * @throws IOException in case of read errors
+   */
+  public boolean next() throws IOException {
+    if (finished) {
+      return false;
+    }
+    if (current == null) {
+      current = new PartInputStream();
+    }
+    current.skipToEnd();
+
+    if (!ensure(delimiter.length)) {
+      return finish();
+    }
+    head += delimiter.length;
+
+    if (ensure(2) && buffer[head] == DASH && buffer[head + 1] == DASH) {
+      // close delimiter
+      return finish();
+    }
+    // transport padding and CRLF after the boundary
+    readLine();
+
+    headers = readHeaders();
+    current = new PartInputStream();
+    return true;
+  }
+
+  /**
+   * @return headers of the current part
+   */
+  public Map<String, Collection<String>> getHeaders() {
+    return headers;
+  }
+
+  /**
+   * Gets the body of the current part. The stream ends at the delimiter of the next part.
+   *
+   * @return body of the current part
+   */
+  public InputStream getBody() {
+    if (current == null) {
+      throw new IllegalStateException("No current part");
+    }
+    return current;
+  }
+
+  /**
+   * Reads the response line (e.g. <code>HTTP/1.1 200 OK</code>) from the given part body.
+   *
+   * @param part part body
+   * @return status code and reason phrase
+   * @throws IOException in case of read errors
+   */
+  public static Map.Entry<Integer, String> readResponseLine(final InputStream part) throws IOException {
+    String line = readLine(part);
+    // ignore leading empty lines
+    while (line != null && line.trim().isEmpty()) {
+      line = readLine(part);
+    }
+    final Matcher matcher = RESPONSE_PATTERN.matcher(line == null ? "" : line.trim());
+    if (matcher.matches()) {
+      return new AbstractMap.SimpleEntry<Integer, String>(Integer.valueOf(matcher.group(1)), matcher.group(2));
+    }
+    throw new IllegalArgumentException("Invalid response line '" + line + "'");
+  }
+
+  /**
+   * Reads header lines up to the next empty line from the given stream.
+   *
+   * @param part stream positioned at the start of the headers
+   * @return headers (with case-insensitive names)
+   * @throws IOException in case of read errors
+   */
+  public static Map<String, Collection<String>> readHeaders(final InputStream part) throws IOException {
+    final Map<String, Collection<String>> target =
+        new TreeMap<String, Collection<String>>(String.CASE_INSENSITIVE_ORDER);
+    String line = readLine(part);
+    while (StringUtils.isNotBlank(line)) {
+      ODataBatchUtilities.addHeaderLine(line.trim(), target);
+      line = readLine(part);
+    }
+    return target;
+  }
+
+  /**
+   * Reads a single line (without line terminator) from the given stream.
+   *
+   * @param input stream
+   * @return the line or <code>null</code> at the end of the stream
+   * @throws IOException in case of read errors
+   */
+  public static String readLine(final InputStream input) throws IOException {
+    if (input instanceof PartInputStream) {
+      return ((PartInputStream) input).readLine();
+    }
+    final ByteArrayOutputStream line = new ByteArrayOutputStream();
+    int read = input.read();
+    if (read < 0) {
+      return null;
+    }
+    while (read >= 0 && read != LF) {
+      line.write(read);
+      read = input.read();
+    }
+    return toLine(line.toByteArray(), 0, line.size());
+  }
+
+  private static String toLine(final byte[] bytes, final int offset, final int length) {
+    final int end = length > 0 && bytes[offset + length - 1] == CR ? length - 1 : length;
+    return new String(bytes, offset, end, HEADER_CHARSET);
+  }
+
+  private boolean finish() {
+    finished = true;
+    headers = Collections.emptyMap();
+    return false;
+  }
+
+  private Map<String, Collection<String>> readHeaders() throws IOException {
+    final Map<String, Collection<String>> target =
+        new TreeMap<String, Collection<String>>(String.CASE_INSENSITIVE_ORDER);
+    String line = readLine();
+    while (StringUtils.isNotBlank(line)) {
+      ODataBatchUtilities.addHeaderLine(line.trim(), target);
+      line = readLine();
+    }
+    return target;
+  }
+
+  /**
+   * Reads a line from the buffered input.
+   */
+  private String readLine() throws IOException {
+    int start = head;
+    while (true) {
+      for (int i = start; i < tail; i++) {
+        if (buffer[i] == LF) {
+          final String line = toLine(buffer, head, i - head);
+          head = i + 1;
+          return line;
+        }
+      }
+      start = tail - head;
+      if (!fill()) {
+        final String line = head < tail ? toLine(buffer, head, tail - head) : null;
+        head = tail;
+        return line;
+      }
+      start += head;
+    }
+  }
+
+  /**
+   * Makes sure that at least the given number of bytes is buffered.
+   *
+   * @return <code>false</code> if the end of the stream has been reached before
+   */
+  private boolean ensure(final int count) throws IOException {
+    while (tail - head < count) {
+      if (!fill()) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Reads more data into the buffer, moving unread data to the start of the buffer (and growing it if full).
+   *
+   * @return <code>false</code> at the end of the stream
+   */
+  private boolean fill() throws IOException {
+    if (eof) {
+      return false;
+    }
+    if (head > 0) {
+      System.arraycopy(buffer, head, buffer, 0, tail - head);
+      tail -= head;
+      searched = Math.max(searched - head, 0);
+      delimiterIndex = delimiterIndex >= head ? delimiterIndex - head : -1;
+      head = 0;
+    }
+    if (tail == buffer.length) {
+      buffer = Arrays.copyOf(buffer, buffer.length * 2);
+    }
+    final int read = input.read(buffer, tail, buffer.length - tail);
+    if (read < 0) {
+      eof = true;
+      return false;
+    }
+    tail += read;
+    return true;
+  }
+
+  /**
+   * Finds the delimiter in the buffered data.
+   * Only the data buffered since the last call are searched.
+   *
+   * @return index of the delimiter or -1
+   */
+  private int findDelimiter() {
+    if (delimiterIndex >= head) {
+      return delimiterIndex;
+    }
+    final int last = tail - delimiter.length;
+    for (int i = Math.max(searched, head); i <= last; i++) {
+      if (buffer[i] == CR && matchesDelimiter(i)) {
+        delimiterIndex = i;
+        searched = i;
+        return i;
+      }
+    }
+    delimiterIndex = -1;
+    searched = Math.max(last + 1, head);
+    return -1;
+  }
+
+  private boolean matchesDelimiter(final int position) {
+    for (int j = 1; j < delimiter.length; j++) {
+      if (buffer[position + j] != delimiter[j]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Body of the current part; ends before the next delimiter.
+   */
+  private class PartInputStream extends InputStream {
+
+    private boolean ended = false;
+
+    @Override
+    public int read() throws IOException {
+      return readable() < 0 ? -1 : buffer[head++] & 0xFF;
+    }
+
+    @Override
+    public int read(final byte[] b, final int off, final int len) throws IOException {
+      if (len == 0) {
+        return ended || current != this ? -1 : 0;
+      }
+      final int available = readable();
+      if (available < 0) {
+        return -1;
+      }
+      final int count = Math.min(available, len);
+      System.arraycopy(buffer, head, b, off, count);
+      head += count;
+      return count;
+    }
+
+    /**
+     * Reads a line of this part directly from the buffer.
+     */
+    String readLine() throws IOException {
+      ByteArrayOutputStream line = null;
+      int available = readable();
+      if (available < 0) {
+        return null;
+      }
+      while (available >= 0) {
+        final int end = head + available;
+        for (int i = head; i < end; i++) {
+          if (buffer[i] == LF) {
+            final String result;
+            if (line == null) {
+              result = toLine(buffer, head, i - head);
+            } else {
+              line.write(buffer, head, i - head);
+              result = toLine(line.toByteArray(), 0, line.size());
+            }
+            head = i + 1;
+            return result;
+          }
+        }
+        // the line continues after the buffered data
+        if (line == null) {
+          line = new ByteArrayOutputStream();
+        }
+        line.write(buffer, head, available);
+        head = end;
+        available = readable();
+      }
+      return toLine(line.toByteArray(), 0, line.size());
+    }
+
+    /**
+     * Gets the number of buffered bytes of this part, reading more data if needed.
+     *
+     * @return number of bytes (at least one) or -1 at the end of the part
+     */
+    private int readable() throws IOException {
+      if (ended || current != this) {
+        return -1;
+      }
+      while (true) {
+        final int index = findDelimiter();
+        if (index >= 0) {
+          if (index == head) {
+            ended = true;
+            return -1;
+          }
+          return index - head;
+        }
+        // keep a possible start of the delimiter in the buffer
+        final int available = tail - head - (delimiter.length - 1);
+        if (available > 0) {
+          return available;
+        }
+        if (!fill()) {
+          // end of stream without delimiter: return the rest
+          if (tail == head) {
+            ended = true;
+            return -1;
+          }
+          return tail - head;
+        }
+      }
+    }
+
+    @Override
+    public int available() {
+      return 0;
+    }
+
+    @Override
+    public void close() {
+      // the underlying stream is closed together with the whole response
+    }
+
+    void skipToEnd() throws IOException {
+      final byte[] skipBuffer = new byte[BUFFER_SIZE];
+      while (read(skipBuffer, 0, skipBuffer.length) >= 0) {
+        // skip
+      }
+    }
+  }
+}
@@ -0,0 +1,143 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.client.core.communication.response.batch;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+import org.apache.olingo.client.api.communication.request.batch.ODataBatchResponseItem;
+import org.apache.olingo.client.api.communication.response.ODataBatchResponse;
+import org.apache.olingo.client.core.communication.request.batch.ODataBatchUtilities;
+import org.apache.olingo.client.core.communication.request.batch.ODataStreamingResponseItem;
+import org.apache.olingo.commons.api.http.HttpHeader;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Batch response manager reading the batch response with an {@link ODataBatchPartReader}.
+ * <p>
+ * In contrast to {@link ODataBatchResponseManager} the response is not split into lines; the payloads of the
+ * responses are stream slices of the batch response.
+ */
+public class ODataStreamingBatchResponseManager implements Iterator<ODataBatchResponseItem> {
+
+  /**
+   * Logger.
+   */
+  private static final Logger LOG = LoggerFactory.getLogger(ODataStreamingBatchResponseManager.class);
+
+  /**
+   * Expected batch response items iterator.
+   */
+  private final Iterator<ODataBatchResponseItem> expectedItemsIterator;
+
+  /**
+   * Reader of the batch parts.
+   */
+  private final ODataBatchPartReader reader;
+
+  private final boolean continueOnError;
+
+  /**
+   * Current batch response item.
+   */
+  private ODataBatchResponseItem current = null;
+
+  /**
+   * Constructor.
+   *
+   * @param res OData batch response.
+   * @param expectedItems expected batch response items (all of type {@link ODataStreamingResponseItem}).
+   * @param continueOnError 'TRUE' if the processing continues after an error response.
+   */
+  public ODataStreamingBatchResponseManager(
+          final ODataBatchResponse res,
+          final List<ODataBatchResponseItem> expectedItems,
+          final boolean continueOnError) {
+
+    this.continueOnError = continueOnError;
+    this.expectedItemsIterator = expectedItems.iterator();
+
+    final String batchBoundary = ODataBatchUtilities.getBoundaryFromHeader(res.getHeader(HttpHeader.CONTENT_TYPE));
+    LOG.debug("Retrieved batch response bondary '{}'", batchBoundary);
+    this.reader = new ODataBatchPartReader(res.getRawResponse(), batchBoundary);
+  }
+
+  @Override
+  public boolean hasNext() {
+    return (current == null || continueOnError || !current.isBreaking()) && expectedItemsIterator.hasNext();
+  }
+
+  @Override
+  public ODataBatchResponseItem next() {
+    if (current != null) {
+      current.close();
+    }
+
+    if (!hasNext()) {
+      throw new NoSuchElementException("No item found");
+    }
+
+    current = expectedItemsIterator.next();
+    final ODataStreamingResponseItem item = (ODataStreamingResponseItem) current;
+
+    final Map<String, Collection<String>> nextItemHeaders;
+    try {
+      if (!reader.next()) {
+        throw new IllegalStateException("Expected item not found");
+      }
+      nextItemHeaders = reader.getHeaders();
+    } catch (final IOException e) {
+      LOG.error("Error reading batch response", e);
+      throw new IllegalStateException(e);
+    }
+
+    switch (ODataBatchUtilities.getItemType(nextItemHeaders)) {
+      case CHANGESET:
+        if (!current.isChangeset()) {
+          throw new IllegalStateException("Unexpected batch item");
+        }
+        item.initFromChangeset(new ODataBatchPartReader(reader.getBody(),
+            ODataBatchUtilities.getBoundaryFromHeader(nextItemHeaders.get(HttpHeader.CONTENT_TYPE))));
+        break;
+
+      case RETRIEVE:
+        // for a changeset this is an error item
+        item.initFromPart(reader.getBody());
+        break;
+
+      default:
+        throw new IllegalStateException("Expected item not found");
+    }
+
+    return current;
+  }
+
+  /**
+   * Unsupported operation.
+   */
+  @Override
+  public void remove() {
+    throw new UnsupportedOperationException("Remove operation is not supported");
+  }
+}
@@ -0,0 +1,225 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.client.core.http;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.io.IOUtils;
+import org.apache.olingo.client.api.http.CachedResponse;
+import org.apache.olingo.client.api.http.ResponseCache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Response cache storing each response in a file of a directory; usually the second level of an
+ * {@link InMemoryResponseCache}.
+ * <p>
+ * Responses are stored in a plain binary format holding the key, status, headers and body; no objects are
+ * deserialized. The directory is not cleaned up automatically; files which can not be read or which do not match
+ * the format are treated as cache misses.
+ */
+public class FileResponseCache implements ResponseCache {
+
+  private static final Logger LOG = LoggerFactory.getLogger(FileResponseCache.class);
+
+  private static final String SUFFIX = ".cache";
+
+  /**
+   * Marks the format of the cache files; to be changed together with the format.
+   */
+  private static final int MAGIC = 0x4F434301;
+
+  private static final int MAX_HEADERS = 1000;
+
+  private final File directory;
+
+  /**
+   * Constructor.
+   *
+   * @param directory directory holding the cache files; it is created if it does not exist.
+   */
+  public FileResponseCache(final File directory) {
+    if (!directory.isDirectory() && !directory.mkdirs()) {
+      throw new IllegalArgumentException("Cache directory " + directory + " can not be created");
+    }
+    this.directory = directory;
+  }
+
+  private static String getPrefix(final String uri) {
+    return DigestUtils.sha1Hex(uri) + '_';
+  }
+
+  private File getFile(final String key) {
+    final int index = key.indexOf('\n');
+    final String uri = index < 0 ? key : key.substring(0, index);
+    return new File(directory, getPrefix(uri) + DigestUtils.sha1Hex(key) + SUFFIX);
+  }
+
+  @Override
+  public CachedResponse get(final String key) {
+    final File file = getFile(key);
+    if (!file.isFile()) {
+      return null;
+    }
+
+    DataInputStream input = null;
+    try {
+      input = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+      if (input.readInt() != MAGIC) {
+        throw new IOException("Unknown format");
+      }
+      if (!key.equals(input.readUTF())) {
+        return null;
+      }
+      final CachedResponse response = read(input, file.length());
+      if (input.read() != -1) {
+        throw new IOException("Unexpected trailing content");
+      }
+      return response;
+    } catch (final IOException e) {
+      LOG.warn("Error reading cached response " + file, e);
+      return null;
+    } finally {
+      IOUtils.closeQuietly(input);
+    }
+  }
+
+  private static CachedResponse read(final DataInputStream input, final long maxBodySize) throws IOException {
+    final int statusCode = input.readInt();
+    if (statusCode < 100 || statusCode > 599) {
+      throw new IOException("Invalid status code " + statusCode);
+    }
+    final String reasonPhrase = readNullable(input);
+    final String eTag = readNullable(input);
+    final long expires = input.readLong();
+
+    final Map<String, List<String>> headers = new LinkedHashMap<String, List<String>>();
+    final int headerCount = readCount(input, MAX_HEADERS);
+    for (int i = 0; i < headerCount; i++) {
+      final String name = input.readUTF();
+      final int valueCount = readCount(input, MAX_HEADERS);
+      final List<String> values = new ArrayList<String>(valueCount);
+      for (int j = 0; j < valueCount; j++) {
+        values.add(input.readUTF());
+      }
+      headers.put(name, values);
+    }
+
+    final byte[] body = new byte[readCount(input, maxBodySize)];
+    input.readFully(body);
+
+    return new CachedResponse(statusCode, reasonPhrase, headers, body, eTag, expires);
+  }
+
+  private static int readCount(final DataInputStream input, final long max) throws IOException {
+    final int count = input.readInt();
+    if (count < 0 || count > max) {
+      throw new IOException("Invalid length " + count);
+    }
+    return count;
+  }
+
+  private static String readNullable(final DataInputStream input) throws IOException {
+    return input.readBoolean() ? input.readUTF() : null;
+  }
+
+  @Override
+  public void put(final String key, final CachedResponse response) {
+    final File file = getFile(key);
+    DataOutputStream output = null;
+    File temp = null;
+    try {
+      temp = File.createTempFile("response", ".tmp", directory);
+      output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)));
+      output.writeInt(MAGIC);
+      output.writeUTF(key);
+      write(output, response);
+      output.close();
+      output = null;
+
+      if (!temp.renameTo(file) && !(file.delete() && temp.renameTo(file))) {
+        LOG.warn("Cached response {} could not be stored", file);
+      }
+    } catch (final IOException e) {
+      LOG.warn("Error writing cached response " + file, e);
+    } finally {
+      IOUtils.closeQuietly(output);
+      if (temp != null && temp.exists() && !temp.delete()) {
+        LOG.debug("Temporary file {} could not be deleted", temp);
+      }
+    }
+  }
+
+  private static void write(final DataOutputStream output, final CachedResponse response) throws IOException {
+    output.writeInt(response.getStatusCode());
+    writeNullable(output, response.getReasonPhrase());
+    writeNullable(output, response.getETag());
+    output.writeLong(response.getExpires());
+
+    output.writeInt(response.getHeaders().size());
+    for (Map.Entry<String, ? extends List<String>> header : response.getHeaders().entrySet()) {
+      output.writeUTF(header.getKey());
+      output.writeInt(header.getValue().size());
+      for (String value : header.getValue()) {
+        output.writeUTF(value);
+      }
+    }
+
+    output.writeInt(response.getBody().length);
+    output.write(response.getBody());
+  }
+
+  private static void writeNullable(final DataOutputStream output, final String value) throws IOException {
+    output.writeBoolean(value != null);
+    if (value != null) {
+      output.writeUTF(value);
+    }
+  }
+
+  @Override
+  public void invalidate(final String uri) {
+    final String prefix = getPrefix(uri);
+    final File[] files = directory.listFiles(new FilenameFilter() {
+      @Override
+      public boolean accept(final File dir, final String name) {
+        return name.startsWith(prefix);
+      }
+    });
+    if (files != null) {
+      for (File file : files) {
+        if (!file.delete()) {
+          LOG.warn("Cached response {} could not be deleted", file);
+        }
+      }
+    }
+  }
+}
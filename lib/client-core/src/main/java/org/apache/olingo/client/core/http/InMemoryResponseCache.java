@@ -0,0 +1,146 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.client.core.http;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.apache.olingo.client.api.http.CachedResponse;
+import org.apache.olingo.client.api.http.ResponseCache;
+
+/**
+ * Least-recently-used in-memory response cache bounded by number of entries and total body size.
+ * <p>
+ * Optionally a second-level cache (e.g. a {@link FileResponseCache}) can be given: entries evicted from memory are
+ * moved there and entries not found in memory are looked up there.
+ */
+public class InMemoryResponseCache implements ResponseCache {
+
+  private final int maxEntries;
+
+  private final long maxBytes;
+
+  private final ResponseCache secondLevel;
+
+  private final LinkedHashMap<String, CachedResponse> entries =
+      new LinkedHashMap<String, CachedResponse>(16, 0.75f, true);
+
+  private long bytes = 0;
+
+  /**
+   * Constructor.
+   *
+   * @param maxEntries maximum number of cached responses.
+   * @param maxBytes maximum total size of the cached response bodies.
+   */
+  public InMemoryResponseCache(final int maxEntries, final long maxBytes) {
+    this(maxEntries, maxBytes, null);
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param maxEntries maximum number of cached responses.
+   * @param maxBytes maximum total size of the cached response bodies.
+   * @param secondLevel cache receiving evicted entries; may be <tt>null</tt>.
+   */
+  public InMemoryResponseCache(final int maxEntries, final long maxBytes, final ResponseCache secondLevel) {
+    if (maxEntries <= 0 || maxBytes <= 0) {
+      throw new IllegalArgumentException("Cache limits must be greater than zero");
+    }
+    this.maxEntries = maxEntries;
+    this.maxBytes = maxBytes;
+    this.secondLevel = secondLevel;
+  }
+
+  @Override
+  public CachedResponse get(final String key) {
+    synchronized (entries) {
+      final CachedResponse response = entries.get(key);
+      if (response != null || secondLevel == null) {
+        return response;
+      }
+    }
+
+    final CachedResponse response = secondLevel.get(key);
+    if (response != null) {
+      store(key, response);
+    }
+    return response;
+  }
+
+  @Override
+  public void put(final String key, final CachedResponse response) {
+    store(key, response);
+  }
+
+  private void store(final String key, final CachedResponse response) {
+    final Map<String, CachedResponse> evicted = new LinkedHashMap<String, CachedResponse>();
+    synchronized (entries) {
+      final CachedResponse previous = entries.put(key, response);
+      if (previous != null) {
+        bytes -= previous.getBody().length;
+      }
+      bytes += response.getBody().length;
+
+      final Iterator<Map.Entry<String, CachedResponse>> iterator = entries.entrySet().iterator();
+      while ((entries.size() > maxEntries || bytes > maxBytes) && iterator.hasNext()) {
+        final Map.Entry<String, CachedResponse> eldest = iterator.next();
+        bytes -= eldest.getValue().getBody().length;
+        iterator.remove();
+        evicted.put(eldest.getKey(), eldest.getValue());
+      }
+    }
+
+    if (secondLevel != null) {
+      for (Map.Entry<String, CachedResponse> entry : evicted.entrySet()) {
+        secondLevel.put(entry.getKey(), entry.getValue());
+      }
+    }
+  }
+
+  @Override
+  public void invalidate(final String uri) {
+    final String prefix = uri + '\n';
+    synchronized (entries) {
+      final Iterator<Map.Entry<String, CachedResponse>> iterator = entries.entrySet().iterator();
+      while (iterator.hasNext()) {
+        final Map.Entry<String, CachedResponse> entry = iterator.next();
+        if (entry.getKey().startsWith(prefix)) {
+          bytes -= entry.getValue().getBody().length;
+          iterator.remove();
+        }
+      }
+    }
+
+    if (secondLevel != null) {
+      secondLevel.invalidate(uri);
+    }
+  }
+
+  /**
+   * @return number of responses cached in memory.
+   */
+  public int size() {
+    synchronized (entries) {
+      return entries.size();
+    }
+  }
+}
@@ -0,0 +1,202 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.client.core.http;
+
+import java.io.IOException;
+import java.net.URI;
+import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.Future;
+
+import javax.net.ssl.SSLContext;
+
+import org.apache.http.Header;
+import org.apache.http.HttpEntityEnclosingRequest;
+import org.apache.http.HttpRequest;
+import org.apache.http.HttpRequestInterceptor;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.client.utils.URIUtils;
+import org.apache.http.concurrent.FutureCallback;
+import org.apache.http.impl.DefaultConnectionReuseStrategy;
+import org.apache.http.impl.nio.DefaultHttpClientIODispatch;
+import org.apache.http.impl.nio.pool.BasicNIOConnFactory;
+import org.apache.http.impl.nio.pool.BasicNIOConnPool;
+import org.apache.http.impl.nio.reactor.DefaultConnectingIOReactor;
+import org.apache.http.impl.nio.reactor.IOReactorConfig;
+import org.apache.http.message.BasicHttpEntityEnclosingRequest;
+import org.apache.http.message.BasicHttpRequest;
+import org.apache.http.nio.protocol.BasicAsyncRequestProducer;
+import org.apache.http.nio.protocol.BasicAsyncResponseConsumer;
+import org.apache.http.nio.protocol.HttpAsyncRequestExecutor;
+import org.apache.http.nio.protocol.HttpAsyncRequester;
+import org.apache.http.nio.reactor.IOEventDispatch;
+import org.apache.http.params.CoreProtocolPNames;
+import org.apache.http.params.HttpParams;
+import org.apache.http.params.SyncBasicHttpParams;
+import org.apache.http.protocol.BasicHttpContext;
+import org.apache.http.protocol.HTTP;
+import org.apache.http.protocol.ImmutableHttpProcessor;
+import org.apache.http.protocol.RequestConnControl;
+import org.apache.http.protocol.RequestContent;
+import org.apache.http.protocol.RequestTargetHost;
+import org.apache.http.protocol.RequestUserAgent;
+import org.apache.olingo.client.api.http.AsyncHttpClient;
+import org.apache.olingo.client.api.http.AsyncHttpClientFactory;
+import org.apache.olingo.client.api.http.HttpClientException;
+import org.apache.olingo.commons.api.http.HttpMethod;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Implementation returning a non-blocking HTTP client based on HttpCore NIO.
+ * <br/>
+ * All clients created by a factory share one I/O reactor and one connection pool; they are started on first use and
+ * released by {@link #shutdown()}. Request bodies are buffered in memory before being sent and response bodies are
+ * received into memory. Authentication, proxies and compressed responses are not supported.
+ */
+public class NioHttpClientFactory implements AsyncHttpClientFactory {
+
+  private static final Logger LOG = LoggerFactory.getLogger(NioHttpClientFactory.class);
+
+  private static final int DEFAULT_MAX_CONNECTIONS = 20;
+
+  private static final long SHUTDOWN_GRACE_PERIOD = 1000L;
+
+  private final IOReactorConfig config;
+
+  private final int maxConnections;
+
+  private NioHttpClient client;
+
+  public NioHttpClientFactory() {
+    this(new IOReactorConfig(), DEFAULT_MAX_CONNECTIONS);
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param config configuration of the I/O reactor (number of I/O threads, timeouts, socket options).
+   * @param maxConnections maximum number of connections, in total and per target host.
+   */
+  public NioHttpClientFactory(final IOReactorConfig config, final int maxConnections) {
+    this.config = config;
+    this.maxConnections = maxConnections;
+  }
+
+  @Override
+  public synchronized AsyncHttpClient create(final HttpMethod method, final URI uri) {
+    if (client == null) {
+      try {
+        client = new NioHttpClient(config, maxConnections);
+      } catch (IOException e) {
+        throw new HttpClientException(e);
+      } catch (NoSuchAlgorithmException e) {
+        throw new HttpClientException(e);
+      }
+    }
+    return client;
+  }
+
+  @Override
+  public void close(final AsyncHttpClient asyncHttpClient) {
+    // connections are kept in the pool until shutdown
+  }
+
+  /**
+   * Closes all connections and stops the I/O reactor; the next request starts them again.
+   */
+  public synchronized void shutdown() {
+    if (client != null) {
+      try {
+        client.pool.shutdown(SHUTDOWN_GRACE_PERIOD);
+      } catch (IOException e) {
+        LOG.warn("Error while shutting down the I/O reactor", e);
+      }
+      client = null;
+    }
+  }
+
+  private static final class NioHttpClient implements AsyncHttpClient {
+
+    private final BasicNIOConnPool pool;
+
+    private final HttpAsyncRequester requester;
+
+    private NioHttpClient(final IOReactorConfig config, final int maxConnections)
+        throws IOException, NoSuchAlgorithmException {
+
+      final HttpParams params = new SyncBasicHttpParams();
+      params.setParameter(CoreProtocolPNames.USER_AGENT, AbstractHttpClientFactory.USER_AGENT);
+
+      final DefaultConnectingIOReactor ioReactor = new DefaultConnectingIOReactor(config);
+      pool = new BasicNIOConnPool(ioReactor, new BasicNIOConnFactory(SSLContext.getDefault(), null, params), params);
+      pool.setMaxTotal(maxConnections);
+      pool.setDefaultMaxPerRoute(maxConnections);
+
+      requester = new HttpAsyncRequester(
+          new ImmutableHttpProcessor(new HttpRequestInterceptor[] {
+              new RequestContent(), new RequestTargetHost(), new RequestConnControl(), new RequestUserAgent() }),
+          new DefaultConnectionReuseStrategy(),
+          params);
+
+      final IOEventDispatch dispatch = new DefaultHttpClientIODispatch(new HttpAsyncRequestExecutor(), params);
+      final Thread reactorThread = new Thread(new Runnable() {
+        @Override
+        public void run() {
+          try {
+            ioReactor.execute(dispatch);
+          } catch (IOException e) {
+            LOG.error("I/O reactor terminated", e);
+          }
+        }
+      }, "olingo-nio-client");
+      reactorThread.setDaemon(true);
+      reactorThread.start();
+    }
+
+    @Override
+    public Future<HttpResponse> execute(final HttpUriRequest request, final FutureCallback<HttpResponse> callback) {
+      final URI uri = request.getURI();
+      final String target = (uri.getRawPath() == null || uri.getRawPath().isEmpty() ? "/" : uri.getRawPath())
+          + (uri.getRawQuery() == null ? "" : "?" + uri.getRawQuery());
+
+      final HttpRequest nioRequest;
+      if (request instanceof HttpEntityEnclosingRequest) {
+        final BasicHttpEntityEnclosingRequest enclosing =
+            new BasicHttpEntityEnclosingRequest(request.getMethod(), target, request.getProtocolVersion());
+        enclosing.setEntity(((HttpEntityEnclosingRequest) request).getEntity());
+        nioRequest = enclosing;
+      } else {
+        nioRequest = new BasicHttpRequest(request.getMethod(), target, request.getProtocolVersion());
+      }
+      for (Header header : request.getAllHeaders()) {
+        // set by the protocol interceptors
+        if (!HTTP.CONTENT_LEN.equalsIgnoreCase(header.getName())
+            && !HTTP.TRANSFER_ENCODING.equalsIgnoreCase(header.getName())
+            && !HTTP.TARGET_HOST.equalsIgnoreCase(header.getName())) {
+
+          nioRequest.addHeader(header);
+        }
+      }
+
+      return requester.execute(new BasicAsyncRequestProducer(URIUtils.extractHost(uri), nioRequest),
+          new BasicAsyncResponseConsumer(), pool, new BasicHttpContext(), callback);
+    }
+  }
+}
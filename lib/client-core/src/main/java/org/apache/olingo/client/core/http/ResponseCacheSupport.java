@@ -0,0 +1,286 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.client.core.http;
+
+import java.io.IOException;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TimeZone;
+
+import org.apache.http.Header;
+import org.apache.http.HeaderElement;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpStatus;
+import org.apache.http.HttpVersion;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.message.BasicHttpResponse;
+import org.apache.http.util.EntityUtils;
+import org.apache.olingo.client.api.http.CachedResponse;
+import org.apache.olingo.client.api.http.HttpClientException;
+import org.apache.olingo.client.api.http.ResponseCache;
+import org.apache.olingo.commons.api.http.HttpHeader;
+
+/**
+ * Request pipeline support for a {@link ResponseCache}.
+ * <p>
+ * As the cache is shared by all requests of a client configuration, requests with credentials
+ * (<tt>Authorization</tt> or <tt>Cookie</tt> headers) and responses marked as <tt>private</tt> or setting cookies
+ * are not cached, and neither are responses varying on request headers which are not part of the cache key.
+ */
+public final class ResponseCacheSupport {
+
+  /**
+   * Request headers selecting the representation of a resource, i.e., being part of the cache key.
+   */
+  private static final String[] KEY_HEADERS = new String[] {
+    HttpHeader.ACCEPT, HttpHeader.ACCEPT_CHARSET, HttpHeader.ACCEPT_LANGUAGE, HttpHeader.PREFER,
+    HttpHeader.ODATA_MAX_VERSION };
+
+  /**
+   * Request headers carrying credentials; requests with them are not answered from or stored in the cache.
+   */
+  private static final String[] CREDENTIAL_HEADERS = new String[] { HttpHeader.AUTHORIZATION, HttpHeader.COOKIE };
+
+  private static final String NO_STORE = "no-store";
+  private static final String NO_CACHE = "no-cache";
+  private static final String PRIVATE = "private";
+  private static final String MAX_AGE = "max-age";
+
+  /**
+   * Date formats of the <tt>Expires</tt> header: RFC 1123, RFC 850 and ANSI C's asctime().
+   */
+  private static final String[] DATE_PATTERNS = new String[] {
+    "EEE, dd MMM yyyy HH:mm:ss zzz", "EEEE, dd-MMM-yy HH:mm:ss zzz", "EEE MMM d HH:mm:ss yyyy" };
+
+  /**
+   * Checks whether the response to the given GET request may be taken from or stored in the cache.
+   *
+   * @param request request.
+   * @return <tt>false</tt> if the request carries credentials.
+   */
+  public static boolean isCacheable(final HttpUriRequest request) {
+    for (String name : CREDENTIAL_HEADERS) {
+      if (request.containsHeader(name)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Builds the cache key of a GET request.
+   *
+   * @param request request.
+   * @return cache key.
+   */
+  public static String getKey(final HttpUriRequest request) {
+    final StringBuilder key = new StringBuilder(request.getURI().toASCIIString()).append('\n');
+    for (String name : KEY_HEADERS) {
+      for (Header header : request.getHeaders(name)) {
+        key.append(name).append(':').append(header.getValue()).append('\n');
+      }
+    }
+    return key.toString();
+  }
+
+  /**
+   * Creates a response answering a request from the cache.
+   *
+   * @param cached cached response.
+   * @return HTTP response with the cached headers and body.
+   */
+  public static HttpResponse toHttpResponse(final CachedResponse cached) {
+    final HttpResponse response =
+        new BasicHttpResponse(HttpVersion.HTTP_1_1, cached.getStatusCode(), cached.getReasonPhrase());
+    for (Map.Entry<String, ? extends List<String>> header : cached.getHeaders().entrySet()) {
+      for (String value : header.getValue()) {
+        response.addHeader(header.getKey(), value);
+      }
+    }
+    final ByteArrayEntity entity = new ByteArrayEntity(cached.getBody());
+    entity.setContentType(response.getFirstHeader(HttpHeader.CONTENT_TYPE));
+    response.setEntity(entity);
+    return response;
+  }
+
+  /**
+   * Stores a successful response in the cache if its headers and its size allow it.
+   * The body of a stored response is read completely and replaced by an in-memory entity;
+   * responses without a known content length (e.g., chunked ones) are not stored.
+   *
+   * @param cache response cache.
+   * @param key cache key.
+   * @param response received response.
+   * @param now current time in milliseconds since the epoch.
+   * @param maxEntitySize maximum size of a stored body in bytes.
+   * @return the response to be processed further.
+   */
+  public static HttpResponse store(final ResponseCache cache, final String key, final HttpResponse response,
+      final long now, final long maxEntitySize) {
+
+    final Header eTag = response.getFirstHeader(HttpHeader.ETAG);
+    final long expires = getExpires(response, now);
+    if (response.getStatusLine().getStatusCode() != HttpStatus.SC_OK || response.getEntity() == null
+        || expires < 0 || (eTag == null && expires <= now)) {
+      return response;
+    }
+    final long length = response.getEntity().getContentLength();
+    if (length < 0 || length > maxEntitySize
+        || response.containsHeader(HttpHeader.SET_COOKIE) || !isVaryCovered(response)) {
+      return response;
+    }
+
+    final byte[] body;
+    try {
+      body = EntityUtils.toByteArray(response.getEntity());
+    } catch (final IOException e) {
+      throw new HttpClientException(e);
+    }
+    final ByteArrayEntity entity = new ByteArrayEntity(body);
+    entity.setContentType(response.getEntity().getContentType());
+    response.setEntity(entity);
+
+    final Map<String, List<String>> headers = new LinkedHashMap<String, List<String>>();
+    for (Header header : response.getAllHeaders()) {
+      List<String> values = headers.get(header.getName());
+      if (values == null) {
+        values = new ArrayList<String>();
+        headers.put(header.getName(), values);
+      }
+      values.add(header.getValue());
+    }
+    cache.put(key, new CachedResponse(response.getStatusLine().getStatusCode(),
+        response.getStatusLine().getReasonPhrase(), headers, body, eTag == null ? null : eTag.getValue(), expires));
+    return response;
+  }
+
+  /**
+   * Answers a successfully revalidated request (<tt>304 Not Modified</tt>) from the cache.
+   *
+   * @param cache response cache.
+   * @param key cache key.
+   * @param cached cached response.
+   * @param notModified received response.
+   * @param now current time in milliseconds since the epoch.
+   * @return HTTP response with the cached headers and body.
+   */
+  public static HttpResponse revalidated(final ResponseCache cache, final String key, final CachedResponse cached,
+      final HttpResponse notModified, final long now) {
+
+    EntityUtils.consumeQuietly(notModified.getEntity());
+    final long expires = getExpires(notModified, now);
+    if (expires < 0) {
+      cache.invalidate(key.substring(0, key.indexOf('\n')));
+    } else {
+      cached.setExpires(expires);
+      cache.put(key, cached);
+    }
+    return toHttpResponse(cached);
+  }
+
+  /**
+   * Checks that the response varies only on request headers which are part of the cache key.
+   */
+  private static boolean isVaryCovered(final HttpResponse response) {
+    for (Header header : response.getHeaders(HttpHeader.VARY)) {
+      for (HeaderElement element : header.getElements()) {
+        boolean covered = false;
+        for (String name : KEY_HEADERS) {
+          covered |= name.equalsIgnoreCase(element.getName());
+        }
+        if (!covered) {
+          return false;
+        }
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Gets the time until which a response can be used without revalidation from its <tt>Cache-Control</tt>
+   * (<tt>max-age</tt>, <tt>no-cache</tt>, <tt>no-store</tt>, <tt>private</tt>) or <tt>Expires</tt> headers.
+   *
+   * @param response response.
+   * @param now current time in milliseconds since the epoch.
+   * @return expiration time in milliseconds since the epoch; <tt>-1</tt> if the response must not be stored.
+   */
+  public static long getExpires(final HttpResponse response, final long now) {
+    long expires = now;
+    boolean maxAge = false;
+    boolean noCache = false;
+    for (Header header : response.getHeaders(HttpHeader.CACHE_CONTROL)) {
+      for (HeaderElement element : header.getElements()) {
+        if (NO_STORE.equalsIgnoreCase(element.getName()) || PRIVATE.equalsIgnoreCase(element.getName())) {
+          return -1;
+        } else if (NO_CACHE.equalsIgnoreCase(element.getName())) {
+          noCache = true;
+        } else if (MAX_AGE.equalsIgnoreCase(element.getName()) && element.getValue() != null) {
+          try {
+            expires = now + Long.parseLong(element.getValue().trim()) * 1000;
+            maxAge = true;
+          } catch (final NumberFormatException e) {
+            expires = now;
+          }
+        }
+      }
+    }
+
+    if (noCache) {
+      return now;
+    }
+    if (!maxAge) {
+      final Header expiresHeader = response.getFirstHeader(HttpHeader.EXPIRES);
+      if (expiresHeader != null) {
+        // invalid dates mean "already expired"
+        expires = Math.max(now, parseDate(expiresHeader.getValue()));
+      }
+    }
+    return expires;
+  }
+
+  /**
+   * Parses an HTTP date.
+   *
+   * @param value date in one of the formats allowed by HTTP/1.1.
+   * @return milliseconds since the epoch; <tt>-1</tt> if the date is invalid.
+   */
+  private static long parseDate(final String value) {
+    for (String pattern : DATE_PATTERNS) {
+      final SimpleDateFormat format = new SimpleDateFormat(pattern, Locale.US);
+      format.setTimeZone(TimeZone.getTimeZone("GMT"));
+      try {
+        return format.parse(value.trim()).getTime();
+      } catch (final ParseException e) {
+        // try next format
+      }
+    }
+    return -1;
+  }
+
+  private ResponseCacheSupport() {
+    // private constructor for static utility class
+  }
+}
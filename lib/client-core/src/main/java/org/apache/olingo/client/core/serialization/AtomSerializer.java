@@ -83,7 +83,7 @@ public class AtomSerializer implements ODataSerializer {
   }
 
   private void collection(final XMLStreamWriter writer,
-      final ValueType valueType, final EdmPrimitiveTypeKind kind, final List<?> value)
+      final ValueType valueType, final EdmPrimitiveTypeKind kind, final Iterable<?> value)
           throws XMLStreamException, EdmPrimitiveTypeException {
     for (Object item : value) {
       writer.writeStartElement(Constants.PREFIX_METADATA, Constants.ELEM_ELEMENT, Constants.NS_METADATA);
@@ -124,7 +124,7 @@ public class AtomSerializer implements ODataSerializer {
     case COLLECTION_GEOSPATIAL:
     case COLLECTION_ENUM:
     case COLLECTION_COMPLEX:
-      collection(writer, valueType.getBaseType(), kind, (List<?>) value);
+      collection(writer, valueType.getBaseType(), kind, (Iterable<?>) value);
       break;
     case COMPLEX:
       if (((ComplexValue) value).getTypeName() != null) {
@@ -238,7 +238,7 @@ public class JsonSerializer implements ODataSerializer {
   }
 
   private void collection(final JsonGenerator jgen, final EdmTypeInfo typeInfo,
-      final ValueType valueType, final List<?> value)
+      final ValueType valueType, final Iterable<?> value)
           throws IOException, EdmPrimitiveTypeException {
 
     EdmTypeInfo itemTypeInfo = typeInfo == null ?
@@ -334,7 +334,7 @@ public class JsonSerializer implements ODataSerializer {
     if (value.isNull()) {
       jgen.writeNull();
     } else if (value.isCollection()) {
-      collection(jgen, typeInfo, value.getValueType(), value.asCollection());
+      collection(jgen, typeInfo, value.getValueType(), value.asIterable());
     } else if (value.isPrimitive()) {
       primitiveValue(jgen, typeInfo, value.asPrimitive());
     } else if (value.isEnum()) {
@@ -0,0 +1,110 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.client.core.communication.request;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+
+import org.apache.olingo.client.api.communication.request.ODataFutureCallback;
+import org.junit.Test;
+
+public class ODataFutureTaskTest {
+
+  private static class RecordingCallback implements ODataFutureCallback<String> {
+    private int calls;
+    private String response;
+    private Throwable cause;
+
+    @Override
+    public void onSuccess(final String response) {
+      calls++;
+      this.response = response;
+    }
+
+    @Override
+    public void onFailure(final Throwable cause) {
+      calls++;
+      this.cause = cause;
+    }
+  }
+
+  private static ODataFutureTask<String> task(final String result, final RuntimeException failure) {
+    return new ODataFutureTask<String>(new Callable<String>() {
+      @Override
+      public String call() {
+        if (failure != null) {
+          throw failure;
+        }
+        return result;
+      }
+    });
+  }
+
+  @Test
+  public void callbackOnSuccess() {
+    final ODataFutureTask<String> task = task("result", null);
+    final RecordingCallback callback = new RecordingCallback();
+    task.addCallback(callback);
+    assertEquals(0, callback.calls);
+
+    task.run();
+    assertEquals(1, callback.calls);
+    assertEquals("result", callback.response);
+    assertNull(callback.cause);
+  }
+
+  @Test
+  public void callbackOnFailure() {
+    final IllegalStateException failure = new IllegalStateException();
+    final ODataFutureTask<String> task = task(null, failure);
+    final RecordingCallback callback = new RecordingCallback();
+    task.addCallback(callback);
+
+    task.run();
+    assertEquals(1, callback.calls);
+    assertEquals(failure, callback.cause);
+  }
+
+  @Test
+  public void callbackOnCancel() {
+    final ODataFutureTask<String> task = task("result", null);
+    final RecordingCallback callback = new RecordingCallback();
+    task.addCallback(callback);
+
+    task.cancel(false);
+    task.run();
+    assertEquals(1, callback.calls);
+    assertTrue(callback.cause instanceof CancellationException);
+  }
+
+  @Test
+  public void callbackAddedAfterCompletion() {
+    final ODataFutureTask<String> task = task("result", null);
+    task.run();
+
+    final RecordingCallback callback = new RecordingCallback();
+    task.addCallback(callback);
+    assertEquals(1, callback.calls);
+    assertEquals("result", callback.response);
+  }
+}
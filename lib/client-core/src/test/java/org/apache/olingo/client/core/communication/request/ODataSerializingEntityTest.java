@@ -0,0 +1,79 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.client.core.communication.request;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.olingo.client.api.ODataClient;
+import org.apache.olingo.client.api.domain.ClientEntity;
+import org.apache.olingo.client.core.ODataClientFactory;
+import org.apache.olingo.commons.api.edm.FullQualifiedName;
+import org.apache.olingo.commons.api.format.ContentType;
+import org.junit.Test;
+
+public class ODataSerializingEntityTest {
+
+  private ClientEntity createEntity(final ODataClient client) {
+    final ClientEntity entity = client.getObjectFactory().
+        newEntity(new FullQualifiedName("Microsoft.OData.SampleService.Models.TripPin.Person"));
+    entity.getProperties().add(client.getObjectFactory().newPrimitiveProperty("UserName",
+        client.getObjectFactory().newPrimitiveValueBuilder().buildString("russellwhyte")));
+    return entity;
+  }
+
+  @Test
+  public void writeEntity() throws Exception {
+    final ODataClient client = ODataClientFactory.getClient();
+    final ClientEntity entity = createEntity(client);
+    final ContentType contentType = ContentType.JSON_FULL_METADATA;
+    final String expected = IOUtils.toString(client.getWriter().writeEntity(entity, contentType), "UTF-8");
+
+    final ODataSerializingEntity httpEntity = ODataSerializingEntity.forEntity(client, entity, contentType);
+    assertTrue(httpEntity.isRepeatable());
+    assertTrue(httpEntity.isChunked());
+    assertEquals(-1, httpEntity.getContentLength());
+
+    // repeatable: the payload is serialized again for each call
+    for (int i = 0; i < 2; i++) {
+      final ByteArrayOutputStream output = new ByteArrayOutputStream();
+      httpEntity.writeTo(output);
+      assertEquals(expected, output.toString("UTF-8"));
+    }
+    assertEquals(expected, IOUtils.toString(httpEntity.getContent(), "UTF-8"));
+  }
+
+  @Test
+  public void contentLengthWithoutChunking() throws Exception {
+    final ODataClient client = ODataClientFactory.getClient();
+    client.getConfiguration().setUseChuncked(false);
+    final ClientEntity entity = createEntity(client);
+    final ContentType contentType = ContentType.APPLICATION_ATOM_XML;
+    final byte[] expected = IOUtils.toByteArray(client.getWriter().writeEntity(entity, contentType));
+
+    final ODataSerializingEntity httpEntity = ODataSerializingEntity.forEntity(client, entity, contentType);
+    assertEquals(expected.length, httpEntity.getContentLength());
+    final ByteArrayOutputStream output = new ByteArrayOutputStream();
+    httpEntity.writeTo(output);
+    assertEquals(expected.length, output.size());
+  }
+}
@@ -0,0 +1,171 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.client.core.communication.request.batch;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.olingo.client.api.ODataClient;
+import org.apache.olingo.client.api.communication.ODataClientErrorException;
+import org.apache.olingo.client.api.communication.request.batch.ODataRequestCoalescer;
+import org.apache.olingo.client.api.communication.response.ODataRetrieveResponse;
+import org.apache.olingo.client.api.domain.ClientEntity;
+import org.apache.olingo.client.core.ODataClientFactory;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+public class ODataRequestCoalescerTest {
+
+  private static final String ENTITY = "{\"UserName\":\"russellwhyte\"}";
+  private static final String ERROR = "{\"error\":{\"code\":null,\"message\":\"Not found\"}}";
+
+  private final ODataClient client = ODataClientFactory.getClient();
+  private final AtomicInteger batchRequests = new AtomicInteger();
+  private final AtomicInteger singleRequests = new AtomicInteger();
+  private HttpServer server;
+  private String serviceRoot;
+
+  @Before
+  public void startServer() throws IOException {
+    server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+    server.createContext("/odata.svc", new HttpHandler() {
+      @Override
+      public void handle(final HttpExchange exchange) throws IOException {
+        if (exchange.getRequestURI().getPath().endsWith("$batch")) {
+          batchRequests.incrementAndGet();
+          respond(exchange, "multipart/mixed;boundary=b",
+              batchResponse(IOUtils.toString(exchange.getRequestBody(), "UTF-8")));
+        } else {
+          singleRequests.incrementAndGet();
+          respond(exchange, "application/json", ENTITY);
+        }
+      }
+    });
+    server.start();
+    serviceRoot = "http://localhost:" + server.getAddress().getPort() + "/odata.svc";
+  }
+
+  @After
+  public void stopServer() {
+    server.stop(0);
+  }
+
+  private static String batchResponse(final String requestBody) {
+    final StringBuilder response = new StringBuilder();
+    for (String line : requestBody.split("\r\n")) {
+      if (line.startsWith("GET ")) {
+        response.append("--b\r\nContent-Type: application/http\r\n\r\n");
+        if (line.contains("missing")) {
+          response.append("HTTP/1.1 404 Not Found\r\nContent-Type: application/json\r\n\r\n").append(ERROR);
+        } else {
+          response.append("HTTP/1.1 200 OK\r\nContent-Type: application/json\r\n\r\n").append(ENTITY);
+        }
+        response.append("\r\n");
+      }
+    }
+    return response.append("--b--\r\n").toString();
+  }
+
+  private static void respond(final HttpExchange exchange, final String contentType, final String body)
+      throws IOException {
+    final byte[] bytes = body.getBytes("UTF-8");
+    exchange.getResponseHeaders().set("Content-Type", contentType);
+    exchange.sendResponseHeaders(200, bytes.length);
+    final OutputStream output = exchange.getResponseBody();
+    output.write(bytes);
+    output.close();
+  }
+
+  private Future<ODataRetrieveResponse<ClientEntity>> submit(final ODataRequestCoalescer coalescer,
+      final String key) {
+    return coalescer.submit(client.getRetrieveRequestFactory().getEntityRequest(
+        URI.create(serviceRoot + "/People('" + key + "')")));
+  }
+
+  @Test
+  public void sendBatchWhenFull() throws Exception {
+    final ODataRequestCoalescer coalescer =
+        client.getBatchRequestFactory().getRequestCoalescer(serviceRoot, 60000, 3);
+    final Future<ODataRetrieveResponse<ClientEntity>> first = submit(coalescer, "first");
+    final Future<ODataRetrieveResponse<ClientEntity>> second = submit(coalescer, "second");
+    final Future<ODataRetrieveResponse<ClientEntity>> missing = submit(coalescer, "missing");
+
+    // the second response is read after the rest of the batch response
+    assertEquals(ENTITY, IOUtils.toString(first.get(10, TimeUnit.SECONDS).getRawResponse(), "UTF-8"));
+    try {
+      missing.get(10, TimeUnit.SECONDS);
+      fail("Expected exception not thrown");
+    } catch (final ExecutionException e) {
+      assertTrue(e.getCause() instanceof ODataClientErrorException);
+      assertEquals(404, ((ODataClientErrorException) e.getCause()).getStatusLine().getStatusCode());
+    }
+    assertEquals(ENTITY, IOUtils.toString(second.get(10, TimeUnit.SECONDS).getRawResponse(), "UTF-8"));
+
+    assertEquals(1, batchRequests.get());
+    assertEquals(0, singleRequests.get());
+    coalescer.close();
+  }
+
+  @Test
+  public void sendSingleRequestAfterWindow() throws Exception {
+    final ODataRequestCoalescer coalescer =
+        client.getBatchRequestFactory().getRequestCoalescer(serviceRoot, 10, 3);
+    final ODataRetrieveResponse<ClientEntity> response = submit(coalescer, "single").get(10, TimeUnit.SECONDS);
+
+    assertEquals(200, response.getStatusCode());
+    assertEquals(0, batchRequests.get());
+    assertEquals(1, singleRequests.get());
+    coalescer.close();
+  }
+
+  @Test
+  public void closeSendsPendingRequests() throws Exception {
+    final ODataRequestCoalescer coalescer =
+        client.getBatchRequestFactory().getRequestCoalescer(serviceRoot, 60000, 10);
+    final Future<ODataRetrieveResponse<ClientEntity>> first = submit(coalescer, "first");
+    final Future<ODataRetrieveResponse<ClientEntity>> second = submit(coalescer, "second");
+    coalescer.close();
+
+    assertEquals(200, first.get(10, TimeUnit.SECONDS).getStatusCode());
+    assertEquals(200, second.get(10, TimeUnit.SECONDS).getStatusCode());
+    assertEquals(1, batchRequests.get());
+    try {
+      submit(coalescer, "third");
+      fail("Expected exception not thrown");
+    } catch (final IllegalStateException e) {
+      assertTrue(e.getMessage().contains("closed"));
+    }
+  }
+}
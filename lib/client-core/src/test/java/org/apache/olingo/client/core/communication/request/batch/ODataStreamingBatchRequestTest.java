@@ -0,0 +1,192 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.client.core.communication.request.batch;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.net.URI;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpVersion;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.message.BasicHttpResponse;
+
+import org.apache.http.entity.AbstractHttpEntity;
+import org.apache.olingo.client.api.ODataClient;
+import org.apache.olingo.client.api.communication.request.ODataBatchableRequest;
+import org.apache.olingo.client.api.communication.request.batch.ODataBatchResponseItem;
+import org.apache.olingo.client.api.communication.response.ODataResponse;
+import org.apache.olingo.client.api.domain.ClientEntity;
+import org.apache.olingo.client.core.ODataClientFactory;
+import org.apache.olingo.commons.api.edm.FullQualifiedName;
+import org.apache.olingo.commons.api.http.HttpHeader;
+import org.junit.Test;
+
+public class ODataStreamingBatchRequestTest {
+
+  private static final String SERVICE_ROOT = "http://localhost/odata.svc";
+
+  private final ODataClient client = ODataClientFactory.getClient();
+
+  private ODataBatchableRequest createRequest(final String name) {
+    final ClientEntity entity = client.getObjectFactory().
+        newEntity(new FullQualifiedName("Microsoft.OData.SampleService.Models.TripPin.Person"));
+    entity.getProperties().add(client.getObjectFactory().newPrimitiveProperty("UserName",
+        client.getObjectFactory().newPrimitiveValueBuilder().buildString(name)));
+    return client.getCUDRequestFactory().getEntityCreateRequest(URI.create(SERVICE_ROOT + "/People"), entity);
+  }
+
+  private String write(final AbstractHttpEntity entity) throws Exception {
+    final ByteArrayOutputStream output = new ByteArrayOutputStream();
+    entity.writeTo(output);
+    return output.toString("UTF-8");
+  }
+
+  @Test
+  public void writeBody() throws Exception {
+    final ODataStreamingBatchRequestImpl request = (ODataStreamingBatchRequestImpl)
+        client.getBatchRequestFactory().getStreamingBatchRequest(SERVICE_ROOT);
+    request.addRequest(client.getRetrieveRequestFactory().getEntityRequest(
+        URI.create(SERVICE_ROOT + "/People('russellwhyte')")));
+    request.addChangeset(Arrays.asList(createRequest("first"), createRequest("second")));
+
+    final String boundary = request.getContentType().substring(request.getContentType().indexOf("boundary=") + 9);
+    final AbstractHttpEntity entity = request.createEntity();
+    assertTrue(entity.isRepeatable());
+
+    final String body = write(entity);
+    assertTrue(body.startsWith("\r\n--" + boundary + "\r\nContent-Type: application/http\r\n"));
+    assertTrue(body.contains("GET " + SERVICE_ROOT + "/People('russellwhyte') HTTP/1.1\r\n"));
+    assertTrue(body.contains("\r\nContent-Type: multipart/mixed;boundary=changeset_"));
+    assertTrue(body.contains("POST " + SERVICE_ROOT + "/People HTTP/1.1\r\n"));
+    assertTrue(body.contains("Content-ID: 2\r\n"));
+    assertTrue(body.contains("\"UserName\":\"second\""));
+    assertTrue(body.endsWith("\r\n--" + boundary + "--"));
+    assertEquals(2, request.getExpectedResItems().size());
+    assertTrue(request.getExpectedResItems().get(1).isChangeset());
+
+    // repeated writes produce the same items again
+    assertEquals(body.length(), write(entity).length());
+    assertEquals(2, request.getExpectedResItems().size());
+  }
+
+  @Test
+  public void lazyItems() throws Exception {
+    final ODataStreamingBatchRequestImpl request = (ODataStreamingBatchRequestImpl)
+        client.getBatchRequestFactory().getStreamingBatchRequest(SERVICE_ROOT);
+    request.addChangeset(Arrays.asList(createRequest("a"), createRequest("b"), createRequest("c")).iterator());
+
+    final AbstractHttpEntity entity = request.createEntity();
+    assertFalse(entity.isRepeatable());
+    final String body = write(entity);
+    assertTrue(body.contains("Content-ID: 3\r\n"));
+    assertEquals(1, request.getExpectedResItems().size());
+  }
+
+  @Test
+  public void emptyChangesets() throws Exception {
+    final ODataStreamingBatchRequestImpl request = (ODataStreamingBatchRequestImpl)
+        client.getBatchRequestFactory().getStreamingBatchRequest(SERVICE_ROOT);
+    request.addChangeset(Collections.<ODataBatchableRequest> emptyList());
+    request.addRequest(createRequest("single"));
+    request.addChangeset(Collections.<ODataBatchableRequest> emptyList().iterator());
+
+    final String boundary = request.getContentType().substring(request.getContentType().indexOf("boundary=") + 9);
+    final String body = write(request.createEntity());
+    assertEquals(body.indexOf("--" + boundary + "\r\n"), body.lastIndexOf("--" + boundary + "\r\n"));
+    assertFalse(body.contains("changeset_"));
+    assertTrue(body.contains("\"UserName\":\"single\""));
+    assertEquals(1, request.getExpectedResItems().size());
+    assertFalse(request.getExpectedResItems().get(0).isChangeset());
+  }
+
+  @Test
+  public void readResponse() throws Exception {
+    final ODataStreamingBatchRequestImpl request = (ODataStreamingBatchRequestImpl)
+        client.getBatchRequestFactory().getStreamingBatchRequest(SERVICE_ROOT);
+    request.addRequest(client.getRetrieveRequestFactory().getEntityRequest(
+        URI.create(SERVICE_ROOT + "/People('russellwhyte')")));
+    request.addChangeset(Arrays.asList(createRequest("first"), createRequest("second")));
+    write(request.createEntity());
+
+    final String body = "--batchresponse_1\r\n"
+        + "Content-Type: application/http\r\n"
+        + "Content-Transfer-Encoding: binary\r\n"
+        + "\r\n"
+        + "HTTP/1.1 200 OK\r\n"
+        + "Content-Type: application/json\r\n"
+        + "\r\n"
+        + "{\"UserName\":\"russellwhyte\"}\r\n"
+        + "--batchresponse_1\r\n"
+        + "Content-Type: multipart/mixed;boundary=changesetresponse_1\r\n"
+        + "\r\n"
+        + "--changesetresponse_1\r\n"
+        + "Content-Type: application/http\r\n"
+        + "Content-ID: 2\r\n"
+        + "\r\n"
+        + "HTTP/1.1 204 No Content\r\n"
+        + "\r\n"
+        + "\r\n"
+        + "--changesetresponse_1\r\n"
+        + "Content-Type: application/http\r\n"
+        + "Content-ID: 1\r\n"
+        + "\r\n"
+        + "HTTP/1.1 201 Created\r\n"
+        + "\r\n"
+        + "\r\n"
+        + "--changesetresponse_1--\r\n"
+        + "\r\n"
+        + "--batchresponse_1--\r\n";
+    final HttpResponse httpResponse = new BasicHttpResponse(HttpVersion.HTTP_1_1, 200, "OK");
+    httpResponse.setHeader(HttpHeader.CONTENT_TYPE, "multipart/mixed;boundary=batchresponse_1");
+    httpResponse.setEntity(new ByteArrayEntity(body.getBytes("UTF-8")));
+
+    final Iterator<ODataBatchResponseItem> items =
+        request.new ODataBatchResponseImpl(client, null, httpResponse).getBody();
+
+    assertTrue(items.hasNext());
+    final ODataBatchResponseItem single = items.next();
+    assertFalse(single.isChangeset());
+    final ODataResponse retrieved = single.next();
+    assertEquals(200, retrieved.getStatusCode());
+    assertEquals("{\"UserName\":\"russellwhyte\"}", IOUtils.toString(retrieved.getRawResponse(), "UTF-8"));
+    assertFalse(single.hasNext());
+
+    assertTrue(items.hasNext());
+    final ODataBatchResponseItem changeset = items.next();
+    assertTrue(changeset.isChangeset());
+    assertEquals(204, changeset.next().getStatusCode());
+    assertEquals(201, changeset.next().getStatusCode());
+    assertFalse(changeset.hasNext());
+    assertFalse(items.hasNext());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void getInChangeset() {
+    client.getBatchRequestFactory().getStreamingBatchRequest(SERVICE_ROOT).addChangeset(
+        Arrays.asList(client.getRetrieveRequestFactory().getEntityRequest(URI.create(SERVICE_ROOT + "/People"))));
+  }
+}
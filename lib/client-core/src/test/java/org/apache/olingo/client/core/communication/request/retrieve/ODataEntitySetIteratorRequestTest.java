@@ -0,0 +1,145 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.client.core.communication.request.retrieve;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.olingo.client.api.ODataClient;
+import org.apache.olingo.client.api.communication.request.retrieve.ODataEntitySetIteratorRequest;
+import org.apache.olingo.client.api.domain.ClientEntity;
+import org.apache.olingo.client.api.domain.ClientEntitySet;
+import org.apache.olingo.client.api.domain.ClientEntitySetIterator;
+import org.apache.olingo.client.core.ODataClientFactory;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+public class ODataEntitySetIteratorRequestTest {
+
+  private static final int PAGES = 4;
+
+  private final ODataClient client = ODataClientFactory.getClient();
+  private final AtomicInteger requests = new AtomicInteger();
+  private final List<String> tenants = Collections.synchronizedList(new ArrayList<String>());
+  private HttpServer server;
+  private String serviceRoot;
+
+  @Before
+  public void startServer() throws IOException {
+    server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+    server.createContext("/odata.svc/People", new HttpHandler() {
+      @Override
+      public void handle(final HttpExchange exchange) throws IOException {
+        requests.incrementAndGet();
+        tenants.add(exchange.getRequestHeaders().getFirst("X-Tenant"));
+        final String query = exchange.getRequestURI().getQuery();
+        final int page = query == null ? 1 : Integer.parseInt(query.substring(query.indexOf('=') + 1));
+        final StringBuilder body = new StringBuilder("{\"@odata.context\":\"$metadata#People\",\"value\":[");
+        body.append("{\"UserName\":\"p").append(page).append("a\"},");
+        body.append("{\"UserName\":\"p").append(page).append("b\"}]");
+        if (page < PAGES) {
+          body.append(",\"@odata.nextLink\":\"").append(serviceRoot).append("/People?page=").append(page + 1)
+              .append('"');
+        }
+        body.append('}');
+
+        final byte[] bytes = body.toString().getBytes("UTF-8");
+        exchange.getResponseHeaders().set("Content-Type", "application/json;odata.metadata=minimal");
+        exchange.sendResponseHeaders(200, bytes.length);
+        final OutputStream output = exchange.getResponseBody();
+        output.write(bytes);
+        output.close();
+      }
+    });
+    server.start();
+    serviceRoot = "http://localhost:" + server.getAddress().getPort() + "/odata.svc";
+  }
+
+  @After
+  public void stopServer() {
+    server.stop(0);
+  }
+
+  private List<String> iterate(final ClientEntitySetIterator<ClientEntitySet, ClientEntity> iterator) {
+    final List<String> names = new ArrayList<String>();
+    while (iterator.hasNext()) {
+      names.add(iterator.next().getProperty("UserName").getPrimitiveValue().toString());
+    }
+    return names;
+  }
+
+  @Test
+  public void singlePage() {
+    final ClientEntitySetIterator<ClientEntitySet, ClientEntity> iterator = client.getRetrieveRequestFactory()
+        .getEntitySetIteratorRequest(URI.create(serviceRoot + "/People")).execute().getBody();
+
+    assertEquals(Arrays.asList("p1a", "p1b"), iterate(iterator));
+    assertEquals(URI.create(serviceRoot + "/People?page=2"), iterator.getNext());
+    assertEquals(1, requests.get());
+  }
+
+  @Test
+  public void prefetchPages() {
+    final ODataEntitySetIteratorRequest<ClientEntitySet, ClientEntity> request =
+        client.getRetrieveRequestFactory().getEntitySetIteratorRequest(URI.create(serviceRoot + "/People"));
+    request.setPrefetchDepth(2);
+    final ClientEntitySetIterator<ClientEntitySet, ClientEntity> iterator = request.execute().getBody();
+
+    assertEquals(Arrays.asList("p1a", "p1b", "p2a", "p2b", "p3a", "p3b", "p4a", "p4b"), iterate(iterator));
+    assertNull(iterator.getNext());
+    assertEquals(PAGES, requests.get());
+  }
+
+  @Test
+  public void prefetchOnePage() {
+    final ODataEntitySetIteratorRequest<ClientEntitySet, ClientEntity> request =
+        client.getRetrieveRequestFactory().getEntitySetIteratorRequest(URI.create(serviceRoot + "/People"));
+    request.setPrefetchDepth(1);
+    final ClientEntitySetIterator<ClientEntitySet, ClientEntity> iterator = request.execute().getBody();
+
+    assertEquals(8, iterate(iterator).size());
+    assertEquals(PAGES, requests.get());
+  }
+
+  @Test
+  public void prefetchWithHeaders() {
+    final ODataEntitySetIteratorRequest<ClientEntitySet, ClientEntity> request =
+        client.getRetrieveRequestFactory().getEntitySetIteratorRequest(URI.create(serviceRoot + "/People"));
+    request.addCustomHeader("X-Tenant", "t1");
+    request.setPrefetchDepth(2);
+
+    assertEquals(8, iterate(request.execute().getBody()).size());
+    assertEquals(Collections.nCopies(PAGES, "t1"), tenants);
+  }
+}
@@ -0,0 +1,186 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.client.core.communication.response.batch;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.junit.Test;
+
+public class ODataBatchPartReaderTest {
+
+  private static final String BATCH_BODY = "preamble\r\n"
+      + "--batch_1\r\n"
+      + "Content-Type: application/http\r\n"
+      + "Content-Transfer-Encoding: binary\r\n"
+      + "\r\n"
+      + "HTTP/1.1 200 OK\r\n"
+      + "Content-Type: application/json\r\n"
+      + "\r\n"
+      + "{\"value\":\"--batch\"}\r\n"
+      + "--batch_1\r\n"
+      + "Content-Type: multipart/mixed;boundary=changeset_1\r\n"
+      + "\r\n"
+      + "--changeset_1\r\n"
+      + "Content-Type: application/http\r\n"
+      + "Content-ID: 1\r\n"
+      + "\r\n"
+      + "HTTP/1.1 201 Created\r\n"
+      + "\r\n"
+      + "created\r\n"
+      + "--changeset_1--\r\n"
+      + "\r\n"
+      + "--batch_1--\r\n"
+      + "epilogue";
+
+  /**
+   * Returns only one byte per read call to test delimiters split across reads.
+   */
+  private static class SlowInputStream extends FilterInputStream {
+    SlowInputStream(final InputStream in) {
+      super(in);
+    }
+
+    @Override
+    public int read(final byte[] b, final int off, final int len) throws IOException {
+      return super.read(b, off, Math.min(len, 1));
+    }
+  }
+
+  @Test
+  public void readParts() throws Exception {
+    readParts(new ByteArrayInputStream(BATCH_BODY.getBytes("UTF-8")));
+  }
+
+  @Test
+  public void readPartsSlowly() throws Exception {
+    readParts(new SlowInputStream(new ByteArrayInputStream(BATCH_BODY.getBytes("UTF-8"))));
+  }
+
+  private void readParts(final InputStream input) throws Exception {
+    final ODataBatchPartReader reader = new ODataBatchPartReader(input, "--batch_1");
+
+    assertTrue(reader.next());
+    assertEquals("application/http", reader.getHeaders().get("content-type").iterator().next());
+    final InputStream single = reader.getBody();
+    final Map.Entry<Integer, String> responseLine = ODataBatchPartReader.readResponseLine(single);
+    assertEquals(200, responseLine.getKey().intValue());
+    assertEquals("OK", responseLine.getValue());
+    assertEquals("application/json", ODataBatchPartReader.readHeaders(single).get("Content-Type").iterator().next());
+    assertEquals("{\"value\":\"--batch\"}", IOUtils.toString(single, "UTF-8"));
+
+    assertTrue(reader.next());
+    final ODataBatchPartReader changeset = new ODataBatchPartReader(reader.getBody(), "changeset_1");
+    assertTrue(changeset.next());
+    assertEquals("1", changeset.getHeaders().get("Content-ID").iterator().next());
+    assertEquals(201, ODataBatchPartReader.readResponseLine(changeset.getBody()).getKey().intValue());
+    assertTrue(ODataBatchPartReader.readHeaders(changeset.getBody()).isEmpty());
+    assertEquals("created", IOUtils.toString(changeset.getBody(), "UTF-8"));
+    assertFalse(changeset.next());
+
+    assertFalse(reader.next());
+    assertFalse(reader.next());
+  }
+
+  @Test
+  public void skipUnreadParts() throws Exception {
+    final ODataBatchPartReader reader =
+        new ODataBatchPartReader(new ByteArrayInputStream(BATCH_BODY.getBytes("UTF-8")), "batch_1");
+    assertTrue(reader.next());
+    assertTrue(reader.next());
+    assertEquals("multipart/mixed;boundary=changeset_1",
+        reader.getHeaders().get("Content-Type").iterator().next());
+    assertFalse(reader.next());
+  }
+
+  @Test
+  public void binaryBody() throws Exception {
+    final byte[] binary = new byte[20000];
+    for (int i = 0; i < binary.length; i++) {
+      binary[i] = (byte) i;
+    }
+    final ByteArrayOutputStream body = new ByteArrayOutputStream();
+    body.write("--b\r\nContent-Type: application/octet-stream\r\n\r\n".getBytes("UTF-8"));
+    body.write(binary);
+    body.write("\r\n--b--".getBytes("UTF-8"));
+
+    final ODataBatchPartReader reader = new ODataBatchPartReader(new ByteArrayInputStream(body.toByteArray()), "b");
+    assertTrue(reader.next());
+    assertArrayEquals(binary, IOUtils.toByteArray(reader.getBody()));
+    assertFalse(reader.next());
+  }
+
+  @Test
+  public void manyLargeParts() throws Exception {
+    final int parts = 50;
+    final ByteArrayOutputStream body = new ByteArrayOutputStream();
+    for (int part = 0; part < parts; part++) {
+      body.write(("--batch_1\r\nContent-Type: application/http\r\nContent-ID: " + part + "\r\n\r\n"
+          + "HTTP/1.1 200 OK\r\nX-Long: " + StringUtils.repeat('h', 10000 + part) + "\r\n\r\n")
+          .getBytes("UTF-8"));
+      body.write(createContent(part));
+      body.write("\r\n".getBytes("UTF-8"));
+    }
+    body.write("--batch_1--\r\n".getBytes("UTF-8"));
+
+    final ODataBatchPartReader reader =
+        new ODataBatchPartReader(new ByteArrayInputStream(body.toByteArray()), "batch_1");
+    for (int part = 0; part < parts; part++) {
+      assertTrue(reader.next());
+      assertEquals(String.valueOf(part), reader.getHeaders().get("Content-ID").iterator().next());
+      final InputStream content = reader.getBody();
+      assertEquals(200, ODataBatchPartReader.readResponseLine(content).getKey().intValue());
+      assertEquals(10000 + part,
+          ODataBatchPartReader.readHeaders(content).get("X-Long").iterator().next().length());
+      if (part % 2 == 0) {
+        assertArrayEquals(createContent(part), IOUtils.toByteArray(content));
+      } else {
+        // read byte by byte
+        final ByteArrayOutputStream read = new ByteArrayOutputStream();
+        int b;
+        while ((b = content.read()) >= 0) {
+          read.write(b);
+        }
+        assertArrayEquals(createContent(part), read.toByteArray());
+      }
+    }
+    assertFalse(reader.next());
+  }
+
+  private byte[] createContent(final int part) {
+    // contains line breaks and dashes but no delimiter
+    final String pattern = "\r\n--batch_0-";
+    final byte[] content = new byte[100000 + part];
+    for (int i = 0; i < content.length; i++) {
+      content[i] = (byte) pattern.charAt((i + part) % pattern.length());
+    }
+    return content;
+  }
+}
@@ -0,0 +1,218 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.client.core.http;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.olingo.client.api.ODataClient;
+import org.apache.olingo.client.api.communication.ODataClientErrorException;
+import org.apache.olingo.client.api.communication.request.ODataFutureCallback;
+import org.apache.olingo.client.api.communication.request.ODataNonBlockingRequest;
+import org.apache.olingo.client.api.communication.request.cud.ODataValueUpdateRequest;
+import org.apache.olingo.client.api.communication.request.cud.UpdateType;
+import org.apache.olingo.client.api.communication.request.retrieve.ODataValueRequest;
+import org.apache.olingo.client.api.communication.response.ODataRetrieveResponse;
+import org.apache.olingo.client.api.communication.response.ODataValueUpdateResponse;
+import org.apache.olingo.client.api.domain.ClientPrimitiveValue;
+import org.apache.olingo.client.api.http.HttpClientException;
+import org.apache.olingo.client.core.ODataClientFactory;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+public class NioHttpClientFactoryTest {
+
+  private final ODataClient client = ODataClientFactory.getClient();
+  private final NioHttpClientFactory factory = new NioHttpClientFactory();
+  private final AtomicInteger requests = new AtomicInteger();
+  private HttpServer server;
+  private String serviceRoot;
+  private volatile String received;
+
+  @Before
+  public void setUp() throws IOException {
+    server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+    server.createContext("/odata.svc", new HttpHandler() {
+      @Override
+      public void handle(final HttpExchange exchange) throws IOException {
+        requests.incrementAndGet();
+        if (exchange.getRequestURI().getPath().endsWith("/Missing")) {
+          exchange.sendResponseHeaders(404, -1);
+          exchange.close();
+        } else if ("PUT".equals(exchange.getRequestMethod())) {
+          received = IOUtils.toString(exchange.getRequestBody(), "UTF-8");
+          exchange.sendResponseHeaders(204, -1);
+          exchange.close();
+        } else {
+          final byte[] bytes = "EUR".getBytes("UTF-8");
+          exchange.getResponseHeaders().set("Content-Type", "text/plain");
+          exchange.sendResponseHeaders(200, bytes.length);
+          final OutputStream output = exchange.getResponseBody();
+          output.write(bytes);
+          output.close();
+        }
+      }
+    });
+    server.start();
+    serviceRoot = "http://localhost:" + server.getAddress().getPort() + "/odata.svc";
+
+    // asynchronous requests must not be run by the executor
+    final ExecutorService executor = Executors.newSingleThreadExecutor();
+    executor.shutdown();
+    client.getConfiguration().setExecutor(executor);
+    client.getConfiguration().setAsyncHttpClientFactory(factory);
+  }
+
+  @After
+  public void tearDown() {
+    factory.shutdown();
+    server.stop(0);
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void retrieve() throws Exception {
+    final ODataValueRequest request =
+        client.getRetrieveRequestFactory().getValueRequest(URI.create(serviceRoot + "/Currencies('1')/Code/$value"));
+    final RecordingCallback<ODataRetrieveResponse<ClientPrimitiveValue>> callback =
+        new RecordingCallback<ODataRetrieveResponse<ClientPrimitiveValue>>();
+
+    final ODataRetrieveResponse<ClientPrimitiveValue> response =
+        ((ODataNonBlockingRequest<ODataRetrieveResponse<ClientPrimitiveValue>>) request).asyncExecute(callback)
+            .get(5, TimeUnit.SECONDS);
+
+    assertEquals(200, response.getStatusCode());
+    assertEquals("EUR", response.getBody().toString());
+    assertTrue(callback.done.await(5, TimeUnit.SECONDS));
+    assertEquals(response, callback.response);
+    assertNotSame(Thread.currentThread(), callback.thread);
+  }
+
+  @Test
+  public void sendBody() throws Exception {
+    final ODataValueUpdateRequest request = client.getCUDRequestFactory().getValueUpdateRequest(
+        URI.create(serviceRoot + "/Currencies('1')/Code/$value"), UpdateType.REPLACE,
+        client.getObjectFactory().newPrimitiveValueBuilder().buildString("USD"));
+
+    final ODataValueUpdateResponse response = request.asyncExecute().get(5, TimeUnit.SECONDS);
+
+    assertEquals(204, response.getStatusCode());
+    assertEquals("USD", received);
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void errorResponse() throws Exception {
+    final ODataValueRequest request =
+        client.getRetrieveRequestFactory().getValueRequest(URI.create(serviceRoot + "/Missing"));
+    final RecordingCallback<ODataRetrieveResponse<ClientPrimitiveValue>> callback =
+        new RecordingCallback<ODataRetrieveResponse<ClientPrimitiveValue>>();
+
+    try {
+      ((ODataNonBlockingRequest<ODataRetrieveResponse<ClientPrimitiveValue>>) request).asyncExecute(callback)
+          .get(5, TimeUnit.SECONDS);
+      fail("Expected an ExecutionException");
+    } catch (ExecutionException e) {
+      assertTrue(e.getCause() instanceof ODataClientErrorException);
+      assertEquals(404, ((ODataClientErrorException) e.getCause()).getStatusLine().getStatusCode());
+    }
+    assertTrue(callback.done.await(5, TimeUnit.SECONDS));
+    assertTrue(callback.failure instanceof ODataClientErrorException);
+  }
+
+  @Test
+  public void connectionFailure() throws Exception {
+    server.stop(0);
+
+    try {
+      client.getRetrieveRequestFactory().getValueRequest(URI.create(serviceRoot + "/Currencies('1')/Code/$value"))
+          .asyncExecute().get(5, TimeUnit.SECONDS);
+      fail("Expected an ExecutionException");
+    } catch (ExecutionException e) {
+      assertTrue(e.getCause() instanceof HttpClientException);
+    }
+  }
+
+  @Test
+  public void responseFromCache() throws Exception {
+    client.getConfiguration().setResponseCache(new InMemoryResponseCache(10, 10000));
+    final URI uri = URI.create(serviceRoot + "/Currencies('1')/Code/$value");
+    server.removeContext("/odata.svc");
+    server.createContext("/odata.svc", new HttpHandler() {
+      @Override
+      public void handle(final HttpExchange exchange) throws IOException {
+        requests.incrementAndGet();
+        final byte[] bytes = "EUR".getBytes("UTF-8");
+        exchange.getResponseHeaders().set("Content-Type", "text/plain");
+        exchange.getResponseHeaders().set("Cache-Control", "max-age=600");
+        exchange.sendResponseHeaders(200, bytes.length);
+        final OutputStream output = exchange.getResponseBody();
+        output.write(bytes);
+        output.close();
+      }
+    });
+
+    assertEquals("EUR", client.getRetrieveRequestFactory().getValueRequest(uri).asyncExecute()
+        .get(5, TimeUnit.SECONDS).getBody().toString());
+    assertEquals("EUR", client.getRetrieveRequestFactory().getValueRequest(uri).asyncExecute()
+        .get(5, TimeUnit.SECONDS).getBody().toString());
+    assertEquals(1, requests.get());
+  }
+
+  private static class RecordingCallback<T> implements ODataFutureCallback<T> {
+
+    private final CountDownLatch done = new CountDownLatch(1);
+    private volatile T response;
+    private volatile Throwable failure;
+    private volatile Thread thread;
+
+    @Override
+    public void onSuccess(final T response) {
+      this.response = response;
+      thread = Thread.currentThread();
+      done.countDown();
+    }
+
+    @Override
+    public void onFailure(final Throwable cause) {
+      failure = cause;
+      thread = Thread.currentThread();
+      done.countDown();
+    }
+  }
+}
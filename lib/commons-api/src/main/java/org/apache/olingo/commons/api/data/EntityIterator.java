@@ -32,6 +32,9 @@ public abstract class EntityIterator extends AbstractEntityCollection implements
   private URI next;
   
   private Integer count;
+
+  private CountProvider countProvider;
+
   /**
    * {@inheritDoc}
    */
@@ -74,11 +77,44 @@ public abstract class EntityIterator extends AbstractEntityCollection implements
   }
 
   /**
-   * Gets count
-   * 
+   * Gets count.
+   * <p/>
+   * If no count has been set but a {@link CountProvider}, the count provider is asked.
    */
   public Integer getCount() {
-    return count;
+    return count == null && countProvider != null ? countProvider.getCount() : count;
+  }
+
+  /**
+   * Gets the provider of a count which is determined only after all entities have been iterated.
+   *
+   * @return the count provider or <code>null</code>
+   */
+  public CountProvider getCountProvider() {
+    return countProvider;
+  }
+
+  /**
+   * Sets a provider for the count which is asked only after all entities have been iterated.
+   * <p/>
+   * This way the count of a streamed collection does not require to load the collection in advance;
+   * it can be counted during the iteration or determined by a separate count query.
+   * Serializers write such a count at the end of the collection (where the format allows it).
+   *
+   * @param countProvider the count provider
+   */
+  public void setCountProvider(final CountProvider countProvider) {
+    this.countProvider = countProvider;
+  }
+
+  /**
+   * Checks whether the count is known only after all entities have been iterated,
+   * i.e., whether no count has been set but a {@link CountProvider}.
+   *
+   * @return <code>true</code> if the count is determined by the count provider
+   */
+  public boolean isCountDeferred() {
+    return count == null && countProvider != null;
   }
 
   /**
@@ -33,6 +33,7 @@ public class Link extends Annotatable {
   private String mediaETag;
   private Entity entity;
   private EntityCollection entitySet;
+  private EntityIterator entityIterator;
   private String bindingLink;
   private List<String> bindingLinks = new ArrayList<String>();
 
@@ -162,6 +163,37 @@ public class Link extends Annotatable {
     this.entitySet = entitySet;
   }
 
+  /**
+   * Gets in-line entity set as iterator.
+   * This allows to stream large expanded navigation collections without
+   * materializing them as {@link EntityCollection}.
+   *
+   * @return in-line entity iterator (or <tt>null</tt> if not set).
+   */
+  public EntityIterator getInlineEntityIterator() {
+    return entityIterator;
+  }
+
+  /**
+   * Sets in-line entity set as iterator.
+   * If set the iterator takes precedence over the in-line entity set
+   * (see {@link #getInlineEntityCollection()}).
+   *
+   * @param entityIterator entity iterator.
+   */
+  public void setInlineEntityIterator(final EntityIterator entityIterator) {
+    this.entityIterator = entityIterator;
+  }
+
+  /**
+   * Gets in-line entities either as iterator (if set) or as entity set.
+   *
+   * @return in-line entity collection or <tt>null</tt> if neither iterator nor entity set is set.
+   */
+  public AbstractEntityCollection getInlineEntityCollection() {
+    return entityIterator == null ? entitySet : entityIterator;
+  }
+
   /**
    * If this is a "toOne" relationship this method delivers the binding link or <tt>null</tt> if not set.
    * @return String the binding link.
@@ -18,6 +18,7 @@
  */
 package org.apache.olingo.commons.api.data;
 
+import java.util.ArrayList;
 import java.util.List;
 
 import org.apache.olingo.commons.api.edm.geo.Geospatial;
@@ -138,11 +139,38 @@ public abstract class Valuable extends Annotatable {
 
   /**
    * Get the value as collection or null if it is not a collection ValueType
+   * <p/>
+   * A collection value which has been provided as an {@link Iterable} other than a {@link List}
+   * is copied into a list on the first call; the list then replaces the value, so that later calls
+   * (and changes made to the returned list) see the same list.
    *
    * @return collection or null if it is not a collection ValueType
    */
   public List<?> asCollection() {
-    return isCollection() ? (List<?>) value : null;
+    if (!isCollection()) {
+      return null;
+    }
+    if (value != null && !(value instanceof List)) {
+      List<Object> list = new ArrayList<Object>();
+      for (final Object item : (Iterable<?>) value) {
+        list.add(item);
+      }
+      value = list;
+    }
+    return (List<?>) value;
+  }
+
+  /**
+   * Get the value as iterable collection or null if it is not a collection ValueType.
+   * <p/>
+   * In contrast to {@link #asCollection()} the value is not required to be a {@link List}
+   * so that large collection values can be provided lazily by an {@link Iterable}
+   * (which is then only iterated once during serialization).
+   *
+   * @return iterable collection or null if it is not a collection ValueType
+   */
+  public Iterable<?> asIterable() {
+    return isCollection() ? (Iterable<?>) value : null;
   }
 
   /**
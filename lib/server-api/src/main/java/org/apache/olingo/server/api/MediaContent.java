@@ -0,0 +1,237 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.api;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Media content (e.g., of a media entity or a stream property) which is not held in a byte array.
+ * <p/>
+ * The content is either a region of a {@link FileChannel} or a {@link ByteBuffer}
+ * (e.g., a memory-mapped region of a file). The content is written in chunks
+ * without being loaded into a byte array as a whole; a file region is sent with {@link FileChannel#transferTo(long,
+ * long, WritableByteChannel)}. As the servlet output stream is not a channel, the data are still copied through
+ * heap buffers on their way to the client.
+ * The library uses the length of the content for the <code>Content-Length</code> header
+ * and answers HTTP <code>Range</code> requests with the requested part of the content
+ * (<code>206 Partial Content</code>).
+ * <p/>
+ * The file channel is closed after the content has been written.
+ * @see ODataResponse#setMediaContent(MediaContent)
+ */
+public final class MediaContent implements Closeable {
+
+  private static final long TRANSFER_CHUNK_SIZE = 1024L * 1024L;
+
+  private final FileChannel channel;
+  private final ByteBuffer buffer;
+  private final long position;
+  private final long length;
+
+  private MediaContent(final FileChannel channel, final ByteBuffer buffer, final long position, final long length) {
+    this.channel = channel;
+    this.buffer = buffer;
+    this.position = position;
+    this.length = length;
+  }
+
+  /**
+   * Creates media content from the current position of a file channel up to its end.
+   * @param channel the file channel
+   * @return the media content
+   * @throws IOException if the position or the size of the channel cannot be determined
+   */
+  public static MediaContent of(final FileChannel channel) throws IOException {
+    final long position = channel.position();
+    return of(channel, position, Math.max(0, channel.size() - position));
+  }
+
+  /**
+   * Creates media content from a region of a file channel.
+   * @param channel the file channel
+   * @param position the position of the first byte of the content
+   * @param length the number of bytes
+   * @return the media content
+   */
+  public static MediaContent of(final FileChannel channel, final long position, final long length) {
+    if (channel == null) {
+      throw new IllegalArgumentException("Channel must not be null.");
+    }
+    if (position < 0 || length < 0) {
+      throw new IllegalArgumentException("Position and length must not be negative.");
+    }
+    return new MediaContent(channel, null, position, length);
+  }
+
+  /**
+   * Creates media content from the remaining bytes of a buffer, e.g., a memory-mapped region of a file.
+   * The position and the limit of the given buffer are not changed.
+   * @param buffer the buffer
+   * @return the media content
+   */
+  public static MediaContent of(final ByteBuffer buffer) {
+    if (buffer == null) {
+      throw new IllegalArgumentException("Buffer must not be null.");
+    }
+    return new MediaContent(null, buffer.slice(), 0, buffer.remaining());
+  }
+
+  /**
+   * Gets the length of the content.
+   * @return the number of bytes
+   */
+  public long getLength() {
+    return length;
+  }
+
+  /**
+   * Gets a part of this content.
+   * @param first the offset of the first byte of the part, relative to the beginning of this content
+   * @param partLength the number of bytes of the part
+   * @return the media content for the part; it shares the channel or the buffer with this content
+   */
+  public MediaContent getPart(final long first, final long partLength) {
+    if (first < 0 || partLength < 0 || first + partLength > length) {
+      throw new IllegalArgumentException("The part is not within the content.");
+    }
+    if (channel == null) {
+      ByteBuffer part = buffer.duplicate();
+      part.position((int) first);
+      part.limit((int) (first + partLength));
+      return new MediaContent(null, part.slice(), 0, partLength);
+    } else {
+      return new MediaContent(channel, null, position + first, partLength);
+    }
+  }
+
+  /**
+   * Writes the content into the given channel.
+   * @param target the target channel
+   * @return the number of written bytes
+   * @throws IOException if the content cannot be read or written
+   */
+  public long transferTo(final WritableByteChannel target) throws IOException {
+    if (channel == null) {
+      ByteBuffer content = buffer.duplicate();
+      long written = 0;
+      while (content.hasRemaining()) {
+        written += target.write(content);
+      }
+      return written;
+    } else {
+      final long end = position + length;
+      long current = position;
+      while (current < end) {
+        final long transferred = channel.transferTo(current, end - current, target);
+        if (transferred <= 0) {
+          break;
+        }
+        current += transferred;
+      }
+      return current - position;
+    }
+  }
+
+  /**
+   * Gets the content as input stream, e.g., for a response in a batch request.
+   * Each call returns a new stream which starts at the beginning of the content.
+   * @return the content as input stream
+   */
+  public InputStream getInputStream() {
+    return Channels.newInputStream(new ReadableByteChannel() {
+      private long offset = 0;
+      private boolean open = true;
+
+      @Override
+      public int read(final ByteBuffer target) throws IOException {
+        if (offset >= length) {
+          return -1;
+        }
+        final int count = (int) Math.min(target.remaining(), length - offset);
+        int read;
+        if (channel == null) {
+          ByteBuffer part = buffer.duplicate();
+          part.position((int) offset);
+          part.limit((int) offset + count);
+          target.put(part);
+          read = count;
+        } else {
+          final int limit = target.limit();
+          target.limit(target.position() + count);
+          read = channel.read(target, position + offset);
+          target.limit(limit);
+          if (read < 0) {
+            return -1;
+          }
+        }
+        offset += read;
+        return read;
+      }
+
+      @Override
+      public boolean isOpen() {
+        return open;
+      }
+
+      @Override
+      public void close() throws IOException {
+        open = false;
+        MediaContent.this.close();
+      }
+    });
+  }
+
+  /**
+   * Closes the underlying file channel, if any.
+   */
+  @Override
+  public void close() throws IOException {
+    if (channel != null) {
+      channel.close();
+    }
+  }
+
+  /**
+   * Writes the content of an input stream into a file channel, starting at the current position of the channel,
+   * without holding the content in memory, e.g., for the upload of media content.
+   * The input stream is not closed.
+   * @param source the source input stream
+   * @param target the target file channel; its position is moved behind the written content
+   * @return the number of written bytes
+   * @throws IOException if the content cannot be read or written
+   */
+  public static long transferFrom(final InputStream source, final FileChannel target) throws IOException {
+    final ReadableByteChannel input = Channels.newChannel(source);
+    final long start = target.position();
+    long position = start;
+    long transferred;
+    while ((transferred = target.transferFrom(input, position, TRANSFER_CHUNK_SIZE)) > 0) {
+      position += transferred;
+    }
+    target.position(position);
+    return position - start;
+  }
+}
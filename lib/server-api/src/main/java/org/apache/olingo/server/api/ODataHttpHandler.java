@@ -23,6 +23,7 @@ import javax.servlet.http.HttpServletResponse;
 
 import org.apache.olingo.server.api.debug.DebugSupport;
 import org.apache.olingo.server.api.etag.CustomETagSupport;
+import org.apache.olingo.server.api.metrics.RequestMetricsListener;
 import org.apache.olingo.server.api.serializer.CustomContentTypeSupport;
 
 /**
@@ -65,4 +66,11 @@ public interface ODataHttpHandler extends ODataHandler {
    * @param customETagSupport handler to register
    */
   void register(CustomETagSupport customETagSupport);
+
+  /**
+   * Registers a listener for the metrics of all processed requests.
+   * Several listeners can be registered.
+   * @param metricsListener listener to register
+   */
+  void register(RequestMetricsListener metricsListener);
 }
@@ -32,6 +32,7 @@ public class ODataResponse {
   private int statusCode = HttpStatusCode.INTERNAL_SERVER_ERROR.getStatusCode();
   private final HttpHeaders headers = new HttpHeaders();
   private InputStream content;
+  private MediaContent mediaContent;
 
   /**
    * Sets the status code.
@@ -125,10 +126,30 @@ public class ODataResponse {
 
   /**
    * Gets the content (body).
+   * If no content but {@link #setMediaContent(MediaContent) media content} has been set,
+   * a new stream of the media content is returned.
    * @return the content as {@link InputStream}
    */
   public InputStream getContent() {
-    return content;
+    return content == null && mediaContent != null ? mediaContent.getInputStream() : content;
+  }
+
+  /**
+   * Sets media content (body) which is not held in memory, e.g., a region of a file.
+   * The library sends such content with as few copies as possible and supports
+   * HTTP <code>Range</code> requests for it.
+   * @param mediaContent the media content
+   */
+  public void setMediaContent(final MediaContent mediaContent) {
+    this.mediaContent = mediaContent;
+  }
+
+  /**
+   * Gets the media content (body).
+   * @return the media content or <code>null</code>
+   */
+  public MediaContent getMediaContent() {
+    return mediaContent;
   }
 
   private ODataContent odataContent;
@@ -0,0 +1,94 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.api.metrics;
+
+import org.apache.olingo.commons.api.http.HttpMethod;
+import org.apache.olingo.server.api.uri.UriInfo;
+import org.apache.olingo.server.api.uri.UriInfoKind;
+import org.apache.olingo.server.api.uri.UriResourceKind;
+
+/**
+ * <p>Metrics of a completed request.</p>
+ * <p>The instance is reused for later requests and must not be kept
+ * after {@link RequestMetricsListener#requestCompleted(RequestMetrics)} returns.</p>
+ */
+public interface RequestMetrics {
+
+  /**
+   * Gets the HTTP method of the request.
+   * @return the HTTP method or <code>null</code> if the request could not be read
+   */
+  HttpMethod getMethod();
+
+  /**
+   * Gets the HTTP status code of the response.
+   * @return the status code
+   */
+  int getStatusCode();
+
+  /**
+   * Gets the parsed URI of the request.
+   * @return the URI info or <code>null</code> if the URI could not be parsed
+   */
+  UriInfo getUriInfo();
+
+  /**
+   * Gets the kind of the requested URI.
+   * @return the kind or <code>null</code> if the URI could not be parsed
+   */
+  UriInfoKind getUriInfoKind();
+
+  /**
+   * Gets the kind of the last resource-path segment, e.g., entity set, navigation property or value.
+   * @return the kind or <code>null</code> if the URI has no resource path
+   */
+  UriResourceKind getResourceKind();
+
+  /**
+   * Gets the time spent in a phase.
+   * @param phase the phase
+   * @return time in nanoseconds
+   */
+  long getPhaseNanos(RequestPhase phase);
+
+  /**
+   * Gets the total processing time, i.e., the sum of the times of all phases.
+   * @return time in nanoseconds
+   */
+  long getTotalNanos();
+
+  /**
+   * Gets the size of the request body as stated by the client.
+   * @return number of bytes or <code>-1</code> if unknown
+   */
+  long getRequestBytes();
+
+  /**
+   * Gets the number of bytes written into the response body.
+   * @return number of bytes
+   */
+  long getResponseBytes();
+
+  /**
+   * Gets the number of entities serialized on top level (entities of expanded navigation properties
+   * are not counted).
+   * @return number of entities
+   */
+  int getEntityCount();
+}
@@ -0,0 +1,35 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.api.metrics;
+
+/**
+ * <p>Listener which is informed about the metrics of every request processed by an
+ * {@link org.apache.olingo.server.api.ODataHttpHandler}.</p>
+ * <p>Metrics are recorded for all requests, not only for requests in debug mode; their recording
+ * does not allocate objects. The listener is called in the thread which processed the request
+ * after the response has been written, so it must be thread-safe and should return quickly.</p>
+ */
+public interface RequestMetricsListener {
+
+  /**
+   * Is called after a request has been completed.
+   * @param metrics the metrics of the request; only valid during this call
+   */
+  void requestCompleted(RequestMetrics metrics);
+}
@@ -0,0 +1,42 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.api.metrics;
+
+/**
+ * The phases of the processing of a request.
+ * At any time during the processing exactly one phase is active, so the durations of all phases
+ * sum up to the total processing time of the request.
+ */
+public enum RequestPhase {
+  /** Reading the request line and headers and parsing the URI. */
+  PARSE,
+  /** Validating the parsed URI against the HTTP method. */
+  VALIDATE,
+  /** Selecting the processor which handles the request. */
+  DISPATCH,
+  /** Processing by the application's processor (without the serialization of entities). */
+  PROCESSOR,
+  /**
+   * Serializing entities and entity collections; for streamed entity collections this includes writing them
+   * into the HTTP response.
+   */
+  SERIALIZE,
+  /** Writing the response into the HTTP response. */
+  WRITE
+}
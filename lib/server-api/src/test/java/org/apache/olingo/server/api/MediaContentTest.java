@@ -0,0 +1,94 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.api;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+
+import org.junit.Test;
+
+public class MediaContentTest {
+
+  private static final byte[] DATA = "0123456789abcdefghij".getBytes();
+
+  @Test
+  public void buffer() throws Exception {
+    ByteBuffer buffer = ByteBuffer.wrap(DATA);
+    buffer.position(2);
+    final MediaContent content = MediaContent.of(buffer);
+    assertEquals(DATA.length - 2, content.getLength());
+    assertArrayEquals(Arrays.copyOfRange(DATA, 2, DATA.length), write(content));
+    assertArrayEquals(Arrays.copyOfRange(DATA, 5, 8), write(content.getPart(3, 3)));
+    assertArrayEquals(Arrays.copyOfRange(DATA, 5, 8), read(content.getPart(3, 3).getInputStream()));
+    // the given buffer is not changed
+    assertEquals(2, buffer.position());
+  }
+
+  @Test
+  public void fileUploadAndDownload() throws Exception {
+    File file = File.createTempFile("olingo", ".bin");
+    file.deleteOnExit();
+    FileChannel channel = new RandomAccessFile(file, "rw").getChannel();
+    assertEquals(DATA.length, MediaContent.transferFrom(new ByteArrayInputStream(DATA), channel));
+    assertEquals(DATA.length, channel.position());
+    channel.position(0);
+
+    final MediaContent content = MediaContent.of(channel);
+    assertEquals(DATA.length, content.getLength());
+    assertArrayEquals(DATA, write(content));
+    assertArrayEquals(Arrays.copyOfRange(DATA, 10, 20), write(content.getPart(10, 10)));
+    assertArrayEquals(Arrays.copyOfRange(DATA, 1, 4), read(content.getPart(1, 3).getInputStream()));
+
+    content.close();
+    assertFalse(channel.isOpen());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void partOutsideContent() {
+    MediaContent.of(ByteBuffer.wrap(DATA)).getPart(15, 6);
+  }
+
+  private byte[] write(final MediaContent content) throws IOException {
+    ByteArrayOutputStream result = new ByteArrayOutputStream();
+    assertEquals(content.getLength(), content.transferTo(Channels.newChannel(result)));
+    return result.toByteArray();
+  }
+
+  private byte[] read(final InputStream stream) throws IOException {
+    ByteArrayOutputStream result = new ByteArrayOutputStream();
+    byte[] buffer = new byte[4];
+    int count;
+    while ((count = stream.read(buffer)) > 0) {
+      result.write(buffer, 0, count);
+    }
+    return result.toByteArray();
+  }
+}
@@ -0,0 +1,56 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core;
+
+import java.util.List;
+
+import org.apache.olingo.commons.api.data.Entity;
+import org.apache.olingo.commons.api.data.EntityCollection;
+import org.apache.olingo.commons.api.edm.EdmEntityType;
+import org.apache.olingo.commons.api.edm.EdmNavigationProperty;
+import org.apache.olingo.server.api.ODataApplicationException;
+import org.apache.olingo.server.api.uri.queryoption.ExpandItem;
+
+/**
+ * Optional extension of a {@link ServiceHandler} which loads the targets of a navigation property
+ * for many source entities at once.
+ * <p/>
+ * If the service handler implements this interface, <code>$expand</code> of read requests is resolved
+ * by the framework before the response is serialized: for every expanded navigation property the
+ * loader is called once with all source entities of the current level (instead of once per entity),
+ * the nested <code>$filter</code>, <code>$orderby</code>, <code>$skip</code>, <code>$top</code> and
+ * <code>$count</code> options are applied per source entity and the results are attached as inline
+ * navigation links. Navigation links the handler already set inline are replaced.
+ */
+public interface NavigationBatchLoader {
+
+  /**
+   * Loads the targets of a navigation property for a batch of source entities.
+   * @param sourceType entity type of the source entities
+   * @param navigationProperty the expanded navigation property
+   * @param sources the source entities; each entity instance occurs only once
+   * @param expandItem the expand item of the navigation property; the loader may use it to restrict
+   * the loaded entities, but must not apply <code>$skip</code> or <code>$top</code> itself
+   * @return the targets per source entity, in the order of the source entities; an element may be
+   * <code>null</code> if the source entity has no targets
+   * @throws ODataApplicationException
+   */
+  List<EntityCollection> loadNavigation(EdmEntityType sourceType, EdmNavigationProperty navigationProperty,
+      List<Entity> sources, ExpandItem expandItem) throws ODataApplicationException;
+}
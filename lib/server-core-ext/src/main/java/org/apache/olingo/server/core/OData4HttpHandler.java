@@ -72,7 +72,7 @@ public class OData4HttpHandler extends ODataHttpHandlerImpl {
           this.handler, ContentType.JSON);
       handler.handleException(e, request, response);
     }    
-    convertToHttp(httpResponse, response);
+    convertToHttp(httpRequest, httpResponse, response);
   }
 
 
@@ -0,0 +1,370 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core;
+
+import java.io.IOException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.ServletInputStream;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletRequestWrapper;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+
+import org.apache.olingo.commons.api.http.HttpHeader;
+import org.apache.olingo.commons.api.http.HttpStatusCode;
+import org.apache.olingo.server.api.ODataHttpHandler;
+import org.apache.olingo.server.api.ODataRequest;
+import org.apache.olingo.server.api.ODataResponse;
+import org.apache.olingo.server.api.OlingoExtension;
+import org.apache.olingo.server.api.debug.DebugSupport;
+import org.apache.olingo.server.api.etag.CustomETagSupport;
+import org.apache.olingo.server.api.metrics.RequestMetricsListener;
+import org.apache.olingo.server.api.processor.Processor;
+import org.apache.olingo.server.api.serializer.CustomContentTypeSupport;
+
+/**
+ * {@link ODataHttpHandler} which processes servlet requests asynchronously (Servlet 3.0 <code>AsyncContext</code>).
+ * <p/>
+ * The servlet request is put into asynchronous mode and the complete OData processing (reading the request body,
+ * calling the processors and writing the response) is done by the given {@link Executor} by the wrapped handler.
+ * The container thread is released immediately, so that slow clients and long running processors
+ * only occupy threads of the executor (which can be sized for the backend) instead of container threads.
+ * <p/>
+ * If the servlet request does not support asynchronous processing (e.g., because a filter in the chain
+ * is not declared as <code>async-supported</code>) the request is processed synchronously.
+ * If the executor rejects the request, or the asynchronous request times out or fails before the processing
+ * has finished, a <code>503 Service Unavailable</code> response is sent.
+ * <p/>
+ * The servlet which uses this handler must be declared as <code>async-supported</code>.
+ */
+public class ODataAsyncHttpHandler implements ODataHttpHandler {
+
+  private final ODataHttpHandler handler;
+  private final Executor executor;
+  private Long timeout;
+
+  /**
+   * Creates an asynchronous handler.
+   * @param handler the handler which does the (blocking) OData processing
+   * @param executor the executor in which the requests are processed
+   */
+  public ODataAsyncHttpHandler(final ODataHttpHandler handler, final Executor executor) {
+    this.handler = handler;
+    this.executor = executor;
+  }
+
+  /**
+   * Sets the timeout of the asynchronous processing in milliseconds.
+   * A value of zero or less means no timeout. If not set the default timeout of the container is used.
+   * <p/>
+   * If the timeout expires before the processing has finished, a <code>503 Service Unavailable</code> response
+   * is sent (or the response is just completed if it has already been committed); anything the processing
+   * writes afterwards is discarded.
+   * @param timeout timeout in milliseconds
+   */
+  public void setTimeout(final long timeout) {
+    this.timeout = timeout;
+  }
+
+  @Override
+  public void process(final HttpServletRequest request, final HttpServletResponse response) {
+    if (!request.isAsyncSupported()) {
+      handler.process(request, response);
+      return;
+    }
+
+    final AsyncContext asyncContext = request.startAsync(request, response);
+    if (timeout != null) {
+      // zero means no timeout for the servlet container
+      asyncContext.setTimeout(timeout > 0 ? timeout : 0);
+    }
+    final AsyncProcessing processing = new AsyncProcessing(asyncContext, request, response);
+    asyncContext.addListener(processing);
+    try {
+      executor.execute(processing);
+    } catch (final RejectedExecutionException e) {
+      processing.abort();
+    }
+  }
+
+  /**
+   * Processes a request in the executor.
+   * <p/>
+   * Once the container has timed out or failed the asynchronous request, the servlet request and response
+   * may be recycled for other requests, so the processing must not touch them any longer.
+   * The processing therefore works on wrappers which check, under the same lock the listener uses to finish
+   * the request, whether the request is still active; afterwards writes fail and headers are ignored.
+   */
+  private class AsyncProcessing implements Runnable, AsyncListener {
+    private final AsyncContext asyncContext;
+    private final HttpServletRequest request;
+    private final HttpServletResponse response;
+    private final Object lock = new Object();
+    private boolean finished;
+
+    public AsyncProcessing(final AsyncContext asyncContext, final HttpServletRequest request,
+        final HttpServletResponse response) {
+      this.asyncContext = asyncContext;
+      this.request = request;
+      this.response = response;
+    }
+
+    @Override
+    public void run() {
+      if (isFinished()) {
+        return;
+      }
+      try {
+        handler.process(new GuardedRequest(request), new GuardedResponse(response));
+      } catch (final RuntimeException e) {
+        if (!isFinished()) {
+          throw e;
+        }
+        // the request has been aborted meanwhile, so the failure is the expected consequence
+      } finally {
+        finish();
+      }
+    }
+
+    /** Completes the request normally after the processing. */
+    private void finish() {
+      synchronized (lock) {
+        if (finished) {
+          return;
+        }
+        finished = true;
+      }
+      complete();
+    }
+
+    /** Sends 503 Service Unavailable if still possible, and completes the request. */
+    private void abort() {
+      synchronized (lock) {
+        if (finished) {
+          return;
+        }
+        finished = true;
+        try {
+          if (!response.isCommitted()) {
+            response.reset();
+            response.setStatus(HttpStatusCode.SERVICE_UNAVAILABLE.getStatusCode());
+            response.setHeader(HttpHeader.RETRY_AFTER, "1");
+          }
+        } catch (final IllegalStateException e) {
+          // the response cannot be changed any longer; it is only completed
+        }
+      }
+      complete();
+    }
+
+    private void complete() {
+      try {
+        asyncContext.complete();
+      } catch (final IllegalStateException e) {
+        // already completed by the container
+      }
+    }
+
+    private boolean isFinished() {
+      synchronized (lock) {
+        return finished;
+      }
+    }
+
+    private void checkActive() throws IOException {
+      if (finished) {
+        throw new IOException("The asynchronous request has timed out or failed.");
+      }
+    }
+
+    @Override
+    public void onTimeout(final AsyncEvent event) {
+      abort();
+    }
+
+    @Override
+    public void onError(final AsyncEvent event) {
+      abort();
+    }
+
+    @Override
+    public void onComplete(final AsyncEvent event) {
+      synchronized (lock) {
+        finished = true;
+      }
+    }
+
+    @Override
+    public void onStartAsync(final AsyncEvent event) {
+      // not restarted
+    }
+
+    private class GuardedRequest extends HttpServletRequestWrapper {
+      public GuardedRequest(final HttpServletRequest request) {
+        super(request);
+      }
+
+      @Override
+      public ServletInputStream getInputStream() throws IOException {
+        synchronized (lock) {
+          checkActive();
+          final ServletInputStream input = super.getInputStream();
+          return new ServletInputStream() {
+            @Override
+            public int read() throws IOException {
+              synchronized (lock) {
+                checkActive();
+                return input.read();
+              }
+            }
+
+            @Override
+            public int read(final byte[] b, final int off, final int len) throws IOException {
+              synchronized (lock) {
+                checkActive();
+                return input.read(b, off, len);
+              }
+            }
+          };
+        }
+      }
+    }
+
+    private class GuardedResponse extends HttpServletResponseWrapper {
+      public GuardedResponse(final HttpServletResponse response) {
+        super(response);
+      }
+
+      @Override
+      public void setStatus(final int statusCode) {
+        synchronized (lock) {
+          if (!finished) {
+            super.setStatus(statusCode);
+          }
+        }
+      }
+
+      @Override
+      public void setHeader(final String name, final String value) {
+        synchronized (lock) {
+          if (!finished) {
+            super.setHeader(name, value);
+          }
+        }
+      }
+
+      @Override
+      public void addHeader(final String name, final String value) {
+        synchronized (lock) {
+          if (!finished) {
+            super.addHeader(name, value);
+          }
+        }
+      }
+
+      @Override
+      public ServletOutputStream getOutputStream() throws IOException {
+        synchronized (lock) {
+          checkActive();
+          final ServletOutputStream output = super.getOutputStream();
+          return new ServletOutputStream() {
+            @Override
+            public void write(final int b) throws IOException {
+              synchronized (lock) {
+                checkActive();
+                output.write(b);
+              }
+            }
+
+            @Override
+            public void write(final byte[] b, final int off, final int len) throws IOException {
+              synchronized (lock) {
+                checkActive();
+                output.write(b, off, len);
+              }
+            }
+
+            @Override
+            public void flush() throws IOException {
+              synchronized (lock) {
+                checkActive();
+                output.flush();
+              }
+            }
+
+            @Override
+            public void close() throws IOException {
+              synchronized (lock) {
+                if (!finished) {
+                  output.close();
+                }
+              }
+            }
+          };
+        }
+      }
+    }
+  }
+
+  @Override
+  public ODataResponse process(final ODataRequest request) {
+    return handler.process(request);
+  }
+
+  @Override
+  public void setSplit(final int split) {
+    handler.setSplit(split);
+  }
+
+  @Override
+  public void register(final Processor processor) {
+    handler.register(processor);
+  }
+
+  @Override
+  public void register(final OlingoExtension extension) {
+    handler.register(extension);
+  }
+
+  @Override
+  public void register(final DebugSupport debugSupport) {
+    handler.register(debugSupport);
+  }
+
+  @Override
+  public void register(final CustomContentTypeSupport customContentTypeSupport) {
+    handler.register(customContentTypeSupport);
+  }
+
+  @Override
+  public void register(final CustomETagSupport customETagSupport) {
+    handler.register(customETagSupport);
+  }
+
+  @Override
+  public void register(final RequestMetricsListener metricsListener) {
+    handler.register(metricsListener);
+  }
+}
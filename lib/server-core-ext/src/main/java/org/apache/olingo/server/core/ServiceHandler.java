@@ -182,7 +182,11 @@ public interface ServiceHandler extends Processor {
       throws ODataLibraryException, ODataApplicationException;
 
   /**
-   * Read media stream content of a Entity
+   * Read media stream content of a Entity.
+   * Large content should be written with
+   * {@link StreamResponse#writeMediaResponse(org.apache.olingo.server.api.MediaContent,
+   * org.apache.olingo.commons.api.format.ContentType)}
+   * so that it is not loaded into memory.
    * @param request
    * @param response
    * @throws ODataLibraryException
@@ -194,6 +198,9 @@ public interface ServiceHandler extends Processor {
   /**
    * Update of Media Stream Content of a Entity. If the mediaContent is null it should be treated
    * as delete request.
+   * The media content is the unbuffered request body; it can be written to a file with
+   * {@link org.apache.olingo.server.api.MediaContent#transferFrom(InputStream, java.nio.channels.FileChannel)}
+   * without loading it into memory.
    * @param request
    * @param entityETag - entity etag to match before update operation, "*" allows all.
    * @param mediaContent - if null, must be treated as delete request
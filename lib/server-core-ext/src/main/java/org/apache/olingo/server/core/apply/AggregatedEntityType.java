@@ -0,0 +1,61 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.apply;
+
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.olingo.commons.api.edm.EdmEntityType;
+import org.apache.olingo.commons.api.edm.EdmKeyPropertyRef;
+
+/**
+ * Entity type of the results of <code>$apply</code> transformations.
+ * Aggregated entities have no key (and therefore no entity id) unless all properties are present.
+ */
+class AggregatedEntityType extends AggregatedStructuredType<EdmEntityType> implements EdmEntityType {
+
+  AggregatedEntityType(final EdmEntityType type, final Shape shape) {
+    super(type, shape.isAll(), shape.getProperties());
+  }
+
+  @Override
+  public List<String> getKeyPredicateNames() {
+    return isAll() ? type.getKeyPredicateNames() : Collections.<String> emptyList();
+  }
+
+  @Override
+  public List<EdmKeyPropertyRef> getKeyPropertyRefs() {
+    return isAll() ? type.getKeyPropertyRefs() : Collections.<EdmKeyPropertyRef> emptyList();
+  }
+
+  @Override
+  public EdmKeyPropertyRef getKeyPropertyRef(final String keyPredicateName) {
+    return isAll() ? type.getKeyPropertyRef(keyPredicateName) : null;
+  }
+
+  @Override
+  public boolean hasStream() {
+    return isAll() && type.hasStream();
+  }
+
+  @Override
+  public EdmEntityType getBaseType() {
+    return null;
+  }
+}
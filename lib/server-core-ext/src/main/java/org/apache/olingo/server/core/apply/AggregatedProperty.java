@@ -0,0 +1,46 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.apply;
+
+import org.apache.olingo.commons.api.edm.EdmType;
+import org.apache.olingo.server.core.uri.queryoption.apply.DynamicProperty;
+
+/**
+ * Property of an aggregated entity which is not declared in the metadata: an alias introduced by
+ * <code>aggregate</code> or <code>compute</code>, or a complex property restricted to its grouped parts.
+ * <p/>
+ * Aggregated values may be missing (e.g., the average of no values), and decimal results have a variable scale,
+ * so the property is nullable and has no scale restriction.
+ */
+class AggregatedProperty extends DynamicProperty {
+
+  AggregatedProperty(final String name, final EdmType type) {
+    super(name, type);
+  }
+
+  @Override
+  public boolean isNullable() {
+    return true;
+  }
+
+  @Override
+  public Integer getScale() {
+    return Integer.MAX_VALUE;
+  }
+}
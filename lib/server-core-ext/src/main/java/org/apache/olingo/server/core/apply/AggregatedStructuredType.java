@@ -0,0 +1,146 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.apply;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.olingo.commons.api.edm.EdmAnnotation;
+import org.apache.olingo.commons.api.edm.EdmComplexType;
+import org.apache.olingo.commons.api.edm.EdmElement;
+import org.apache.olingo.commons.api.edm.EdmNavigationProperty;
+import org.apache.olingo.commons.api.edm.EdmProperty;
+import org.apache.olingo.commons.api.edm.EdmStructuredType;
+import org.apache.olingo.commons.api.edm.EdmTerm;
+import org.apache.olingo.commons.api.edm.EdmType;
+import org.apache.olingo.commons.api.edm.FullQualifiedName;
+import org.apache.olingo.commons.api.edm.constants.EdmTypeKind;
+
+/**
+ * Structured type of the results of <code>$apply</code> transformations:
+ * the type it is derived from, restricted to the grouped properties and extended by the dynamic properties.
+ * It has the name of the type it is derived from, so that serializers treat its instances like instances
+ * of the declared type but only write the properties which are present.
+ */
+abstract class AggregatedStructuredType<T extends EdmStructuredType> implements EdmStructuredType {
+
+  protected final T type;
+  private final boolean all;
+  private final Map<String, EdmProperty> properties = new LinkedHashMap<String, EdmProperty>();
+
+  protected AggregatedStructuredType(final T type, final boolean all, final Map<String, Shape.Node> nodes) {
+    this.type = type;
+    this.all = all;
+    for (final Shape.Node node : nodes.values()) {
+      final EdmProperty property = node.getProperty();
+      properties.put(property.getName(), node.getChildren() == null ? property :
+          new AggregatedProperty(property.getName(),
+              new AggregatedComplexType((EdmComplexType) property.getType(), node.getChildren())));
+    }
+  }
+
+  /** @return <code>true</code> if all properties of the type it is derived from are present */
+  protected boolean isAll() {
+    return all;
+  }
+
+  @Override
+  public EdmElement getProperty(final String name) {
+    final EdmProperty property = getStructuralProperty(name);
+    return property == null ? getNavigationProperty(name) : property;
+  }
+
+  @Override
+  public List<String> getPropertyNames() {
+    if (!all) {
+      return Collections.unmodifiableList(new ArrayList<String>(properties.keySet()));
+    }
+    List<String> names = new ArrayList<String>(type.getPropertyNames());
+    for (final String name : properties.keySet()) {
+      if (!names.contains(name)) {
+        names.add(name);
+      }
+    }
+    return Collections.unmodifiableList(names);
+  }
+
+  @Override
+  public EdmProperty getStructuralProperty(final String name) {
+    final EdmProperty property = properties.get(name);
+    return property == null && all ? type.getStructuralProperty(name) : property;
+  }
+
+  @Override
+  public EdmNavigationProperty getNavigationProperty(final String name) {
+    return all ? type.getNavigationProperty(name) : null;
+  }
+
+  @Override
+  public List<String> getNavigationPropertyNames() {
+    return all ? type.getNavigationPropertyNames() : Collections.<String> emptyList();
+  }
+
+  @Override
+  public String getNamespace() {
+    return type.getNamespace();
+  }
+
+  @Override
+  public String getName() {
+    return type.getName();
+  }
+
+  @Override
+  public FullQualifiedName getFullQualifiedName() {
+    return type.getFullQualifiedName();
+  }
+
+  @Override
+  public EdmTypeKind getKind() {
+    return type.getKind();
+  }
+
+  @Override
+  public EdmAnnotation getAnnotation(final EdmTerm term, final String qualifier) {
+    return type.getAnnotation(term, qualifier);
+  }
+
+  @Override
+  public List<EdmAnnotation> getAnnotations() {
+    return type.getAnnotations();
+  }
+
+  @Override
+  public boolean compatibleTo(final EdmType targetType) {
+    return type.compatibleTo(targetType);
+  }
+
+  @Override
+  public boolean isOpenType() {
+    return false;
+  }
+
+  @Override
+  public boolean isAbstract() {
+    return false;
+  }
+}
@@ -0,0 +1,266 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.apply;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.apache.olingo.commons.api.data.Entity;
+import org.apache.olingo.commons.api.edm.EdmPrimitiveTypeKind;
+import org.apache.olingo.commons.api.edm.EdmProperty;
+import org.apache.olingo.commons.api.edm.EdmType;
+import org.apache.olingo.commons.core.edm.primitivetype.EdmPrimitiveTypeFactory;
+import org.apache.olingo.server.api.ODataApplicationException;
+import org.apache.olingo.server.api.uri.UriResource;
+import org.apache.olingo.server.api.uri.UriResourceCount;
+import org.apache.olingo.server.api.uri.queryoption.apply.AggregateExpression;
+import org.apache.olingo.server.api.uri.queryoption.apply.AggregateExpression.StandardMethod;
+import org.apache.olingo.server.api.uri.queryoption.expression.Expression;
+import org.apache.olingo.server.api.uri.queryoption.expression.Member;
+import org.apache.olingo.server.core.uri.parser.ExpressionParser;
+import org.apache.olingo.server.core.uri.parser.UriParserException;
+
+/**
+ * One aggregate expression of an <code>aggregate</code> transformation, prepared for execution.
+ * <p/>
+ * The values are folded into {@link Accumulator}s in a single pass; accumulators of disjoint parts
+ * of the input can be merged, which allows to aggregate partitions in parallel.
+ * The result types follow the parser: <code>sum</code>, <code>average</code>, <code>countdistinct</code>,
+ * and <code>$count</code> result in <code>Edm.Decimal</code>, <code>min</code> and <code>max</code>
+ * in the type of the aggregated values.
+ */
+final class Aggregation {
+
+  private final String alias;
+  /** <code>null</code> for <code>$count</code> */
+  private final StandardMethod method;
+  private final Expression expression;
+  /** Property path of the expression if it is a simple member expression; evaluated without visitor. */
+  private final List<String> path;
+  private final EdmProperty resultProperty;
+
+  private Aggregation(final String alias, final StandardMethod method, final Expression expression,
+      final EdmType resultType) {
+    this.alias = alias;
+    this.method = method;
+    this.expression = expression;
+    path = expression instanceof Member && ((Member) expression).getStartTypeFilter() == null ?
+        ExpressionEvaluator.getPropertyNames(((Member) expression).getResourcePath().getUriResourceParts()) :
+        null;
+    resultProperty = new AggregatedProperty(alias, resultType);
+  }
+
+  /**
+   * Prepares an aggregate expression.
+   * @throws ODataApplicationException if the aggregate expression is not supported
+   */
+  static Aggregation create(final AggregateExpression aggregateExpression) throws ODataApplicationException {
+    if (aggregateExpression.getCustomMethod() != null || aggregateExpression.getInlineAggregateExpression() != null
+        || aggregateExpression.getFrom() != null && !aggregateExpression.getFrom().isEmpty()) {
+      throw ExpressionEvaluator.notImplemented("Aggregate expression '" + aggregateExpression.getAlias() + "'");
+    }
+    final List<UriResource> path = aggregateExpression.getPath();
+    if (path != null && !path.isEmpty()) {
+      if (path.size() == 1 && path.get(0) instanceof UriResourceCount) {
+        return new Aggregation(aggregateExpression.getAlias(), null, null, decimal());
+      }
+      throw ExpressionEvaluator.notImplemented("Aggregation path '" + path + "'");
+    }
+    final StandardMethod method = aggregateExpression.getStandardMethod();
+    final Expression expression = aggregateExpression.getExpression();
+    if (method == null || expression == null) {
+      throw ExpressionEvaluator.notImplemented("Aggregate expression '" + aggregateExpression.getAlias() + "'");
+    }
+    EdmType type;
+    if (method == StandardMethod.MIN || method == StandardMethod.MAX) {
+      try {
+        type = ExpressionParser.getType(expression);
+      } catch (final UriParserException e) {
+        type = null;
+      }
+      if (type == null) {
+        throw ExpressionEvaluator.notImplemented("Aggregate expression '" + aggregateExpression.getAlias() + "'");
+      }
+    } else {
+      type = decimal();
+    }
+    return new Aggregation(aggregateExpression.getAlias(), method, expression, type);
+  }
+
+  private static EdmType decimal() {
+    return EdmPrimitiveTypeFactory.getInstance(EdmPrimitiveTypeKind.Decimal);
+  }
+
+  String getAlias() {
+    return alias;
+  }
+
+  /** The dynamic property holding the result. */
+  EdmProperty getResultProperty() {
+    return resultProperty;
+  }
+
+  Accumulator newAccumulator() {
+    if (method == null) {
+      return new Count();
+    }
+    switch (method) {
+    case SUM:
+      return new Sum();
+    case AVERAGE:
+      return new Average();
+    case MIN:
+      return new Extreme(false);
+    case MAX:
+      return new Extreme(true);
+    default:
+      return new CountDistinct();
+    }
+  }
+
+  /** Adds the value of one entity to an accumulator created by this aggregation. */
+  void add(final Accumulator accumulator, final Entity entity) throws ODataApplicationException {
+    if (method == null) {
+      accumulator.add(entity);
+    } else {
+      final Object value = path == null ? ExpressionEvaluator.evaluate(expression, entity)
+          : ExpressionEvaluator.getValue(entity, path);
+      if (value != null) {
+        accumulator.add(value);
+      }
+    }
+  }
+
+  /** Aggregation state of one group; not thread-safe. */
+  abstract static class Accumulator {
+    /** @param value non-null value */
+    abstract void add(Object value) throws ODataApplicationException;
+
+    /** Adds the state of an accumulator of the same aggregation for another part of the input. */
+    abstract void merge(Accumulator other) throws ODataApplicationException;
+
+    abstract Object getResult();
+  }
+
+  private static final class Count extends Accumulator {
+    private long count;
+
+    @Override
+    void add(final Object value) {
+      count++;
+    }
+
+    @Override
+    void merge(final Accumulator other) {
+      count += ((Count) other).count;
+    }
+
+    @Override
+    Object getResult() {
+      return BigDecimal.valueOf(count);
+    }
+  }
+
+  private static class Sum extends Accumulator {
+    protected BigDecimal sum = BigDecimal.ZERO;
+    protected long count;
+
+    @Override
+    void add(final Object value) throws ODataApplicationException {
+      if (!(value instanceof Number)) {
+        throw ExpressionEvaluator.notImplemented("Sum of " + value.getClass().getSimpleName());
+      }
+      sum = sum.add(ExpressionEvaluator.toDecimal(value));
+      count++;
+    }
+
+    @Override
+    void merge(final Accumulator other) {
+      sum = sum.add(((Sum) other).sum);
+      count += ((Sum) other).count;
+    }
+
+    @Override
+    Object getResult() {
+      return sum;
+    }
+  }
+
+  private static final class Average extends Sum {
+    @Override
+    Object getResult() {
+      return count == 0 ? null : sum.divide(BigDecimal.valueOf(count), MathContext.DECIMAL64);
+    }
+  }
+
+  private static final class Extreme extends Accumulator {
+    private final boolean max;
+    private Object value;
+
+    private Extreme(final boolean max) {
+      this.max = max;
+    }
+
+    @Override
+    void add(final Object candidate) throws ODataApplicationException {
+      if (value == null) {
+        value = candidate;
+      } else {
+        final int comparison = ExpressionEvaluator.compare(candidate, value);
+        if (max ? comparison > 0 : comparison < 0) {
+          value = candidate;
+        }
+      }
+    }
+
+    @Override
+    void merge(final Accumulator other) throws ODataApplicationException {
+      if (((Extreme) other).value != null) {
+        add(((Extreme) other).value);
+      }
+    }
+
+    @Override
+    Object getResult() {
+      return value;
+    }
+  }
+
+  private static final class CountDistinct extends Accumulator {
+    private final Set<Object> values = new HashSet<Object>();
+
+    @Override
+    void add(final Object value) {
+      values.add(value instanceof Number ? ExpressionEvaluator.toDecimal(value).stripTrailingZeros() : value);
+    }
+
+    @Override
+    void merge(final Accumulator other) {
+      values.addAll(((CountDistinct) other).values);
+    }
+
+    @Override
+    Object getResult() {
+      return BigDecimal.valueOf(values.size());
+    }
+  }
+}
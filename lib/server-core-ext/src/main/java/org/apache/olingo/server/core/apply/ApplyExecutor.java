@@ -0,0 +1,588 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.apply;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import org.apache.olingo.commons.api.data.ComplexValue;
+import org.apache.olingo.commons.api.data.Entity;
+import org.apache.olingo.commons.api.data.EntityCollection;
+import org.apache.olingo.commons.api.data.EntityIterator;
+import org.apache.olingo.commons.api.data.Property;
+import org.apache.olingo.commons.api.data.ValueType;
+import org.apache.olingo.commons.api.edm.EdmEntityType;
+import org.apache.olingo.commons.api.edm.EdmProperty;
+import org.apache.olingo.commons.api.edm.EdmType;
+import org.apache.olingo.commons.api.edm.constants.EdmTypeKind;
+import org.apache.olingo.commons.api.http.HttpStatusCode;
+import org.apache.olingo.server.api.ODataApplicationException;
+import org.apache.olingo.server.api.uri.UriResource;
+import org.apache.olingo.server.api.uri.UriResourceProperty;
+import org.apache.olingo.server.api.uri.queryoption.ApplyItem;
+import org.apache.olingo.server.api.uri.queryoption.ApplyOption;
+import org.apache.olingo.server.api.uri.queryoption.apply.Aggregate;
+import org.apache.olingo.server.api.uri.queryoption.apply.AggregateExpression;
+import org.apache.olingo.server.api.uri.queryoption.apply.BottomTop;
+import org.apache.olingo.server.api.uri.queryoption.apply.Compute;
+import org.apache.olingo.server.api.uri.queryoption.apply.ComputeExpression;
+import org.apache.olingo.server.api.uri.queryoption.apply.Concat;
+import org.apache.olingo.server.api.uri.queryoption.apply.Filter;
+import org.apache.olingo.server.api.uri.queryoption.apply.GroupBy;
+import org.apache.olingo.server.api.uri.queryoption.apply.GroupByItem;
+import org.apache.olingo.server.api.uri.queryoption.expression.Expression;
+import org.apache.olingo.server.core.uri.parser.ExpressionParser;
+import org.apache.olingo.server.core.uri.parser.UriParserException;
+
+/**
+ * Executes the <code>$apply</code> system query option (data aggregation) on entities held in memory
+ * or read from an {@link EntityIterator}.
+ * <p/>
+ * Supported are the transformations <code>aggregate</code>, <code>groupby</code> (without rollup),
+ * <code>filter</code>, <code>compute</code>, <code>concat</code>, <code>identity</code>,
+ * and the <code>top</code>/<code>bottom</code> transformations, with the standard aggregation methods
+ * and <code>$count</code>. Other transformations result in a <code>501 Not Implemented</code> error.
+ * <p/>
+ * Groups are found by hashing the grouping values. Aggregations are computed in a single pass
+ * without keeping the entities of the groups, so an {@link EntityIterator} is consumed as a stream;
+ * <code>filter</code> and <code>compute</code> transformations before the aggregation are applied
+ * on the fly. Large collections can be partitioned and aggregated in parallel, see
+ * {@link #setParallelism(ExecutorService, int)}; the partial results are merged in input order,
+ * so the order of the groups is the order of their first occurrence in both cases.
+ * <p/>
+ * The {@link ApplyResult} contains the entity type and the select list needed to serialize
+ * the resulting entities with the correct context URL.
+ */
+public class ApplyExecutor {
+
+  /** Default minimal number of entities per partition for parallel aggregation. */
+  public static final int DEFAULT_MIN_PARTITION_SIZE = 10000;
+
+  private ExecutorService executorService;
+  private int parallelism = 1;
+  private int minPartitionSize = DEFAULT_MIN_PARTITION_SIZE;
+
+  /**
+   * Enables parallel aggregation of entity collections.
+   * @param executorService executor service which runs the aggregation of the partitions
+   * @param parallelism     maximum number of partitions, e.g., the number of available processors
+   */
+  public void setParallelism(final ExecutorService executorService, final int parallelism) {
+    this.executorService = executorService;
+    this.parallelism = parallelism;
+  }
+
+  /**
+   * Sets the minimal number of entities per partition; smaller collections are not partitioned.
+   * @param minPartitionSize minimal partition size (default {@value #DEFAULT_MIN_PARTITION_SIZE})
+   */
+  public void setMinPartitionSize(final int minPartitionSize) {
+    this.minPartitionSize = Math.max(1, minPartitionSize);
+  }
+
+  /**
+   * Applies the transformations to a collection.
+   * @param entityType      the entity type of the entities
+   * @param entityCollection the entities; they are not changed
+   * @param applyOption     the parsed <code>$apply</code> system query option
+   * @return the result
+   * @throws ODataApplicationException if the transformations are not supported or cannot be applied
+   */
+  public ApplyResult apply(final EdmEntityType entityType, final EntityCollection entityCollection,
+      final ApplyOption applyOption) throws ODataApplicationException {
+    return apply(entityType, (Iterable<Entity>) entityCollection.getEntities(), applyOption);
+  }
+
+  /**
+   * Applies the transformations to the entities of an iterator; the iterator is read only once.
+   * @param entityType  the entity type of the entities
+   * @param entities    the entities; they are not changed
+   * @param applyOption the parsed <code>$apply</code> system query option
+   * @return the result
+   * @throws ODataApplicationException if the transformations are not supported or cannot be applied
+   */
+  public ApplyResult apply(final EdmEntityType entityType, final EntityIterator entities,
+      final ApplyOption applyOption) throws ODataApplicationException {
+    return apply(entityType, (Iterable<Entity>) entities, applyOption);
+  }
+
+  private ApplyResult apply(final EdmEntityType entityType, final Iterable<Entity> entities,
+      final ApplyOption applyOption) throws ODataApplicationException {
+    final List<ApplyItem> items = applyOption.getApplyItems();
+    final Shape shape = getShape(items, Shape.all());
+    EntityCollection result = new EntityCollection();
+    result.getEntities().addAll(materialize(transform(items, new Rows(entities))));
+    return new ApplyResult(result, entityType, shape);
+  }
+
+  /**
+   * Entities with pending row-wise transformations (filter and compute), which are applied
+   * while the entities are consumed by the next transformation.
+   */
+  private static final class Rows {
+    private final Iterable<Entity> source;
+    private final List<ApplyItem> rowItems;
+
+    private Rows(final Iterable<Entity> source) {
+      this(source, Collections.<ApplyItem> emptyList());
+    }
+
+    private Rows(final Iterable<Entity> source, final List<ApplyItem> rowItems) {
+      this.source = source;
+      this.rowItems = rowItems;
+    }
+
+    private Rows then(final ApplyItem item) {
+      List<ApplyItem> items = new ArrayList<ApplyItem>(rowItems);
+      items.add(item);
+      return new Rows(source, items);
+    }
+  }
+
+  /** The state of one group. */
+  private static final class Group {
+    private final List<Aggregation> aggregations;
+    private final Aggregation.Accumulator[] accumulators;
+    private final List<Entity> members;
+
+    /** @param aggregations the aggregations of the group or <code>null</code> to collect the group members */
+    private Group(final List<Aggregation> aggregations) {
+      this.aggregations = aggregations;
+      if (aggregations == null) {
+        accumulators = null;
+        members = new ArrayList<Entity>();
+      } else {
+        accumulators = new Aggregation.Accumulator[aggregations.size()];
+        for (int i = 0; i < accumulators.length; i++) {
+          accumulators[i] = aggregations.get(i).newAccumulator();
+        }
+        members = null;
+      }
+    }
+
+    private void add(final Entity entity) throws ODataApplicationException {
+      if (members == null) {
+        for (int i = 0; i < accumulators.length; i++) {
+          aggregations.get(i).add(accumulators[i], entity);
+        }
+      } else {
+        members.add(entity);
+      }
+    }
+
+    private void merge(final Group other) throws ODataApplicationException {
+      if (members == null) {
+        for (int i = 0; i < accumulators.length; i++) {
+          accumulators[i].merge(other.accumulators[i]);
+        }
+      } else {
+        members.addAll(other.members);
+      }
+    }
+  }
+
+  private Rows transform(final List<ApplyItem> items, final Rows input) throws ODataApplicationException {
+    Rows rows = input;
+    for (final ApplyItem item : items) {
+      switch (item.getKind()) {
+      case IDENTITY:
+        break;
+      case FILTER:
+      case COMPUTE:
+        rows = rows.then(item);
+        break;
+      case AGGREGATE:
+        rows = new Rows(group(Collections.<List<EdmProperty>> emptyList(), Collections.singletonList(item), rows));
+        break;
+      case GROUP_BY:
+        final GroupBy groupBy = (GroupBy) item;
+        rows = new Rows(group(getGroupingPaths(groupBy),
+            groupBy.getApplyOption() == null ? null : groupBy.getApplyOption().getApplyItems(), rows));
+        break;
+      case BOTTOM_TOP:
+        rows = new Rows(bottomTop((BottomTop) item, materialize(rows)));
+        break;
+      case CONCAT:
+        final List<Entity> entities = materialize(rows);
+        List<Entity> result = new ArrayList<Entity>();
+        for (final ApplyOption option : ((Concat) item).getApplyOptions()) {
+          result.addAll(materialize(transform(option.getApplyItems(), new Rows(entities))));
+        }
+        rows = new Rows(result);
+        break;
+      default:
+        throw ExpressionEvaluator.notImplemented("Transformation '" + item.getKind() + "'");
+      }
+    }
+    return rows;
+  }
+
+  /** Applies the pending row-wise transformations to one entity; returns <code>null</code> if filtered out. */
+  private Entity applyRowItems(final Entity entity, final List<ApplyItem> rowItems)
+      throws ODataApplicationException {
+    Entity result = entity;
+    for (final ApplyItem item : rowItems) {
+      if (item.getKind() == ApplyItem.Kind.FILTER) {
+        if (!Boolean.TRUE.equals(
+            ExpressionEvaluator.evaluate(((Filter) item).getFilterOption().getExpression(), result))) {
+          return null;
+        }
+      } else {
+        result = compute((Compute) item, result);
+      }
+    }
+    return result;
+  }
+
+  private Entity compute(final Compute compute, final Entity entity) throws ODataApplicationException {
+    Entity result = new Entity();
+    result.setId(entity.getId());
+    result.setType(entity.getType());
+    result.setETag(entity.getETag());
+    result.setEditLink(entity.getEditLink());
+    result.setSelfLink(entity.getSelfLink());
+    result.getNavigationLinks().addAll(entity.getNavigationLinks());
+    result.getProperties().addAll(entity.getProperties());
+    for (final ComputeExpression expression : compute.getExpressions()) {
+      final EdmType type = getType(expression.getExpression());
+      result.getProperties().add(new Property(type.getFullQualifiedName().getFullQualifiedNameAsString(),
+          expression.getAlias(), getValueType(type),
+          ExpressionEvaluator.convert(ExpressionEvaluator.evaluate(expression.getExpression(), entity), type)));
+    }
+    return result;
+  }
+
+  private List<Entity> materialize(final Rows rows) throws ODataApplicationException {
+    if (rows.rowItems.isEmpty() && rows.source instanceof List) {
+      return (List<Entity>) rows.source;
+    }
+    List<Entity> result = new ArrayList<Entity>();
+    for (final Entity entity : rows.source) {
+      final Entity row = applyRowItems(entity, rows.rowItems);
+      if (row != null) {
+        result.add(row);
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Groups the entities and applies the transformations to each group.
+   * @param paths  the grouping properties; no grouping properties result in exactly one group
+   * @param nested the transformations of each group or <code>null</code>
+   */
+  private List<Entity> group(final List<List<EdmProperty>> paths, final List<ApplyItem> nested, final Rows rows)
+      throws ODataApplicationException {
+    List<List<String>> names = new ArrayList<List<String>>(paths.size());
+    for (final List<EdmProperty> path : paths) {
+      List<String> pathNames = new ArrayList<String>(path.size());
+      for (final EdmProperty property : path) {
+        pathNames.add(property.getName());
+      }
+      names.add(pathNames);
+    }
+    // A single aggregate transformation (the usual case) is computed on the fly;
+    // for other transformations the members of each group are collected.
+    List<Aggregation> aggregations = null;
+    if (nested == null) {
+      aggregations = Collections.emptyList();
+    } else if (nested.size() == 1 && nested.get(0).getKind() == ApplyItem.Kind.AGGREGATE) {
+      aggregations = new ArrayList<Aggregation>();
+      for (final AggregateExpression expression : ((Aggregate) nested.get(0)).getExpressions()) {
+        aggregations.add(Aggregation.create(expression));
+      }
+    }
+
+    final Map<List<Object>, Group> groups = collect(rows, names, aggregations);
+    if (groups.isEmpty() && paths.isEmpty()) {
+      groups.put(Collections.emptyList(), new Group(aggregations));
+    }
+
+    List<Entity> result = new ArrayList<Entity>(groups.size());
+    for (final Map.Entry<List<Object>, Group> entry : groups.entrySet()) {
+      final Group group = entry.getValue();
+      if (aggregations == null) {
+        for (final Entity member : materialize(transform(nested, new Rows(group.members)))) {
+          Entity entity = createGroupEntity(paths, entry.getKey());
+          for (final Property property : member.getProperties()) {
+            if (ExpressionEvaluator.findProperty(entity.getProperties(), property.getName()) == null) {
+              entity.getProperties().add(property);
+            }
+          }
+          result.add(entity);
+        }
+      } else {
+        Entity entity = createGroupEntity(paths, entry.getKey());
+        for (int i = 0; i < aggregations.size(); i++) {
+          final EdmProperty property = aggregations.get(i).getResultProperty();
+          entity.getProperties().add(new Property(
+              property.getType().getFullQualifiedName().getFullQualifiedNameAsString(), property.getName(),
+              getValueType(property.getType()),
+              ExpressionEvaluator.convert(group.accumulators[i].getResult(), property.getType())));
+        }
+        result.add(entity);
+      }
+    }
+    return result;
+  }
+
+  /** Collects the groups, in parallel partitions if possible. */
+  private Map<List<Object>, Group> collect(final Rows rows, final List<List<String>> names,
+      final List<Aggregation> aggregations) throws ODataApplicationException {
+    final int size = rows.source instanceof List ? ((List<Entity>) rows.source).size() : 0;
+    final int partitions = Math.min(parallelism, size / minPartitionSize);
+    if (executorService == null || partitions < 2) {
+      return collect(rows.source, rows.rowItems, names, aggregations);
+    }
+
+    final List<Entity> entities = (List<Entity>) rows.source;
+    final int partitionSize = (size + partitions - 1) / partitions;
+    List<Future<Map<List<Object>, Group>>> futures = new ArrayList<Future<Map<List<Object>, Group>>>();
+    for (int start = 0; start < size; start += partitionSize) {
+      final List<Entity> partition = entities.subList(start, Math.min(start + partitionSize, size));
+      futures.add(executorService.submit(new Callable<Map<List<Object>, Group>>() {
+        @Override
+        public Map<List<Object>, Group> call() throws ODataApplicationException {
+          return collect(partition, rows.rowItems, names, aggregations);
+        }
+      }));
+    }
+    Map<List<Object>, Group> groups = null;
+    try {
+      for (final Future<Map<List<Object>, Group>> future : futures) {
+        final Map<List<Object>, Group> partial = future.get();
+        if (groups == null) {
+          groups = partial;
+        } else {
+          for (final Map.Entry<List<Object>, Group> entry : partial.entrySet()) {
+            final Group group = groups.get(entry.getKey());
+            if (group == null) {
+              groups.put(entry.getKey(), entry.getValue());
+            } else {
+              group.merge(entry.getValue());
+            }
+          }
+        }
+      }
+    } catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new ODataApplicationException("Aggregation has been interrupted.",
+          HttpStatusCode.SERVICE_UNAVAILABLE.getStatusCode(), Locale.ROOT, e);
+    } catch (final ExecutionException e) {
+      if (e.getCause() instanceof ODataApplicationException) {
+        throw (ODataApplicationException) e.getCause();
+      }
+      throw new ODataApplicationException("Aggregation failed.",
+          HttpStatusCode.INTERNAL_SERVER_ERROR.getStatusCode(), Locale.ROOT, e.getCause());
+    } finally {
+      for (final Future<Map<List<Object>, Group>> future : futures) {
+        future.cancel(true);
+      }
+    }
+    return groups;
+  }
+
+  private Map<List<Object>, Group> collect(final Iterable<Entity> entities, final List<ApplyItem> rowItems,
+      final List<List<String>> names, final List<Aggregation> aggregations) throws ODataApplicationException {
+    Map<List<Object>, Group> groups = new LinkedHashMap<List<Object>, Group>();
+    for (final Entity entity : entities) {
+      final Entity row = applyRowItems(entity, rowItems);
+      if (row == null) {
+        continue;
+      }
+      List<Object> key = new ArrayList<Object>(names.size());
+      for (final List<String> path : names) {
+        key.add(ExpressionEvaluator.getValue(row, path));
+      }
+      Group group = groups.get(key);
+      if (group == null) {
+        group = new Group(aggregations);
+        groups.put(key, group);
+      }
+      group.add(row);
+    }
+    return groups;
+  }
+
+  private Entity createGroupEntity(final List<List<EdmProperty>> paths, final List<Object> values) {
+    Entity entity = new Entity();
+    for (int i = 0; i < paths.size(); i++) {
+      addValue(entity.getProperties(), paths.get(i), 0, values.get(i));
+    }
+    return entity;
+  }
+
+  private void addValue(List<Property> properties, final List<EdmProperty> path, final int index,
+      final Object value) {
+    final EdmProperty edmProperty = path.get(index);
+    final String typeName = edmProperty.getType().getFullQualifiedName().getFullQualifiedNameAsString();
+    if (index == path.size() - 1) {
+      properties.add(new Property(typeName, edmProperty.getName(), getValueType(edmProperty.getType()), value));
+    } else {
+      Property property = ExpressionEvaluator.findProperty(properties, edmProperty.getName());
+      if (property == null) {
+        property = new Property(typeName, edmProperty.getName(), ValueType.COMPLEX, new ComplexValue());
+        properties.add(property);
+      }
+      addValue(property.asComplex().getValue(), path, index + 1, value);
+    }
+  }
+
+  private List<Entity> bottomTop(final BottomTop bottomTop, final List<Entity> entities)
+      throws ODataApplicationException {
+    final Object number = ExpressionEvaluator.evaluate(bottomTop.getNumber(), null);
+    if (!(number instanceof Number)) {
+      throw new ODataApplicationException("The first parameter of '" + bottomTop.getMethod()
+          + "' must be a number.", HttpStatusCode.BAD_REQUEST.getStatusCode(), Locale.ROOT);
+    }
+    // Entities without value are not ranked.
+    List<Object[]> ranked = new ArrayList<Object[]>();
+    BigDecimal total = BigDecimal.ZERO;
+    for (final Entity entity : entities) {
+      final Object value = ExpressionEvaluator.evaluate(bottomTop.getValue(), entity);
+      if (value instanceof Number) {
+        final BigDecimal decimal = ExpressionEvaluator.toDecimal(value);
+        ranked.add(new Object[] { entity, decimal });
+        total = total.add(decimal);
+      } else if (value != null) {
+        throw ExpressionEvaluator.notImplemented("Ranking of " + value.getClass().getSimpleName());
+      }
+    }
+    final boolean top = bottomTop.getMethod().name().startsWith("TOP");
+    Collections.sort(ranked, new Comparator<Object[]>() {
+      @Override
+      public int compare(final Object[] first, final Object[] second) {
+        final int comparison = ((BigDecimal) first[1]).compareTo((BigDecimal) second[1]);
+        return top ? -comparison : comparison;
+      }
+    });
+
+    final BigDecimal limit = ExpressionEvaluator.toDecimal(number);
+    List<Entity> result = new ArrayList<Entity>();
+    switch (bottomTop.getMethod()) {
+    case TOP_COUNT:
+    case BOTTOM_COUNT:
+      for (int i = 0; i < ranked.size() && limit.compareTo(BigDecimal.valueOf(i)) > 0; i++) {
+        result.add((Entity) ranked.get(i)[0]);
+      }
+      break;
+    default:
+      // the smallest set of entities whose sum reaches the given sum or percentage of the total
+      final boolean percent = bottomTop.getMethod() == BottomTop.Method.TOP_PERCENT
+          || bottomTop.getMethod() == BottomTop.Method.BOTTOM_PERCENT;
+      final BigDecimal threshold = percent ? total.multiply(limit).divide(BigDecimal.valueOf(100)) : limit;
+      BigDecimal sum = BigDecimal.ZERO;
+      for (int i = 0; i < ranked.size() && sum.compareTo(threshold) < 0; i++) {
+        result.add((Entity) ranked.get(i)[0]);
+        sum = sum.add((BigDecimal) ranked.get(i)[1]);
+      }
+    }
+    return result;
+  }
+
+  /** Determines the properties the entities have after the transformations. */
+  private Shape getShape(final List<ApplyItem> items, final Shape start) throws ODataApplicationException {
+    Shape shape = start;
+    for (final ApplyItem item : items) {
+      switch (item.getKind()) {
+      case COMPUTE:
+        for (final ComputeExpression expression : ((Compute) item).getExpressions()) {
+          shape = shape.with(new AggregatedProperty(expression.getAlias(), getType(expression.getExpression())));
+        }
+        break;
+      case AGGREGATE:
+        shape = Shape.empty();
+        for (final AggregateExpression expression : ((Aggregate) item).getExpressions()) {
+          shape = shape.with(Aggregation.create(expression).getResultProperty());
+        }
+        break;
+      case GROUP_BY:
+        final GroupBy groupBy = (GroupBy) item;
+        Shape grouped = Shape.empty();
+        for (final List<EdmProperty> path : getGroupingPaths(groupBy)) {
+          grouped = grouped.with(path);
+        }
+        if (groupBy.getApplyOption() != null) {
+          grouped = grouped.union(getShape(groupBy.getApplyOption().getApplyItems(), shape));
+        }
+        shape = grouped;
+        break;
+      case CONCAT:
+        Shape concatenated = null;
+        for (final ApplyOption option : ((Concat) item).getApplyOptions()) {
+          final Shape part = getShape(option.getApplyItems(), shape);
+          concatenated = concatenated == null ? part : concatenated.union(part);
+        }
+        shape = concatenated == null ? shape : concatenated;
+        break;
+      default:
+        break;
+      }
+    }
+    return shape;
+  }
+
+  private List<List<EdmProperty>> getGroupingPaths(final GroupBy groupBy) throws ODataApplicationException {
+    List<List<EdmProperty>> paths = new ArrayList<List<EdmProperty>>();
+    for (final GroupByItem item : groupBy.getGroupByItems()) {
+      if (item.isRollupAll() || item.getRollup() != null && !item.getRollup().isEmpty()) {
+        throw ExpressionEvaluator.notImplemented("Rollup");
+      }
+      List<EdmProperty> path = new ArrayList<EdmProperty>();
+      for (final UriResource segment : item.getPath()) {
+        if (!(segment instanceof UriResourceProperty) || ((UriResourceProperty) segment).isCollection()) {
+          throw ExpressionEvaluator.notImplemented("Grouping by '" + segment + "'");
+        }
+        path.add(((UriResourceProperty) segment).getProperty());
+      }
+      paths.add(path);
+    }
+    return paths;
+  }
+
+  private EdmType getType(final Expression expression)
+      throws ODataApplicationException {
+    EdmType type;
+    try {
+      type = ExpressionParser.getType(expression);
+    } catch (final UriParserException e) {
+      type = null;
+    }
+    if (type == null) {
+      throw ExpressionEvaluator.notImplemented("Expression '" + expression + "' of unknown type");
+    }
+    return type;
+  }
+
+  private static ValueType getValueType(final EdmType type) {
+    return type.getKind() == EdmTypeKind.COMPLEX ? ValueType.COMPLEX
+        : type.getKind() == EdmTypeKind.ENUM ? ValueType.ENUM
+            : ValueType.PRIMITIVE;
+  }
+}
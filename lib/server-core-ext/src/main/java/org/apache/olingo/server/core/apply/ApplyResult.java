@@ -0,0 +1,89 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.apply;
+
+import java.util.Map;
+
+import org.apache.olingo.commons.api.data.EntityCollection;
+import org.apache.olingo.commons.api.edm.EdmEntityType;
+
+/**
+ * Result of executing a <code>$apply</code> system query option: the resulting entities,
+ * their entity type for the serializer, and the select list for the context URL.
+ */
+public class ApplyResult {
+
+  private final EntityCollection entityCollection;
+  private final EdmEntityType entityType;
+  private final String selectList;
+
+  ApplyResult(final EntityCollection entityCollection, final EdmEntityType startType, final Shape shape) {
+    this.entityCollection = entityCollection;
+    if (shape.isUnchanged()) {
+      entityType = startType;
+      selectList = null;
+    } else {
+      entityType = new AggregatedEntityType(startType, shape);
+      StringBuilder result = new StringBuilder();
+      if (shape.isAll()) {
+        result.append('*');
+      }
+      appendSelectList(result, shape.getProperties());
+      selectList = result.toString();
+    }
+  }
+
+  private static void appendSelectList(StringBuilder result, final Map<String, Shape.Node> nodes) {
+    for (final Map.Entry<String, Shape.Node> entry : nodes.entrySet()) {
+      if (result.length() > 0 && result.charAt(result.length() - 1) != '(') {
+        result.append(',');
+      }
+      result.append(entry.getKey());
+      if (entry.getValue().getChildren() != null) {
+        result.append('(');
+        appendSelectList(result, entry.getValue().getChildren());
+        result.append(')');
+      }
+    }
+  }
+
+  /** @return the resulting entities */
+  public EntityCollection getEntityCollection() {
+    return entityCollection;
+  }
+
+  /**
+   * Gets the entity type to be used to serialize the resulting entities. It is the start type
+   * if the transformations did not change the structure of the entities; otherwise it is a type
+   * with the name of the start type but with the grouped, aggregated, and computed properties only.
+   * @return the entity type of the resulting entities
+   */
+  public EdmEntityType getEntityType() {
+    return entityType;
+  }
+
+  /**
+   * Gets the select list of the context URL, e.g., <code>Customer(Country),Total</code>
+   * for <code>groupby((Customer/Country),aggregate(Amount with sum as Total))</code>.
+   * @return the select list or <code>null</code> if the structure of the entities has not been changed
+   */
+  public String getSelectList() {
+    return selectList;
+  }
+}
@@ -0,0 +1,369 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.apply;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import org.apache.olingo.commons.api.data.Entity;
+import org.apache.olingo.commons.api.data.Property;
+import org.apache.olingo.commons.api.edm.EdmEnumType;
+import org.apache.olingo.commons.api.edm.EdmPrimitiveType;
+import org.apache.olingo.commons.api.edm.EdmPrimitiveTypeException;
+import org.apache.olingo.commons.api.edm.EdmType;
+import org.apache.olingo.commons.api.http.HttpStatusCode;
+import org.apache.olingo.server.api.ODataApplicationException;
+import org.apache.olingo.server.api.uri.UriResource;
+import org.apache.olingo.server.api.uri.UriResourceProperty;
+import org.apache.olingo.server.api.uri.queryoption.expression.BinaryOperatorKind;
+import org.apache.olingo.server.api.uri.queryoption.expression.Expression;
+import org.apache.olingo.server.api.uri.queryoption.expression.ExpressionVisitException;
+import org.apache.olingo.server.api.uri.queryoption.expression.ExpressionVisitor;
+import org.apache.olingo.server.api.uri.queryoption.expression.Literal;
+import org.apache.olingo.server.api.uri.queryoption.expression.Member;
+import org.apache.olingo.server.api.uri.queryoption.expression.MethodKind;
+import org.apache.olingo.server.api.uri.queryoption.expression.UnaryOperatorKind;
+
+/**
+ * Evaluates common expressions (e.g., of <code>$apply</code> transformations or of nested
+ * <code>$expand</code> options) on a single entity.
+ * <p/>
+ * Supported are property paths (including aliases introduced by earlier transformations), literals,
+ * arithmetic, comparison and logical operators, and the string and rounding methods.
+ * Numbers are calculated as {@link BigDecimal}s; everything else results in a
+ * <code>501 Not Implemented</code> error.
+ */
+public final class ExpressionEvaluator implements ExpressionVisitor<Object> {
+
+  private static final Integer UNLIMITED = Integer.MAX_VALUE;
+
+  private final Entity entity;
+
+  private ExpressionEvaluator(final Entity entity) {
+    this.entity = entity;
+  }
+
+  /**
+   * Evaluates an expression.
+   * @param entity the entity the property paths of the expression refer to (may be <code>null</code>
+   *               for expressions without property paths)
+   */
+  public static Object evaluate(final Expression expression, final Entity entity) throws ODataApplicationException {
+    try {
+      return expression.accept(new ExpressionEvaluator(entity));
+    } catch (final ExpressionVisitException e) {
+      throw new ODataApplicationException(e.getMessage(), HttpStatusCode.BAD_REQUEST.getStatusCode(), Locale.ROOT, e);
+    }
+  }
+
+  /**
+   * Gets the property names of a path consisting of structural properties only.
+   * @return the names or <code>null</code> if the path contains other segments
+   */
+  static List<String> getPropertyNames(final List<UriResource> path) {
+    List<String> names = new ArrayList<String>(path.size());
+    for (final UriResource segment : path) {
+      if (!(segment instanceof UriResourceProperty)) {
+        return null;
+      }
+      names.add(((UriResourceProperty) segment).getProperty().getName());
+    }
+    return names;
+  }
+
+  /** Reads the value of a property path; missing properties result in <code>null</code>. */
+  static Object getValue(final Entity entity, final List<String> names) {
+    List<Property> properties = entity.getProperties();
+    for (int i = 0; i < names.size(); i++) {
+      final Property property = findProperty(properties, names.get(i));
+      if (property == null || i == names.size() - 1) {
+        return property == null ? null : property.getValue();
+      }
+      if (!property.isComplex() || property.asComplex() == null) {
+        return null;
+      }
+      properties = property.asComplex().getValue();
+    }
+    return null;
+  }
+
+  static Property findProperty(final List<Property> properties, final String name) {
+    for (final Property property : properties) {
+      if (name.equals(property.getName())) {
+        return property;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Converts a calculated value into the default Java type of the given EDM type
+   * (numbers are calculated as {@link BigDecimal} but an <code>Edm.Int32</code> property needs an Integer).
+   */
+  static Object convert(final Object value, final EdmType type) {
+    if (!(value instanceof Number) || !(type instanceof EdmPrimitiveType)) {
+      return value;
+    }
+    final Class<?> target = ((EdmPrimitiveType) type).getDefaultType();
+    final BigDecimal number = toDecimal(value);
+    if (target == BigDecimal.class) {
+      return number;
+    } else if (target == Double.class) {
+      return number.doubleValue();
+    } else if (target == Float.class) {
+      return number.floatValue();
+    } else if (target == Long.class) {
+      return number.longValue();
+    } else if (target == Integer.class) {
+      return number.intValue();
+    } else if (target == Short.class) {
+      return number.shortValue();
+    } else if (target == Byte.class) {
+      return number.byteValue();
+    }
+    return value;
+  }
+
+  static BigDecimal toDecimal(final Object value) {
+    if (value instanceof BigDecimal) {
+      return (BigDecimal) value;
+    } else if (value instanceof BigInteger) {
+      return new BigDecimal((BigInteger) value);
+    } else if (value instanceof Double || value instanceof Float) {
+      return BigDecimal.valueOf(((Number) value).doubleValue());
+    } else {
+      return BigDecimal.valueOf(((Number) value).longValue());
+    }
+  }
+
+  private static boolean isIntegral(final Object value) {
+    return value instanceof Byte || value instanceof Short || value instanceof Integer || value instanceof Long
+        || value instanceof BigInteger
+        || value instanceof BigDecimal && ((BigDecimal) value).scale() <= 0;
+  }
+
+  /** Compares two non-null values; numbers of different Java types are compared numerically. */
+  @SuppressWarnings("unchecked")
+  public static int compare(final Object left, final Object right) throws ODataApplicationException {
+    if (left instanceof Number && right instanceof Number) {
+      return toDecimal(left).compareTo(toDecimal(right));
+    } else if (left instanceof Comparable && left.getClass().isInstance(right)) {
+      return ((Comparable<Object>) left).compareTo(right);
+    }
+    throw notImplemented("Comparison of " + left.getClass().getSimpleName() + " and "
+        + right.getClass().getSimpleName());
+  }
+
+  private static boolean isEqual(final Object left, final Object right) throws ODataApplicationException {
+    if (left == null || right == null) {
+      return left == right;
+    } else if (left instanceof Number && right instanceof Number) {
+      return toDecimal(left).compareTo(toDecimal(right)) == 0;
+    }
+    return left.equals(right);
+  }
+
+  @Override
+  public Object visitBinaryOperator(final BinaryOperatorKind operator, final Object left, final Object right)
+      throws ODataApplicationException {
+    switch (operator) {
+    case AND:
+      return Boolean.FALSE.equals(left) || Boolean.FALSE.equals(right) ? Boolean.FALSE
+          : left == null || right == null ? null : Boolean.TRUE;
+    case OR:
+      return Boolean.TRUE.equals(left) || Boolean.TRUE.equals(right) ? Boolean.TRUE
+          : left == null || right == null ? null : Boolean.FALSE;
+    case EQ:
+      return isEqual(left, right);
+    case NE:
+      return !isEqual(left, right);
+    case GT:
+      return left != null && right != null && compare(left, right) > 0;
+    case GE:
+      return left != null && right != null && compare(left, right) >= 0;
+    case LT:
+      return left != null && right != null && compare(left, right) < 0;
+    case LE:
+      return left != null && right != null && compare(left, right) <= 0;
+    case ADD:
+    case SUB:
+    case MUL:
+    case DIV:
+    case MOD:
+      return left == null || right == null ? null : calculate(operator, left, right);
+    default:
+      throw notImplemented("Operator '" + operator + "'");
+    }
+  }
+
+  private Object calculate(final BinaryOperatorKind operator, final Object left, final Object right)
+      throws ODataApplicationException {
+    if (!(left instanceof Number) || !(right instanceof Number)) {
+      throw notImplemented("Operator '" + operator + "' on non-numeric values");
+    }
+    final BigDecimal first = toDecimal(left);
+    final BigDecimal second = toDecimal(right);
+    switch (operator) {
+    case ADD:
+      return first.add(second);
+    case SUB:
+      return first.subtract(second);
+    case MUL:
+      return first.multiply(second);
+    default:
+      if (second.signum() == 0) {
+        throw new ODataApplicationException("Division by zero.", HttpStatusCode.BAD_REQUEST.getStatusCode(),
+            Locale.ROOT);
+      }
+      if (operator == BinaryOperatorKind.MOD) {
+        return first.remainder(second);
+      }
+      // integer division truncates
+      return isIntegral(left) && isIntegral(right) ? first.divideToIntegralValue(second)
+          : first.divide(second, MathContext.DECIMAL128);
+    }
+  }
+
+  @Override
+  public Object visitUnaryOperator(final UnaryOperatorKind operator, final Object operand)
+      throws ODataApplicationException {
+    if (operand == null) {
+      return null;
+    } else if (operator == UnaryOperatorKind.NOT && operand instanceof Boolean) {
+      return !((Boolean) operand);
+    } else if (operator == UnaryOperatorKind.MINUS && operand instanceof Number) {
+      return toDecimal(operand).negate();
+    }
+    throw notImplemented("Operator '" + operator + "'");
+  }
+
+  @Override
+  public Object visitMethodCall(final MethodKind methodCall, final List<Object> parameters)
+      throws ODataApplicationException {
+    for (final Object parameter : parameters) {
+      if (parameter == null) {
+        return null;
+      }
+    }
+    final Object first = parameters.isEmpty() ? null : parameters.get(0);
+    final Object second = parameters.size() < 2 ? null : parameters.get(1);
+    switch (methodCall) {
+    case CONTAINS:
+      return string(first).contains(string(second));
+    case STARTSWITH:
+      return string(first).startsWith(string(second));
+    case ENDSWITH:
+      return string(first).endsWith(string(second));
+    case LENGTH:
+      return string(first).length();
+    case INDEXOF:
+      return string(first).indexOf(string(second));
+    case TOLOWER:
+      return string(first).toLowerCase(Locale.ROOT);
+    case TOUPPER:
+      return string(first).toUpperCase(Locale.ROOT);
+    case TRIM:
+      return string(first).trim();
+    case CONCAT:
+      return string(first) + string(second);
+    case SUBSTRING:
+      final String text = string(first);
+      final int start = Math.min(Math.max(toDecimal(second).intValue(), 0), text.length());
+      return parameters.size() < 3 ? text.substring(start)
+          : text.substring(start, Math.min(start + Math.max(toDecimal(parameters.get(2)).intValue(), 0),
+              text.length()));
+    case ROUND:
+      return toDecimal(first).setScale(0, RoundingMode.HALF_UP);
+    case FLOOR:
+      return toDecimal(first).setScale(0, RoundingMode.FLOOR);
+    case CEILING:
+      return toDecimal(first).setScale(0, RoundingMode.CEILING);
+    default:
+      throw notImplemented("Method '" + methodCall + "'");
+    }
+  }
+
+  private static String string(final Object value) throws ODataApplicationException {
+    if (value instanceof String) {
+      return (String) value;
+    }
+    throw notImplemented("String method on " + value.getClass().getSimpleName());
+  }
+
+  @Override
+  public Object visitLiteral(final Literal literal) throws ODataApplicationException {
+    if (literal.getType() == null) {
+      return null;
+    }
+    final EdmPrimitiveType type = (EdmPrimitiveType) literal.getType();
+    try {
+      return type.valueOfString(type.fromUriLiteral(literal.getText()),
+          true, null, UNLIMITED, UNLIMITED, true, type.getDefaultType());
+    } catch (final EdmPrimitiveTypeException e) {
+      throw new ODataApplicationException("Invalid literal '" + literal.getText() + "'.",
+          HttpStatusCode.BAD_REQUEST.getStatusCode(), Locale.ROOT, e);
+    }
+  }
+
+  @Override
+  public Object visitMember(final Member member) throws ODataApplicationException {
+    final List<String> names = member.getStartTypeFilter() == null ?
+        getPropertyNames(member.getResourcePath().getUriResourceParts()) : null;
+    if (names == null || names.isEmpty()) {
+      throw notImplemented("Path '" + member.getResourcePath().getUriResourceParts() + "'");
+    }
+    return entity == null ? null : getValue(entity, names);
+  }
+
+  @Override
+  public Object visitLambdaExpression(final String lambdaFunction, final String lambdaVariable,
+      final Expression expression) throws ODataApplicationException {
+    throw notImplemented("Lambda expression");
+  }
+
+  @Override
+  public Object visitAlias(final String aliasName) throws ODataApplicationException {
+    throw notImplemented("Parameter alias '" + aliasName + "'");
+  }
+
+  @Override
+  public Object visitTypeLiteral(final EdmType type) throws ODataApplicationException {
+    throw notImplemented("Type literal");
+  }
+
+  @Override
+  public Object visitLambdaReference(final String variableName) throws ODataApplicationException {
+    throw notImplemented("Lambda reference");
+  }
+
+  @Override
+  public Object visitEnum(final EdmEnumType type, final List<String> enumValues) throws ODataApplicationException {
+    throw notImplemented("Enumeration literal");
+  }
+
+  static ODataApplicationException notImplemented(final String what) {
+    return new ODataApplicationException(what + " is not supported.",
+        HttpStatusCode.NOT_IMPLEMENTED.getStatusCode(), Locale.ROOT);
+  }
+}
@@ -0,0 +1,150 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.apply;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.olingo.commons.api.edm.EdmProperty;
+
+/**
+ * The properties the entities have after some transformations:
+ * either all properties of the start type (plus computed ones) or only the grouped and aggregated properties.
+ * Instances are immutable.
+ */
+final class Shape {
+
+  /** A property of the shape; complex properties restricted to some of their parts have children. */
+  static final class Node {
+    private final EdmProperty property;
+    private final Map<String, Node> children;
+
+    private Node(final EdmProperty property, final Map<String, Node> children) {
+      this.property = property;
+      this.children = children;
+    }
+
+    EdmProperty getProperty() {
+      return property;
+    }
+
+    /** @return the parts of a restricted complex property or <code>null</code> for the whole property */
+    Map<String, Node> getChildren() {
+      return children == null ? null : Collections.unmodifiableMap(children);
+    }
+  }
+
+  private static final Shape ALL = new Shape(true, new LinkedHashMap<String, Node>());
+  private static final Shape EMPTY = new Shape(false, new LinkedHashMap<String, Node>());
+
+  private final boolean all;
+  private final Map<String, Node> properties;
+
+  private Shape(final boolean all, final Map<String, Node> properties) {
+    this.all = all;
+    this.properties = properties;
+  }
+
+  /** The shape of the input: all properties of the start type. */
+  static Shape all() {
+    return ALL;
+  }
+
+  /** The shape without any properties, the start for aggregations. */
+  static Shape empty() {
+    return EMPTY;
+  }
+
+  boolean isAll() {
+    return all;
+  }
+
+  /** @return <code>true</code> if the entities still have exactly the properties of the start type */
+  boolean isUnchanged() {
+    return all && properties.isEmpty();
+  }
+
+  /** The properties in addition to the start type's properties, or all properties if not {@link #isAll()}. */
+  Map<String, Node> getProperties() {
+    return Collections.unmodifiableMap(properties);
+  }
+
+  /** Adds a property (e.g., an alias). */
+  Shape with(final EdmProperty property) {
+    Map<String, Node> copy = new LinkedHashMap<String, Node>(properties);
+    copy.put(property.getName(), new Node(property, null));
+    return new Shape(all, copy);
+  }
+
+  /** Adds a property path (e.g., a grouping property); only the given part of complex properties is added. */
+  Shape with(final List<EdmProperty> path) {
+    Map<String, Node> copy = copy(properties);
+    Map<String, Node> current = copy;
+    for (int i = 0; i < path.size(); i++) {
+      final EdmProperty property = path.get(i);
+      final Node existing = current.get(property.getName());
+      if (i == path.size() - 1) {
+        current.put(property.getName(), new Node(property, null));
+      } else if (existing != null && existing.children == null) {
+        // the whole complex property is part of the shape already
+        break;
+      } else {
+        final Node node = existing == null ? new Node(property, new LinkedHashMap<String, Node>()) : existing;
+        current.put(property.getName(), node);
+        current = node.children;
+      }
+    }
+    return new Shape(all, copy);
+  }
+
+  /** Unites two shapes, e.g. of the parts of a <code>concat</code> transformation. */
+  Shape union(final Shape other) {
+    Map<String, Node> copy = copy(properties);
+    merge(copy, other.properties);
+    return new Shape(all || other.all, copy);
+  }
+
+  private static void merge(final Map<String, Node> target, final Map<String, Node> source) {
+    for (final Node node : source.values()) {
+      final String name = node.property.getName();
+      final Node existing = target.get(name);
+      if (existing == null) {
+        target.put(name, node.children == null ? node : new Node(node.property, copy(node.children)));
+      } else if (existing.children != null) {
+        if (node.children == null) {
+          target.put(name, node);
+        } else {
+          merge(existing.children, node.children);
+        }
+      }
+    }
+  }
+
+  /** Deep copy, so that the nodes of the copy can be changed. */
+  private static Map<String, Node> copy(final Map<String, Node> nodes) {
+    Map<String, Node> copy = new LinkedHashMap<String, Node>();
+    for (final Map.Entry<String, Node> entry : nodes.entrySet()) {
+      final Node node = entry.getValue();
+      copy.put(entry.getKey(), node.children == null ? node : new Node(node.property, copy(node.children)));
+    }
+    return copy;
+  }
+}
@@ -0,0 +1,398 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.expand;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.olingo.commons.api.data.Entity;
+import org.apache.olingo.commons.api.data.EntityCollection;
+import org.apache.olingo.commons.api.data.Link;
+import org.apache.olingo.commons.api.edm.EdmEntityType;
+import org.apache.olingo.commons.api.edm.EdmNavigationProperty;
+import org.apache.olingo.commons.api.http.HttpStatusCode;
+import org.apache.olingo.server.api.ODataApplicationException;
+import org.apache.olingo.server.api.uri.UriResource;
+import org.apache.olingo.server.api.uri.UriResourceNavigation;
+import org.apache.olingo.server.api.uri.queryoption.ExpandItem;
+import org.apache.olingo.server.api.uri.queryoption.ExpandOption;
+import org.apache.olingo.server.api.uri.queryoption.OrderByItem;
+import org.apache.olingo.server.api.uri.queryoption.SystemQueryOption;
+import org.apache.olingo.server.core.NavigationBatchLoader;
+import org.apache.olingo.server.core.apply.ExpressionEvaluator;
+import org.apache.olingo.server.core.uri.queryoption.ExpandItemImpl;
+import org.apache.olingo.server.core.uri.queryoption.ExpandOptionImpl;
+
+/**
+ * Resolves <code>$expand</code> level by level with a {@link NavigationBatchLoader}.
+ * <p/>
+ * For every expanded navigation property the targets of all source entities of a level are loaded
+ * with a single call of the loader, so that the number of loader calls depends on the expand tree
+ * only and not on the number of entities. The nested <code>$filter</code>, <code>$orderby</code>,
+ * <code>$skip</code>, <code>$top</code> and <code>$count</code> options of collection-valued navigation
+ * properties are applied per source entity; <code>$levels</code> with a number is supported.
+ * <p/>
+ * The loaded entities are usually shared by concurrent requests, so they are never changed:
+ * the inline navigation links are attached to copies which belong to the response being written.
+ */
+public class BatchExpander {
+
+  private final NavigationBatchLoader loader;
+
+  public BatchExpander(final NavigationBatchLoader loader) {
+    this.loader = loader;
+  }
+
+  /**
+   * Expands the given entities.
+   * The entities themselves are not changed; the loaded targets are attached as inline navigation links
+   * to copies of them, which share the properties of the entities.
+   * @param entityType the type of the entities
+   * @param entities the entities to be expanded
+   * @param expandOption the expand option; nothing is done if it is <code>null</code>
+   * @return the expanded copies, in the order of the given entities
+   * @throws ODataApplicationException if the loader fails or an option is not supported
+   */
+  public List<Entity> expand(final EdmEntityType entityType, final List<Entity> entities,
+      final ExpandOption expandOption) throws ODataApplicationException {
+    if (expandOption == null || entities == null || entities.isEmpty()) {
+      return entities;
+    }
+    final Map<Entity, Entity> copies = new IdentityHashMap<Entity, Entity>();
+    List<Entity> result = new ArrayList<Entity>(entities.size());
+    for (final Entity entity : entities) {
+      result.add(copyOf(entity, copies));
+    }
+    expand(entityType, distinct(entities), unroll(expandOption), copies);
+    return result;
+  }
+
+  /**
+   * Replaces <code>$levels</code> with a number by explicitly nested expand items, so that the nested
+   * options of an expand item apply on every level and not only on the first one.
+   * @param expandOption the expand option or <code>null</code>
+   * @return an equivalent expand option without <code>$levels</code>
+   * @throws ODataApplicationException if <code>$levels=max</code> is requested
+   */
+  public static ExpandOption unroll(final ExpandOption expandOption) throws ODataApplicationException {
+    if (expandOption == null) {
+      return null;
+    }
+    ExpandOptionImpl result = new ExpandOptionImpl();
+    for (final ExpandItem item : expandOption.getExpandItems()) {
+      result.addExpandItem(unroll(item, getLevels(item)));
+    }
+    return result;
+  }
+
+  private static ExpandItem unroll(final ExpandItem item, final int levels) throws ODataApplicationException {
+    ExpandItemImpl result = new ExpandItemImpl()
+        .setResourcePath(item.getResourcePath())
+        .setIsStar(item.isStar())
+        .setIsRef(item.isRef())
+        .setTypeFilter(item.getStartTypeFilter());
+    result.setCountPath(item.hasCountPath());
+    for (final SystemQueryOption option : Arrays.asList(item.getFilterOption(), item.getSearchOption(),
+        item.getOrderByOption(), item.getSkipOption(), item.getTopOption(), item.getCountOption(),
+        item.getSelectOption(), item.getApplyOption())) {
+      if (option != null) {
+        result.setSystemQueryOption(option);
+      }
+    }
+
+    ExpandOptionImpl nested = (ExpandOptionImpl) unroll(item.getExpandOption());
+    if (levels > 1 && (item.isStar() || getNavigationProperty(item).getType()
+        .getNavigationProperty(getNavigationProperty(item).getName()) != null)) {
+      if (nested == null) {
+        nested = new ExpandOptionImpl();
+      }
+      nested.addExpandItem(unroll(item, levels - 1));
+    }
+    if (nested != null) {
+      result.setSystemQueryOption(nested);
+    }
+    return result;
+  }
+
+  /**
+   * @param sources the original source entities, each one only once
+   * @param copies the copies of the source entities by original entity
+   */
+  private void expand(final EdmEntityType entityType, final List<Entity> sources, final ExpandOption expandOption,
+      final Map<Entity, Entity> copies) throws ODataApplicationException {
+    if (expandOption == null || sources.isEmpty()) {
+      return;
+    }
+    // explicitly named navigation properties take precedence over '*'
+    Set<String> expanded = new HashSet<String>();
+    ExpandItem starItem = null;
+    for (final ExpandItem item : expandOption.getExpandItems()) {
+      if (item.isStar()) {
+        starItem = item;
+      } else {
+        final EdmNavigationProperty navigationProperty = getNavigationProperty(item);
+        expanded.add(navigationProperty.getName());
+        expand(entityType, navigationProperty, sources, item, copies);
+      }
+    }
+    if (starItem != null) {
+      for (final String name : entityType.getNavigationPropertyNames()) {
+        if (!expanded.contains(name)) {
+          expand(entityType, entityType.getNavigationProperty(name), sources, starItem, copies);
+        }
+      }
+    }
+  }
+
+  private void expand(final EdmEntityType sourceType, final EdmNavigationProperty navigationProperty,
+      final List<Entity> sources, final ExpandItem item, final Map<Entity, Entity> copies)
+      throws ODataApplicationException {
+    final List<EntityCollection> results =
+        loader.loadNavigation(sourceType, navigationProperty, sources, item);
+    if (results == null || results.size() != sources.size()) {
+      throw new ODataApplicationException("The navigation targets do not match the source entities.",
+          HttpStatusCode.INTERNAL_SERVER_ERROR.getStatusCode(), Locale.ROOT);
+    }
+
+    // an entity reached through different expand items gets a copy per item, as the nested options differ
+    final Map<Entity, Entity> targetCopies = new IdentityHashMap<Entity, Entity>();
+    Set<Entity> seen = Collections.newSetFromMap(new IdentityHashMap<Entity, Boolean>());
+    List<Entity> targets = new ArrayList<Entity>();
+    for (int index = 0; index < sources.size(); index++) {
+      final EntityCollection result = results.get(index);
+      List<Entity> selected = result == null ? new ArrayList<Entity>() : new ArrayList<Entity>(result.getEntities());
+      final Link link = getNavigationLink(copies.get(sources.get(index)), navigationProperty.getName());
+      if (navigationProperty.isCollection()) {
+        EntityCollection inline = new EntityCollection();
+        selected = filter(selected, item);
+        if (item.hasCountPath() || item.getCountOption() != null && item.getCountOption().getValue()) {
+          inline.setCount(selected.size());
+        }
+        selected = page(orderBy(selected, item), item);
+        for (final Entity target : selected) {
+          inline.getEntities().add(copyOf(target, targetCopies));
+        }
+        link.setInlineEntity(null);
+        link.setInlineEntityIterator(null);
+        link.setInlineEntitySet(inline);
+      } else {
+        if (selected.size() > 1) {
+          selected = selected.subList(0, 1);
+        }
+        link.setInlineEntitySet(null);
+        link.setInlineEntityIterator(null);
+        link.setInlineEntity(selected.isEmpty() ? null : copyOf(selected.get(0), targetCopies));
+      }
+      for (final Entity target : selected) {
+        if (seen.add(target)) {
+          targets.add(target);
+        }
+      }
+    }
+
+    expand(navigationProperty.getType(), targets, item.getExpandOption(), targetCopies);
+  }
+
+  private List<Entity> filter(final List<Entity> entities, final ExpandItem item) throws ODataApplicationException {
+    if (item.getFilterOption() == null || item.getFilterOption().getExpression() == null) {
+      return entities;
+    }
+    List<Entity> result = new ArrayList<Entity>();
+    for (final Entity entity : entities) {
+      if (Boolean.TRUE.equals(ExpressionEvaluator.evaluate(item.getFilterOption().getExpression(), entity))) {
+        result.add(entity);
+      }
+    }
+    return result;
+  }
+
+  private List<Entity> orderBy(final List<Entity> entities, final ExpandItem item)
+      throws ODataApplicationException {
+    if (item.getOrderByOption() == null || entities.size() < 2) {
+      return entities;
+    }
+    final List<OrderByItem> orders = item.getOrderByOption().getOrders();
+    List<SortKey> keys = new ArrayList<SortKey>(entities.size());
+    for (final Entity entity : entities) {
+      Object[] values = new Object[orders.size()];
+      for (int index = 0; index < values.length; index++) {
+        values[index] = ExpressionEvaluator.evaluate(orders.get(index).getExpression(), entity);
+      }
+      keys.add(new SortKey(entity, values));
+    }
+
+    SortKeyComparator comparator = new SortKeyComparator(orders);
+    Collections.sort(keys, comparator);
+    if (comparator.failure != null) {
+      throw comparator.failure;
+    }
+    List<Entity> result = new ArrayList<Entity>(keys.size());
+    for (final SortKey key : keys) {
+      result.add(key.entity);
+    }
+    return result;
+  }
+
+  private List<Entity> page(final List<Entity> entities, final ExpandItem item) {
+    final int skip = item.getSkipOption() == null ? 0 : item.getSkipOption().getValue();
+    final int top = item.getTopOption() == null ? Integer.MAX_VALUE : item.getTopOption().getValue();
+    if (skip >= entities.size()) {
+      return new ArrayList<Entity>();
+    }
+    return entities.subList(skip, (int) Math.min((long) skip + top, entities.size()));
+  }
+
+  private static List<Entity> distinct(final List<Entity> entities) {
+    Set<Entity> seen = Collections.newSetFromMap(new IdentityHashMap<Entity, Boolean>());
+    List<Entity> result = new ArrayList<Entity>(entities.size());
+    for (final Entity entity : entities) {
+      if (seen.add(entity)) {
+        result.add(entity);
+      }
+    }
+    return result;
+  }
+
+  private static Link getNavigationLink(final Entity entity, final String name) {
+    Link link = entity.getNavigationLink(name);
+    if (link == null) {
+      link = new Link();
+      link.setTitle(name);
+      entity.getNavigationLinks().add(link);
+    }
+    return link;
+  }
+
+  /** Gets the copy of an entity, creating it on first access. */
+  private static Entity copyOf(final Entity entity, final Map<Entity, Entity> copies) {
+    Entity copy = copies.get(entity);
+    if (copy == null) {
+      copy = new Entity();
+      copy.setBaseURI(entity.getBaseURI());
+      copy.setId(entity.getId());
+      copy.setCommonProperty("title", entity.getTitle());
+      copy.setType(entity.getType());
+      copy.setETag(entity.getETag());
+      copy.setSelfLink(entity.getSelfLink());
+      copy.setEditLink(entity.getEditLink());
+      copy.setMediaContentSource(entity.getMediaContentSource());
+      copy.setMediaContentType(entity.getMediaContentType());
+      copy.setMediaETag(entity.getMediaETag());
+      copy.getMediaEditLinks().addAll(entity.getMediaEditLinks());
+      copy.getOperations().addAll(entity.getOperations());
+      copy.getProperties().addAll(entity.getProperties());
+      copy.getAnnotations().addAll(entity.getAnnotations());
+      copy.getAssociationLinks().addAll(entity.getAssociationLinks());
+      copy.getNavigationBindings().addAll(entity.getNavigationBindings());
+      for (final Link link : entity.getNavigationLinks()) {
+        copy.getNavigationLinks().add(copyOf(link));
+      }
+      copies.put(entity, copy);
+    }
+    return copy;
+  }
+
+  private static Link copyOf(final Link link) {
+    Link copy = new Link();
+    copy.setTitle(link.getTitle());
+    copy.setRel(link.getRel());
+    copy.setHref(link.getHref());
+    copy.setType(link.getType());
+    copy.setMediaETag(link.getMediaETag());
+    copy.setInlineEntity(link.getInlineEntity());
+    copy.setInlineEntitySet(link.getInlineEntitySet());
+    copy.setInlineEntityIterator(link.getInlineEntityIterator());
+    copy.setBindingLink(link.getBindingLink());
+    copy.setBindingLinks(new ArrayList<String>(link.getBindingLinks()));
+    copy.getAnnotations().addAll(link.getAnnotations());
+    return copy;
+  }
+
+  private static EdmNavigationProperty getNavigationProperty(final ExpandItem item)
+      throws ODataApplicationException {
+    final List<UriResource> parts = item.getResourcePath() == null ? null
+        : item.getResourcePath().getUriResourceParts();
+    if (parts == null || parts.size() != 1 || !(parts.get(0) instanceof UriResourceNavigation)) {
+      throw new ODataApplicationException("Only navigation properties of the entity type can be expanded.",
+          HttpStatusCode.NOT_IMPLEMENTED.getStatusCode(), Locale.ROOT);
+    }
+    return ((UriResourceNavigation) parts.get(0)).getProperty();
+  }
+
+  private static int getLevels(final ExpandItem item) throws ODataApplicationException {
+    if (item.getLevelsOption() == null) {
+      return 1;
+    } else if (item.getLevelsOption().isMax()) {
+      throw new ODataApplicationException("$levels=max is not supported.",
+          HttpStatusCode.NOT_IMPLEMENTED.getStatusCode(), Locale.ROOT);
+    }
+    return item.getLevelsOption().getValue();
+  }
+
+  private static class SortKey {
+    private final Entity entity;
+    private final Object[] values;
+
+    public SortKey(final Entity entity, final Object[] values) {
+      this.entity = entity;
+      this.values = values;
+    }
+  }
+
+  private static class SortKeyComparator implements Comparator<SortKey> {
+    private final List<OrderByItem> orders;
+    private ODataApplicationException failure;
+
+    public SortKeyComparator(final List<OrderByItem> orders) {
+      this.orders = orders;
+    }
+
+    @Override
+    public int compare(final SortKey left, final SortKey right) {
+      for (int index = 0; index < orders.size(); index++) {
+        final Object leftValue = left.values[index];
+        final Object rightValue = right.values[index];
+        int result;
+        if (leftValue == null || rightValue == null) {
+          // null values sort first
+          result = leftValue == null ? (rightValue == null ? 0 : -1) : 1;
+        } else {
+          try {
+            result = ExpressionEvaluator.compare(leftValue, rightValue);
+          } catch (final ODataApplicationException e) {
+            failure = e;
+            result = 0;
+          }
+        }
+        if (result != 0) {
+          return orders.get(index).isDescending() ? -result : result;
+        }
+      }
+      return 0;
+    }
+  }
+}
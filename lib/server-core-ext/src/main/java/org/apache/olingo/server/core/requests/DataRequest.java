@@ -72,10 +72,12 @@ import org.apache.olingo.server.api.uri.UriResourceProperty;
 import org.apache.olingo.server.api.uri.UriResourceSingleton;
 import org.apache.olingo.server.core.ContentNegotiator;
 import org.apache.olingo.server.core.ContentNegotiatorException;
+import org.apache.olingo.server.core.NavigationBatchLoader;
 import org.apache.olingo.server.core.ODataHandlerException;
 import org.apache.olingo.server.core.ReturnRepresentation;
 import org.apache.olingo.server.core.ServiceHandler;
 import org.apache.olingo.server.core.ServiceRequest;
+import org.apache.olingo.server.core.expand.BatchExpander;
 import org.apache.olingo.server.core.responses.CountResponse;
 import org.apache.olingo.server.core.responses.EntityResponse;
 import org.apache.olingo.server.core.responses.EntitySetResponse;
@@ -255,6 +257,17 @@ public class DataRequest extends ServiceRequest {
     this.type.execute(handler, response);
   }
 
+  /**
+   * Gets the expander which resolves <code>$expand</code> for handlers loading navigation targets in batches.
+   * @return the expander or <code>null</code> if nothing is expanded or the handler expands the entities itself
+   */
+  private BatchExpander getExpander(ServiceHandler handler) {
+    if (handler instanceof NavigationBatchLoader && this.uriInfo.getExpandOption() != null) {
+      return new BatchExpander((NavigationBatchLoader) handler);
+    }
+    return null;
+  }
+
   @SuppressWarnings("unchecked")
   @Override
   public <T> T getSerializerOptions(Class<T> serilizerOptions, ContextURL contextUrl, boolean references)
@@ -329,9 +342,12 @@ public class DataRequest extends ServiceRequest {
 
       if (isGET()) {
         if (isCollection()) {
-          handler.read(DataRequest.this,
-              EntitySetResponse.getInstance(DataRequest.this, getContextURL(odata), false, response));
+          EntitySetResponse entitySetResponse = EntitySetResponse.getInstance(DataRequest.this,
+              getContextURL(odata), false, response);
+          entitySetResponse.setExpander(getExpander(handler));
+          handler.read(DataRequest.this, entitySetResponse);
         } else {
+          entityResponse.setExpander(getExpander(handler));
           handler.read(DataRequest.this,entityResponse);
         }
       } else if (isPUT() || isPATCH()) {
@@ -728,8 +744,10 @@ public class DataRequest extends ServiceRequest {
     @Override
     public void execute(ServiceHandler handler, ODataResponse response)
         throws ODataLibraryException, ODataApplicationException {
-      handler.read(DataRequest.this,
-          EntityResponse.getInstance(DataRequest.this, getContextURL(odata), false, response));
+      EntityResponse entityResponse = EntityResponse.getInstance(DataRequest.this, getContextURL(odata), false,
+          response);
+      entityResponse.setExpander(getExpander(handler));
+      handler.read(DataRequest.this, entityResponse);
     }
   }
 
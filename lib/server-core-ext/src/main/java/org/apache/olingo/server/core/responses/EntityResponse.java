@@ -18,6 +18,7 @@
  */
 package org.apache.olingo.server.core.responses;
 
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 
@@ -44,9 +45,11 @@ import org.apache.olingo.server.api.ServiceMetadata;
 import org.apache.olingo.server.api.serializer.EntitySerializerOptions;
 import org.apache.olingo.server.api.serializer.ODataSerializer;
 import org.apache.olingo.server.api.serializer.SerializerException;
+import org.apache.olingo.server.api.uri.queryoption.ExpandOption;
 import org.apache.olingo.server.core.ContentNegotiatorException;
 import org.apache.olingo.server.core.ReturnRepresentation;
 import org.apache.olingo.server.core.ServiceRequest;
+import org.apache.olingo.server.core.expand.BatchExpander;
 import org.apache.olingo.server.core.serializer.utils.ContentTypeHelper;
 
 public class EntityResponse extends ServiceResponse {
@@ -55,6 +58,7 @@ public class EntityResponse extends ServiceResponse {
   private final EntitySerializerOptions options;
   private final ContentType responseContentType;
   private final String baseURL;
+  private BatchExpander expander;
 
   private EntityResponse(ServiceMetadata metadata, ODataResponse response,
       ODataSerializer serializer, EntitySerializerOptions options, ContentType responseContentType,
@@ -87,8 +91,17 @@ public class EntityResponse extends ServiceResponse {
         request.getODataRequest().getRawBaseUri());
   }
 
+  /**
+   * Sets the expander which resolves <code>$expand</code> before the entity is written.
+   * @param expander the expander or <code>null</code> if the entity is already expanded
+   */
+  public void setExpander(BatchExpander expander) {
+    this.expander = expander;
+  }
+
   // write single entity
-  public void writeReadEntity(EdmEntityType entityType, Entity entity) throws SerializerException {
+  public void writeReadEntity(EdmEntityType entityType, Entity entity)
+      throws SerializerException, ODataApplicationException {
 
     assert (!isClosed());
 
@@ -97,6 +110,20 @@ public class EntityResponse extends ServiceResponse {
       return;
     }
 
+    EntitySerializerOptions options = this.options;
+    if (this.expander != null && this.options.getExpand() != null) {
+      // the entity may be shared, so the expanded copy is written with $levels resolved the same way
+      ExpandOption expand = BatchExpander.unroll(this.options.getExpand());
+      entity = this.expander.expand(entityType, Collections.singletonList(entity), expand).get(0);
+      options = EntitySerializerOptions.with()
+          .contextURL(this.options.getContextURL())
+          .expand(expand)
+          .select(this.options.getSelect())
+          .writeOnlyReferences(this.options.getWriteOnlyReferences())
+          .xml10InvalidCharReplacement(this.options.xml10InvalidCharReplacement())
+          .build();
+    }
+
     if (ContentTypeHelper.isODataMetadataFull(this.responseContentType)) {
       EdmAction action = this.metadata.getEdm().getBoundActionWithBindingType(
           entityType.getFullQualifiedName(), false);
@@ -113,7 +140,7 @@ public class EntityResponse extends ServiceResponse {
     }
     
     // write the entity to response
-    this.response.setContent(this.serializer.entity(this.metadata, entityType, entity, this.options).getContent());
+    this.response.setContent(this.serializer.entity(this.metadata, entityType, entity, options).getContent());
     writeOK(responseContentType);
     close();
   }
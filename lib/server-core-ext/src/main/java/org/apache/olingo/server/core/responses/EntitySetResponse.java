@@ -38,14 +38,17 @@ import org.apache.olingo.server.api.ServiceMetadata;
 import org.apache.olingo.server.api.serializer.EntityCollectionSerializerOptions;
 import org.apache.olingo.server.api.serializer.ODataSerializer;
 import org.apache.olingo.server.api.serializer.SerializerException;
+import org.apache.olingo.server.api.uri.queryoption.ExpandOption;
 import org.apache.olingo.server.core.ContentNegotiatorException;
 import org.apache.olingo.server.core.ServiceRequest;
+import org.apache.olingo.server.core.expand.BatchExpander;
 import org.apache.olingo.server.core.serializer.utils.ContentTypeHelper;
 
 public class EntitySetResponse extends ServiceResponse {
   private final ODataSerializer serializer;
   private final EntityCollectionSerializerOptions options;
   private final ContentType responseContentType;
+  private BatchExpander expander;
 
   private EntitySetResponse(ServiceMetadata metadata, ODataResponse response, ODataSerializer serializer,
       EntityCollectionSerializerOptions options,
@@ -64,10 +67,18 @@ public class EntitySetResponse extends ServiceResponse {
         request.getResponseContentType(), request.getPreferences());
   }
 
+  /**
+   * Sets the expander which resolves <code>$expand</code> before the entities are written.
+   * @param expander the expander or <code>null</code> if the entities are already expanded
+   */
+  public void setExpander(BatchExpander expander) {
+    this.expander = expander;
+  }
+
   // write collection of entities
   // TODO: server paging needs to be implemented.
   public void writeReadEntitySet(EdmEntityType entityType, EntityCollection entitySet)
-      throws SerializerException {
+      throws SerializerException, ODataApplicationException {
 
     assert (!isClosed());
 
@@ -76,11 +87,36 @@ public class EntitySetResponse extends ServiceResponse {
       return;
     }
 
+    EntityCollectionSerializerOptions options = this.options;
+    if (this.expander != null && this.options.getExpand() != null) {
+      // the entities may be shared, so the expanded copies are written with $levels resolved the same way
+      ExpandOption expand = BatchExpander.unroll(this.options.getExpand());
+      EntityCollection expanded = new EntityCollection();
+      expanded.setId(entitySet.getId());
+      expanded.setCount(entitySet.getCount());
+      expanded.setNext(entitySet.getNext());
+      expanded.setDeltaLink(entitySet.getDeltaLink());
+      expanded.getOperations().addAll(entitySet.getOperations());
+      expanded.getAnnotations().addAll(entitySet.getAnnotations());
+      expanded.getEntities().addAll(this.expander.expand(entityType, entitySet.getEntities(), expand));
+      entitySet = expanded;
+      options = EntityCollectionSerializerOptions.with()
+          .contextURL(this.options.getContextURL())
+          .count(this.options.getCount())
+          .expand(expand)
+          .select(this.options.getSelect())
+          .writeOnlyReferences(this.options.getWriteOnlyReferences())
+          .id(this.options.getId())
+          .writeContentErrorCallback(this.options.getODataContentWriteErrorCallback())
+          .xml10InvalidCharReplacement(this.options.xml10InvalidCharReplacement())
+          .build();
+    }
+
     if (ContentTypeHelper.isODataMetadataFull(this.responseContentType)) {
       buildOperations(entityType, entitySet);      
     }    
     // write the whole collection to response
-    this.response.setContent(this.serializer.entityCollection(metadata, entityType, entitySet, this.options)
+    this.response.setContent(this.serializer.entityCollection(metadata, entityType, entitySet, options)
                                             .getContent());
     writeOK(responseContentType);
     close();
@@ -23,6 +23,7 @@ import java.io.InputStream;
 import java.util.Collections;
 
 import org.apache.olingo.commons.api.format.ContentType;
+import org.apache.olingo.server.api.MediaContent;
 import org.apache.olingo.server.api.ODataApplicationException;
 import org.apache.olingo.server.api.ODataResponse;
 import org.apache.olingo.server.api.ODataLibraryException;
@@ -46,6 +47,19 @@ public class StreamResponse extends ServiceResponse {
     close();
   }
 
+  /**
+   * Writes media content which is not held in memory, e.g., a region of a file.
+   * The content is sent without copies through the heap where possible,
+   * and HTTP <code>Range</code> requests are answered with the requested part of it.
+   * @param mediaContent the media content
+   * @param contentType the content type
+   */
+  public void writeMediaResponse(MediaContent mediaContent, ContentType contentType) {
+    this.response.setMediaContent(mediaContent);
+    writeOK(contentType);
+    close();
+  }
+
   @Override
   public void accepts(ServiceResponseVisior visitor) throws ODataLibraryException,
       ODataApplicationException {
@@ -0,0 +1,214 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.store;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+import org.apache.olingo.commons.api.data.Entity;
+import org.apache.olingo.commons.api.edm.EdmEntitySet;
+import org.apache.olingo.commons.api.edm.EdmEntityType;
+import org.apache.olingo.commons.api.edm.EdmKeyPropertyRef;
+import org.apache.olingo.commons.api.edm.EdmPrimitiveTypeException;
+import org.apache.olingo.commons.api.edm.EdmProperty;
+import org.apache.olingo.commons.api.http.HttpStatusCode;
+import org.apache.olingo.server.api.ODataApplicationException;
+import org.apache.olingo.server.api.uri.UriParameter;
+import org.apache.olingo.server.api.uri.queryoption.expression.Literal;
+
+/**
+ * The entities of one entity set, indexed by their (normalized) key values
+ * and optionally by further properties.
+ * Instances are not thread-safe; the owning store guards them.
+ */
+final class EntitySetStore {
+
+  private final EdmEntitySet entitySet;
+  private final List<EdmKeyPropertyRef> keyRefs;
+  private final Map<List<Object>, Entity> entities = new LinkedHashMap<List<Object>, Entity>();
+  /** The entities by creation sequence number, so that they can be listed in the order of their creation. */
+  private final NavigableMap<Long, Entity> creationOrder = new TreeMap<Long, Entity>();
+  private final Map<String, PropertyIndex> indexes = new HashMap<String, PropertyIndex>();
+
+  EntitySetStore(final EdmEntitySet entitySet) {
+    this.entitySet = entitySet;
+    keyRefs = entitySet.getEntityType().getKeyPropertyRefs();
+  }
+
+  EdmEntityType getEntityType() {
+    return entitySet.getEntityType();
+  }
+
+  /** @return the entities in the order of their creation */
+  Collection<Entity> getEntities() {
+    return creationOrder.values();
+  }
+
+  Entity get(final List<Object> key) {
+    return entities.get(key);
+  }
+
+  PropertyIndex getIndex(final String path) {
+    return indexes.get(path);
+  }
+
+  /** Creates an index and fills it with the entities already stored. */
+  PropertyIndex addIndex(final String path, final EdmProperty property, final boolean ordered)
+      throws ODataApplicationException {
+    final PropertyIndex index = new PropertyIndex(path, property, ordered);
+    for (final Entity entity : entities.values()) {
+      index.put(entity, indexValue(index, entity));
+    }
+    indexes.put(path, index);
+    return index;
+  }
+
+  /**
+   * Stores an entity under the given key and indexes it.
+   * All index values are computed before anything is changed, so that an invalid value leaves the store untouched.
+   * @param oldKey the key the entity has been stored under so far or <code>null</code> for a new entity
+   * @param sequence the creation sequence number of the entity
+   */
+  void put(final Entity entity, final List<Object> key, final List<Object> oldKey, final long sequence)
+      throws ODataApplicationException {
+    final Entity existing = entities.get(key);
+    if (existing != null && existing != entity) {
+      throw new ODataApplicationException("An entity with key " + key + " already exists in entity set '"
+          + entitySet.getName() + "'.", HttpStatusCode.CONFLICT.getStatusCode(), Locale.ROOT);
+    }
+    final Map<PropertyIndex, Object> indexValues = new HashMap<PropertyIndex, Object>();
+    for (final PropertyIndex index : indexes.values()) {
+      indexValues.put(index, indexValue(index, entity));
+    }
+    if (oldKey != null && !oldKey.equals(key)) {
+      entities.remove(oldKey);
+    }
+    entities.put(key, entity);
+    creationOrder.put(sequence, entity);
+    for (final Map.Entry<PropertyIndex, Object> entry : indexValues.entrySet()) {
+      entry.getKey().put(entity, entry.getValue());
+    }
+  }
+
+  void remove(final Entity entity, final List<Object> key, final long sequence) {
+    entities.remove(key);
+    creationOrder.remove(sequence);
+    for (final PropertyIndex index : indexes.values()) {
+      index.remove(entity);
+    }
+  }
+
+  /** Extracts the normalized key of an entity. */
+  List<Object> getKey(final Entity entity) throws ODataApplicationException {
+    List<Object> key = new ArrayList<Object>(keyRefs.size());
+    for (final EdmKeyPropertyRef keyRef : keyRefs) {
+      key.add(keyValue(keyRef, EntityValues.getValue(entity, keyRef.getName())));
+    }
+    return key;
+  }
+
+  /** Builds the normalized key from the key predicates of a resource path. */
+  List<Object> getKey(final List<UriParameter> keyPredicates) throws ODataApplicationException {
+    if (keyPredicates.size() != keyRefs.size()) {
+      throw wrongKey(null);
+    }
+    List<Object> key = new ArrayList<Object>(keyRefs.size());
+    for (final EdmKeyPropertyRef keyRef : keyRefs) {
+      final UriParameter keyPredicate = find(keyPredicates, predicateName(keyRef));
+      final String text = keyPredicate.getAlias() == null ? keyPredicate.getText()
+          : keyPredicate.getExpression() instanceof Literal ? ((Literal) keyPredicate.getExpression()).getText()
+              : null;
+      if (text == null) {
+        throw new ODataApplicationException("Expressions in key predicates are not supported.",
+            HttpStatusCode.NOT_IMPLEMENTED.getStatusCode(), Locale.ROOT);
+      }
+      try {
+        key.add(keyValue(keyRef, EntityValues.parseLiteral(keyRef.getProperty(), text)));
+      } catch (final EdmPrimitiveTypeException e) {
+        throw wrongKey(e);
+      }
+    }
+    return key;
+  }
+
+  /** Builds the normalized key from Java values by key predicate name (the alias if there is one). */
+  List<Object> getKey(final Map<String, Object> keyValues) throws ODataApplicationException {
+    if (keyValues.size() != keyRefs.size()) {
+      throw wrongKey(null);
+    }
+    List<Object> key = new ArrayList<Object>(keyRefs.size());
+    for (final EdmKeyPropertyRef keyRef : keyRefs) {
+      final String name = predicateName(keyRef);
+      if (!keyValues.containsKey(name)) {
+        throw wrongKey(null);
+      }
+      key.add(keyValue(keyRef, keyValues.get(name)));
+    }
+    return key;
+  }
+
+  private Object keyValue(final EdmKeyPropertyRef keyRef, final Object value) throws ODataApplicationException {
+    final Object normalized;
+    try {
+      normalized = EntityValues.normalize(keyRef.getProperty(), value);
+    } catch (final EdmPrimitiveTypeException e) {
+      throw wrongKey(e);
+    }
+    if (normalized == null) {
+      throw new ODataApplicationException("Key property '" + keyRef.getName() + "' must have a value.",
+          HttpStatusCode.BAD_REQUEST.getStatusCode(), Locale.ROOT);
+    }
+    return normalized;
+  }
+
+  private Object indexValue(final PropertyIndex index, final Entity entity) throws ODataApplicationException {
+    try {
+      return index.valueOf(entity);
+    } catch (final EdmPrimitiveTypeException e) {
+      throw new ODataApplicationException("Invalid value of property '" + index.getPath() + "'.",
+          HttpStatusCode.BAD_REQUEST.getStatusCode(), Locale.ROOT, e);
+    }
+  }
+
+  private UriParameter find(final List<UriParameter> keyPredicates, final String name)
+      throws ODataApplicationException {
+    for (final UriParameter keyPredicate : keyPredicates) {
+      if (name.equals(keyPredicate.getName())) {
+        return keyPredicate;
+      }
+    }
+    throw wrongKey(null);
+  }
+
+  private static String predicateName(final EdmKeyPropertyRef keyRef) {
+    return keyRef.getAlias() == null ? keyRef.getName() : keyRef.getAlias();
+  }
+
+  private ODataApplicationException wrongKey(final Throwable cause) {
+    return new ODataApplicationException("Wrong key for entity set '" + entitySet.getName() + "'.",
+        HttpStatusCode.BAD_REQUEST.getStatusCode(), Locale.ROOT, cause);
+  }
+}
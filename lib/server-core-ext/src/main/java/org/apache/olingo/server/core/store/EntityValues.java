@@ -0,0 +1,165 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.store;
+
+import java.math.BigDecimal;
+import java.nio.charset.Charset;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.Date;
+import java.util.IdentityHashMap;
+import java.util.Set;
+
+import org.apache.olingo.commons.api.data.ComplexValue;
+import org.apache.olingo.commons.api.data.Entity;
+import org.apache.olingo.commons.api.data.Property;
+import org.apache.olingo.commons.api.edm.EdmPrimitiveType;
+import org.apache.olingo.commons.api.edm.EdmPrimitiveTypeException;
+import org.apache.olingo.commons.api.edm.EdmPrimitiveTypeKind;
+import org.apache.olingo.commons.api.edm.EdmProperty;
+import org.apache.olingo.commons.api.edm.EdmStructuredType;
+
+/**
+ * Helpers to access and normalize property values of stored entities.
+ * <p/>
+ * Values are normalized to the default Java type of their EDM type, so that e.g. an <code>Integer</code>
+ * and a <code>Short</code> holding the same number (or a parsed URI literal) end up as equal index keys.
+ */
+final class EntityValues {
+
+  /** No facet restrictions are applied to stored values; the store is not the place to validate them. */
+  private static final Integer UNLIMITED = Integer.MAX_VALUE;
+  private static final Charset ISO_8859_1 = Charset.forName("ISO-8859-1");
+
+  private EntityValues() {}
+
+  static Set<Entity> newIdentitySet() {
+    return Collections.newSetFromMap(new IdentityHashMap<Entity, Boolean>());
+  }
+
+  /**
+   * Resolves a property path like <code>Address/City</code> to a single-valued primitive property.
+   * @return the property or <code>null</code> if the path does not denote such a property
+   */
+  static EdmProperty resolveProperty(final EdmStructuredType type, final String path) {
+    EdmStructuredType current = type;
+    EdmProperty property = null;
+    for (final String name : path.split("/")) {
+      if (current == null) {
+        return null;
+      }
+      property = current.getStructuralProperty(name);
+      if (property == null || property.isCollection()) {
+        return null;
+      }
+      current = property.isPrimitive() ? null : (EdmStructuredType) property.getType();
+    }
+    return property != null && property.getType() instanceof EdmPrimitiveType ? property : null;
+  }
+
+  /**
+   * Reads the value at the given property path of an entity.
+   * @return the value or <code>null</code> if the value or any property on the path is missing
+   */
+  static Object getValue(final Entity entity, final String path) {
+    final String[] names = path.split("/");
+    Property property = entity.getProperty(names[0]);
+    for (int i = 1; i < names.length && property != null; i++) {
+      property = property.isComplex() ? findProperty(property.asComplex(), names[i]) : null;
+    }
+    return property == null ? null : property.getValue();
+  }
+
+  private static Property findProperty(final ComplexValue complexValue, final String name) {
+    if (complexValue != null) {
+      for (final Property property : complexValue.getValue()) {
+        if (name.equals(property.getName())) {
+          return property;
+        }
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Converts a Java value of a property to the normalized value.
+   * Values of the default type and integral numbers are converted directly; other values (e.g. dates, which
+   * have several Java representations) are converted through their literal form.
+   */
+  static Object normalize(final EdmProperty property, final Object value) throws EdmPrimitiveTypeException {
+    if (value == null) {
+      return null;
+    }
+    final EdmPrimitiveType type = (EdmPrimitiveType) property.getType();
+    final Class<?> defaultType = type.getDefaultType();
+    if (defaultType.isInstance(value) && !(value instanceof Calendar) && !(value instanceof Date)) {
+      return canonical(value);
+    }
+    final Object integral = value instanceof Long || value instanceof Integer
+        || value instanceof Short || value instanceof Byte ? integral(type, ((Number) value).longValue()) : null;
+    return integral != null ? integral : canonical(type.valueOfString(
+        type.valueToString(value, true, null, UNLIMITED, UNLIMITED, true),
+        true, null, UNLIMITED, UNLIMITED, true, defaultType));
+  }
+
+  /** @return the value as default type of an integral type or <code>null</code> if it cannot be converted */
+  private static Object integral(final EdmPrimitiveType type, final long value) {
+    if (!EdmPrimitiveType.EDM_NAMESPACE.equals(type.getNamespace())) {
+      // type definitions are converted through the literal form
+      return null;
+    }
+    final EdmPrimitiveTypeKind kind = EdmPrimitiveTypeKind.valueOf(type.getName());
+    if (kind == EdmPrimitiveTypeKind.Int64) {
+      return value;
+    } else if (kind == EdmPrimitiveTypeKind.Int32) {
+      return value >= Integer.MIN_VALUE && value <= Integer.MAX_VALUE ? Integer.valueOf((int) value) : null;
+    } else if (kind == EdmPrimitiveTypeKind.Int16) {
+      return value >= Short.MIN_VALUE && value <= Short.MAX_VALUE ? Short.valueOf((short) value) : null;
+    } else if (kind == EdmPrimitiveTypeKind.Byte) {
+      return value >= 0 && value <= 255 ? Short.valueOf((short) value) : null;
+    } else if (kind == EdmPrimitiveTypeKind.SByte) {
+      return value >= Byte.MIN_VALUE && value <= Byte.MAX_VALUE ? Byte.valueOf((byte) value) : null;
+    } else if (kind == EdmPrimitiveTypeKind.Decimal) {
+      return canonical(BigDecimal.valueOf(value));
+    }
+    return null;
+  }
+
+  static Object parseLiteral(final EdmProperty property, final String literal) throws EdmPrimitiveTypeException {
+    final EdmPrimitiveType type = (EdmPrimitiveType) property.getType();
+    return canonical(type.valueOfString(type.fromUriLiteral(literal),
+        true, null, UNLIMITED, UNLIMITED, true, type.getDefaultType()));
+  }
+
+  static boolean isComparable(final EdmProperty property) {
+    return Comparable.class.isAssignableFrom(((EdmPrimitiveType) property.getType()).getDefaultType());
+  }
+
+  private static Object canonical(final Object value) {
+    if (value instanceof BigDecimal) {
+      // 1.50 and 1.5 must be the same index key
+      final BigDecimal decimal = (BigDecimal) value;
+      return decimal.signum() == 0 ? BigDecimal.ZERO : decimal.stripTrailingZeros();
+    } else if (value instanceof byte[]) {
+      // arrays do not implement equals and hashCode
+      return new String((byte[]) value, ISO_8859_1);
+    }
+    return value;
+  }
+}
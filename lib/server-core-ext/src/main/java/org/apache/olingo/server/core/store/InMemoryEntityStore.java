@@ -0,0 +1,559 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.store;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.apache.olingo.commons.api.data.Entity;
+import org.apache.olingo.commons.api.edm.EdmEntitySet;
+import org.apache.olingo.commons.api.edm.EdmNavigationProperty;
+import org.apache.olingo.commons.api.edm.EdmPrimitiveTypeException;
+import org.apache.olingo.commons.api.edm.EdmProperty;
+import org.apache.olingo.server.api.ODataApplicationException;
+import org.apache.olingo.server.api.uri.UriInfoResource;
+import org.apache.olingo.server.api.uri.UriParameter;
+import org.apache.olingo.server.api.uri.UriResource;
+import org.apache.olingo.server.api.uri.UriResourceComplexProperty;
+import org.apache.olingo.server.api.uri.UriResourceProperty;
+import org.apache.olingo.server.api.uri.queryoption.FilterOption;
+import org.apache.olingo.server.api.uri.queryoption.expression.Binary;
+import org.apache.olingo.server.api.uri.queryoption.expression.BinaryOperatorKind;
+import org.apache.olingo.server.api.uri.queryoption.expression.Expression;
+import org.apache.olingo.server.api.uri.queryoption.expression.Literal;
+import org.apache.olingo.server.api.uri.queryoption.expression.Member;
+
+/**
+ * Thread-safe in-memory storage of entities for services which keep their data in memory
+ * (samples, tests, caches in front of a slow backend).
+ * <p/>
+ * Compared to a plain {@link org.apache.olingo.commons.api.data.EntityCollection} which has to be scanned
+ * for every request, the store
+ * <ul>
+ * <li>finds entities by key with a hash lookup (key values are normalized, so that a key predicate
+ * <code>(5)</code>, an <code>Integer</code> and a <code>Short</code> all address the same entity),</li>
+ * <li>maintains optional secondary indexes per property path; equality and range conditions of a
+ * <code>$filter</code> are answered from these indexes by {@link #filterCandidates(EdmEntitySet, FilterOption)},</li>
+ * <li>keeps navigation links as adjacency lists, so that following or deleting links does not require
+ * scanning all entities.</li>
+ * </ul>
+ * Reads are executed concurrently; writes are exclusive. Returned lists are snapshots.
+ * Stored entities must not be changed without calling {@link #update(EdmEntitySet, Entity)} afterwards.
+ */
+public class InMemoryEntityStore {
+
+  private final ReadWriteLock lock = new ReentrantReadWriteLock();
+  private final Map<String, EntitySetStore> entitySets = new HashMap<String, EntitySetStore>();
+  private final Map<Entity, Entry> entries = new IdentityHashMap<Entity, Entry>();
+  private final Map<Entity, Map<String, Set<Entity>>> links = new IdentityHashMap<Entity, Map<String, Set<Entity>>>();
+  private final Map<Entity, Set<Entity>> linkSources = new IdentityHashMap<Entity, Set<Entity>>();
+  private long sequence;
+
+  private static final class Entry {
+    private final EntitySetStore entitySet;
+    private final long sequence;
+    private List<Object> key;
+
+    private Entry(final EntitySetStore entitySet, final long sequence, final List<Object> key) {
+      this.entitySet = entitySet;
+      this.sequence = sequence;
+      this.key = key;
+    }
+  }
+
+  /**
+   * Adds an entity.
+   * @throws ODataApplicationException if the key is invalid (400) or already used (409)
+   */
+  public void create(final EdmEntitySet edmEntitySet, final Entity entity) throws ODataApplicationException {
+    final Lock writeLock = lock.writeLock();
+    writeLock.lock();
+    try {
+      if (entries.containsKey(entity)) {
+        throw new IllegalArgumentException("The entity has already been stored.");
+      }
+      final EntitySetStore entitySet = getOrCreate(edmEntitySet);
+      final List<Object> key = entitySet.getKey(entity);
+      entitySet.put(entity, key, null, sequence);
+      entries.put(entity, new Entry(entitySet, sequence++, key));
+    } finally {
+      writeLock.unlock();
+    }
+  }
+
+  /**
+   * Re-indexes an entity after it has been changed (including changes of its key).
+   * @throws ODataApplicationException if the new key is invalid (400) or already used (409)
+   */
+  public void update(final EdmEntitySet edmEntitySet, final Entity entity) throws ODataApplicationException {
+    final Lock writeLock = lock.writeLock();
+    writeLock.lock();
+    try {
+      final Entry entry = getEntry(edmEntitySet, entity);
+      final List<Object> key = entry.entitySet.getKey(entity);
+      entry.entitySet.put(entity, key, entry.key, entry.sequence);
+      entry.key = key;
+    } finally {
+      writeLock.unlock();
+    }
+  }
+
+  /**
+   * Removes an entity together with all navigation links from and to it.
+   * @return <code>true</code> if the entity has been stored in the given entity set
+   */
+  public boolean delete(final EdmEntitySet edmEntitySet, final Entity entity) {
+    final Lock writeLock = lock.writeLock();
+    writeLock.lock();
+    try {
+      final Entry entry = entries.get(entity);
+      if (entry == null || entry.entitySet != entitySets.get(edmEntitySet.getName())) {
+        return false;
+      }
+      entry.entitySet.remove(entity, entry.key, entry.sequence);
+      entries.remove(entity);
+      final Map<String, Set<Entity>> outgoing = links.remove(entity);
+      if (outgoing != null) {
+        for (final Set<Entity> targets : outgoing.values()) {
+          for (final Entity target : targets) {
+            removeSource(target, entity);
+          }
+        }
+      }
+      final Set<Entity> sources = linkSources.remove(entity);
+      if (sources != null) {
+        for (final Entity source : sources) {
+          removeTarget(source, entity);
+        }
+      }
+      return true;
+    } finally {
+      writeLock.unlock();
+    }
+  }
+
+  /** @return all entities of the entity set in the order of their creation */
+  public List<Entity> readAll(final EdmEntitySet edmEntitySet) {
+    final Lock readLock = lock.readLock();
+    readLock.lock();
+    try {
+      final EntitySetStore entitySet = entitySets.get(edmEntitySet.getName());
+      return entitySet == null ? new ArrayList<Entity>() : new ArrayList<Entity>(entitySet.getEntities());
+    } finally {
+      readLock.unlock();
+    }
+  }
+
+  /**
+   * Finds an entity by the key predicates of a resource path.
+   * @return the entity or <code>null</code> if there is none with this key
+   * @throws ODataApplicationException if the key predicates do not match the key of the entity type (400)
+   */
+  public Entity read(final EdmEntitySet edmEntitySet, final List<UriParameter> keyPredicates)
+      throws ODataApplicationException {
+    final Lock readLock = lock.readLock();
+    readLock.lock();
+    try {
+      final EntitySetStore entitySet = getOrCreateForRead(edmEntitySet);
+      return entitySet.get(entitySet.getKey(keyPredicates));
+    } finally {
+      readLock.unlock();
+    }
+  }
+
+  /**
+   * Finds an entity by its key values, given by key predicate name (which is the alias for aliased key properties).
+   * @return the entity or <code>null</code> if there is none with this key
+   * @throws ODataApplicationException if the values do not match the key of the entity type (400)
+   */
+  public Entity read(final EdmEntitySet edmEntitySet, final Map<String, Object> keyValues)
+      throws ODataApplicationException {
+    final Lock readLock = lock.readLock();
+    readLock.lock();
+    try {
+      final EntitySetStore entitySet = getOrCreateForRead(edmEntitySet);
+      return entitySet.get(entitySet.getKey(keyValues));
+    } finally {
+      readLock.unlock();
+    }
+  }
+
+  /**
+   * Creates a secondary index on a primitive property of the entity type; already stored entities are indexed.
+   * Creating an index which already exists has no effect.
+   * @param propertyPath path to a single-valued primitive property, e.g. <code>Address/City</code>
+   * @param ordered <code>true</code> for an index which also supports range lookups
+   */
+  public void createIndex(final EdmEntitySet edmEntitySet, final String propertyPath, final boolean ordered)
+      throws ODataApplicationException {
+    final Lock writeLock = lock.writeLock();
+    writeLock.lock();
+    try {
+      final EntitySetStore entitySet = getOrCreate(edmEntitySet);
+      final PropertyIndex existing = entitySet.getIndex(propertyPath);
+      if (existing != null && (existing.isOrdered() || !ordered)) {
+        return;
+      }
+      final EdmProperty property = EntityValues.resolveProperty(entitySet.getEntityType(), propertyPath);
+      if (property == null) {
+        throw new IllegalArgumentException("'" + propertyPath + "' is not a single-valued primitive property.");
+      }
+      if (ordered && !EntityValues.isComparable(property)) {
+        throw new IllegalArgumentException("Values of '" + propertyPath + "' cannot be ordered.");
+      }
+      entitySet.addIndex(propertyPath, property, ordered);
+    } finally {
+      writeLock.unlock();
+    }
+  }
+
+  /**
+   * Finds the entities with the given value of an indexed property.
+   * @param value Java value of the property or <code>null</code>
+   */
+  public List<Entity> findEqual(final EdmEntitySet edmEntitySet, final String propertyPath, final Object value) {
+    final Lock readLock = lock.readLock();
+    readLock.lock();
+    try {
+      final PropertyIndex index = getIndex(edmEntitySet, propertyPath);
+      return sorted(index.equal(normalize(index, value)));
+    } finally {
+      readLock.unlock();
+    }
+  }
+
+  /**
+   * Finds the entities with a value of an indexed property in the given range.
+   * The index must have been created as ordered index.
+   * @param lower Java value of the lower bound or <code>null</code> for no lower bound
+   * @param upper Java value of the upper bound or <code>null</code> for no upper bound
+   */
+  public List<Entity> findRange(final EdmEntitySet edmEntitySet, final String propertyPath,
+      final Object lower, final boolean lowerInclusive, final Object upper, final boolean upperInclusive) {
+    final Lock readLock = lock.readLock();
+    readLock.lock();
+    try {
+      final PropertyIndex index = getIndex(edmEntitySet, propertyPath);
+      return sorted(index.range(normalize(index, lower), lowerInclusive, normalize(index, upper), upperInclusive));
+    } finally {
+      readLock.unlock();
+    }
+  }
+
+  /**
+   * Narrows down the entities which can match a filter, using the secondary indexes.
+   * <p/>
+   * Comparisons (<code>eq</code>, <code>gt</code>, <code>ge</code>, <code>lt</code>, <code>le</code>)
+   * between an indexed property and a literal are looked up in the index; <code>and</code> intersects
+   * and <code>or</code> unites the results. All other parts of the expression do not restrict the result.
+   * The returned entities are a superset of the matching entities, so the caller still has to evaluate
+   * the filter on each of them, but usually on far fewer entities than the entity set contains.
+   * @return candidates in the order of their creation; all entities if no index applies
+   */
+  public List<Entity> filterCandidates(final EdmEntitySet edmEntitySet, final FilterOption filterOption) {
+    final Lock readLock = lock.readLock();
+    readLock.lock();
+    try {
+      final EntitySetStore entitySet = entitySets.get(edmEntitySet.getName());
+      if (entitySet == null) {
+        return new ArrayList<Entity>();
+      }
+      final Set<Entity> candidates = filterOption == null || filterOption.getExpression() == null ? null :
+          candidates(entitySet, filterOption.getExpression());
+      return candidates == null ? new ArrayList<Entity>(entitySet.getEntities()) : sorted(candidates);
+    } finally {
+      readLock.unlock();
+    }
+  }
+
+  /**
+   * Links two stored entities. If the navigation property has a partner, the reverse link is created, too.
+   * For single-valued navigation properties an existing link is replaced.
+   */
+  public void createLink(final EdmNavigationProperty navigationProperty, final Entity source, final Entity target) {
+    final Lock writeLock = lock.writeLock();
+    writeLock.lock();
+    try {
+      if (!entries.containsKey(source) || !entries.containsKey(target)) {
+        throw new IllegalArgumentException("Only stored entities can be linked.");
+      }
+      addLink(navigationProperty, source, target);
+      final EdmNavigationProperty partner = navigationProperty.getPartner();
+      if (partner != null) {
+        addLink(partner, target, source);
+      }
+    } finally {
+      writeLock.unlock();
+    }
+  }
+
+  /**
+   * Removes the link between two entities (and the reverse link if the navigation property has a partner).
+   * @return <code>true</code> if the entities have been linked
+   */
+  public boolean deleteLink(final EdmNavigationProperty navigationProperty, final Entity source,
+      final Entity target) {
+    final Lock writeLock = lock.writeLock();
+    writeLock.lock();
+    try {
+      final boolean removed = removeLink(navigationProperty.getName(), source, target);
+      final EdmNavigationProperty partner = navigationProperty.getPartner();
+      if (partner != null) {
+        removeLink(partner.getName(), target, source);
+      }
+      return removed;
+    } finally {
+      writeLock.unlock();
+    }
+  }
+
+  /** @return the entities linked to the source entity, in the order of their creation */
+  public List<Entity> getLinkedEntities(final EdmNavigationProperty navigationProperty, final Entity source) {
+    final Lock readLock = lock.readLock();
+    readLock.lock();
+    try {
+      final Map<String, Set<Entity>> outgoing = links.get(source);
+      final Set<Entity> targets = outgoing == null ? null : outgoing.get(navigationProperty.getName());
+      return targets == null ? new ArrayList<Entity>() : sorted(targets);
+    } finally {
+      readLock.unlock();
+    }
+  }
+
+  private EntitySetStore getOrCreate(final EdmEntitySet edmEntitySet) {
+    EntitySetStore entitySet = entitySets.get(edmEntitySet.getName());
+    if (entitySet == null) {
+      entitySet = new EntitySetStore(edmEntitySet);
+      entitySets.put(edmEntitySet.getName(), entitySet);
+    }
+    return entitySet;
+  }
+
+  /** Under the read lock the map must not be changed; an unknown entity set is represented by an empty store. */
+  private EntitySetStore getOrCreateForRead(final EdmEntitySet edmEntitySet) {
+    final EntitySetStore entitySet = entitySets.get(edmEntitySet.getName());
+    return entitySet == null ? new EntitySetStore(edmEntitySet) : entitySet;
+  }
+
+  private Entry getEntry(final EdmEntitySet edmEntitySet, final Entity entity) {
+    final Entry entry = entries.get(entity);
+    if (entry == null || entry.entitySet != entitySets.get(edmEntitySet.getName())) {
+      throw new IllegalArgumentException("The entity is not stored in entity set '" + edmEntitySet.getName() + "'.");
+    }
+    return entry;
+  }
+
+  private PropertyIndex getIndex(final EdmEntitySet edmEntitySet, final String propertyPath) {
+    final EntitySetStore entitySet = entitySets.get(edmEntitySet.getName());
+    final PropertyIndex index = entitySet == null ? null : entitySet.getIndex(propertyPath);
+    if (index == null) {
+      throw new IllegalArgumentException("There is no index on '" + propertyPath + "'.");
+    }
+    return index;
+  }
+
+  private Object normalize(final PropertyIndex index, final Object value) {
+    try {
+      return EntityValues.normalize(index.getProperty(), value);
+    } catch (final EdmPrimitiveTypeException e) {
+      throw new IllegalArgumentException("Invalid value for '" + index.getPath() + "'.", e);
+    }
+  }
+
+  /** Orders entities by creation; the sequence number of each entity is looked up once. */
+  private List<Entity> sorted(final Collection<Entity> entities) {
+    final NavigableMap<Long, Entity> bySequence = new TreeMap<Long, Entity>();
+    for (final Entity entity : entities) {
+      bySequence.put(entries.get(entity).sequence, entity);
+    }
+    return new ArrayList<Entity>(bySequence.values());
+  }
+
+  /** @return the candidates for the expression or <code>null</code> if the expression cannot be answered by indexes */
+  private Set<Entity> candidates(final EntitySetStore entitySet, final Expression expression) {
+    if (!(expression instanceof Binary)) {
+      return null;
+    }
+    final Binary binary = (Binary) expression;
+    final BinaryOperatorKind operator = binary.getOperator();
+    if (operator == BinaryOperatorKind.AND) {
+      final Set<Entity> left = candidates(entitySet, binary.getLeftOperand());
+      final Set<Entity> right = candidates(entitySet, binary.getRightOperand());
+      if (left == null || right == null) {
+        return left == null ? right : left;
+      }
+      final Set<Entity> smaller = left.size() <= right.size() ? left : right;
+      smaller.retainAll(smaller == left ? right : left);
+      return smaller;
+    } else if (operator == BinaryOperatorKind.OR) {
+      final Set<Entity> left = candidates(entitySet, binary.getLeftOperand());
+      final Set<Entity> right = left == null ? null : candidates(entitySet, binary.getRightOperand());
+      if (left == null || right == null) {
+        return null;
+      }
+      left.addAll(right);
+      return left;
+    } else if (binary.getLeftOperand() instanceof Member && binary.getRightOperand() instanceof Literal) {
+      return compare(entitySet, (Member) binary.getLeftOperand(), operator, (Literal) binary.getRightOperand());
+    } else if (binary.getLeftOperand() instanceof Literal && binary.getRightOperand() instanceof Member) {
+      // 5 lt Age is the same as Age gt 5
+      final BinaryOperatorKind swapped = operator == BinaryOperatorKind.GT ? BinaryOperatorKind.LT
+          : operator == BinaryOperatorKind.GE ? BinaryOperatorKind.LE
+              : operator == BinaryOperatorKind.LT ? BinaryOperatorKind.GT
+                  : operator == BinaryOperatorKind.LE ? BinaryOperatorKind.GE
+                      : operator;
+      return compare(entitySet, (Member) binary.getRightOperand(), swapped, (Literal) binary.getLeftOperand());
+    }
+    return null;
+  }
+
+  private Set<Entity> compare(final EntitySetStore entitySet, final Member member,
+      final BinaryOperatorKind operator, final Literal literal) {
+    final String path = getPropertyPath(member);
+    final PropertyIndex index = path == null ? null : entitySet.getIndex(path);
+    if (index == null) {
+      return null;
+    }
+    final Object value;
+    try {
+      value = literal.getType() == null ? null : EntityValues.parseLiteral(index.getProperty(), literal.getText());
+    } catch (final EdmPrimitiveTypeException e) {
+      // e.g. a decimal literal compared with an integer property; leave it to the filter evaluation
+      return null;
+    }
+    if (operator == BinaryOperatorKind.EQ) {
+      return index.equal(value);
+    } else if (value == null || !index.isOrdered()) {
+      return null;
+    } else if (operator == BinaryOperatorKind.GT || operator == BinaryOperatorKind.GE) {
+      return index.range(value, operator == BinaryOperatorKind.GE, null, false);
+    } else if (operator == BinaryOperatorKind.LT || operator == BinaryOperatorKind.LE) {
+      return index.range(null, false, value, operator == BinaryOperatorKind.LE);
+    }
+    return null;
+  }
+
+  /** @return the property path of a member expression consisting only of structural properties, otherwise null */
+  private String getPropertyPath(final Member member) {
+    if (member.getStartTypeFilter() != null) {
+      return null;
+    }
+    final UriInfoResource resourcePath = member.getResourcePath();
+    StringBuilder path = new StringBuilder();
+    for (final UriResource part : resourcePath.getUriResourceParts()) {
+      if (!(part instanceof UriResourceProperty) || ((UriResourceProperty) part).isCollection()
+          || part instanceof UriResourceComplexProperty
+          && ((UriResourceComplexProperty) part).getComplexTypeFilter() != null) {
+        return null;
+      }
+      if (path.length() > 0) {
+        path.append('/');
+      }
+      path.append(((UriResourceProperty) part).getProperty().getName());
+    }
+    return path.length() == 0 ? null : path.toString();
+  }
+
+  private void addLink(final EdmNavigationProperty navigationProperty, final Entity source, final Entity target) {
+    Map<String, Set<Entity>> outgoing = links.get(source);
+    if (outgoing == null) {
+      outgoing = new LinkedHashMap<String, Set<Entity>>();
+      links.put(source, outgoing);
+    }
+    Set<Entity> targets = outgoing.get(navigationProperty.getName());
+    if (targets == null) {
+      targets = EntityValues.newIdentitySet();
+      outgoing.put(navigationProperty.getName(), targets);
+    } else if (!navigationProperty.isCollection()) {
+      final EdmNavigationProperty partner = navigationProperty.getPartner();
+      for (final Entity previous : new ArrayList<Entity>(targets)) {
+        removeLink(navigationProperty.getName(), source, previous);
+        if (partner != null) {
+          removeLink(partner.getName(), previous, source);
+        }
+      }
+      outgoing.put(navigationProperty.getName(), targets);
+    }
+    targets.add(target);
+    Set<Entity> sources = linkSources.get(target);
+    if (sources == null) {
+      sources = EntityValues.newIdentitySet();
+      linkSources.put(target, sources);
+    }
+    sources.add(source);
+  }
+
+  private boolean removeLink(final String navigationPropertyName, final Entity source, final Entity target) {
+    final Map<String, Set<Entity>> outgoing = links.get(source);
+    final Set<Entity> targets = outgoing == null ? null : outgoing.get(navigationPropertyName);
+    if (targets == null || !targets.remove(target)) {
+      return false;
+    }
+    if (targets.isEmpty()) {
+      outgoing.remove(navigationPropertyName);
+    }
+    if (!isLinked(source, target)) {
+      removeSource(target, source);
+    }
+    return true;
+  }
+
+  /** Removes the target from all navigation properties of the source. */
+  private void removeTarget(final Entity source, final Entity target) {
+    final Map<String, Set<Entity>> outgoing = links.get(source);
+    if (outgoing != null) {
+      for (final Set<Entity> targets : outgoing.values()) {
+        targets.remove(target);
+      }
+    }
+  }
+
+  private void removeSource(final Entity target, final Entity source) {
+    final Set<Entity> sources = linkSources.get(target);
+    if (sources != null) {
+      sources.remove(source);
+      if (sources.isEmpty()) {
+        linkSources.remove(target);
+      }
+    }
+  }
+
+  private boolean isLinked(final Entity source, final Entity target) {
+    final Map<String, Set<Entity>> outgoing = links.get(source);
+    if (outgoing != null) {
+      for (final Set<Entity> targets : outgoing.values()) {
+        if (targets.contains(target)) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+}
@@ -0,0 +1,160 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.store;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+
+import org.apache.olingo.commons.api.data.Entity;
+import org.apache.olingo.commons.api.edm.EdmPrimitiveTypeException;
+import org.apache.olingo.commons.api.edm.EdmProperty;
+
+/**
+ * Secondary index of the entities of one entity set on the (normalized) value of one primitive property.
+ * <p/>
+ * Unordered indexes are hash-based and answer equality lookups; ordered indexes are tree-based
+ * and additionally answer range lookups. Entities are held by identity.
+ * Instances are not thread-safe; the owning store guards them.
+ */
+final class PropertyIndex {
+
+  private final String path;
+  private final EdmProperty property;
+  private final boolean ordered;
+  private final Map<Object, Set<Entity>> values;
+  private final Set<Entity> nullValues = EntityValues.newIdentitySet();
+  /** The value under which each entity is currently indexed, needed to remove it again. */
+  private final Map<Entity, Object> indexedValues = new IdentityHashMap<Entity, Object>();
+
+  PropertyIndex(final String path, final EdmProperty property, final boolean ordered) {
+    this.path = path;
+    this.property = property;
+    this.ordered = ordered;
+    values = ordered ? new TreeMap<Object, Set<Entity>>() : new HashMap<Object, Set<Entity>>();
+  }
+
+  String getPath() {
+    return path;
+  }
+
+  EdmProperty getProperty() {
+    return property;
+  }
+
+  boolean isOrdered() {
+    return ordered;
+  }
+
+  /** Computes the index value of an entity without changing the index. */
+  Object valueOf(final Entity entity) throws EdmPrimitiveTypeException {
+    return EntityValues.normalize(property, EntityValues.getValue(entity, path));
+  }
+
+  /** Adds (or moves) an entity under an index value computed by {@link #valueOf(Entity)}. */
+  void put(final Entity entity, final Object value) {
+    remove(entity);
+    if (value == null) {
+      nullValues.add(entity);
+    } else {
+      Set<Entity> entities = values.get(value);
+      if (entities == null) {
+        entities = EntityValues.newIdentitySet();
+        values.put(value, entities);
+      }
+      entities.add(entity);
+    }
+    indexedValues.put(entity, value);
+  }
+
+  void remove(final Entity entity) {
+    if (!indexedValues.containsKey(entity)) {
+      return;
+    }
+    final Object value = indexedValues.remove(entity);
+    if (value == null) {
+      nullValues.remove(entity);
+    } else {
+      final Set<Entity> entities = values.get(value);
+      entities.remove(entity);
+      if (entities.isEmpty()) {
+        values.remove(value);
+      }
+    }
+  }
+
+  /**
+   * @param value normalized value or <code>null</code>
+   * @return a new set of the entities with the given value
+   */
+  Set<Entity> equal(final Object value) {
+    final Set<Entity> result = EntityValues.newIdentitySet();
+    if (value == null) {
+      result.addAll(nullValues);
+    } else {
+      final Set<Entity> entities = values.get(value);
+      if (entities != null) {
+        result.addAll(entities);
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Entities with a value in the given range; entities without value never match.
+   * @param lower normalized lower bound or <code>null</code> for no lower bound
+   * @param upper normalized upper bound or <code>null</code> for no upper bound
+   * @return a new set of the matching entities
+   */
+  Set<Entity> range(final Object lower, final boolean lowerInclusive,
+      final Object upper, final boolean upperInclusive) {
+    if (!ordered) {
+      throw new IllegalStateException("Index on '" + path + "' does not support range lookups.");
+    }
+    final NavigableMap<Object, Set<Entity>> tree = (NavigableMap<Object, Set<Entity>>) values;
+    Collection<Set<Entity>> matches;
+    if (lower == null && upper == null) {
+      matches = tree.values();
+    } else if (lower == null) {
+      matches = tree.headMap(upper, upperInclusive).values();
+    } else if (upper == null) {
+      matches = tree.tailMap(lower, lowerInclusive).values();
+    } else if (compare(lower, upper) > 0) {
+      matches = null;
+    } else {
+      matches = tree.subMap(lower, lowerInclusive, upper, upperInclusive).values();
+    }
+    final Set<Entity> result = EntityValues.newIdentitySet();
+    if (matches != null) {
+      for (final Set<Entity> entities : matches) {
+        result.addAll(entities);
+      }
+    }
+    return result;
+  }
+
+  @SuppressWarnings("unchecked")
+  private static int compare(final Object first, final Object second) {
+    return ((Comparable<Object>) first).compareTo(second);
+  }
+}
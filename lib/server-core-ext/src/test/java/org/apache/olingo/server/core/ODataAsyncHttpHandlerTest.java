@@ -0,0 +1,208 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletRequestWrapper;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+
+import org.apache.olingo.commons.api.ex.ODataRuntimeException;
+import org.apache.olingo.server.api.ODataHttpHandler;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+public class ODataAsyncHttpHandlerTest {
+
+  private static class QueueingExecutor implements Executor {
+    private final List<Runnable> tasks = new ArrayList<Runnable>();
+
+    @Override
+    public void execute(final Runnable command) {
+      tasks.add(command);
+    }
+  }
+
+  @Test
+  public void processAsynchronously() {
+    HttpServletRequest request = Mockito.mock(HttpServletRequest.class);
+    HttpServletResponse response = Mockito.mock(HttpServletResponse.class);
+    AsyncContext asyncContext = Mockito.mock(AsyncContext.class);
+    Mockito.when(request.isAsyncSupported()).thenReturn(true);
+    Mockito.when(request.startAsync(request, response)).thenReturn(asyncContext);
+    Mockito.when(asyncContext.getRequest()).thenReturn(request);
+    Mockito.when(asyncContext.getResponse()).thenReturn(response);
+    ODataHttpHandler delegate = Mockito.mock(ODataHttpHandler.class);
+    QueueingExecutor executor = new QueueingExecutor();
+
+    ODataAsyncHttpHandler handler = new ODataAsyncHttpHandler(delegate, executor);
+    handler.setTimeout(5000);
+    handler.process(request, response);
+
+    // nothing processed on the calling (container) thread
+    Mockito.verifyZeroInteractions(delegate);
+    Mockito.verify(asyncContext).setTimeout(5000);
+    assertEquals(1, executor.tasks.size());
+
+    executor.tasks.get(0).run();
+    ArgumentCaptor<HttpServletRequest> processedRequest = ArgumentCaptor.forClass(HttpServletRequest.class);
+    ArgumentCaptor<HttpServletResponse> processedResponse = ArgumentCaptor.forClass(HttpServletResponse.class);
+    Mockito.verify(delegate).process(processedRequest.capture(), processedResponse.capture());
+    assertSame(request, ((HttpServletRequestWrapper) processedRequest.getValue()).getRequest());
+    assertSame(response, ((HttpServletResponseWrapper) processedResponse.getValue()).getResponse());
+    Mockito.verify(asyncContext).complete();
+  }
+
+  @Test
+  public void noTimeout() {
+    HttpServletRequest request = Mockito.mock(HttpServletRequest.class);
+    HttpServletResponse response = Mockito.mock(HttpServletResponse.class);
+    AsyncContext asyncContext = Mockito.mock(AsyncContext.class);
+    Mockito.when(request.isAsyncSupported()).thenReturn(true);
+    Mockito.when(request.startAsync(request, response)).thenReturn(asyncContext);
+
+    ODataAsyncHttpHandler handler = new ODataAsyncHttpHandler(Mockito.mock(ODataHttpHandler.class),
+        new QueueingExecutor());
+    handler.process(request, response);
+    Mockito.verify(asyncContext, Mockito.never()).setTimeout(Mockito.anyLong());
+
+    handler.setTimeout(-1);
+    handler.process(request, response);
+    Mockito.verify(asyncContext).setTimeout(0);
+  }
+
+  @Test
+  public void timeoutBeforeProcessing() throws Exception {
+    HttpServletRequest request = Mockito.mock(HttpServletRequest.class);
+    HttpServletResponse response = Mockito.mock(HttpServletResponse.class);
+    AsyncContext asyncContext = Mockito.mock(AsyncContext.class);
+    Mockito.when(request.isAsyncSupported()).thenReturn(true);
+    Mockito.when(request.startAsync(request, response)).thenReturn(asyncContext);
+    ODataHttpHandler delegate = Mockito.mock(ODataHttpHandler.class);
+    QueueingExecutor executor = new QueueingExecutor();
+
+    new ODataAsyncHttpHandler(delegate, executor).process(request, response);
+    ArgumentCaptor<AsyncListener> listener = ArgumentCaptor.forClass(AsyncListener.class);
+    Mockito.verify(asyncContext).addListener(listener.capture());
+    listener.getValue().onTimeout(new AsyncEvent(asyncContext));
+
+    Mockito.verify(response).setStatus(503);
+    Mockito.verify(asyncContext).complete();
+    executor.tasks.get(0).run();
+    Mockito.verifyZeroInteractions(delegate);
+    Mockito.verify(asyncContext).complete();
+  }
+
+  @Test
+  public void timeoutWhileProcessing() throws Exception {
+    final HttpServletRequest request = Mockito.mock(HttpServletRequest.class);
+    final HttpServletResponse response = Mockito.mock(HttpServletResponse.class);
+    final AsyncContext asyncContext = Mockito.mock(AsyncContext.class);
+    Mockito.when(request.isAsyncSupported()).thenReturn(true);
+    Mockito.when(request.startAsync(request, response)).thenReturn(asyncContext);
+    Mockito.when(response.isCommitted()).thenReturn(true);
+    final ServletOutputStream output = Mockito.mock(ServletOutputStream.class);
+    Mockito.when(response.getOutputStream()).thenReturn(output);
+    final ArgumentCaptor<AsyncListener> listener = ArgumentCaptor.forClass(AsyncListener.class);
+    QueueingExecutor executor = new QueueingExecutor();
+
+    ODataHttpHandler delegate = Mockito.mock(ODataHttpHandler.class);
+    Mockito.doAnswer(new Answer<Void>() {
+      @Override
+      public Void answer(final InvocationOnMock invocation) throws IOException {
+        final HttpServletResponse processedResponse = (HttpServletResponse) invocation.getArguments()[1];
+        final OutputStream stream = processedResponse.getOutputStream();
+        stream.write(1);
+        Mockito.verify(asyncContext).addListener(listener.capture());
+        listener.getValue().onTimeout(new AsyncEvent(asyncContext));
+        processedResponse.setStatus(200);
+        try {
+          stream.write(2);
+          fail("Expected IOException");
+        } catch (final IOException e) {
+          throw new ODataRuntimeException(e);
+        }
+        return null;
+      }
+    }).when(delegate).process(Mockito.any(HttpServletRequest.class), Mockito.any(HttpServletResponse.class));
+
+    new ODataAsyncHttpHandler(delegate, executor).process(request, response);
+    executor.tasks.get(0).run();
+
+    // the part written before the timeout is kept; the committed response is only completed
+    Mockito.verify(output).write(1);
+    Mockito.verify(output, Mockito.never()).write(2);
+    Mockito.verify(response, Mockito.never()).setStatus(Mockito.anyInt());
+    Mockito.verify(asyncContext).complete();
+  }
+
+  @Test
+  public void processSynchronouslyIfAsyncNotSupported() {
+    HttpServletRequest request = Mockito.mock(HttpServletRequest.class);
+    HttpServletResponse response = Mockito.mock(HttpServletResponse.class);
+    Mockito.when(request.isAsyncSupported()).thenReturn(false);
+    ODataHttpHandler delegate = Mockito.mock(ODataHttpHandler.class);
+    QueueingExecutor executor = new QueueingExecutor();
+
+    new ODataAsyncHttpHandler(delegate, executor).process(request, response);
+
+    Mockito.verify(delegate).process(request, response);
+    assertEquals(0, executor.tasks.size());
+  }
+
+  @Test
+  public void rejectedExecution() {
+    HttpServletRequest request = Mockito.mock(HttpServletRequest.class);
+    HttpServletResponse response = Mockito.mock(HttpServletResponse.class);
+    AsyncContext asyncContext = Mockito.mock(AsyncContext.class);
+    Mockito.when(request.isAsyncSupported()).thenReturn(true);
+    Mockito.when(request.startAsync(request, response)).thenReturn(asyncContext);
+    ODataHttpHandler delegate = Mockito.mock(ODataHttpHandler.class);
+
+    new ODataAsyncHttpHandler(delegate, new Executor() {
+      @Override
+      public void execute(final Runnable command) {
+        throw new RejectedExecutionException();
+      }
+    }).process(request, response);
+
+    Mockito.verifyZeroInteractions(delegate);
+    Mockito.verify(response).setStatus(503);
+    Mockito.verify(asyncContext).complete();
+  }
+}
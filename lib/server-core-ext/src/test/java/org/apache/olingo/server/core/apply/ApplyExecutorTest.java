@@ -0,0 +1,286 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.apply;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+import java.io.FileReader;
+import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.olingo.commons.api.data.ComplexValue;
+import org.apache.olingo.commons.api.data.ContextURL;
+import org.apache.olingo.commons.api.data.Entity;
+import org.apache.olingo.commons.api.data.EntityCollection;
+import org.apache.olingo.commons.api.data.EntityIterator;
+import org.apache.olingo.commons.api.data.Property;
+import org.apache.olingo.commons.api.data.ValueType;
+import org.apache.olingo.commons.api.edm.EdmEntitySet;
+import org.apache.olingo.commons.api.edm.provider.CsdlEdmProvider;
+import org.apache.olingo.commons.api.edmx.EdmxReference;
+import org.apache.olingo.commons.api.format.ContentType;
+import org.apache.olingo.commons.api.http.HttpStatusCode;
+import org.apache.olingo.server.api.OData;
+import org.apache.olingo.server.api.ODataApplicationException;
+import org.apache.olingo.server.api.ServiceMetadata;
+import org.apache.olingo.server.api.serializer.EntityCollectionSerializerOptions;
+import org.apache.olingo.server.api.uri.UriInfo;
+import org.apache.olingo.server.core.MetadataParser;
+import org.apache.olingo.server.core.uri.parser.Parser;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ApplyExecutorTest {
+
+  private OData odata;
+  private ServiceMetadata metadata;
+  private EdmEntitySet people;
+  private EdmEntitySet airports;
+  private EntityCollection persons;
+
+  @Before
+  public void setUp() throws Exception {
+    final CsdlEdmProvider provider = (CsdlEdmProvider) new MetadataParser()
+        .buildEdmProvider(new FileReader("src/test/resources/trippin.xml"));
+    odata = OData.newInstance();
+    metadata = odata.createServiceMetadata(provider, Collections.<EdmxReference> emptyList());
+    people = metadata.getEdm().getEntityContainer().getEntitySet("People");
+    airports = metadata.getEdm().getEntityContainer().getEntitySet("Airports");
+    persons = new EntityCollection();
+    persons.getEntities().add(person("russellwhyte", "Russell", "Whyte", 10));
+    persons.getEntities().add(person("scottketchum", "Scott", "Ketchum", 20));
+    persons.getEntities().add(person("ronaldmundy", "Ronald", "Whyte", 30));
+    persons.getEntities().add(person("javieralfred", "Javier", "Ketchum", 40));
+    persons.getEntities().add(person("willieashmore", "Willie", "Ashmore", 60));
+  }
+
+  @Test
+  public void aggregate() throws Exception {
+    final ApplyResult result = apply(people, persons,
+        "aggregate($count as Count,Concurrency with sum as Total,Concurrency with max as Max,"
+            + "Concurrency with average as Average,LastName with countdistinct as Names)");
+    assertEquals(1, result.getEntityCollection().getEntities().size());
+    final Entity entity = result.getEntityCollection().getEntities().get(0);
+    assertEquals(BigDecimal.valueOf(5), entity.getProperty("Count").getValue());
+    assertEquals(BigDecimal.valueOf(160), entity.getProperty("Total").getValue());
+    assertEquals(60L, entity.getProperty("Max").getValue());
+    assertEquals(0, new BigDecimal(32).compareTo((BigDecimal) entity.getProperty("Average").getValue()));
+    assertEquals(BigDecimal.valueOf(3), entity.getProperty("Names").getValue());
+    assertEquals("Count,Total,Max,Average,Names", result.getSelectList());
+  }
+
+  @Test
+  public void aggregateEmpty() throws Exception {
+    final ApplyResult result = apply(people, new EntityCollection(),
+        "aggregate($count as Count,Concurrency with average as Average)");
+    assertEquals(1, result.getEntityCollection().getEntities().size());
+    final Entity entity = result.getEntityCollection().getEntities().get(0);
+    assertEquals(BigDecimal.ZERO, entity.getProperty("Count").getValue());
+    assertNull(entity.getProperty("Average").getValue());
+  }
+
+  @Test
+  public void groupBy() throws Exception {
+    final ApplyResult result = apply(people, persons,
+        "groupby((LastName),aggregate(Concurrency with sum as Total))");
+    final List<Entity> entities = result.getEntityCollection().getEntities();
+    assertEquals(3, entities.size());
+    assertEquals("Whyte", entities.get(0).getProperty("LastName").getValue());
+    assertEquals(BigDecimal.valueOf(40), entities.get(0).getProperty("Total").getValue());
+    assertEquals("Ketchum", entities.get(1).getProperty("LastName").getValue());
+    assertEquals(BigDecimal.valueOf(60), entities.get(1).getProperty("Total").getValue());
+    assertEquals("Ashmore", entities.get(2).getProperty("LastName").getValue());
+    assertEquals("LastName,Total", result.getSelectList());
+    assertEquals(2, result.getEntityType().getPropertyNames().size());
+  }
+
+  @Test
+  public void filterAndComputeBeforeGroupBy() throws Exception {
+    final ApplyResult result = apply(people, persons,
+        "filter(Concurrency gt 10)/compute(Concurrency mul 2 as Double)"
+            + "/groupby((LastName),aggregate(Double with min as Min))");
+    final List<Entity> entities = result.getEntityCollection().getEntities();
+    assertEquals(3, entities.size());
+    assertEquals("Ketchum", entities.get(0).getProperty("LastName").getValue());
+    assertEquals(40, ((Number) entities.get(0).getProperty("Min").getValue()).intValue());
+    assertEquals("Whyte", entities.get(1).getProperty("LastName").getValue());
+    assertEquals(60, ((Number) entities.get(1).getProperty("Min").getValue()).intValue());
+  }
+
+  @Test
+  public void groupByWithNestedTransformations() throws Exception {
+    final ApplyResult result = apply(people, persons,
+        "groupby((LastName),filter(Concurrency lt 30)/aggregate($count as Count))");
+    final List<Entity> entities = result.getEntityCollection().getEntities();
+    assertEquals(3, entities.size());
+    assertEquals(BigDecimal.ONE, entities.get(0).getProperty("Count").getValue());
+    assertEquals(BigDecimal.ONE, entities.get(1).getProperty("Count").getValue());
+    assertEquals(BigDecimal.ZERO, entities.get(2).getProperty("Count").getValue());
+  }
+
+  @Test
+  public void topAndBottom() throws Exception {
+    List<Entity> entities = apply(people, persons, "topcount(2,Concurrency)").getEntityCollection().getEntities();
+    assertEquals(2, entities.size());
+    assertEquals("willieashmore", entities.get(0).getProperty("UserName").getValue());
+    assertEquals("javieralfred", entities.get(1).getProperty("UserName").getValue());
+
+    entities = apply(people, persons, "bottomsum(30,Concurrency)").getEntityCollection().getEntities();
+    assertEquals(2, entities.size());
+
+    entities = apply(people, persons, "toppercent(50,Concurrency)").getEntityCollection().getEntities();
+    assertEquals(2, entities.size());
+  }
+
+  @Test
+  public void concat() throws Exception {
+    final ApplyResult result = apply(people, persons,
+        "concat(aggregate($count as Count),topcount(1,Concurrency))");
+    assertEquals(2, result.getEntityCollection().getEntities().size());
+    assertEquals("*,Count", result.getSelectList());
+  }
+
+  @Test
+  public void unchangedStructure() throws Exception {
+    final ApplyResult result = apply(people, persons, "filter(LastName eq 'Whyte')");
+    assertEquals(2, result.getEntityCollection().getEntities().size());
+    assertEquals(people.getEntityType(), result.getEntityType());
+    assertNull(result.getSelectList());
+  }
+
+  @Test
+  public void entityIterator() throws Exception {
+    final Iterator<Entity> iterator = persons.getEntities().iterator();
+    final EntityIterator entities = new EntityIterator() {
+      @Override
+      public boolean hasNext() {
+        return iterator.hasNext();
+      }
+
+      @Override
+      public Entity next() {
+        return iterator.next();
+      }
+    };
+    final ApplyResult result = new ApplyExecutor().apply(people.getEntityType(), entities,
+        parse("People", "groupby((LastName))").getApplyOption());
+    assertEquals(3, result.getEntityCollection().getEntities().size());
+  }
+
+  @Test
+  public void parallel() throws Exception {
+    EntityCollection many = new EntityCollection();
+    for (int i = 0; i < 10000; i++) {
+      many.getEntities().add(person("user" + i, "First" + i, "Last" + i % 7, i));
+    }
+    final String apply = "filter(Concurrency ge 100)/groupby((LastName),"
+        + "aggregate($count as Count,Concurrency with sum as Total,Concurrency with max as Max))";
+    final ApplyResult sequential = apply(people, many, apply);
+
+    ExecutorService executorService = Executors.newFixedThreadPool(4);
+    try {
+      ApplyExecutor executor = new ApplyExecutor();
+      executor.setParallelism(executorService, 4);
+      executor.setMinPartitionSize(1000);
+      final ApplyResult parallel = executor.apply(people.getEntityType(), many,
+          parse("People", apply).getApplyOption());
+
+      final List<Entity> expected = sequential.getEntityCollection().getEntities();
+      final List<Entity> actual = parallel.getEntityCollection().getEntities();
+      assertEquals(7, actual.size());
+      for (int i = 0; i < expected.size(); i++) {
+        for (final String name : new String[] { "LastName", "Count", "Total", "Max" }) {
+          assertEquals(expected.get(i).getProperty(name).getValue(), actual.get(i).getProperty(name).getValue());
+        }
+      }
+    } finally {
+      executorService.shutdown();
+    }
+  }
+
+  @Test
+  public void serializeGroupedComplexPath() throws Exception {
+    EntityCollection entities = new EntityCollection();
+    entities.getEntities().add(airport("KSFO", "San Francisco", "California"));
+    entities.getEntities().add(airport("KOAK", "Oakland", "California"));
+    entities.getEntities().add(airport("KLAX", "Los Angeles", "California"));
+    entities.getEntities().add(airport("KJFK", "New York", "New York"));
+    final ApplyResult result = apply(airports, entities,
+        "groupby((Location/City/Region),aggregate($count as Count))");
+    assertEquals("Location(City(Region)),Count", result.getSelectList());
+
+    final String json = IOUtils.toString(odata.createSerializer(ContentType.JSON_NO_METADATA)
+        .entityCollection(metadata, result.getEntityType(), result.getEntityCollection(),
+            EntityCollectionSerializerOptions.with()
+                .contextURL(ContextURL.with().entitySet(airports).selectList(result.getSelectList()).build())
+                .build())
+        .getContent());
+    assertEquals("{\"value\":["
+        + "{\"Location\":{\"City\":{\"Region\":\"California\"}},\"Count\":3},"
+        + "{\"Location\":{\"City\":{\"Region\":\"New York\"}},\"Count\":1}]}",
+        json);
+  }
+
+  @Test
+  public void notImplemented() throws Exception {
+    try {
+      apply(people, persons, "groupby((rollup($all,LastName)))");
+      fail("Expected an exception.");
+    } catch (final ODataApplicationException e) {
+      assertEquals(HttpStatusCode.NOT_IMPLEMENTED.getStatusCode(), e.getStatusCode());
+    }
+  }
+
+  private ApplyResult apply(final EdmEntitySet entitySet, final EntityCollection entities, final String apply)
+      throws Exception {
+    return new ApplyExecutor().apply(entitySet.getEntityType(), entities,
+        parse(entitySet.getName(), apply).getApplyOption());
+  }
+
+  private UriInfo parse(final String path, final String apply) throws Exception {
+    return new Parser(metadata.getEdm(), odata).parseUri(path, "$apply=" + apply, null, null);
+  }
+
+  private Entity person(final String userName, final String firstName, final String lastName,
+      final long concurrency) {
+    return new Entity()
+        .addProperty(new Property(null, "UserName", ValueType.PRIMITIVE, userName))
+        .addProperty(new Property(null, "FirstName", ValueType.PRIMITIVE, firstName))
+        .addProperty(new Property(null, "LastName", ValueType.PRIMITIVE, lastName))
+        .addProperty(new Property(null, "Concurrency", ValueType.PRIMITIVE, concurrency));
+  }
+
+  private Entity airport(final String icaoCode, final String cityName, final String region) {
+    ComplexValue city = new ComplexValue();
+    city.getValue().add(new Property(null, "Name", ValueType.PRIMITIVE, cityName));
+    city.getValue().add(new Property(null, "Region", ValueType.PRIMITIVE, region));
+    ComplexValue location = new ComplexValue();
+    location.getValue().add(new Property(null, "City", ValueType.COMPLEX, city));
+    return new Entity()
+        .addProperty(new Property(null, "IcaoCode", ValueType.PRIMITIVE, icaoCode))
+        .addProperty(new Property(null, "Location", ValueType.COMPLEX, location));
+  }
+}
@@ -0,0 +1,235 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.expand;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import java.io.FileReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.olingo.commons.api.data.Entity;
+import org.apache.olingo.commons.api.data.EntityCollection;
+import org.apache.olingo.commons.api.data.Property;
+import org.apache.olingo.commons.api.data.ValueType;
+import org.apache.olingo.commons.api.edm.EdmEntityType;
+import org.apache.olingo.commons.api.edm.EdmNavigationProperty;
+import org.apache.olingo.commons.api.edm.provider.CsdlEdmProvider;
+import org.apache.olingo.commons.api.edmx.EdmxReference;
+import org.apache.olingo.commons.api.http.HttpStatusCode;
+import org.apache.olingo.server.api.OData;
+import org.apache.olingo.server.api.ODataApplicationException;
+import org.apache.olingo.server.api.ServiceMetadata;
+import org.apache.olingo.server.api.uri.queryoption.ExpandItem;
+import org.apache.olingo.server.api.uri.queryoption.ExpandOption;
+import org.apache.olingo.server.core.MetadataParser;
+import org.apache.olingo.server.core.NavigationBatchLoader;
+import org.apache.olingo.server.core.uri.parser.Parser;
+import org.junit.Before;
+import org.junit.Test;
+
+public class BatchExpanderTest {
+
+  private OData odata;
+  private ServiceMetadata metadata;
+  private EdmEntityType personType;
+  private Map<String, Entity> persons;
+  private Map<String, List<String>> friends;
+  private FriendsLoader loader;
+
+  /** Loads friends from the in-memory maps and records every call. */
+  private class FriendsLoader implements NavigationBatchLoader {
+    private final List<Integer> calls = new ArrayList<Integer>();
+
+    @Override
+    public List<EntityCollection> loadNavigation(final EdmEntityType sourceType,
+        final EdmNavigationProperty navigationProperty, final List<Entity> sources, final ExpandItem expandItem) {
+      calls.add(sources.size());
+      List<EntityCollection> result = new ArrayList<EntityCollection>();
+      for (final Entity source : sources) {
+        if (!"Friends".equals(navigationProperty.getName())) {
+          result.add(null);
+          continue;
+        }
+        EntityCollection targets = new EntityCollection();
+        final List<String> names = friends.get(source.getProperty("UserName").getValue());
+        if (names != null) {
+          for (final String name : names) {
+            targets.getEntities().add(persons.get(name));
+          }
+        }
+        result.add(targets);
+      }
+      return result;
+    }
+  }
+
+  @Before
+  public void setUp() throws Exception {
+    final CsdlEdmProvider provider = (CsdlEdmProvider) new MetadataParser()
+        .buildEdmProvider(new FileReader("src/test/resources/trippin.xml"));
+    odata = OData.newInstance();
+    metadata = odata.createServiceMetadata(provider, Collections.<EdmxReference> emptyList());
+    personType = metadata.getEdm().getEntityContainer().getEntitySet("People").getEntityType();
+
+    persons = new LinkedHashMap<String, Entity>();
+    person("russellwhyte", "Russell");
+    person("scottketchum", "Scott");
+    person("ronaldmundy", "Ronald");
+    person("javieralfred", "Javier");
+    friends = new HashMap<String, List<String>>();
+    friends.put("russellwhyte", Arrays.asList("scottketchum", "ronaldmundy", "javieralfred"));
+    friends.put("scottketchum", Arrays.asList("russellwhyte", "ronaldmundy"));
+    friends.put("ronaldmundy", Arrays.asList("javieralfred"));
+    loader = new FriendsLoader();
+  }
+
+  @Test
+  public void oneCallPerNavigationProperty() throws Exception {
+    final List<Entity> entities = expand(new ArrayList<Entity>(persons.values()), "Friends");
+
+    assertEquals(Arrays.asList(4), loader.calls);
+    assertEquals(Arrays.asList("Scott", "Ronald", "Javier"), friendNames(entities.get(0)));
+    assertEquals(Arrays.asList("Javier"), friendNames(entities.get(2)));
+    assertEquals(0, friendNames(entities.get(3)).size());
+  }
+
+  @Test
+  public void loadedEntitiesAreNotChanged() throws Exception {
+    final List<Entity> entities = expand(new ArrayList<Entity>(persons.values()), "Friends($expand=Friends)");
+
+    for (final Entity person : persons.values()) {
+      assertNull(person.getNavigationLink("Friends"));
+    }
+    assertNotSame(persons.get("russellwhyte"), entities.get(0));
+    assertSame(persons.get("russellwhyte").getProperty("FirstName"), entities.get(0).getProperty("FirstName"));
+
+    // a second expansion of the same entities is independent of the first one
+    final List<Entity> others = expand(new ArrayList<Entity>(persons.values()), "Friends($top=1)");
+    assertEquals(Arrays.asList("Scott"), friendNames(others.get(0)));
+    assertEquals(Arrays.asList("Scott", "Ronald", "Javier"), friendNames(entities.get(0)));
+  }
+
+  @Test
+  public void nestedOptions() throws Exception {
+    final List<Entity> entities = expand(new ArrayList<Entity>(persons.values()),
+        "Friends($filter=FirstName ne 'Ronald';$orderby=FirstName desc;$top=1;$count=true)");
+
+    final EntityCollection inline = entities.get(0).getNavigationLink("Friends").getInlineEntitySet();
+    assertEquals(Integer.valueOf(2), inline.getCount());
+    assertEquals(Arrays.asList("Scott"), friendNames(entities.get(0)));
+    assertEquals(Arrays.asList("Russell"), friendNames(entities.get(1)));
+    assertEquals(Arrays.asList("Javier"), friendNames(entities.get(2)));
+  }
+
+  @Test
+  public void nestedExpandLoadsEachLevelOnce() throws Exception {
+    final List<Entity> entities = expand(Collections.singletonList(persons.get("russellwhyte")),
+        "Friends($expand=Friends($expand=Photo))");
+
+    // Russell; his three friends; their friends Russell, Ronald and Javier once each
+    assertEquals(Arrays.asList(1, 3, 3), loader.calls);
+    final Entity scott = entities.get(0).getNavigationLink("Friends").getInlineEntitySet().getEntities().get(0);
+    assertEquals(Arrays.asList("Russell", "Ronald"), friendNames(scott));
+    final Entity ronald = scott.getNavigationLink("Friends").getInlineEntitySet().getEntities().get(1);
+    assertNull(ronald.getNavigationLink("Photo").getInlineEntity());
+    // Russell at the third level is not the Russell being expanded
+    final Entity russell = scott.getNavigationLink("Friends").getInlineEntitySet().getEntities().get(0);
+    assertNotSame(entities.get(0), russell);
+    assertNull(russell.getNavigationLink("Friends"));
+  }
+
+  @Test
+  public void levels() throws Exception {
+    final List<Entity> entities = expand(Collections.singletonList(persons.get("ronaldmundy")),
+        "Friends($levels=2)");
+
+    assertEquals(Arrays.asList(1, 1), loader.calls);
+    assertEquals(Arrays.asList("Javier"), friendNames(entities.get(0)));
+    final Entity javier = entities.get(0).getNavigationLink("Friends").getInlineEntitySet().getEntities().get(0);
+    assertEquals(0, friendNames(javier).size());
+
+    try {
+      expand(entities, "Friends($levels=max)");
+      fail("Expected ODataApplicationException");
+    } catch (final ODataApplicationException e) {
+      assertEquals(HttpStatusCode.NOT_IMPLEMENTED.getStatusCode(), e.getStatusCode());
+    }
+  }
+
+  @Test
+  public void levelsWithNestedOptions() throws Exception {
+    final String expand = "Friends($levels=2;$orderby=FirstName desc;$top=1;$select=FirstName;$expand=Photo)";
+    final List<Entity> entities = expand(Collections.singletonList(persons.get("russellwhyte")), expand);
+
+    // Russell's friend Scott, and Scott's friend Russell: the options apply on both levels
+    assertEquals(Arrays.asList("Scott"), friendNames(entities.get(0)));
+    final Entity scott = entities.get(0).getNavigationLink("Friends").getInlineEntitySet().getEntities().get(0);
+    assertEquals(Arrays.asList("Russell"), friendNames(scott));
+    assertNotNull(scott.getNavigationLink("Photo"));
+    final Entity russell = scott.getNavigationLink("Friends").getInlineEntitySet().getEntities().get(0);
+    assertNotNull(russell.getNavigationLink("Photo"));
+    assertNull(russell.getNavigationLink("Friends"));
+
+    // the unrolled option which is written carries the nested options through the levels as well
+    final ExpandItem first = BatchExpander.unroll(parse(expand)).getExpandItems().get(0);
+    assertNull(first.getLevelsOption());
+    assertNotNull(first.getSelectOption());
+    assertEquals(2, first.getExpandOption().getExpandItems().size());
+    final ExpandItem second = first.getExpandOption().getExpandItems().get(1);
+    assertEquals("Friends", second.getResourcePath().getUriResourceParts().get(0).getSegmentValue());
+    assertNotNull(second.getSelectOption());
+    assertNotNull(second.getOrderByOption());
+    assertEquals(1, second.getTopOption().getValue());
+    assertEquals(1, second.getExpandOption().getExpandItems().size());
+  }
+
+  private List<Entity> expand(final List<Entity> entities, final String expand) throws Exception {
+    return new BatchExpander(loader).expand(personType, entities, parse(expand));
+  }
+
+  private ExpandOption parse(final String expand) throws Exception {
+    return new Parser(metadata.getEdm(), odata).parseUri("People", "$expand=" + expand, null, null)
+        .getExpandOption();
+  }
+
+  private List<String> friendNames(final Entity entity) {
+    List<String> names = new ArrayList<String>();
+    for (final Entity friend : entity.getNavigationLink("Friends").getInlineEntitySet().getEntities()) {
+      names.add((String) friend.getProperty("FirstName").getValue());
+    }
+    return names;
+  }
+
+  private void person(final String userName, final String firstName) {
+    persons.put(userName, new Entity()
+        .addProperty(new Property(null, "UserName", ValueType.PRIMITIVE, userName))
+        .addProperty(new Property(null, "FirstName", ValueType.PRIMITIVE, firstName)));
+  }
+}
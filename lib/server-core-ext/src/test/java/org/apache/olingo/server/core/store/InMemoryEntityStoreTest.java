@@ -0,0 +1,271 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.store;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.FileReader;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.olingo.commons.api.data.ComplexValue;
+import org.apache.olingo.commons.api.data.Entity;
+import org.apache.olingo.commons.api.data.Property;
+import org.apache.olingo.commons.api.data.ValueType;
+import org.apache.olingo.commons.api.edm.Edm;
+import org.apache.olingo.commons.api.edm.EdmEntitySet;
+import org.apache.olingo.commons.api.edm.EdmNavigationProperty;
+import org.apache.olingo.commons.api.edm.provider.CsdlEdmProvider;
+import org.apache.olingo.commons.api.edmx.EdmxReference;
+import org.apache.olingo.commons.api.http.HttpStatusCode;
+import org.apache.olingo.server.api.OData;
+import org.apache.olingo.server.api.ODataApplicationException;
+import org.apache.olingo.server.api.uri.UriInfo;
+import org.apache.olingo.server.api.uri.UriParameter;
+import org.apache.olingo.server.api.uri.UriResourceEntitySet;
+import org.apache.olingo.server.core.MetadataParser;
+import org.apache.olingo.server.core.uri.parser.Parser;
+import org.junit.Before;
+import org.junit.Test;
+
+public class InMemoryEntityStoreTest {
+
+  private OData odata;
+  private Edm edm;
+  private EdmEntitySet people;
+  private EdmEntitySet photos;
+  private EdmEntitySet airports;
+  private InMemoryEntityStore store;
+
+  @Before
+  public void setUp() throws Exception {
+    final CsdlEdmProvider provider = (CsdlEdmProvider) new MetadataParser()
+        .buildEdmProvider(new FileReader("src/test/resources/trippin.xml"));
+    odata = OData.newInstance();
+    edm = odata.createServiceMetadata(provider, Collections.<EdmxReference> emptyList()).getEdm();
+    people = edm.getEntityContainer().getEntitySet("People");
+    photos = edm.getEntityContainer().getEntitySet("Photos");
+    airports = edm.getEntityContainer().getEntitySet("Airports");
+    store = new InMemoryEntityStore();
+  }
+
+  @Test
+  public void readByKey() throws Exception {
+    final Entity russell = person("russellwhyte", "Russell", 1);
+    store.create(people, russell);
+    store.create(people, person("scottketchum", "Scott", 2));
+
+    assertSame(russell, store.read(people, keyPredicates("People('russellwhyte')")));
+    assertSame(russell, store.read(people, Collections.<String, Object> singletonMap("UserName", "russellwhyte")));
+    assertNull(store.read(people, keyPredicates("People('unknown')")));
+    assertEquals(2, store.readAll(people).size());
+  }
+
+  @Test
+  public void keyValuesAreNormalized() throws Exception {
+    final Entity photo = new Entity()
+        .addProperty(new Property(null, "Id", ValueType.PRIMITIVE, 5))
+        .addProperty(new Property(null, "Name", ValueType.PRIMITIVE, "Sea"));
+    store.create(photos, photo);
+
+    assertSame(photo, store.read(photos, keyPredicates("Photos(5)")));
+    assertSame(photo, store.read(photos, Collections.<String, Object> singletonMap("Id", 5L)));
+    assertSame(photo, store.read(photos, Collections.<String, Object> singletonMap("Id", (short) 5)));
+    assertSame(photo, store.read(photos, Collections.<String, Object> singletonMap("Id", (byte) 5)));
+  }
+
+  @Test
+  public void duplicateKey() throws Exception {
+    store.create(people, person("russellwhyte", "Russell", 1));
+    try {
+      store.create(people, person("russellwhyte", "Other", 2));
+      fail("Expected a conflict.");
+    } catch (final ODataApplicationException e) {
+      assertEquals(HttpStatusCode.CONFLICT.getStatusCode(), e.getStatusCode());
+    }
+    assertEquals(1, store.readAll(people).size());
+  }
+
+  @Test
+  public void wrongKey() throws Exception {
+    try {
+      store.read(people, Collections.<String, Object> singletonMap("FirstName", "Russell"));
+      fail("Expected a bad request.");
+    } catch (final ODataApplicationException e) {
+      assertEquals(HttpStatusCode.BAD_REQUEST.getStatusCode(), e.getStatusCode());
+    }
+  }
+
+  @Test
+  public void updateReindexes() throws Exception {
+    store.createIndex(people, "FirstName", false);
+    final Entity russell = person("russellwhyte", "Russell", 1);
+    store.create(people, russell);
+
+    russell.getProperty("FirstName").setValue(ValueType.PRIMITIVE, "Rusty");
+    russell.getProperty("UserName").setValue(ValueType.PRIMITIVE, "rusty");
+    store.update(people, russell);
+
+    assertTrue(store.findEqual(people, "FirstName", "Russell").isEmpty());
+    assertEquals(Arrays.asList(russell), store.findEqual(people, "FirstName", "Rusty"));
+    assertNull(store.read(people, keyPredicates("People('russellwhyte')")));
+    assertSame(russell, store.read(people, keyPredicates("People('rusty')")));
+  }
+
+  @Test
+  public void creationOrder() throws Exception {
+    store.createIndex(people, "LastName", false);
+    final Entity russell = person("russellwhyte", "Russell", 1);
+    final Entity scott = person("scottketchum", "Scott", 2);
+    final Entity ronald = person("ronaldmundy", "Ronald", 3);
+    store.create(people, russell);
+    store.create(people, scott);
+    store.create(people, ronald);
+
+    // a changed key does not move the entity to the end
+    russell.getProperty("UserName").setValue(ValueType.PRIMITIVE, "rusty");
+    store.update(people, russell);
+    assertEquals(Arrays.asList(russell, scott, ronald), store.readAll(people));
+    assertEquals(Arrays.asList(russell, scott, ronald), store.findEqual(people, "LastName", "Whyte"));
+
+    store.delete(people, scott);
+    store.create(people, scott);
+    assertEquals(Arrays.asList(russell, ronald, scott), store.readAll(people));
+    assertEquals(Arrays.asList(russell, ronald, scott), store.findEqual(people, "LastName", "Whyte"));
+  }
+
+  @Test
+  public void delete() throws Exception {
+    store.createIndex(people, "FirstName", false);
+    final Entity russell = person("russellwhyte", "Russell", 1);
+    store.create(people, russell);
+
+    assertTrue(store.delete(people, russell));
+    assertFalse(store.delete(people, russell));
+    assertTrue(store.readAll(people).isEmpty());
+    assertTrue(store.findEqual(people, "FirstName", "Russell").isEmpty());
+  }
+
+  @Test
+  public void rangeIndex() throws Exception {
+    store.createIndex(people, "Concurrency", true);
+    final Entity first = person("a", "A", 10);
+    final Entity second = person("b", "B", 20);
+    final Entity third = person("c", "C", 30);
+    store.create(people, third);
+    store.create(people, first);
+    store.create(people, second);
+
+    assertEquals(Arrays.asList(third, second), store.findRange(people, "Concurrency", 20, true, null, false));
+    assertEquals(Arrays.asList(first), store.findRange(people, "Concurrency", null, false, 20, false));
+    assertEquals(Arrays.asList(second), store.findRange(people, "Concurrency", 10L, false, 30L, false));
+    assertTrue(store.findRange(people, "Concurrency", 30, false, 10, false).isEmpty());
+  }
+
+  @Test
+  public void complexPropertyPathIndex() throws Exception {
+    store.createIndex(airports, "Location/City/Name", false);
+    final Entity sfo = airport("KSFO", "San Francisco");
+    store.create(airports, sfo);
+    store.create(airports, airport("KLAX", "Los Angeles"));
+
+    assertEquals(Arrays.asList(sfo), store.findEqual(airports, "Location/City/Name", "San Francisco"));
+  }
+
+  @Test
+  public void filterCandidates() throws Exception {
+    store.createIndex(people, "FirstName", false);
+    store.createIndex(people, "Concurrency", true);
+    final Entity russell = person("russellwhyte", "Russell", 1);
+    final Entity scott = person("scottketchum", "Scott", 2);
+    final Entity ronald = person("ronaldmundy", "Ronald", 3);
+    store.create(people, russell);
+    store.create(people, scott);
+    store.create(people, ronald);
+
+    assertEquals(Arrays.asList(scott), candidates("FirstName eq 'Scott'"));
+    assertEquals(Arrays.asList(scott, ronald), candidates("Concurrency ge 2"));
+    assertEquals(Arrays.asList(scott, ronald), candidates("1 lt Concurrency"));
+    assertEquals(Arrays.asList(ronald), candidates("Concurrency gt 1 and FirstName eq 'Ronald'"));
+    assertEquals(Arrays.asList(russell, ronald), candidates("FirstName eq 'Russell' or Concurrency eq 3"));
+    // not answerable by indexes: all entities are candidates
+    assertEquals(3, candidates("LastName eq 'Whyte'").size());
+    assertEquals(3, candidates("FirstName eq 'Russell' or LastName eq 'Whyte'").size());
+    // partially answerable
+    assertEquals(Arrays.asList(russell), candidates("FirstName eq 'Russell' and LastName eq 'Whyte'"));
+  }
+
+  @Test
+  public void links() throws Exception {
+    final EdmNavigationProperty friends = people.getEntityType().getNavigationProperty("Friends");
+    final Entity russell = person("russellwhyte", "Russell", 1);
+    final Entity scott = person("scottketchum", "Scott", 2);
+    final Entity ronald = person("ronaldmundy", "Ronald", 3);
+    store.create(people, russell);
+    store.create(people, scott);
+    store.create(people, ronald);
+
+    store.createLink(friends, russell, ronald);
+    store.createLink(friends, russell, scott);
+    store.createLink(friends, scott, ronald);
+    assertEquals(Arrays.asList(scott, ronald), store.getLinkedEntities(friends, russell));
+
+    assertTrue(store.deleteLink(friends, russell, scott));
+    assertFalse(store.deleteLink(friends, russell, scott));
+    assertEquals(Arrays.asList(ronald), store.getLinkedEntities(friends, russell));
+
+    store.delete(people, ronald);
+    assertTrue(store.getLinkedEntities(friends, russell).isEmpty());
+    assertTrue(store.getLinkedEntities(friends, scott).isEmpty());
+  }
+
+  private List<Entity> candidates(final String filter) throws Exception {
+    final UriInfo uriInfo = new Parser(edm, odata).parseUri("People", "$filter=" + filter, null, null);
+    return store.filterCandidates(people, uriInfo.getFilterOption());
+  }
+
+  private List<UriParameter> keyPredicates(final String path) throws Exception {
+    final UriInfo uriInfo = new Parser(edm, odata).parseUri(path, null, null, null);
+    return ((UriResourceEntitySet) uriInfo.getUriResourceParts().get(0)).getKeyPredicates();
+  }
+
+  private Entity person(final String userName, final String firstName, final long concurrency) {
+    return new Entity()
+        .addProperty(new Property(null, "UserName", ValueType.PRIMITIVE, userName))
+        .addProperty(new Property(null, "FirstName", ValueType.PRIMITIVE, firstName))
+        .addProperty(new Property(null, "LastName", ValueType.PRIMITIVE, "Whyte"))
+        .addProperty(new Property(null, "Concurrency", ValueType.PRIMITIVE, concurrency));
+  }
+
+  private Entity airport(final String icaoCode, final String cityName) {
+    ComplexValue city = new ComplexValue();
+    city.getValue().add(new Property(null, "Name", ValueType.PRIMITIVE, cityName));
+    ComplexValue location = new ComplexValue();
+    location.getValue().add(new Property(null, "City", ValueType.COMPLEX, city));
+    return new Entity()
+        .addProperty(new Property(null, "IcaoCode", ValueType.PRIMITIVE, icaoCode))
+        .addProperty(new Property(null, "Location", ValueType.COMPLEX, location));
+  }
+}
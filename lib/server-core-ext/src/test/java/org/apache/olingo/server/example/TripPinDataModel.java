@@ -21,6 +21,7 @@ package org.apache.olingo.server.example;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
+import java.io.IOException;
 import java.io.InputStream;
 import java.net.URI;
 import java.net.URISyntaxException;
@@ -46,6 +47,7 @@ import org.apache.olingo.commons.api.edm.EdmType;
 import org.apache.olingo.commons.api.edm.FullQualifiedName;
 import org.apache.olingo.commons.api.edm.constants.EdmTypeKind;
 import org.apache.olingo.commons.api.format.ContentType;
+import org.apache.olingo.server.api.MediaContent;
 import org.apache.olingo.server.api.ODataApplicationException;
 import org.apache.olingo.server.api.ServiceMetadata;
 import org.apache.olingo.server.api.deserializer.DeserializerException;
@@ -854,11 +856,11 @@ public class TripPinDataModel {
   }
 
   //  note these are not tied to entities for simplicity sake
-  public InputStream readMedia(Entity entity) throws ODataApplicationException {
+  public MediaContent readMedia(Entity entity) throws ODataApplicationException {
     checkForMedia(entity);
     try {
-      return new FileInputStream(new File("src/test/resources/OlingoOrangeTM.png"));
-    } catch (FileNotFoundException e) {
+      return MediaContent.of(new FileInputStream(new File("src/test/resources/OlingoOrangeTM.png")).getChannel());
+    } catch (IOException e) {
       throw new ODataApplicationException("image not found", 500, Locale.getDefault());
     }
   }
@@ -39,6 +39,7 @@ import org.apache.olingo.commons.api.edm.EdmProperty;
 import org.apache.olingo.commons.api.edm.EdmSingleton;
 import org.apache.olingo.commons.api.format.ContentType;
 import org.apache.olingo.commons.api.http.HttpMethod;
+import org.apache.olingo.server.api.MediaContent;
 import org.apache.olingo.server.api.OData;
 import org.apache.olingo.server.api.ODataApplicationException;
 import org.apache.olingo.server.api.ODataLibraryException;
@@ -404,8 +405,8 @@ public class TripPinHandler implements ServiceHandler {
     List<UriParameter> keys = request.getKeyPredicates();
     Entity entity = this.dataModel.getEntity(edmEntitySet.getName(), keys);
 
-    InputStream contents = this.dataModel.readMedia(entity);
-    response.writeStreamResponse(contents, request.getResponseContentType());
+    MediaContent contents = this.dataModel.readMedia(entity);
+    response.writeMediaResponse(contents, request.getResponseContentType());
   }
 
   @Override
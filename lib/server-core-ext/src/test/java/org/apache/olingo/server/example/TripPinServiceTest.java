@@ -273,6 +273,15 @@ public class TripPinServiceTest {
     EntityUtils.consumeQuietly(response.getEntity());
   }
 
+  @Test
+  public void testReadMediaRange() throws Exception {
+    HttpRequest request = new HttpGet(baseURL + "/Photos(1)/$value");
+    request.setHeader("Range", "bytes=1-3");
+    HttpResponse response = httpSend(request, 206);
+    assertEquals("bytes 1-3/93316", getHeader(response, "Content-Range"));
+    assertEquals("PNG", IOUtils.toString(response.getEntity().getContent()));
+  }
+
   @Test
   public void testCreateMedia() throws Exception {
     // treating update and create as same for now, as there is details about
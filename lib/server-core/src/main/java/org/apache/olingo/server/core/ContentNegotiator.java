@@ -21,6 +21,8 @@ package org.apache.olingo.server.core;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.apache.olingo.commons.api.format.AcceptType;
 import org.apache.olingo.commons.api.format.ContentType;
@@ -44,21 +46,32 @@ public final class ContentNegotiator {
           ContentType.JSON_FULL_METADATA,
           ContentType.APPLICATION_ATOM_XML,
           ContentType.APPLICATION_XML));
+  private static final List<ContentType> XML_CONTENT_TYPES = Collections.singletonList(ContentType.APPLICATION_XML);
+  private static final List<ContentType> BINARY_CONTENT_TYPES =
+      Collections.singletonList(ContentType.APPLICATION_OCTET_STREAM);
+  private static final List<ContentType> TEXT_CONTENT_TYPES = Collections.singletonList(ContentType.TEXT_PLAIN);
+  private static final List<ContentType> BATCH_CONTENT_TYPES = Collections.singletonList(ContentType.MULTIPART_MIXED);
+
+  /**
+   * Negotiated content types for the default supported content types,
+   * keyed by representation type, $format value, and Accept header value.
+   */
+  private static final ConcurrentMap<String, ContentType> NEGOTIATED = new ConcurrentHashMap<String, ContentType>();
 
   private ContentNegotiator() {}
 
   private static List<ContentType> getDefaultSupportedContentTypes(final RepresentationType type) {
     switch (type) {
     case METADATA:
-      return Collections.singletonList(ContentType.APPLICATION_XML);
+      return XML_CONTENT_TYPES;
     case MEDIA:
     case BINARY:
-      return Collections.singletonList(ContentType.APPLICATION_OCTET_STREAM);
+      return BINARY_CONTENT_TYPES;
     case VALUE:
     case COUNT:
-      return Collections.singletonList(ContentType.TEXT_PLAIN);
+      return TEXT_CONTENT_TYPES;
     case BATCH:
-      return Collections.singletonList(ContentType.MULTIPART_MIXED);
+      return BATCH_CONTENT_TYPES;
     default:
       return DEFAULT_SUPPORTED_CONTENT_TYPES;
     }
@@ -81,9 +94,27 @@ public final class ContentNegotiator {
   public static ContentType doContentNegotiation(final FormatOption formatOption, final ODataRequest request,
       final CustomContentTypeSupport customContentTypeSupport, final RepresentationType representationType)
           throws ContentNegotiatorException {
+    final String acceptHeaderValue = request.getHeader(HttpHeader.ACCEPT);
+    // The result can only be re-used if the supported content types are not modified by the application.
+    final String key = customContentTypeSupport == null ?
+        representationType.name() + '\n' + (formatOption == null ? null : formatOption.getFormat())
+            + '\n' + acceptHeaderValue :
+        null;
+    ContentType result = key == null ? null : NEGOTIATED.get(key);
+    if (result == null) {
+      result = negotiate(formatOption, acceptHeaderValue, customContentTypeSupport, representationType);
+      if (key != null) {
+        ContentTypeCache.put(NEGOTIATED, key, result);
+      }
+    }
+    return result;
+  }
+
+  private static ContentType negotiate(final FormatOption formatOption, final String acceptHeaderValue,
+      final CustomContentTypeSupport customContentTypeSupport, final RepresentationType representationType)
+          throws ContentNegotiatorException {
     final List<ContentType> supportedContentTypes =
         getSupportedContentTypes(customContentTypeSupport, representationType);
-    final String acceptHeaderValue = request.getHeader(HttpHeader.ACCEPT);
     ContentType result = null;
 
     if (formatOption != null && formatOption.getFormat() != null) {
@@ -93,7 +124,7 @@ public final class ContentNegotiator {
       try {
         result = getAcceptedType(
             AcceptType.fromContentType(contentType == null ?
-                ContentType.create(formatOption.getFormat()) : contentType),
+                ContentTypeCache.getContentType(formatOption.getFormat()) : contentType),
                 supportedContentTypes);
       } catch (final IllegalArgumentException e) {
         // Exception results in result = null for next check.
@@ -104,7 +135,7 @@ public final class ContentNegotiator {
       }
     } else if (acceptHeaderValue != null) {
       try {
-        result = getAcceptedType(AcceptType.create(acceptHeaderValue), supportedContentTypes);
+        result = getAcceptedType(ContentTypeCache.getAcceptTypes(acceptHeaderValue), supportedContentTypes);
       } catch (final IllegalArgumentException e) {
         result = null;
       }
@@ -0,0 +1,102 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.apache.olingo.commons.api.format.AcceptType;
+import org.apache.olingo.commons.api.format.ContentType;
+
+/**
+ * Cache of parsed <code>Content-Type</code> and <code>Accept</code> header values.
+ * <p/>
+ * Clients usually send only a few distinct header values, so parsing them again for every request
+ * (and for every part of a batch request) can be avoided. Since {@link ContentType} and {@link AcceptType}
+ * are immutable, the parsed instances are shared. The caches are bounded; if a cache is full
+ * (e.g., because of many different header values) it is cleared and filled again.
+ * Values which cannot be parsed are not cached.
+ */
+public final class ContentTypeCache {
+
+  /** Maximum number of entries of each cache. */
+  public static final int MAX_ENTRIES = 256;
+
+  private static final ConcurrentMap<String, ContentType> CONTENT_TYPES =
+      new ConcurrentHashMap<String, ContentType>();
+  private static final ConcurrentMap<String, List<AcceptType>> ACCEPT_TYPES =
+      new ConcurrentHashMap<String, List<AcceptType>>();
+
+  private ContentTypeCache() { /* private ctor for helper class */}
+
+  /**
+   * Gets the content type for a content-type string, see {@link ContentType#create(String)}.
+   * @param format a string in format as defined in RFC 7231, chapter 3.1.1.1
+   * @return the content type
+   * @throws IllegalArgumentException if input string is not parseable
+   */
+  public static ContentType getContentType(final String format) throws IllegalArgumentException {
+    if (format == null) {
+      throw new IllegalArgumentException("Parameter format MUST NOT be NULL.");
+    }
+    ContentType contentType = CONTENT_TYPES.get(format);
+    if (contentType == null) {
+      contentType = ContentType.create(format);
+      put(CONTENT_TYPES, format, contentType);
+    }
+    return contentType;
+  }
+
+  /**
+   * Gets the content type for a content-type string, see {@link ContentType#parse(String)}.
+   * @param format a string in format as defined in RFC 7231, chapter 3.1.1.1
+   * @return the content type or <code>null</code> if the string is not parseable
+   */
+  public static ContentType parseContentType(final String format) {
+    try {
+      return format == null ? null : getContentType(format);
+    } catch (final IllegalArgumentException e) {
+      return null;
+    }
+  }
+
+  /**
+   * Gets the accept types for an <code>Accept</code> header value, see {@link AcceptType#create(String)}.
+   * @param acceptTypes the accept types as comma-separated string
+   * @return an unmodifiable list of accept types, sorted by quality parameter
+   * @throws IllegalArgumentException if input string is not parseable
+   */
+  public static List<AcceptType> getAcceptTypes(final String acceptTypes) throws IllegalArgumentException {
+    List<AcceptType> result = ACCEPT_TYPES.get(acceptTypes);
+    if (result == null) {
+      result = Collections.unmodifiableList(AcceptType.create(acceptTypes));
+      put(ACCEPT_TYPES, acceptTypes, result);
+    }
+    return result;
+  }
+
+  static <V> void put(final ConcurrentMap<String, V> cache, final String key, final V value) {
+    if (cache.size() >= MAX_ENTRIES) {
+      cache.clear();
+    }
+    cache.putIfAbsent(key, value);
+  }
+}
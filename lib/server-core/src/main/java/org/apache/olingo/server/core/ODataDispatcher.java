@@ -337,7 +337,7 @@ public class ODataDispatcher {
     } else if (method == HttpMethod.PUT && (isEntityOrNavigationMedia(resource) 
         || isSingletonMedia(resource))) {
       validatePreconditions(request, true);
-      final ContentType requestFormat = ContentType.parse(request.getHeader(HttpHeader.CONTENT_TYPE));
+      final ContentType requestFormat = ContentTypeCache.parseContentType(request.getHeader(HttpHeader.CONTENT_TYPE));
       final ContentType responseFormat = ContentNegotiator.doContentNegotiation(uriInfo.getFormatOption(),
           request, handler.getCustomContentTypeSupport(), RepresentationType.ENTITY);
       handler.selectProcessor(MediaEntityProcessor.class)
@@ -515,7 +515,7 @@ public class ODataDispatcher {
           doContentNegotiation(uriInfo.getFormatOption(),
           request, handler.getCustomContentTypeSupport(), RepresentationType.ENTITY);
       if (isMedia) {
-        final ContentType requestFormat = ContentType.parse(
+        final ContentType requestFormat = ContentTypeCache.parseContentType(
             request.getHeader(HttpHeader.CONTENT_TYPE));
         handler.selectProcessor(MediaEntityProcessor.class)
             .createMediaEntity(request, response, uriInfo, requestFormat, responseFormat);
@@ -634,7 +634,7 @@ public class ODataDispatcher {
     }
     ContentType contentType;
     try {
-      contentType = ContentType.create(contentTypeHeader);
+      contentType = ContentTypeCache.getContentType(contentTypeHeader);
     } catch (final IllegalArgumentException e) {
       throw new ODataHandlerException("Illegal content type.", e,
           ODataHandlerException.MessageKeys.INVALID_CONTENT_TYPE, contentTypeHeader);
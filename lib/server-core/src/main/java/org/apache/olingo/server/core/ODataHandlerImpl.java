@@ -38,6 +38,7 @@ import org.apache.olingo.server.api.ServiceMetadata;
 import org.apache.olingo.server.api.deserializer.DeserializerException;
 import org.apache.olingo.server.api.etag.CustomETagSupport;
 import org.apache.olingo.server.api.etag.PreconditionException;
+import org.apache.olingo.server.api.metrics.RequestPhase;
 import org.apache.olingo.server.api.processor.DefaultProcessor;
 import org.apache.olingo.server.api.processor.ErrorProcessor;
 import org.apache.olingo.server.api.processor.Processor;
@@ -48,6 +49,7 @@ import org.apache.olingo.server.api.uri.UriInfo;
 import org.apache.olingo.server.api.uri.queryoption.FormatOption;
 import org.apache.olingo.server.api.uri.queryoption.SystemQueryOptionKind;
 import org.apache.olingo.server.core.debug.ServerCoreDebugger;
+import org.apache.olingo.server.core.metrics.RequestMetricsRecorder;
 import org.apache.olingo.server.core.uri.parser.Parser;
 import org.apache.olingo.server.core.uri.parser.UriParserException;
 import org.apache.olingo.server.core.uri.parser.UriParserSemanticException;
@@ -133,6 +135,7 @@ public class ODataHandlerImpl implements ODataHandler {
       throw e;
     }
 
+    RequestMetricsRecorder.enter(RequestPhase.PARSE);
     final int measurementUriParser = debugger.startRuntimeMeasurement("Parser", "parseUri");
     try {
       uriInfo = new Parser(serviceMetadata.getEdm(), odata)
@@ -144,6 +147,7 @@ public class ODataHandlerImpl implements ODataHandler {
     }
     debugger.stopRuntimeMeasurement(measurementUriParser);
 
+    RequestMetricsRecorder.enter(RequestPhase.VALIDATE);
     final int measurementUriValidator = debugger.startRuntimeMeasurement("UriValidator", "validate");
     final HttpMethod method = request.getMethod();
     try {
@@ -155,6 +159,7 @@ public class ODataHandlerImpl implements ODataHandler {
     }
     debugger.stopRuntimeMeasurement(measurementUriValidator);
 
+    RequestMetricsRecorder.enter(RequestPhase.DISPATCH);
     final int measurementDispatcher = debugger.startRuntimeMeasurement("ODataDispatcher", "dispatch");
     try {
       new ODataDispatcher(uriInfo, this).dispatch(request, response);
@@ -231,6 +236,7 @@ public class ODataHandlerImpl implements ODataHandler {
   <T extends Processor> T selectProcessor(final Class<T> cls) throws ODataHandlerException {
     for (final Processor processor : processors) {
       if (cls.isAssignableFrom(processor.getClass())) {
+        RequestMetricsRecorder.enter(RequestPhase.PROCESSOR);
         processor.init(odata, serviceMetadata);
         return cls.cast(processor);
       }
@@ -18,13 +18,19 @@
  */
 package org.apache.olingo.server.core;
 
+import java.io.Closeable;
+import java.io.FileInputStream;
+import java.io.FilterOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.nio.ByteBuffer;
 import java.nio.channels.Channel;
 import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
 import java.nio.channels.ReadableByteChannel;
 import java.nio.channels.WritableByteChannel;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Enumeration;
 import java.util.LinkedHashMap;
@@ -38,7 +44,9 @@ import javax.servlet.http.HttpServletResponse;
 import org.apache.olingo.commons.api.ex.ODataRuntimeException;
 import org.apache.olingo.commons.api.http.HttpHeader;
 import org.apache.olingo.commons.api.http.HttpMethod;
+import org.apache.olingo.commons.api.http.HttpStatusCode;
 import org.apache.olingo.server.api.OData;
+import org.apache.olingo.server.api.MediaContent;
 import org.apache.olingo.server.api.ODataContent;
 import org.apache.olingo.server.api.ODataHttpHandler;
 import org.apache.olingo.server.api.ODataLibraryException;
@@ -50,19 +58,29 @@ import org.apache.olingo.server.api.ServiceMetadata;
 import org.apache.olingo.server.api.debug.DebugSupport;
 import org.apache.olingo.server.api.deserializer.DeserializerException;
 import org.apache.olingo.server.api.etag.CustomETagSupport;
+import org.apache.olingo.server.api.metrics.RequestMetricsListener;
+import org.apache.olingo.server.api.metrics.RequestPhase;
 import org.apache.olingo.server.api.processor.Processor;
 import org.apache.olingo.server.api.serializer.CustomContentTypeSupport;
+import org.apache.olingo.server.core.async.AsyncRequestEngine;
 import org.apache.olingo.server.core.debug.ServerCoreDebugger;
+import org.apache.olingo.server.core.metrics.RequestMetricsRecorder;
+import org.apache.olingo.server.core.serializer.utils.CircleStreamBuffer;
 
 public class ODataHttpHandlerImpl implements ODataHttpHandler {
 
   public static final int COPY_BUFFER_SIZE = 8192;
+  private static final String BYTES_UNIT = "bytes=";
+  private static final long[] UNSATISFIABLE_RANGE = new long[0];
   private static final String REQUESTMAPPING = "requestMapping";
 
   private final ODataHandlerImpl handler;
   private final ServerCoreDebugger debugger;
 
   private int split = 0;
+  private AsyncRequestEngine asyncRequestEngine;
+  private final List<RequestMetricsListener> metricsListeners = new ArrayList<RequestMetricsListener>();
+  private RequestMetricsRecorder metricsRecorder;
 
   public ODataHttpHandlerImpl(final OData odata, final ServiceMetadata serviceMetadata) {
     debugger = new ServerCoreDebugger(odata);
@@ -71,12 +89,25 @@ public class ODataHttpHandlerImpl implements ODataHttpHandler {
 
   @Override
   public ODataResponse process(ODataRequest request) {
-    return handler.process(request);
+    return asyncRequestEngine == null ? handler.process(request) : asyncRequestEngine.process(request, handler);
   }
 
   @Override
   public void process(final HttpServletRequest request, final HttpServletResponse response) {
+    final boolean recording = metricsRecorder != null && metricsRecorder.start();
     ODataRequest odRequest = new ODataRequest();
+    ODataResponse odResponse = null;
+    try {
+      odResponse = processRequest(odRequest, request, response);
+    } finally {
+      if (recording) {
+        completeMetrics(request, odRequest, odResponse);
+      }
+    }
+  }
+
+  private ODataResponse processRequest(final ODataRequest odRequest, final HttpServletRequest request,
+      final HttpServletResponse response) {
     Exception exception = null;
     ODataResponse odResponse;
     debugger.resolveDebugMode(request);
@@ -104,7 +135,22 @@ public class ODataHttpHandlerImpl implements ODataHttpHandler {
               serverEnvironmentVariables);
     }
 
-    convertToHttp(response, odResponse);
+    RequestMetricsRecorder.enter(RequestPhase.WRITE);
+    convertToHttp(request, response, odResponse);
+    return odResponse;
+  }
+
+  private void completeMetrics(final HttpServletRequest request, final ODataRequest odRequest,
+      final ODataResponse odResponse) {
+    metricsRecorder.stop();
+    metricsRecorder.setMethod(odRequest.getMethod());
+    metricsRecorder.setStatusCode(odResponse == null ?
+        HttpStatusCode.INTERNAL_SERVER_ERROR.getStatusCode() : odResponse.getStatusCode());
+    metricsRecorder.setUriInfo(handler.getUriInfo());
+    metricsRecorder.setRequestBytes(request.getContentLength());
+    for (final RequestMetricsListener listener : metricsListeners) {
+      listener.requestCompleted(metricsRecorder);
+    }
   }
 
   private Map<String, String> createEnvironmentVariablesMap(final HttpServletRequest request) {
@@ -150,43 +196,182 @@ public class ODataHttpHandlerImpl implements ODataHttpHandler {
   }
 
   static void convertToHttp(final HttpServletResponse response, final ODataResponse odResponse) {
+    convertToHttp(null, response, odResponse);
+  }
+
+  /**
+   * Converts the OData response into the servlet response.
+   * A <code>Range</code> header of the servlet request is taken into account for media content.
+   * @param request the servlet request or <code>null</code>
+   * @param response the servlet response
+   * @param odResponse the OData response
+   */
+  static void convertToHttp(final HttpServletRequest request, final HttpServletResponse response,
+      final ODataResponse odResponse) {
+    if (odResponse.getMediaContent() != null) {
+      writeMediaContent(request, response, odResponse);
+      return;
+    }
+
     response.setStatus(odResponse.getStatusCode());
+    writeHeaders(response, odResponse);
+
+    if (odResponse.getContent() != null) {
+      copyContent(odResponse.getContent(), response);
+    } else if (odResponse.getODataContent() != null) {
+      writeContent(odResponse, response);
+    }
+  }
 
+  private static void writeHeaders(final HttpServletResponse response, final ODataResponse odResponse) {
     for (Entry<String, List<String>> entry : odResponse.getAllHeaders().entrySet()) {
       for (String headerValue : entry.getValue()) {
         response.addHeader(entry.getKey(), headerValue);
       }
     }
+  }
 
-    if (odResponse.getContent() != null) {
-      copyContent(odResponse.getContent(), response);
-    } else if (odResponse.getODataContent() != null) {
-      writeContent(odResponse, response);
+  /**
+   * Writes media content, or the part of it requested by a single byte range (RFC 7233) of a GET request.
+   * Multiple ranges and ranges which cannot be parsed are ignored, so that the complete content is sent.
+   */
+  private static void writeMediaContent(final HttpServletRequest request, final HttpServletResponse response,
+      final ODataResponse odResponse) {
+    final MediaContent mediaContent = odResponse.getMediaContent();
+    final long length = mediaContent.getLength();
+    MediaContent content = mediaContent;
+    int statusCode = odResponse.getStatusCode();
+    String contentRange = null;
+    if (statusCode == HttpStatusCode.OK.getStatusCode() && isRangeApplicable(request, odResponse)) {
+      final long[] range = parseRange(request.getHeader(HttpHeader.RANGE), length);
+      if (range == UNSATISFIABLE_RANGE) {
+        statusCode = HttpStatusCode.RANGE_NOT_SATISFIABLE.getStatusCode();
+        contentRange = "bytes */" + length;
+        content = null;
+      } else if (range != null) {
+        statusCode = HttpStatusCode.PARTIAL_CONTENT.getStatusCode();
+        contentRange = "bytes " + range[0] + '-' + range[1] + '/' + length;
+        content = mediaContent.getPart(range[0], range[1] - range[0] + 1);
+      }
+    }
+
+    response.setStatus(statusCode);
+    writeHeaders(response, odResponse);
+    if (statusCode == HttpStatusCode.OK.getStatusCode()) {
+      response.setHeader(HttpHeader.ACCEPT_RANGES, "bytes");
+    }
+    if (contentRange != null) {
+      response.setHeader(HttpHeader.CONTENT_RANGE, contentRange);
+    }
+
+    WritableByteChannel output = null;
+    try {
+      if (content != null) {
+        response.setHeader(HttpHeader.CONTENT_LENGTH, Long.toString(content.getLength()));
+        output = Channels.newChannel(response.getOutputStream());
+        RequestMetricsRecorder.addResponseBytes(content.transferTo(output));
+      }
+    } catch (IOException e) {
+      throw new ODataRuntimeException("Error on reading request content", e);
+    } finally {
+      closeStream(mediaContent);
+      closeStream(output);
+    }
+  }
+
+  private static boolean isRangeApplicable(final HttpServletRequest request, final ODataResponse odResponse) {
+    if (request == null || request.getHeader(HttpHeader.RANGE) == null
+        || !HttpMethod.GET.name().equals(request.getMethod())) {
+      return false;
+    }
+    // A range is only sent if the entity tag given in If-Range still matches (RFC 7233, section 3.2).
+    // The strong comparison is required, so a weak entity tag on either side never matches.
+    final String ifRange = request.getHeader(HttpHeader.IF_RANGE);
+    if (ifRange == null) {
+      return true;
+    }
+    final String eTag = odResponse.getHeader(HttpHeader.ETAG);
+    return eTag != null && !isWeak(ifRange) && !isWeak(eTag) && ifRange.trim().equals(eTag.trim());
+  }
+
+  private static boolean isWeak(final String eTag) {
+    return eTag.trim().startsWith("W/");
+  }
+
+  /**
+   * Parses a <code>Range</code> header with a single byte range.
+   * @return first and last byte position, <code>null</code> if the header is ignored,
+   *         or {@link #UNSATISFIABLE_RANGE}
+   */
+  static long[] parseRange(final String rangeHeader, final long length) {
+    final String value = rangeHeader.trim();
+    if (!value.regionMatches(true, 0, BYTES_UNIT, 0, BYTES_UNIT.length()) || value.indexOf(',') >= 0) {
+      return null;
+    }
+    final String range = value.substring(BYTES_UNIT.length()).trim();
+    final int dash = range.indexOf('-');
+    if (dash < 0) {
+      return null;
+    }
+    try {
+      final String first = range.substring(0, dash).trim();
+      final String last = range.substring(dash + 1).trim();
+      if (first.isEmpty()) {
+        // suffix range: the last bytes of the content
+        final long suffixLength = Long.parseLong(last);
+        if (suffixLength < 0) {
+          return null;
+        }
+        return suffixLength == 0 || length == 0 ? UNSATISFIABLE_RANGE :
+            new long[] { Math.max(0, length - suffixLength), length - 1 };
+      }
+      final long firstPosition = Long.parseLong(first);
+      final long lastPosition = last.isEmpty() ? Long.MAX_VALUE : Long.parseLong(last);
+      if (firstPosition < 0 || lastPosition < firstPosition) {
+        return null;
+      }
+      return firstPosition >= length ? UNSATISFIABLE_RANGE :
+          new long[] { firstPosition, Math.min(lastPosition, length - 1) };
+    } catch (final NumberFormatException e) {
+      return null;
     }
   }
 
   static void writeContent(final ODataResponse odataResponse, final HttpServletResponse servletResponse) {
     try {
       ODataContent res = odataResponse.getODataContent();
-      res.write(Channels.newChannel(servletResponse.getOutputStream()));
+      res.write(RequestMetricsRecorder.isRecording() ?
+          new CountingOutputStream(servletResponse.getOutputStream()) : servletResponse.getOutputStream());
     } catch (IOException e) {
       throw new ODataRuntimeException("Error on reading request content", e);
     }
   }
 
   static void copyContent(final InputStream inputStream, final HttpServletResponse servletResponse) {
-    copyContent(Channels.newChannel(inputStream), servletResponse);
+    if (inputStream instanceof CircleStreamBuffer.InternalInputStream) {
+      transferContent((CircleStreamBuffer.InternalInputStream) inputStream, servletResponse);
+    } else if (inputStream instanceof FileInputStream) {
+      copyContent(((FileInputStream) inputStream).getChannel(), servletResponse);
+    } else {
+      copyContent(Channels.newChannel(inputStream), servletResponse);
+    }
   }
 
   static void copyContent(final ReadableByteChannel input, final HttpServletResponse servletResponse) {
     WritableByteChannel output = null;
     try {
-      ByteBuffer inBuffer = ByteBuffer.allocate(COPY_BUFFER_SIZE);
       output = Channels.newChannel(servletResponse.getOutputStream());
-      while (input.read(inBuffer) > 0) {
-        inBuffer.flip();
-        output.write(inBuffer);
-        inBuffer.clear();
+      if (input instanceof FileChannel) {
+        transferFile((FileChannel) input, output);
+      } else {
+        ByteBuffer inBuffer = ByteBuffer.allocate(COPY_BUFFER_SIZE);
+        long written = 0;
+        while (input.read(inBuffer) > 0) {
+          inBuffer.flip();
+          written += output.write(inBuffer);
+          inBuffer.clear();
+        }
+        RequestMetricsRecorder.addResponseBytes(written);
       }
     } catch (IOException e) {
       throw new ODataRuntimeException("Error on reading request content", e);
@@ -196,6 +381,43 @@ public class ODataHttpHandlerImpl implements ODataHttpHandler {
     }
   }
 
+  /**
+   * Writes the already serialized content directly from the serializer buffers into the servlet output stream
+   * (without an additional copy buffer).
+   */
+  private static void transferContent(final CircleStreamBuffer.InternalInputStream input,
+      final HttpServletResponse servletResponse) {
+    OutputStream output = null;
+    try {
+      output = servletResponse.getOutputStream();
+      RequestMetricsRecorder.addResponseBytes(input.transferTo(output));
+    } catch (IOException e) {
+      throw new ODataRuntimeException("Error on reading request content", e);
+    } finally {
+      closeStream(input);
+      closeStream(output);
+    }
+  }
+
+  /**
+   * Transfers the file content from its current position on with {@link FileChannel#transferTo(long, long,
+   * WritableByteChannel)}. The output wraps the servlet output stream, so the data are copied through
+   * heap buffers in chunks; the file is never read into memory as a whole.
+   */
+  private static void transferFile(final FileChannel file, final WritableByteChannel output) throws IOException {
+    final long start = file.position();
+    long position = start;
+    final long size = file.size();
+    while (position < size) {
+      final long transferred = file.transferTo(position, size - position, output);
+      if (transferred <= 0) {
+        break;
+      }
+      position += transferred;
+    }
+    RequestMetricsRecorder.addResponseBytes(position - start);
+  }
+
   private static void closeStream(final Channel closeable) {
     if (closeable != null) {
       try {
@@ -206,6 +428,16 @@ public class ODataHttpHandlerImpl implements ODataHttpHandler {
     }
   }
 
+  private static void closeStream(final Closeable closeable) {
+    if (closeable != null) {
+      try {
+        closeable.close();
+      } catch (IOException e) {
+        // ignore
+      }
+    }
+  }
+
   private ODataRequest fillODataRequest(final ODataRequest odRequest, final HttpServletRequest httpRequest,
       final int split) throws ODataLibraryException {
     final int requestHandle = debugger.startRuntimeMeasurement("ODataHttpHandlerImpl", "fillODataRequest");
@@ -326,7 +558,11 @@ public class ODataHttpHandlerImpl implements ODataHttpHandler {
 
   @Override
   public void register(OlingoExtension extension) {
-    handler.register(extension);
+    if (extension instanceof AsyncRequestEngine) {
+      asyncRequestEngine = (AsyncRequestEngine) extension;
+    } else {
+      handler.register(extension);
+    }
   }
 
   @Override
@@ -343,4 +579,32 @@ public class ODataHttpHandlerImpl implements ODataHttpHandler {
   public void register(final DebugSupport debugSupport) {
     debugger.setDebugSupportProcessor(debugSupport);
   }
+
+  @Override
+  public void register(final RequestMetricsListener metricsListener) {
+    metricsListeners.add(metricsListener);
+    if (metricsRecorder == null) {
+      metricsRecorder = new RequestMetricsRecorder();
+    }
+  }
+
+  /** Counts the bytes of content written directly by an {@link ODataContent}. */
+  private static class CountingOutputStream extends FilterOutputStream {
+
+    public CountingOutputStream(final OutputStream out) {
+      super(out);
+    }
+
+    @Override
+    public void write(final int b) throws IOException {
+      out.write(b);
+      RequestMetricsRecorder.addResponseBytes(1);
+    }
+
+    @Override
+    public void write(final byte[] b, final int off, final int len) throws IOException {
+      out.write(b, off, len);
+      RequestMetricsRecorder.addResponseBytes(len);
+    }
+  }
 }
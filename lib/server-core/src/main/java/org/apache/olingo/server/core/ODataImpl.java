@@ -53,11 +53,22 @@ import org.apache.olingo.server.core.prefer.PreferencesImpl;
 import org.apache.olingo.server.core.serializer.FixedFormatSerializerImpl;
 import org.apache.olingo.server.core.serializer.json.EdmAssistedJsonSerializer;
 import org.apache.olingo.server.core.serializer.json.ODataJsonSerializer;
+import org.apache.olingo.server.core.serializer.utils.ByteBufferPool;
 import org.apache.olingo.server.core.serializer.xml.ODataXmlSerializer;
 import org.apache.olingo.server.core.uri.UriHelperImpl;
 
 public class ODataImpl extends OData {
 
+  private ByteBufferPool bufferPool;
+
+  /**
+   * Sets the pool which the serializers created by this instance take their buffers from.
+   * @param bufferPool pool for serializer buffers or <code>null</code> to allocate new buffers for each result
+   */
+  public void setBufferPool(final ByteBufferPool bufferPool) {
+    this.bufferPool = bufferPool;
+  }
+
   @Override
   public ODataSerializer createSerializer(final ContentType contentType) throws SerializerException {
     ODataSerializer serializer = null;
@@ -68,11 +79,11 @@ public class ODataImpl extends OData {
           || ContentType.VALUE_ODATA_METADATA_MINIMAL.equalsIgnoreCase(metadata)
           || ContentType.VALUE_ODATA_METADATA_NONE.equalsIgnoreCase(metadata)
           || ContentType.VALUE_ODATA_METADATA_FULL.equalsIgnoreCase(metadata)) {
-        serializer = new ODataJsonSerializer(contentType);
+        serializer = new ODataJsonSerializer(contentType, bufferPool);
       }
     } else if (contentType.isCompatible(ContentType.APPLICATION_XML)
         || contentType.isCompatible(ContentType.APPLICATION_ATOM_XML)) {
-      serializer = new ODataXmlSerializer();
+      serializer = new ODataXmlSerializer(bufferPool);
     }
 
     if (serializer == null) {
@@ -128,7 +128,7 @@ public class ODataWritableContent implements ODataContent {
 
   @Override
   public void write(OutputStream stream) {
-    write(Channels.newChannel(stream));
+    this.streamContent.write(stream);
   }
 
   private ODataWritableContent(StreamContent streamContent) {
@@ -0,0 +1,92 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.async;
+
+/**
+ * State of an asynchronously processed request (<code>Prefer: respond-async</code>).
+ */
+public class AsyncJob {
+
+  /**
+   * Processing status of an asynchronous job.
+   */
+  public enum Status {
+    /** The request is queued or processed. */
+    RUNNING,
+    /** The request was processed and the result is available. */
+    COMPLETED,
+    /** The processing was cancelled by the client. */
+    CANCELLED
+  }
+
+  private final String id;
+  private final long created;
+  private Status status;
+  private long finished;
+
+  public AsyncJob(final String id, final long created) {
+    this(id, Status.RUNNING, created, 0);
+  }
+
+  public AsyncJob(final String id, final Status status, final long created, final long finished) {
+    this.id = id;
+    this.status = status;
+    this.created = created;
+    this.finished = finished;
+  }
+
+  /**
+   * @return the id of the job (used in the status monitor URL)
+   */
+  public String getId() {
+    return id;
+  }
+
+  public Status getStatus() {
+    return status;
+  }
+
+  /**
+   * @return creation time in milliseconds
+   */
+  public long getCreated() {
+    return created;
+  }
+
+  /**
+   * @return time in milliseconds when the job was finished (completed or cancelled) or <code>0</code> if still running
+   */
+  public long getFinished() {
+    return finished;
+  }
+
+  /**
+   * Marks this job as finished with the given status.
+   * @param status final status
+   * @param finished time in milliseconds
+   */
+  public void finish(final Status status, final long finished) {
+    this.status = status;
+    this.finished = finished;
+  }
+
+  public boolean isRunning() {
+    return status == Status.RUNNING;
+  }
+}
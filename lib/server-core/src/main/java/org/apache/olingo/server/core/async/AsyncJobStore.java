@@ -0,0 +1,79 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.async;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Collection;
+
+/**
+ * Storage for asynchronous jobs and their (serialized) results.
+ * Implementations must be thread safe.
+ * @see InMemoryAsyncJobStore
+ * @see FileAsyncJobStore
+ */
+public interface AsyncJobStore {
+
+  /**
+   * Creates or updates the given job.
+   * @param job the job
+   * @throws IOException if the job could not be stored
+   */
+  void save(AsyncJob job) throws IOException;
+
+  /**
+   * Gets the job with the given id.
+   * @param id job id
+   * @return the job or <code>null</code> if no job with this id exists
+   * @throws IOException if the job could not be read
+   */
+  AsyncJob get(String id) throws IOException;
+
+  /**
+   * Gets all stored jobs.
+   * @return all jobs
+   * @throws IOException if the jobs could not be read
+   */
+  Collection<AsyncJob> getAll() throws IOException;
+
+  /**
+   * Opens a stream into which the serialized response (<code>application/http</code>) of a job is written.
+   * The result is stored when the stream is closed; it is not readable before.
+   * @param id job id
+   * @return stream for the serialized response
+   * @throws IOException if the result could not be stored
+   */
+  OutputStream openResult(String id) throws IOException;
+
+  /**
+   * Reads the serialized response of a job.
+   * @param id job id
+   * @return the serialized response or <code>null</code> if no result is stored
+   * @throws IOException if the result could not be read
+   */
+  InputStream readResult(String id) throws IOException;
+
+  /**
+   * Removes the job and its result.
+   * @param id job id
+   * @throws IOException if the job could not be removed
+   */
+  void remove(String id) throws IOException;
+}
@@ -0,0 +1,465 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.async;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.olingo.commons.api.format.ContentType;
+import org.apache.olingo.commons.api.format.PreferenceName;
+import org.apache.olingo.commons.api.http.HttpHeader;
+import org.apache.olingo.commons.api.http.HttpMethod;
+import org.apache.olingo.commons.api.http.HttpStatusCode;
+import org.apache.olingo.server.api.OData;
+import org.apache.olingo.server.api.ODataHandler;
+import org.apache.olingo.server.api.ODataRequest;
+import org.apache.olingo.server.api.ODataResponse;
+import org.apache.olingo.server.api.OlingoExtension;
+import org.apache.olingo.server.api.serializer.SerializerException;
+import org.apache.olingo.server.core.serializer.AsyncResponseSerializer;
+
+/**
+ * Engine for asynchronous request processing as requested by the <code>Prefer: respond-async</code> header.
+ * <p/>
+ * A request with this preference is copied (including its body), processed in the configured executor and
+ * answered immediately with <code>202 Accepted</code> and the URL of a status monitor resource in the
+ * <code>Location</code> header. The status monitor resource (<code>[service root]/$async/[job id]</code>
+ * by default) answers with <code>202 Accepted</code> as long as the request is processed and afterwards with
+ * the complete response in <code>application/http</code> format.
+ * A <code>DELETE</code> request on the status monitor resource cancels the processing.
+ * <p/>
+ * Finished jobs (and their results) are kept in the {@link AsyncJobStore} for the configured retention time
+ * and are removed afterwards by {@link #evictExpired()}, which is also called for new jobs
+ * at most once per eviction interval.
+ * <p/>
+ * The engine is registered via <code>ODataHttpHandler.register(OlingoExtension)</code>.
+ * As the given {@link ODataHandler} is used later on in another thread, a new handler must be used
+ * for each request (which is the default for <code>ODataHttpHandler</code> instances created per request).
+ */
+public class AsyncRequestEngine implements OlingoExtension {
+
+  public static final String DEFAULT_STATUS_MONITOR_SEGMENT = "$async";
+  public static final long DEFAULT_RESULT_RETENTION = 60L * 60L * 1000L;
+  public static final int DEFAULT_RETRY_AFTER = 1;
+  public static final long DEFAULT_EVICTION_INTERVAL = 60L * 1000L;
+
+  private static final String RESPOND_ASYNC = PreferenceName.RESPOND_ASYNC.getName();
+  private static final String CONTENT_TRANSFER_ENCODING = "Content-Transfer-Encoding";
+  private static final int BUFFER_SIZE = 8192;
+
+  private final OData odata;
+  private final ExecutorService executor;
+  private final AsyncJobStore store;
+  private final ConcurrentMap<String, FutureTask<Void>> running = new ConcurrentHashMap<String, FutureTask<Void>>();
+
+  private String statusMonitorSegment = DEFAULT_STATUS_MONITOR_SEGMENT;
+  private long resultRetention = DEFAULT_RESULT_RETENTION;
+  private int retryAfter = DEFAULT_RETRY_AFTER;
+  private long evictionInterval = DEFAULT_EVICTION_INTERVAL;
+  private final AtomicLong nextEviction = new AtomicLong();
+
+  /**
+   * Creates an engine.
+   * @param odata OData instance (used for preference parsing and response serialization)
+   * @param executor executor in which the requests are processed
+   * @param store store for the jobs and their results
+   */
+  public AsyncRequestEngine(final OData odata, final ExecutorService executor, final AsyncJobStore store) {
+    this.odata = odata;
+    this.executor = executor;
+    this.store = store;
+  }
+
+  /**
+   * Sets the path segment (relative to the service root) of the status monitor resources.
+   * @param statusMonitorSegment path segment; default is {@value #DEFAULT_STATUS_MONITOR_SEGMENT}
+   */
+  public void setStatusMonitorSegment(final String statusMonitorSegment) {
+    this.statusMonitorSegment = statusMonitorSegment;
+  }
+
+  /**
+   * Sets the time in milliseconds for which finished jobs and their results are retained.
+   * @param resultRetention retention time in milliseconds; default is one hour
+   */
+  public void setResultRetention(final long resultRetention) {
+    this.resultRetention = resultRetention;
+  }
+
+  /**
+   * Sets the minimum time in milliseconds between two evictions triggered by new jobs.
+   * @param evictionInterval interval in milliseconds; default is one minute
+   */
+  public void setEvictionInterval(final long evictionInterval) {
+    this.evictionInterval = evictionInterval;
+    nextEviction.set(0);
+  }
+
+  /**
+   * Sets the value of the <code>Retry-After</code> header of <code>202 Accepted</code> responses.
+   * @param retryAfter seconds
+   */
+  public void setRetryAfter(final int retryAfter) {
+    this.retryAfter = retryAfter;
+  }
+
+  /**
+   * Checks whether the client requested asynchronous processing.
+   * @param request the OData request
+   * @return <code>true</code> if the <code>Prefer</code> header contains <code>respond-async</code>
+   */
+  public boolean isRespondAsyncRequested(final ODataRequest request) {
+    final List<String> prefer = request.getHeaders(HttpHeader.PREFER);
+    return prefer != null && odata.createPreferences(prefer).hasRespondAsync();
+  }
+
+  /**
+   * Checks whether the request addresses a status monitor resource of this engine.
+   * @param request the OData request
+   * @return <code>true</code> if the request is a status monitor request
+   */
+  public boolean isStatusMonitorRequest(final ODataRequest request) {
+    return getJobId(request) != null;
+  }
+
+  /**
+   * Dispatches the request: status monitor requests are answered by this engine, requests with
+   * <code>respond-async</code> preference are processed asynchronously and all other requests are
+   * processed synchronously by the given handler.
+   * @param request the OData request
+   * @param handler handler which processes the request
+   * @return the OData response
+   */
+  public ODataResponse process(final ODataRequest request, final ODataHandler handler) {
+    if (isStatusMonitorRequest(request)) {
+      return handleStatusMonitor(request);
+    } else if (isRespondAsyncRequested(request)) {
+      return submit(request, handler);
+    } else {
+      return handler.process(request);
+    }
+  }
+
+  /**
+   * Starts the asynchronous processing of the request.
+   * @param request the OData request
+   * @param handler handler which processes the request (in another thread)
+   * @return <code>202 Accepted</code> response with status monitor location,
+   * or <code>503 Service Unavailable</code> if the executor does not accept further requests
+   */
+  public ODataResponse submit(final ODataRequest request, final ODataHandler handler) {
+    evictExpiredIfDue();
+
+    final String id = UUID.randomUUID().toString();
+    final ODataRequest copy;
+    try {
+      copy = copyRequest(request);
+      store.save(new AsyncJob(id, System.currentTimeMillis()));
+    } catch (final IOException e) {
+      return statusResponse(HttpStatusCode.INTERNAL_SERVER_ERROR);
+    }
+
+    final FutureTask<Void> task = new FutureTask<Void>(new AsyncJobRunner(id, copy, handler), null);
+    running.put(id, task);
+    try {
+      executor.execute(task);
+    } catch (final RejectedExecutionException e) {
+      running.remove(id);
+      removeQuietly(id);
+      ODataResponse response = statusResponse(HttpStatusCode.SERVICE_UNAVAILABLE);
+      response.setHeader(HttpHeader.RETRY_AFTER, Integer.toString(retryAfter));
+      return response;
+    }
+
+    ODataResponse response = acceptedResponse(getStatusMonitorLocation(request, id));
+    response.setHeader(HttpHeader.PREFERENCE_APPLIED, RESPOND_ASYNC);
+    return response;
+  }
+
+  /**
+   * Answers a request on a status monitor resource.
+   * @param request the OData request
+   * @return the response: <code>202 Accepted</code> while processing, <code>200 OK</code> with the
+   * <code>application/http</code> result when finished, <code>204 No Content</code> after cancellation
+   * (<code>DELETE</code>), and <code>404 Not Found</code> for unknown (or evicted) jobs
+   */
+  public ODataResponse handleStatusMonitor(final ODataRequest request) {
+    final String id = getJobId(request);
+    try {
+      final AsyncJob job = id == null ? null : store.get(id);
+      if (job == null || job.getStatus() == AsyncJob.Status.CANCELLED) {
+        return statusResponse(HttpStatusCode.NOT_FOUND);
+      }
+      if (request.getMethod() == HttpMethod.DELETE) {
+        cancel(id);
+        return statusResponse(HttpStatusCode.NO_CONTENT);
+      }
+      if (request.getMethod() != HttpMethod.GET) {
+        return statusResponse(HttpStatusCode.METHOD_NOT_ALLOWED);
+      }
+      if (job.isRunning()) {
+        return acceptedResponse(request.getRawRequestUri());
+      }
+      final InputStream result = store.readResult(id);
+      if (result == null) {
+        return statusResponse(HttpStatusCode.INTERNAL_SERVER_ERROR);
+      }
+      ODataResponse response = statusResponse(HttpStatusCode.OK);
+      response.setHeader(HttpHeader.CONTENT_TYPE, ContentType.APPLICATION_HTTP.toContentTypeString());
+      response.setHeader(CONTENT_TRANSFER_ENCODING, "binary");
+      response.setContent(result);
+      return response;
+    } catch (final IOException e) {
+      return statusResponse(HttpStatusCode.INTERNAL_SERVER_ERROR);
+    }
+  }
+
+  /**
+   * Cancels the job (interrupting its processing if it is still running) and removes it with its result.
+   * @param id job id
+   * @return <code>true</code> if the job was still running
+   */
+  public boolean cancel(final String id) {
+    synchronized (running) {
+      final FutureTask<Void> task = running.remove(id);
+      if (task != null) {
+        task.cancel(true);
+      }
+      removeQuietly(id);
+      return task != null;
+    }
+  }
+
+  /**
+   * Removes all finished jobs whose retention time is over as well as jobs which are not running anymore
+   * (e.g., from a previous run when a persistent store is used) and were created before the retention time.
+   */
+  public void evictExpired() {
+    final long now = System.currentTimeMillis();
+    try {
+      for (AsyncJob job : store.getAll()) {
+        final boolean expired = job.isRunning() ?
+            !running.containsKey(job.getId()) && now - job.getCreated() > resultRetention :
+            now - job.getFinished() > resultRetention;
+        if (expired) {
+          store.remove(job.getId());
+        }
+      }
+    } catch (final IOException e) {
+      // eviction is retried with the next call
+    }
+  }
+
+  private void evictExpiredIfDue() {
+    final long now = System.currentTimeMillis();
+    final long next = nextEviction.get();
+    // only one of the concurrently submitting threads evicts
+    if (now >= next && nextEviction.compareAndSet(next, now + evictionInterval)) {
+      evictExpired();
+    }
+  }
+
+  /**
+   * Cancels all running jobs and shuts down the executor.
+   */
+  public void shutdown() {
+    for (String id : new ArrayList<String>(running.keySet())) {
+      cancel(id);
+    }
+    executor.shutdown();
+  }
+
+  private String getJobId(final ODataRequest request) {
+    final String path = request.getRawODataPath();
+    final String prefix = "/" + statusMonitorSegment + "/";
+    if (path != null && path.startsWith(prefix) && path.length() > prefix.length()
+        && path.indexOf('/', prefix.length()) < 0) {
+      return path.substring(prefix.length());
+    }
+    return null;
+  }
+
+  private String getStatusMonitorLocation(final ODataRequest request, final String id) {
+    final String baseUri = request.getRawBaseUri();
+    return (baseUri.endsWith("/") ? baseUri : baseUri + "/") + statusMonitorSegment + "/" + id;
+  }
+
+  private ODataResponse acceptedResponse(final String location) {
+    ODataResponse response = statusResponse(HttpStatusCode.ACCEPTED);
+    response.setHeader(HttpHeader.LOCATION, location);
+    response.setHeader(HttpHeader.RETRY_AFTER, Integer.toString(retryAfter));
+    return response;
+  }
+
+  private ODataResponse statusResponse(final HttpStatusCode status) {
+    ODataResponse response = new ODataResponse();
+    response.setStatusCode(status.getStatusCode());
+    return response;
+  }
+
+  private void removeQuietly(final String id) {
+    try {
+      store.remove(id);
+    } catch (final IOException e) {
+      // removed later on by the eviction
+    }
+  }
+
+  /**
+   * Copies the request so that it can be processed after the original request is finished.
+   * The body is read completely and the <code>respond-async</code> preference is removed.
+   */
+  static ODataRequest copyRequest(final ODataRequest request) throws IOException {
+    ODataRequest copy = new ODataRequest();
+    copy.setMethod(request.getMethod());
+    copy.setProtocol(request.getProtocol());
+    copy.setRawBaseUri(request.getRawBaseUri());
+    copy.setRawODataPath(request.getRawODataPath());
+    copy.setRawQueryPath(request.getRawQueryPath());
+    copy.setRawRequestUri(request.getRawRequestUri());
+    copy.setRawServiceResolutionUri(request.getRawServiceResolutionUri());
+    for (Map.Entry<String, List<String>> header : request.getAllHeaders().entrySet()) {
+      if (HttpHeader.PREFER.equalsIgnoreCase(header.getKey())) {
+        final List<String> preferences = removeRespondAsync(header.getValue());
+        if (!preferences.isEmpty()) {
+          copy.addHeader(header.getKey(), preferences);
+        }
+      } else {
+        copy.addHeader(header.getKey(), header.getValue());
+      }
+    }
+    if (request.getBody() != null) {
+      copy.setBody(new ByteArrayInputStream(readAll(request.getBody())));
+    }
+    return copy;
+  }
+
+  private static List<String> removeRespondAsync(final List<String> preferHeaders) {
+    List<String> result = new ArrayList<String>();
+    for (String header : preferHeaders) {
+      StringBuilder remaining = new StringBuilder();
+      for (String preference : header.split(",")) {
+        if (!RESPOND_ASYNC.equalsIgnoreCase(preference.trim())) {
+          if (remaining.length() > 0) {
+            remaining.append(',');
+          }
+          remaining.append(preference.trim());
+        }
+      }
+      if (remaining.length() > 0) {
+        result.add(remaining.toString());
+      }
+    }
+    return result;
+  }
+
+  private static byte[] readAll(final InputStream input) throws IOException {
+    ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+    byte[] tmp = new byte[BUFFER_SIZE];
+    int read;
+    while ((read = input.read(tmp)) >= 0) {
+      buffer.write(tmp, 0, read);
+    }
+    return buffer.toByteArray();
+  }
+
+  /**
+   * Processes the copied request and stores the serialized response.
+   */
+  private class AsyncJobRunner implements Runnable {
+    private final String id;
+    private final ODataRequest request;
+    private final ODataHandler handler;
+
+    public AsyncJobRunner(final String id, final ODataRequest request, final ODataHandler handler) {
+      this.id = id;
+      this.request = request;
+      this.handler = handler;
+    }
+
+    @Override
+    public void run() {
+      try {
+        ODataResponse response;
+        try {
+          response = handler.process(request);
+        } catch (final RuntimeException e) {
+          response = statusResponse(HttpStatusCode.INTERNAL_SERVER_ERROR);
+        }
+        // the result is written outside of the lock, as writing a large result must not block other jobs
+        if (running.containsKey(id) && !storeResult(response)) {
+          storeResult(statusResponse(HttpStatusCode.INTERNAL_SERVER_ERROR));
+        }
+        synchronized (running) {
+          if (running.containsKey(id)) {
+            complete();
+          } else {
+            // cancelled while the result was written
+            removeQuietly(id);
+          }
+        }
+      } finally {
+        running.remove(id);
+      }
+    }
+
+    /** Streams the serialized response into the store. */
+    private boolean storeResult(final ODataResponse response) {
+      try {
+        OutputStream output = store.openResult(id);
+        try {
+          new AsyncResponseSerializer().serialize(response, output);
+        } finally {
+          output.close();
+        }
+        return true;
+      } catch (final SerializerException e) {
+        return false;
+      } catch (final IOException e) {
+        return false;
+      }
+    }
+
+    /** Finishes the job; a job without stored result is answered with an internal server error. */
+    private void complete() {
+      try {
+        AsyncJob job = store.get(id);
+        if (job != null) {
+          job.finish(AsyncJob.Status.COMPLETED, System.currentTimeMillis());
+          store.save(job);
+        }
+      } catch (final IOException e) {
+        // job is evicted after the retention time
+      }
+    }
+  }
+}
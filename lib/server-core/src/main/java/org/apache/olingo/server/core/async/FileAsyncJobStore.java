@@ -0,0 +1,187 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.async;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Properties;
+import java.util.regex.Pattern;
+
+/**
+ * {@link AsyncJobStore} which stores jobs and results as files in a directory.
+ * Results are streamed into and out of the files, so large results do not need to be held in memory
+ * and jobs survive a restart of the service (running jobs of a previous run can not be completed anymore
+ * and are removed by the retention handling of the {@link AsyncRequestEngine}).
+ */
+public class FileAsyncJobStore implements AsyncJobStore {
+
+  private static final String JOB_SUFFIX = ".job";
+  private static final String RESULT_SUFFIX = ".result";
+  private static final String TMP_SUFFIX = ".tmp";
+  private static final String STATUS = "status";
+  private static final String CREATED = "created";
+  private static final String FINISHED = "finished";
+  private static final int BUFFER_SIZE = 8192;
+  private static final Pattern VALID_ID = Pattern.compile("[A-Za-z0-9_\\-]+");
+
+  private final File directory;
+
+  /**
+   * Creates a store in the given directory (which is created if it does not exist).
+   * @param directory directory for the job and result files
+   * @throws IOException if the directory can not be created
+   */
+  public FileAsyncJobStore(final File directory) throws IOException {
+    if (!directory.isDirectory() && !directory.mkdirs()) {
+      throw new IOException("Unable to create directory " + directory.getAbsolutePath());
+    }
+    this.directory = directory;
+  }
+
+  @Override
+  public void save(final AsyncJob job) throws IOException {
+    Properties properties = new Properties();
+    properties.setProperty(STATUS, job.getStatus().name());
+    properties.setProperty(CREATED, Long.toString(job.getCreated()));
+    properties.setProperty(FINISHED, Long.toString(job.getFinished()));
+
+    final File tmp = file(job.getId(), JOB_SUFFIX + TMP_SUFFIX);
+    OutputStream output = new FileOutputStream(tmp);
+    try {
+      properties.store(output, null);
+    } finally {
+      output.close();
+    }
+    replace(tmp, file(job.getId(), JOB_SUFFIX));
+  }
+
+  @Override
+  public AsyncJob get(final String id) throws IOException {
+    if (!isValid(id)) {
+      return null;
+    }
+    final File jobFile = file(id, JOB_SUFFIX);
+    if (!jobFile.isFile()) {
+      return null;
+    }
+    Properties properties = new Properties();
+    InputStream input = new FileInputStream(jobFile);
+    try {
+      properties.load(input);
+    } finally {
+      input.close();
+    }
+    return new AsyncJob(id,
+        AsyncJob.Status.valueOf(properties.getProperty(STATUS)),
+        Long.parseLong(properties.getProperty(CREATED)),
+        Long.parseLong(properties.getProperty(FINISHED)));
+  }
+
+  @Override
+  public Collection<AsyncJob> getAll() throws IOException {
+    final String[] names = directory.list(new FilenameFilter() {
+      @Override
+      public boolean accept(final File dir, final String name) {
+        return name.endsWith(JOB_SUFFIX);
+      }
+    });
+    List<AsyncJob> jobs = new ArrayList<AsyncJob>();
+    if (names != null) {
+      for (String name : names) {
+        final AsyncJob job = get(name.substring(0, name.length() - JOB_SUFFIX.length()));
+        if (job != null) {
+          jobs.add(job);
+        }
+      }
+    }
+    return jobs;
+  }
+
+  @Override
+  public OutputStream openResult(final String id) throws IOException {
+    final File tmp = file(id, RESULT_SUFFIX + TMP_SUFFIX);
+    final File target = file(id, RESULT_SUFFIX);
+    return new BufferedOutputStream(new FileOutputStream(tmp) {
+      private boolean closed;
+
+      @Override
+      public void close() throws IOException {
+        if (!closed) {
+          closed = true;
+          super.close();
+          replace(tmp, target);
+        }
+      }
+    }, BUFFER_SIZE);
+  }
+
+  @Override
+  public InputStream readResult(final String id) throws IOException {
+    if (!isValid(id)) {
+      return null;
+    }
+    final File resultFile = file(id, RESULT_SUFFIX);
+    return resultFile.isFile() ? new FileInputStream(resultFile) : null;
+  }
+
+  @Override
+  public void remove(final String id) throws IOException {
+    if (!isValid(id)) {
+      return;
+    }
+    delete(file(id, JOB_SUFFIX));
+    delete(file(id, RESULT_SUFFIX));
+  }
+
+  private File file(final String id, final String suffix) throws IOException {
+    if (!isValid(id)) {
+      throw new IOException("Invalid job id '" + id + "'.");
+    }
+    return new File(directory, id + suffix);
+  }
+
+  private boolean isValid(final String id) {
+    return id != null && VALID_ID.matcher(id).matches();
+  }
+
+  private void replace(final File source, final File target) throws IOException {
+    if (!source.renameTo(target)) {
+      // on some platforms rename does not replace existing files
+      delete(target);
+      if (!source.renameTo(target)) {
+        throw new IOException("Unable to write " + target.getAbsolutePath());
+      }
+    }
+  }
+
+  private void delete(final File file) throws IOException {
+    if (file.exists() && !file.delete()) {
+      throw new IOException("Unable to delete " + file.getAbsolutePath());
+    }
+  }
+}
@@ -0,0 +1,76 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.async;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * {@link AsyncJobStore} which keeps all jobs and results in memory.
+ */
+public class InMemoryAsyncJobStore implements AsyncJobStore {
+
+  private static final int BUFFER_SIZE = 8192;
+
+  private final ConcurrentMap<String, AsyncJob> jobs = new ConcurrentHashMap<String, AsyncJob>();
+  private final ConcurrentMap<String, byte[]> results = new ConcurrentHashMap<String, byte[]>();
+
+  @Override
+  public void save(final AsyncJob job) {
+    jobs.put(job.getId(), job);
+  }
+
+  @Override
+  public AsyncJob get(final String id) {
+    return jobs.get(id);
+  }
+
+  @Override
+  public Collection<AsyncJob> getAll() {
+    return new ArrayList<AsyncJob>(jobs.values());
+  }
+
+  @Override
+  public OutputStream openResult(final String id) {
+    return new ByteArrayOutputStream(BUFFER_SIZE) {
+      @Override
+      public void close() {
+        results.put(id, toByteArray());
+      }
+    };
+  }
+
+  @Override
+  public InputStream readResult(final String id) {
+    final byte[] result = results.get(id);
+    return result == null ? null : new ByteArrayInputStream(result);
+  }
+
+  @Override
+  public void remove(final String id) {
+    jobs.remove(id);
+    results.remove(id);
+  }
+}
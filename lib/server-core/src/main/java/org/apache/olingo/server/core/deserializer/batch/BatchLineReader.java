@@ -27,6 +27,7 @@ import java.util.List;
 
 import org.apache.olingo.commons.api.format.ContentType;
 import org.apache.olingo.commons.api.http.HttpHeader;
+import org.apache.olingo.server.core.ContentTypeCache;
 
 public class BatchLineReader {
   private static final byte CR = '\r';
@@ -95,7 +96,7 @@ public class BatchLineReader {
   private void updateCurrentCharset(final String currentLine) {
     if (currentLine != null) {
       if (currentLine.startsWith(HttpHeader.CONTENT_TYPE)) {
-        final ContentType contentType = ContentType.parse(
+        final ContentType contentType = ContentTypeCache.parseContentType(
             currentLine.substring(HttpHeader.CONTENT_TYPE.length() + 1, currentLine.length() - 2).trim());
         if (contentType != null) {
           final String charsetString = contentType.getParameter(ContentType.PARAMETER_CHARSET);
@@ -29,6 +29,7 @@ import java.util.regex.Pattern;
 
 import org.apache.olingo.commons.api.format.ContentType;
 import org.apache.olingo.server.api.deserializer.batch.BatchDeserializerException;
+import org.apache.olingo.server.core.ContentTypeCache;
 
 public class BatchParserCommon {
 
@@ -97,7 +98,7 @@ public class BatchParserCommon {
     }
     ContentType type;
     try {
-      type = ContentType.create(contentType);
+      type = ContentTypeCache.getContentType(contentType);
     } catch (final IllegalArgumentException e) {
       throw new BatchDeserializerException("Invalid content type.", e,
           BatchDeserializerException.MessageKeys.INVALID_CONTENT_TYPE, Integer.toString(line));
@@ -32,6 +32,7 @@ import org.apache.olingo.server.api.ODataRequest;
 import org.apache.olingo.server.api.deserializer.batch.BatchDeserializerException;
 import org.apache.olingo.server.api.deserializer.batch.BatchDeserializerException.MessageKeys;
 import org.apache.olingo.server.api.deserializer.batch.BatchRequestPart;
+import org.apache.olingo.server.core.ContentTypeCache;
 
 public class BatchRequestTransformator {
   private final String baseUri;
@@ -127,7 +128,8 @@ public class BatchRequestTransformator {
   }
 
   private Charset getCharset(final BatchQueryOperation operation) {
-    final ContentType contentType = ContentType.parse(operation.getHeaders().getHeader(HttpHeader.CONTENT_TYPE));
+    final ContentType contentType =
+        ContentTypeCache.parseContentType(operation.getHeaders().getHeader(HttpHeader.CONTENT_TYPE));
     if (contentType != null) {
       final String charsetValue = contentType.getParameter(ContentType.PARAMETER_CHARSET);
       if (charsetValue == null) {
@@ -0,0 +1,130 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Thread-safe histogram of non-negative values (e.g., durations in nanoseconds) with a fixed memory footprint.
+ * <p/>
+ * Values are counted in log-linear buckets: every power-of-two range is divided into
+ * {@value #SUB_BUCKETS} equally sized buckets, so percentiles are reported with a relative error
+ * of at most about 6%, independently of the magnitude of the values. Recording a value
+ * neither allocates objects nor takes locks.
+ */
+public class LatencyHistogram {
+
+  private static final int SUB_BUCKET_BITS = 4;
+  /** Number of buckets per power of two. */
+  public static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+  private static final int BUCKETS = (64 - SUB_BUCKET_BITS) * SUB_BUCKETS + 2 * SUB_BUCKETS;
+
+  private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+  private final AtomicLong count = new AtomicLong();
+  private final AtomicLong sum = new AtomicLong();
+  private final AtomicLong max = new AtomicLong();
+
+  /**
+   * Records a value; negative values are recorded as zero.
+   * @param value the value
+   */
+  public void record(final long value) {
+    final long recorded = value < 0 ? 0 : value;
+    counts.incrementAndGet(getBucket(recorded));
+    count.incrementAndGet();
+    sum.addAndGet(recorded);
+    long current = max.get();
+    while (recorded > current && !max.compareAndSet(current, recorded)) {
+      current = max.get();
+    }
+  }
+
+  /**
+   * @return number of recorded values
+   */
+  public long getCount() {
+    return count.get();
+  }
+
+  /**
+   * @return largest recorded value or zero if nothing has been recorded
+   */
+  public long getMax() {
+    return max.get();
+  }
+
+  /**
+   * @return sum of all recorded values
+   */
+  public long getSum() {
+    return sum.get();
+  }
+
+  /**
+   * @return arithmetic mean of the recorded values or zero if nothing has been recorded
+   */
+  public double getMean() {
+    final long n = count.get();
+    return n == 0 ? 0 : (double) sum.get() / n;
+  }
+
+  /**
+   * Gets the value below or at which the given percentage of the recorded values lie.
+   * The result is the upper bound of the bucket containing that value, but never more than the maximum.
+   * @param percentile percentile between 0 and 100
+   * @return the value or zero if nothing has been recorded
+   */
+  public long getValueAtPercentile(final double percentile) {
+    final long n = count.get();
+    if (n == 0) {
+      return 0;
+    }
+    final long rank = Math.max(1, (long) Math.ceil(Math.min(100, Math.max(0, percentile)) / 100 * n));
+    long seen = 0;
+    for (int bucket = 0; bucket < BUCKETS; bucket++) {
+      seen += counts.get(bucket);
+      if (seen >= rank) {
+        return Math.min(getUpperBound(bucket), max.get());
+      }
+    }
+    // values recorded concurrently may not be contained in the bucket counts read so far
+    return max.get();
+  }
+
+  static int getBucket(final long value) {
+    if (value < 2 * SUB_BUCKETS) {
+      return (int) value;
+    }
+    // value has its highest bit at position 'magnitude'; keep the next SUB_BUCKET_BITS bits
+    final int magnitude = 63 - Long.numberOfLeadingZeros(value);
+    final int shift = magnitude - SUB_BUCKET_BITS;
+    return (shift + 1) * SUB_BUCKETS + (int) (value >>> shift) - SUB_BUCKETS;
+  }
+
+  static long getUpperBound(final int bucket) {
+    if (bucket < 2 * SUB_BUCKETS) {
+      return bucket;
+    }
+    final int shift = bucket / SUB_BUCKETS - 1;
+    final long subBucket = bucket % SUB_BUCKETS + SUB_BUCKETS;
+    final long upper = ((subBucket + 1) << shift) - 1;
+    return upper < 0 ? Long.MAX_VALUE : upper;
+  }
+}
@@ -0,0 +1,173 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.metrics;
+
+import java.io.IOException;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.olingo.server.api.metrics.RequestMetrics;
+import org.apache.olingo.server.api.metrics.RequestMetricsListener;
+import org.apache.olingo.server.api.metrics.RequestPhase;
+
+/**
+ * Default {@link RequestMetricsListener} which aggregates the metrics of all requests into
+ * {@link LatencyHistogram}s per request phase and into counters.
+ * <p/>
+ * One instance is meant to be shared by all handlers (and threads) of a service. The aggregated values
+ * can be exported with {@link #writeText(Appendable)} in a line-based text format
+ * that monitoring systems (e.g., Prometheus) are able to scrape.
+ */
+public class RequestMetricsCollector implements RequestMetricsListener {
+
+  private static final double[] PERCENTILES = { 50, 90, 99, 99.9 };
+  private static final RequestPhase[] PHASES = RequestPhase.values();
+
+  private final LatencyHistogram[] phases = new LatencyHistogram[PHASES.length];
+  private final LatencyHistogram total = new LatencyHistogram();
+  private final AtomicLong clientErrors = new AtomicLong();
+  private final AtomicLong serverErrors = new AtomicLong();
+  private final AtomicLong responseBytes = new AtomicLong();
+  private final AtomicLong entities = new AtomicLong();
+
+  public RequestMetricsCollector() {
+    for (int index = 0; index < phases.length; index++) {
+      phases[index] = new LatencyHistogram();
+    }
+  }
+
+  @Override
+  public void requestCompleted(final RequestMetrics metrics) {
+    for (final RequestPhase phase : PHASES) {
+      phases[phase.ordinal()].record(metrics.getPhaseNanos(phase));
+    }
+    total.record(metrics.getTotalNanos());
+    if (metrics.getStatusCode() >= 500) {
+      serverErrors.incrementAndGet();
+    } else if (metrics.getStatusCode() >= 400) {
+      clientErrors.incrementAndGet();
+    }
+    responseBytes.addAndGet(metrics.getResponseBytes());
+    entities.addAndGet(metrics.getEntityCount());
+  }
+
+  /**
+   * @param phase the request phase
+   * @return histogram of the nanoseconds spent in the phase per request
+   */
+  public LatencyHistogram getHistogram(final RequestPhase phase) {
+    return phases[phase.ordinal()];
+  }
+
+  /**
+   * @return histogram of the total processing nanoseconds per request
+   */
+  public LatencyHistogram getTotalHistogram() {
+    return total;
+  }
+
+  /**
+   * @return number of completed requests
+   */
+  public long getRequestCount() {
+    return total.getCount();
+  }
+
+  /**
+   * @return number of requests completed with a 4xx status code
+   */
+  public long getClientErrorCount() {
+    return clientErrors.get();
+  }
+
+  /**
+   * @return number of requests completed with a 5xx status code
+   */
+  public long getServerErrorCount() {
+    return serverErrors.get();
+  }
+
+  /**
+   * @return number of bytes written into response bodies
+   */
+  public long getResponseBytes() {
+    return responseBytes.get();
+  }
+
+  /**
+   * @return number of serialized top-level entities
+   */
+  public long getEntityCount() {
+    return entities.get();
+  }
+
+  /**
+   * Writes all aggregated values, one value per line in the form <code>name{labels} value</code>.
+   * Durations are written in seconds.
+   * @param writer the target
+   * @throws IOException if writing fails
+   */
+  public void writeText(final Appendable writer) throws IOException {
+    writeValue(writer, "odata_requests_total", null, Long.toString(getRequestCount()));
+    writeValue(writer, "odata_requests_client_errors_total", null, Long.toString(getClientErrorCount()));
+    writeValue(writer, "odata_requests_server_errors_total", null, Long.toString(getServerErrorCount()));
+    writeValue(writer, "odata_response_bytes_total", null, Long.toString(getResponseBytes()));
+    writeValue(writer, "odata_entities_total", null, Long.toString(getEntityCount()));
+    writeHistogram(writer, "total", total);
+    for (final RequestPhase phase : PHASES) {
+      writeHistogram(writer, phase.name().toLowerCase(Locale.ROOT), getHistogram(phase));
+    }
+  }
+
+  private void writeHistogram(final Appendable writer, final String phase, final LatencyHistogram histogram)
+      throws IOException {
+    final String labels = "phase=\"" + phase + "\"";
+    for (final double percentile : PERCENTILES) {
+      writeValue(writer, "odata_request_seconds", labels + ",quantile=\"" + percentile / 100 + "\"",
+          seconds(histogram.getValueAtPercentile(percentile)));
+    }
+    writeValue(writer, "odata_request_seconds_max", labels, seconds(histogram.getMax()));
+    writeValue(writer, "odata_request_seconds_sum", labels, seconds(histogram.getSum()));
+    writeValue(writer, "odata_request_seconds_count", labels, Long.toString(histogram.getCount()));
+  }
+
+  private static void writeValue(final Appendable writer, final String name, final String labels,
+      final String value) throws IOException {
+    writer.append(name);
+    if (labels != null) {
+      writer.append('{').append(labels).append('}');
+    }
+    writer.append(' ').append(value).append('\n');
+  }
+
+  private static String seconds(final long nanos) {
+    return Double.toString(nanos / 1e9);
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder builder = new StringBuilder();
+    try {
+      writeText(builder);
+    } catch (final IOException e) {
+      // cannot happen for a StringBuilder
+    }
+    return builder.toString();
+  }
+}
@@ -0,0 +1,220 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.metrics;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.olingo.commons.api.http.HttpMethod;
+import org.apache.olingo.server.api.metrics.RequestMetrics;
+import org.apache.olingo.server.api.metrics.RequestPhase;
+import org.apache.olingo.server.api.uri.UriInfo;
+import org.apache.olingo.server.api.uri.UriInfoKind;
+import org.apache.olingo.server.api.uri.UriResource;
+import org.apache.olingo.server.api.uri.UriResourceKind;
+
+/**
+ * Records the {@link RequestMetrics} of the request currently processed by a thread.
+ * <p/>
+ * A recorder is started and stopped by the HTTP handler around the whole processing. In between,
+ * the processing code switches the active phase with the static methods, which look up the recorder
+ * of the current thread and do nothing if no recorder is started. Recording does not allocate objects,
+ * so the recorder can be used for every request.
+ */
+public final class RequestMetricsRecorder implements RequestMetrics {
+
+  private static final ThreadLocal<RequestMetricsRecorder> CURRENT = new ThreadLocal<RequestMetricsRecorder>();
+
+  private final long[] phaseNanos = new long[RequestPhase.values().length];
+  private RequestPhase phase;
+  private long phaseStarted;
+
+  private HttpMethod method;
+  private int statusCode;
+  private UriInfo uriInfo;
+  private UriInfoKind uriInfoKind;
+  private UriResourceKind resourceKind;
+  private long requestBytes;
+  private long responseBytes;
+  private int entityCount;
+
+  /**
+   * Starts the recording for the current thread; the first phase is {@link RequestPhase#PARSE}.
+   * @return <code>true</code> if the recording has been started; <code>false</code> if the thread
+   * is already recording (e.g., for an enclosing request)
+   */
+  public boolean start() {
+    if (CURRENT.get() != null) {
+      return false;
+    }
+    Arrays.fill(phaseNanos, 0);
+    method = null;
+    statusCode = 0;
+    uriInfo = null;
+    uriInfoKind = null;
+    resourceKind = null;
+    requestBytes = -1;
+    responseBytes = 0;
+    entityCount = 0;
+    phase = RequestPhase.PARSE;
+    phaseStarted = System.nanoTime();
+    CURRENT.set(this);
+    return true;
+  }
+
+  /**
+   * Stops the recording for the current thread.
+   */
+  public void stop() {
+    switchTo(null);
+    CURRENT.remove();
+  }
+
+  /**
+   * Switches the active phase of the current thread's recording.
+   * @param phase the new phase; if <code>null</code> nothing is done
+   * @return the phase active before, to be restored later, or <code>null</code> if nothing is recorded
+   */
+  public static RequestPhase enter(final RequestPhase phase) {
+    final RequestMetricsRecorder recorder = CURRENT.get();
+    return recorder == null || phase == null ? null : recorder.switchTo(phase);
+  }
+
+  /**
+   * Adds serialized entities to the current thread's recording.
+   * @param count number of entities
+   */
+  public static void addEntities(final int count) {
+    final RequestMetricsRecorder recorder = CURRENT.get();
+    if (recorder != null) {
+      recorder.entityCount += count;
+    }
+  }
+
+  /**
+   * Adds bytes written into the response body to the current thread's recording.
+   * @param count number of bytes
+   */
+  public static void addResponseBytes(final long count) {
+    final RequestMetricsRecorder recorder = CURRENT.get();
+    if (recorder != null && count > 0) {
+      recorder.responseBytes += count;
+    }
+  }
+
+  /**
+   * Checks whether the current thread records metrics.
+   * @return <code>true</code> if a recording is started
+   */
+  public static boolean isRecording() {
+    return CURRENT.get() != null;
+  }
+
+  private RequestPhase switchTo(final RequestPhase newPhase) {
+    final long now = System.nanoTime();
+    final RequestPhase previous = phase;
+    if (previous != null) {
+      phaseNanos[previous.ordinal()] += now - phaseStarted;
+    }
+    phase = newPhase;
+    phaseStarted = now;
+    return previous;
+  }
+
+  public void setMethod(final HttpMethod method) {
+    this.method = method;
+  }
+
+  public void setStatusCode(final int statusCode) {
+    this.statusCode = statusCode;
+  }
+
+  public void setRequestBytes(final long requestBytes) {
+    this.requestBytes = requestBytes;
+  }
+
+  /**
+   * Takes the kinds of the request from the parsed URI.
+   * @param uriInfo the parsed URI or <code>null</code> if parsing failed
+   */
+  public void setUriInfo(final UriInfo uriInfo) {
+    this.uriInfo = uriInfo;
+    uriInfoKind = uriInfo == null ? null : uriInfo.getKind();
+    if (uriInfoKind == UriInfoKind.resource) {
+      final List<UriResource> parts = uriInfo.getUriResourceParts();
+      resourceKind = parts.isEmpty() ? null : parts.get(parts.size() - 1).getKind();
+    } else {
+      resourceKind = null;
+    }
+  }
+
+  @Override
+  public HttpMethod getMethod() {
+    return method;
+  }
+
+  @Override
+  public int getStatusCode() {
+    return statusCode;
+  }
+
+  @Override
+  public UriInfo getUriInfo() {
+    return uriInfo;
+  }
+
+  @Override
+  public UriInfoKind getUriInfoKind() {
+    return uriInfoKind;
+  }
+
+  @Override
+  public UriResourceKind getResourceKind() {
+    return resourceKind;
+  }
+
+  @Override
+  public long getPhaseNanos(final RequestPhase phase) {
+    return phaseNanos[phase.ordinal()];
+  }
+
+  @Override
+  public long getTotalNanos() {
+    long total = 0;
+    for (final long nanos : phaseNanos) {
+      total += nanos;
+    }
+    return total;
+  }
+
+  @Override
+  public long getRequestBytes() {
+    return requestBytes;
+  }
+
+  @Override
+  public long getResponseBytes() {
+    return responseBytes;
+  }
+
+  @Override
+  public int getEntityCount() {
+    return entityCount;
+  }
+}
@@ -0,0 +1,101 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.metrics;
+
+import java.util.List;
+
+import org.apache.olingo.server.api.uri.UriInfo;
+import org.apache.olingo.server.api.uri.UriParameter;
+import org.apache.olingo.server.api.uri.UriResource;
+import org.apache.olingo.server.api.uri.UriResourceEntitySet;
+import org.apache.olingo.server.api.uri.UriResourceFunction;
+import org.apache.olingo.server.api.uri.UriResourceNavigation;
+
+/**
+ * Builds the template of a request URI, i.e., the resource path without key and parameter values,
+ * e.g., <code>ESAllPrim(key)/NavPropertyETTwoPrimMany</code> or <code>FICRTString()</code>.
+ * All requests for the same entity set, navigation or operation have the same template.
+ */
+public final class ResourcePathTemplate {
+
+  /** Template of requests whose URI could not be parsed. */
+  public static final String INVALID = "(invalid)";
+
+  private ResourcePathTemplate() {
+    // private constructor for static utility class
+  }
+
+  /**
+   * Gets the template of a parsed URI.
+   * @param uriInfo the parsed URI or <code>null</code>
+   * @return the template
+   */
+  public static String of(final UriInfo uriInfo) {
+    if (uriInfo == null || uriInfo.getKind() == null) {
+      return INVALID;
+    }
+    switch (uriInfo.getKind()) {
+    case resource:
+      return of(uriInfo.getUriResourceParts());
+    case crossjoin:
+      StringBuilder builder = new StringBuilder("$crossjoin(");
+      boolean first = true;
+      for (final String name : uriInfo.getEntitySetNames()) {
+        builder.append(first ? "" : ",").append(name);
+        first = false;
+      }
+      return builder.append(')').toString();
+    case service:
+      return "/";
+    case metadata:
+      return "$metadata";
+    case batch:
+      return "$batch";
+    case all:
+      return "$all";
+    case entityId:
+      return "$entity";
+    default:
+      return uriInfo.getKind().name();
+    }
+  }
+
+  private static String of(final List<UriResource> parts) {
+    StringBuilder builder = new StringBuilder();
+    for (final UriResource part : parts) {
+      if (builder.length() > 0) {
+        builder.append('/');
+      }
+      builder.append(part.getSegmentValue());
+      List<UriParameter> keys = null;
+      if (part instanceof UriResourceEntitySet) {
+        keys = ((UriResourceEntitySet) part).getKeyPredicates();
+      } else if (part instanceof UriResourceNavigation) {
+        keys = ((UriResourceNavigation) part).getKeyPredicates();
+      } else if (part instanceof UriResourceFunction) {
+        builder.append("()");
+        keys = ((UriResourceFunction) part).getKeyPredicates();
+      }
+      if (keys != null && !keys.isEmpty()) {
+        builder.append("(key)");
+      }
+    }
+    return builder.toString();
+  }
+}
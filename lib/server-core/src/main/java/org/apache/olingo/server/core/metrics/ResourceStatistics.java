@@ -0,0 +1,95 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.metrics;
+
+import org.apache.olingo.server.api.metrics.RequestMetrics;
+
+/**
+ * Statistics of all requests with the same {@link ResourcePathTemplate}.
+ * Counters are striped, so that many threads can record requests for the same resource concurrently.
+ */
+public class ResourceStatistics {
+
+  private final String template;
+  private final StripedCounter requests = new StripedCounter();
+  private final StripedCounter errors = new StripedCounter();
+  private final StripedCounter responseBytes = new StripedCounter();
+  private final StripedCounter entities = new StripedCounter();
+  private final LatencyHistogram latency = new LatencyHistogram();
+
+  public ResourceStatistics(final String template) {
+    this.template = template;
+  }
+
+  /**
+   * Records a completed request.
+   * @param metrics the metrics of the request
+   */
+  public void record(final RequestMetrics metrics) {
+    requests.increment();
+    if (metrics.getStatusCode() >= 400) {
+      errors.increment();
+    }
+    responseBytes.add(metrics.getResponseBytes());
+    entities.add(metrics.getEntityCount());
+    latency.record(metrics.getTotalNanos());
+  }
+
+  /**
+   * @return the resource path template
+   */
+  public String getTemplate() {
+    return template;
+  }
+
+  /**
+   * @return number of requests
+   */
+  public long getRequestCount() {
+    return requests.sum();
+  }
+
+  /**
+   * @return number of requests completed with a 4xx or 5xx status code
+   */
+  public long getErrorCount() {
+    return errors.sum();
+  }
+
+  /**
+   * @return number of bytes written into response bodies
+   */
+  public long getResponseBytes() {
+    return responseBytes.sum();
+  }
+
+  /**
+   * @return number of serialized top-level entities
+   */
+  public long getEntityCount() {
+    return entities.sum();
+  }
+
+  /**
+   * @return histogram of the total processing nanoseconds per request
+   */
+  public LatencyHistogram getLatencyHistogram() {
+    return latency;
+  }
+}
@@ -0,0 +1,166 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.metrics;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.apache.olingo.server.api.metrics.RequestMetrics;
+import org.apache.olingo.server.api.metrics.RequestMetricsListener;
+
+/**
+ * {@link RequestMetricsListener} which aggregates request statistics per {@link ResourcePathTemplate},
+ * so that the most requested (or slowest) entity sets, navigations and operations can be identified.
+ * <p/>
+ * One instance is meant to be shared by all handlers of a service. The statistics can be published via JMX,
+ * e.g. with <code>ManagementFactory.getPlatformMBeanServer().registerMBean(collector, objectName)</code>,
+ * or exported with {@link #writeText(Appendable)}.
+ * The number of distinct templates is limited; requests beyond the limit are counted under {@link #OTHER}.
+ */
+public class ResourceStatisticsCollector implements RequestMetricsListener, ResourceStatisticsMXBean {
+
+  public static final int DEFAULT_MAX_TEMPLATES = 1000;
+  /** Template under which requests are counted once the maximum number of templates is reached. */
+  public static final String OTHER = "(other)";
+
+  private final ConcurrentMap<String, ResourceStatistics> statistics =
+      new ConcurrentHashMap<String, ResourceStatistics>();
+  private final int maxTemplates;
+
+  public ResourceStatisticsCollector() {
+    this(DEFAULT_MAX_TEMPLATES);
+  }
+
+  /**
+   * @param maxTemplates maximum number of distinct resource path templates
+   */
+  public ResourceStatisticsCollector(final int maxTemplates) {
+    this.maxTemplates = maxTemplates;
+  }
+
+  @Override
+  public void requestCompleted(final RequestMetrics metrics) {
+    getOrCreate(ResourcePathTemplate.of(metrics.getUriInfo())).record(metrics);
+  }
+
+  private ResourceStatistics getOrCreate(final String template) {
+    ResourceStatistics result = statistics.get(template);
+    if (result == null) {
+      final boolean full = statistics.size() >= maxTemplates;
+      final String key = full ? OTHER : template;
+      // once the limit is reached every unseen template goes here; allocate the bucket only once
+      result = full ? statistics.get(OTHER) : null;
+      if (result == null) {
+        result = new ResourceStatistics(key);
+        final ResourceStatistics existing = statistics.putIfAbsent(key, result);
+        if (existing != null) {
+          result = existing;
+        }
+      }
+    }
+    return result;
+  }
+
+  /**
+   * @return the statistics per resource path template (a live, unmodifiable view)
+   */
+  public Map<String, ResourceStatistics> getStatistics() {
+    return Collections.unmodifiableMap(statistics);
+  }
+
+  /**
+   * @param template a resource path template
+   * @return the statistics of the template or <code>null</code> if no request has been recorded for it
+   */
+  public ResourceStatistics getStatistics(final String template) {
+    return statistics.get(template);
+  }
+
+  @Override
+  public List<ResourceStatisticsData> getResources() {
+    List<ResourceStatisticsData> result = new ArrayList<ResourceStatisticsData>(statistics.size());
+    for (final ResourceStatistics entry : statistics.values()) {
+      result.add(ResourceStatisticsData.of(entry));
+    }
+    Collections.sort(result, new Comparator<ResourceStatisticsData>() {
+      @Override
+      public int compare(final ResourceStatisticsData left, final ResourceStatisticsData right) {
+        return left.getRequestCount() < right.getRequestCount() ? 1
+            : left.getRequestCount() > right.getRequestCount() ? -1
+                : left.getTemplate().compareTo(right.getTemplate());
+      }
+    });
+    return result;
+  }
+
+  @Override
+  public long getRequestCount() {
+    long count = 0;
+    for (final ResourceStatistics entry : statistics.values()) {
+      count += entry.getRequestCount();
+    }
+    return count;
+  }
+
+  @Override
+  public void reset() {
+    statistics.clear();
+  }
+
+  /**
+   * Writes the statistics of all templates, most requested first, one value per line in the form
+   * <code>name{resource="template"} value</code>. Durations are written in seconds.
+   * @param writer the target
+   * @throws IOException if writing fails
+   */
+  public void writeText(final Appendable writer) throws IOException {
+    for (final ResourceStatisticsData data : getResources()) {
+      final String labels = "{resource=\"" + data.getTemplate().replace("\\", "\\\\").replace("\"", "\\\"") + "\"}";
+      writer.append("odata_resource_requests_total").append(labels).append(' ')
+          .append(Long.toString(data.getRequestCount())).append('\n');
+      writer.append("odata_resource_errors_total").append(labels).append(' ')
+          .append(Long.toString(data.getErrorCount())).append('\n');
+      writer.append("odata_resource_response_bytes_total").append(labels).append(' ')
+          .append(Long.toString(data.getResponseBytes())).append('\n');
+      writer.append("odata_resource_entities_total").append(labels).append(' ')
+          .append(Long.toString(data.getEntityCount())).append('\n');
+      writer.append("odata_resource_seconds_p50").append(labels).append(' ')
+          .append(Double.toString(data.getLatencyP50Nanos() / 1e9)).append('\n');
+      writer.append("odata_resource_seconds_p99").append(labels).append(' ')
+          .append(Double.toString(data.getLatencyP99Nanos() / 1e9)).append('\n');
+    }
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder builder = new StringBuilder();
+    try {
+      writeText(builder);
+    } catch (final IOException e) {
+      // cannot happen for a StringBuilder
+    }
+    return builder.toString();
+  }
+}
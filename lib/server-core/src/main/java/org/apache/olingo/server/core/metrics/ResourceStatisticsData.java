@@ -0,0 +1,84 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.metrics;
+
+import java.beans.ConstructorProperties;
+
+/**
+ * Immutable snapshot of the {@link ResourceStatistics} of one resource path template,
+ * as published by {@link ResourceStatisticsMXBean}.
+ */
+public class ResourceStatisticsData {
+
+  private final String template;
+  private final long requestCount;
+  private final long errorCount;
+  private final long responseBytes;
+  private final long entityCount;
+  private final long latencyP50Nanos;
+  private final long latencyP99Nanos;
+
+  @ConstructorProperties({ "template", "requestCount", "errorCount", "responseBytes", "entityCount",
+      "latencyP50Nanos", "latencyP99Nanos" })
+  public ResourceStatisticsData(final String template, final long requestCount, final long errorCount,
+      final long responseBytes, final long entityCount, final long latencyP50Nanos, final long latencyP99Nanos) {
+    this.template = template;
+    this.requestCount = requestCount;
+    this.errorCount = errorCount;
+    this.responseBytes = responseBytes;
+    this.entityCount = entityCount;
+    this.latencyP50Nanos = latencyP50Nanos;
+    this.latencyP99Nanos = latencyP99Nanos;
+  }
+
+  static ResourceStatisticsData of(final ResourceStatistics statistics) {
+    final LatencyHistogram latency = statistics.getLatencyHistogram();
+    return new ResourceStatisticsData(statistics.getTemplate(), statistics.getRequestCount(),
+        statistics.getErrorCount(), statistics.getResponseBytes(), statistics.getEntityCount(),
+        latency.getValueAtPercentile(50), latency.getValueAtPercentile(99));
+  }
+
+  public String getTemplate() {
+    return template;
+  }
+
+  public long getRequestCount() {
+    return requestCount;
+  }
+
+  public long getErrorCount() {
+    return errorCount;
+  }
+
+  public long getResponseBytes() {
+    return responseBytes;
+  }
+
+  public long getEntityCount() {
+    return entityCount;
+  }
+
+  public long getLatencyP50Nanos() {
+    return latencyP50Nanos;
+  }
+
+  public long getLatencyP99Nanos() {
+    return latencyP99Nanos;
+  }
+}
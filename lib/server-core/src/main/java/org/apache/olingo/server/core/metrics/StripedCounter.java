@@ -0,0 +1,63 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Counter which distributes concurrent updates over several cells (chosen by thread)
+ * so that threads updating the same counter rarely contend for the same cache line.
+ */
+final class StripedCounter {
+
+  private static final int STRIPES = stripes();
+  /** Distance between two cells in longs; one cell per 64-byte cache line. */
+  private static final int PADDING = 8;
+
+  private final AtomicLongArray cells = new AtomicLongArray(STRIPES * PADDING);
+
+  void add(final long delta) {
+    cells.addAndGet(cell(), delta);
+  }
+
+  void increment() {
+    add(1);
+  }
+
+  long sum() {
+    long sum = 0;
+    for (int stripe = 0; stripe < STRIPES; stripe++) {
+      sum += cells.get(stripe * PADDING);
+    }
+    return sum;
+  }
+
+  private static int cell() {
+    long id = Thread.currentThread().getId();
+    id ^= id >>> 7;
+    id *= 0x9E3779B97F4A7C15L;
+    return (int) (id >>> 58 & (STRIPES - 1)) * PADDING;
+  }
+
+  private static int stripes() {
+    // a power of two of at least twice the number of processors, at most 64
+    final int wanted = Math.min(64, 2 * Runtime.getRuntime().availableProcessors());
+    return Integer.highestOneBit(wanted - 1) << 1;
+  }
+}
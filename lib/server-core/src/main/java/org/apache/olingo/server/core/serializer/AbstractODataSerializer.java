@@ -21,13 +21,43 @@ package org.apache.olingo.server.core.serializer;
 import java.io.IOException;
 import java.io.OutputStream;
 
+import org.apache.olingo.commons.api.data.AbstractEntityCollection;
+import org.apache.olingo.commons.api.data.EntityIterator;
 import org.apache.olingo.server.api.serializer.ODataSerializer;
 import org.apache.olingo.server.api.serializer.SerializerException;
+import org.apache.olingo.server.core.serializer.utils.ByteBufferPool;
+import org.apache.olingo.server.core.serializer.utils.CircleStreamBuffer;
 
 public abstract class AbstractODataSerializer implements ODataSerializer {
 
   protected static final String IO_EXCEPTION_TEXT = "An I/O exception occurred.";
 
+  private final ByteBufferPool bufferPool;
+
+  protected AbstractODataSerializer() {
+    this(null);
+  }
+
+  /**
+   * @param bufferPool pool for the buffers of the serialized content
+   *                   or <code>null</code> to allocate new buffers for each result
+   */
+  protected AbstractODataSerializer(final ByteBufferPool bufferPool) {
+    this.bufferPool = bufferPool;
+  }
+
+  protected CircleStreamBuffer createBuffer() {
+    return bufferPool == null ? new CircleStreamBuffer() : new CircleStreamBuffer(bufferPool);
+  }
+
+  /**
+   * Checks whether the count of the collection is known only after all entities have been written.
+   * Such a count is written at the end of the collection, so the collection need not be materialized.
+   */
+  protected boolean isCountDeferred(final AbstractEntityCollection entitySet) {
+    return entitySet instanceof EntityIterator && ((EntityIterator) entitySet).isCountDeferred();
+  }
+
   protected void closeCircleStreamBufferOutput(final OutputStream outputStream,
       final SerializerException cachedException)
       throws SerializerException {
@@ -22,11 +22,8 @@ import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.io.UnsupportedEncodingException;
-import java.nio.ByteBuffer;
-import java.nio.channels.Channels;
-import java.nio.channels.ReadableByteChannel;
-import java.nio.channels.WritableByteChannel;
 import java.util.List;
 import java.util.Map;
 
@@ -43,15 +40,26 @@ public class AsyncResponseSerializer {
   private static final String HTTP_VERSION = "HTTP/1.1";
 
   public InputStream serialize(final ODataResponse response) throws SerializerException {
-    try {
-      ByteArrayOutputStream buffer = new ByteArrayOutputStream();
-      appendStatusLine(response, buffer);
-      appendResponseHeader(response, buffer);
-      append(CRLF, buffer);
-      appendBody(response, buffer);
+    ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+    serialize(response, buffer);
+    return new ByteArrayInputStream(buffer.toByteArray(), 0, buffer.size());
+  }
 
-      buffer.flush();
-      return new ByteArrayInputStream(buffer.toByteArray(), 0, buffer.size());
+  /**
+   * Writes the response in <code>application/http</code> format into the given stream (which is not closed).
+   * The body (also streamed {@link org.apache.olingo.server.api.ODataContent}) is written without being
+   * buffered as a whole.
+   * @param response the response
+   * @param output the stream the serialized response is written into
+   * @throws SerializerException if the response could not be written
+   */
+  public void serialize(final ODataResponse response, final OutputStream output) throws SerializerException {
+    try {
+      appendStatusLine(response, output);
+      appendResponseHeader(response, output);
+      append(CRLF, output);
+      appendBody(response, output);
+      output.flush();
     } catch (IOException e) {
       throw new SerializerException("Exception occurred during serialization of asynchronous response.",
           e, SerializerException.MessageKeys.IO_EXCEPTION);
@@ -59,7 +67,7 @@ public class AsyncResponseSerializer {
   }
 
   private void appendResponseHeader(final ODataResponse response,
-      final ByteArrayOutputStream buffer) throws IOException {
+      final OutputStream buffer) throws IOException {
     final Map<String, List<String>> header = response.getAllHeaders();
 
     for (final Map.Entry<String, List<String>> entry : header.entrySet()) {
@@ -67,34 +75,33 @@ public class AsyncResponseSerializer {
     }
   }
 
-  private void appendHeader(final String name, final List<String> values, final ByteArrayOutputStream buffer)
+  private void appendHeader(final String name, final List<String> values, final OutputStream buffer)
       throws IOException {
     for (String value : values) {
       append(name + COLON + SP + value + CRLF, buffer);
     }
   }
 
-  private void appendStatusLine(final ODataResponse response, final ByteArrayOutputStream buffer)
+  private void appendStatusLine(final ODataResponse response, final OutputStream buffer)
       throws IOException {
     HttpStatusCode status = HttpStatusCode.fromStatusCode(response.getStatusCode());
     append(HTTP_VERSION + SP + response.getStatusCode() + SP + status + CRLF, buffer);
   }
 
-  private void appendBody(final ODataResponse response, final ByteArrayOutputStream buffer) throws IOException {
+  private void appendBody(final ODataResponse response, final OutputStream buffer) throws IOException {
     InputStream input = response.getContent();
     if (input != null) {
-      ByteBuffer inBuffer = ByteBuffer.allocate(BUFFER_SIZE);
-      ReadableByteChannel ic = Channels.newChannel(input);
-      WritableByteChannel oc = Channels.newChannel(buffer);
-      while (ic.read(inBuffer) > 0) {
-        inBuffer.flip();
-        oc.write(inBuffer);
-        inBuffer.rewind();
+      byte[] inBuffer = new byte[BUFFER_SIZE];
+      int read;
+      while ((read = input.read(inBuffer)) >= 0) {
+        buffer.write(inBuffer, 0, read);
       }
+    } else if (response.getODataContent() != null) {
+      response.getODataContent().write(buffer);
     }
   }
 
-  private void append(final String value, final ByteArrayOutputStream buffer) throws IOException {
+  private void append(final String value, final OutputStream buffer) throws IOException {
     try {
       buffer.write(value.getBytes(HEADER_CHARSET_NAME));
     } catch (UnsupportedEncodingException e) {
@@ -102,4 +109,4 @@ public class AsyncResponseSerializer {
           "' is not available.", e);
     }
   }
-}
\ No newline at end of file
+}
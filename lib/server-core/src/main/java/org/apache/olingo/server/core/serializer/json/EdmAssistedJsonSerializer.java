@@ -247,7 +247,7 @@ public class EdmAssistedJsonSerializer implements EdmAssistedSerializer {
   }
 
   private void collection(final JsonGenerator json, final EdmType itemType, final String typeName,
-      final EdmProperty edmProperty, final ValueType valueType, final List<?> value)
+      final EdmProperty edmProperty, final ValueType valueType, final Iterable<?> value)
       throws IOException, SerializerException {
 
     json.writeStartArray();
@@ -350,7 +350,7 @@ public class EdmAssistedJsonSerializer implements EdmAssistedSerializer {
     if (value.isNull()) {
       json.writeNull();
     } else if (value.isCollection()) {
-      collection(json, type, typeName, edmProperty, value.getValueType(), value.asCollection());
+      collection(json, type, typeName, edmProperty, value.getValueType(), value.asIterable());
     } else if (value.isPrimitive()) {
       primitiveValue(json, (EdmPrimitiveType) type, typeName, edmProperty, value.asPrimitive());
     } else if (value.isComplex()) {
@@ -370,6 +370,7 @@ public class EdmAssistedJsonSerializer implements EdmAssistedSerializer {
       if (typeName == null && type == null) {
         if (valuable.isPrimitive()) {
           if (valuable.isCollection()) {
+            // the type is taken from the first item, so a lazily provided collection is materialized here
             if (!valuable.asCollection().isEmpty()) {
               final EdmPrimitiveTypeKind kind = EdmTypeInfo.determineTypeKind(valuable.asCollection().get(0));
               if (kind != null) {
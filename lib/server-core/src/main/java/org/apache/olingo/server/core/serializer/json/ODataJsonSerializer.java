@@ -21,6 +21,7 @@ package org.apache.olingo.server.core.serializer.json;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.net.URI;
+import java.util.BitSet;
 import java.util.Collections;
 import java.util.EnumMap;
 import java.util.HashSet;
@@ -33,6 +34,7 @@ import org.apache.olingo.commons.api.data.AbstractEntityCollection;
 import org.apache.olingo.commons.api.data.ComplexValue;
 import org.apache.olingo.commons.api.data.ContextURL;
 import org.apache.olingo.commons.api.data.Entity;
+import org.apache.olingo.commons.api.data.EntityCollection;
 import org.apache.olingo.commons.api.data.EntityIterator;
 import org.apache.olingo.commons.api.data.Link;
 import org.apache.olingo.commons.api.data.Linked;
@@ -63,6 +65,7 @@ import org.apache.olingo.commons.api.format.ContentType;
 import org.apache.olingo.commons.core.edm.primitivetype.EdmPrimitiveTypeFactory;
 import org.apache.olingo.server.api.ODataServerError;
 import org.apache.olingo.server.api.ServiceMetadata;
+import org.apache.olingo.server.api.metrics.RequestPhase;
 import org.apache.olingo.server.api.serializer.ComplexSerializerOptions;
 import org.apache.olingo.server.api.serializer.EntityCollectionSerializerOptions;
 import org.apache.olingo.server.api.serializer.EntitySerializerOptions;
@@ -79,14 +82,19 @@ import org.apache.olingo.server.api.uri.queryoption.ExpandOption;
 import org.apache.olingo.server.api.uri.queryoption.LevelsExpandOption;
 import org.apache.olingo.server.api.uri.queryoption.SelectOption;
 import org.apache.olingo.server.core.ODataWritableContent;
+import org.apache.olingo.server.core.metrics.RequestMetricsRecorder;
 import org.apache.olingo.server.core.serializer.AbstractODataSerializer;
 import org.apache.olingo.server.core.serializer.SerializerResultImpl;
+import org.apache.olingo.server.core.serializer.utils.ByteBufferPool;
 import org.apache.olingo.server.core.serializer.utils.CircleStreamBuffer;
 import org.apache.olingo.server.core.serializer.utils.ContentTypeHelper;
 import org.apache.olingo.server.core.serializer.utils.ContextURLBuilder;
+import org.apache.olingo.server.core.serializer.utils.EntityKey;
 import org.apache.olingo.server.core.serializer.utils.ExpandSelectHelper;
 import org.apache.olingo.server.core.uri.UriHelperImpl;
 import org.apache.olingo.server.core.uri.queryoption.ExpandOptionImpl;
+import org.apache.olingo.server.core.uri.queryoption.ExpandTree;
+import org.apache.olingo.server.core.uri.queryoption.SelectTree;
 
 import com.fasterxml.jackson.core.JsonFactory;
 import com.fasterxml.jackson.core.JsonGenerator;
@@ -111,6 +119,11 @@ public class ODataJsonSerializer extends AbstractODataSerializer {
   private final boolean isODataMetadataFull;
 
   public ODataJsonSerializer(final ContentType contentType) {
+    this(contentType, null);
+  }
+
+  public ODataJsonSerializer(final ContentType contentType, final ByteBufferPool bufferPool) {
+    super(bufferPool);
     isIEEE754Compatible = ContentTypeHelper.isODataIEEE754Compatible(contentType);
     isODataMetadataNone = ContentTypeHelper.isODataMetadataNone(contentType);
     isODataMetadataFull = ContentTypeHelper.isODataMetadataFull(contentType);
@@ -123,7 +136,7 @@ public class ODataJsonSerializer extends AbstractODataSerializer {
     SerializerException cachedException = null;
 
     try {
-      CircleStreamBuffer buffer = new CircleStreamBuffer();
+      CircleStreamBuffer buffer = createBuffer();
       outputStream = buffer.getOutputStream();
       JsonGenerator json = new JsonFactory().createGenerator(outputStream);
       new ServiceDocumentJsonSerializer(metadata, serviceRoot, isODataMetadataNone).writeServiceDocument(json);
@@ -151,7 +164,7 @@ public class ODataJsonSerializer extends AbstractODataSerializer {
     OutputStream outputStream = null;
     SerializerException cachedException = null;
     try {
-      CircleStreamBuffer buffer = new CircleStreamBuffer();
+      CircleStreamBuffer buffer = createBuffer();
       outputStream = buffer.getOutputStream();
       JsonGenerator json = new JsonFactory().createGenerator(outputStream);
       new ODataErrorSerializer().writeErrorDocument(json, error);
@@ -174,8 +187,12 @@ public class ODataJsonSerializer extends AbstractODataSerializer {
       final EntityCollectionSerializerOptions options) throws SerializerException {
     OutputStream outputStream = null;
     SerializerException cachedException = null;
+    final RequestPhase previousPhase = RequestMetricsRecorder.enter(RequestPhase.SERIALIZE);
+    if (entitySet instanceof EntityCollection) {
+      RequestMetricsRecorder.addEntities(((EntityCollection) entitySet).getEntities().size());
+    }
     try {
-      CircleStreamBuffer buffer = new CircleStreamBuffer();
+      CircleStreamBuffer buffer = createBuffer();
       outputStream = buffer.getOutputStream();
       JsonGenerator json = new JsonFactory().createGenerator(outputStream);
       json.writeStartObject();
@@ -186,7 +203,8 @@ public class ODataJsonSerializer extends AbstractODataSerializer {
 
       writeMetadataETag(metadata, json);
 
-      if (options != null && options.getCount() != null && options.getCount().getValue()) {
+      final boolean writeCount = options != null && options.getCount() != null && options.getCount().getValue();
+      if (writeCount && !isCountDeferred(entitySet)) {
         writeInlineCount("", entitySet.getCount(), json);
       }
       writeOperations(entitySet.getOperations(), json);
@@ -197,6 +215,9 @@ public class ODataJsonSerializer extends AbstractODataSerializer {
         writeEntitySet(metadata, entityType, entitySet,
             options.getExpand(), null, options.getSelect(), options.getWriteOnlyReferences(), null, name, json);
       }
+      if (writeCount && isCountDeferred(entitySet)) {
+        writeInlineCount("", entitySet.getCount(), json);
+      }
       writeNextLink(entitySet, json);
 
       json.close();
@@ -208,6 +229,7 @@ public class ODataJsonSerializer extends AbstractODataSerializer {
       throw cachedException;
     } finally {
       closeCircleStreamBufferOutput(outputStream, cachedException);
+      RequestMetricsRecorder.enter(previousPhase);
     }
   }
 
@@ -224,6 +246,8 @@ public class ODataJsonSerializer extends AbstractODataSerializer {
       throws SerializerException {
 
     SerializerException cachedException;
+    // the entities are serialized directly into the response, so the writing is part of this phase
+    final RequestPhase previousPhase = RequestMetricsRecorder.enter(RequestPhase.SERIALIZE);
     try {
       JsonGenerator json = new JsonFactory().createGenerator(outputStream);
       json.writeStartObject();
@@ -233,7 +257,8 @@ public class ODataJsonSerializer extends AbstractODataSerializer {
 
       writeMetadataETag(metadata, json);
 
-      if (options != null && options.getCount() != null && options.getCount().getValue()) {
+      final boolean writeCount = options != null && options.getCount() != null && options.getCount().getValue();
+      if (writeCount && !isCountDeferred(entitySet)) {
         writeInlineCount("", entitySet.getCount(), json);
       }
       json.writeFieldName(Constants.VALUE);
@@ -244,6 +269,10 @@ public class ODataJsonSerializer extends AbstractODataSerializer {
         writeEntitySet(metadata, entityType, entitySet,
             options.getExpand(), null, options.getSelect(), options.getWriteOnlyReferences(), null, name, json);
       }
+      // a count provided after the iteration is written behind the entities
+      if (writeCount && isCountDeferred(entitySet)) {
+        writeInlineCount("", entitySet.getCount(), json);
+      }
       // next link support for streaming results
       writeNextLink(entitySet, json);
 
@@ -252,6 +281,8 @@ public class ODataJsonSerializer extends AbstractODataSerializer {
       cachedException =
           new SerializerException(IO_EXCEPTION_TEXT, e, SerializerException.MessageKeys.IO_EXCEPTION);
       throw cachedException;
+    } finally {
+      RequestMetricsRecorder.enter(previousPhase);
     }
   }
 
@@ -260,9 +291,11 @@ public class ODataJsonSerializer extends AbstractODataSerializer {
       final Entity entity, final EntitySerializerOptions options) throws SerializerException {
     OutputStream outputStream = null;
     SerializerException cachedException = null;
+    final RequestPhase previousPhase = RequestMetricsRecorder.enter(RequestPhase.SERIALIZE);
+    RequestMetricsRecorder.addEntities(1);
     try {
       final ContextURL contextURL = checkContextURL(options == null ? null : options.getContextURL());
-      CircleStreamBuffer buffer = new CircleStreamBuffer();
+      CircleStreamBuffer buffer = createBuffer();
       outputStream = buffer.getOutputStream();
       JsonGenerator json = new JsonFactory().createGenerator(outputStream);
       String name =  contextURL == null ? null:contextURL.getEntitySetOrSingletonOrType();
@@ -283,6 +316,7 @@ public class ODataJsonSerializer extends AbstractODataSerializer {
       throw cachedException;
     } finally {
       closeCircleStreamBufferOutput(outputStream, cachedException);
+      RequestMetricsRecorder.enter(previousPhase);
     }
   }
 
@@ -297,10 +331,15 @@ public class ODataJsonSerializer extends AbstractODataSerializer {
 
   protected void writeEntitySet(final ServiceMetadata metadata, final EdmEntityType entityType,
       final AbstractEntityCollection entitySet, final ExpandOption expand, Integer toDepth, final SelectOption select,
-      final boolean onlyReference, final Set<String> ancestors, String name, final JsonGenerator json)
+      final boolean onlyReference, final Set<EntityKey> ancestors, String name, final JsonGenerator json)
           throws IOException, SerializerException {
     json.writeStartArray();
+    // the size of an iterated collection is known only after the iteration
+    final boolean countEntities = entitySet instanceof EntityIterator;
     for (final Entity entity : entitySet) {
+      if (countEntities) {
+        RequestMetricsRecorder.addEntities(1);
+      }
       if (onlyReference) {
         json.writeStartObject();
         json.writeStringField(Constants.JSON_ID, getEntityId(entity, entityType, name));
@@ -335,29 +374,38 @@ public class ODataJsonSerializer extends AbstractODataSerializer {
   }
 
   private boolean areKeyPredicateNamesSelected(SelectOption select, EdmEntityType type) {
-    if (select == null || ExpandSelectHelper.isAll(select)) {
+    final SelectTree selection = SelectTree.of(select);
+    if (selection == null) {
       return true;
     }
-    final Set<String> selected = ExpandSelectHelper.getSelectedPropertyNames(select.getSelectItems());
     for (String key : type.getKeyPredicateNames()) {
-      if (!selected.contains(key)) {
+      if (!selection.isSelected(key)) {
         return false;
       }
     }
     return true;
   }
 
+  /**
+   * Writes an entity.
+   * <br/>
+   * The ancestors are the keys of the entities this entity is expanded from, used to detect cycles; they were
+   * given as entity ids (<code>Set&lt;String&gt;</code>) before, so subclasses overriding or calling the methods
+   * taking ancestors must be adapted.
+   */
   protected void writeEntity(final ServiceMetadata metadata, final EdmEntityType entityType, final Entity entity,
       final ContextURL contextURL, final ExpandOption expand, Integer toDepth, 
-      final SelectOption select, final boolean onlyReference, Set<String> ancestors, 
+      final SelectOption select, final boolean onlyReference, Set<EntityKey> ancestors, 
       String name, final JsonGenerator json)
       throws IOException, SerializerException {
     boolean cycle = false;
+    EntityKey key = null;
     if (expand != null) {
       if (ancestors == null) {
-        ancestors = new HashSet<String>();
+        ancestors = new HashSet<EntityKey>();
       }
-      cycle = !ancestors.add(getEntityId(entity, entityType, name));
+      key = EntityKey.create(entity, entityType);
+      cycle = !ancestors.add(key);
     }
     try {
       json.writeStartObject();
@@ -412,7 +460,7 @@ public class ODataJsonSerializer extends AbstractODataSerializer {
       json.writeEndObject();
     } finally {
       if (expand != null && !cycle && ancestors != null) {
-        ancestors.remove(getEntityId(entity, entityType, name));
+        ancestors.remove(key);
       }
     }
   }
@@ -481,23 +529,27 @@ public class ODataJsonSerializer extends AbstractODataSerializer {
       final List<Property> properties,
       final SelectOption select, final JsonGenerator json)
       throws IOException, SerializerException {
-    final boolean all = ExpandSelectHelper.isAll(select);
-    final Set<String> selected = all ? new HashSet<String>() :
-        ExpandSelectHelper.getSelectedPropertyNames(select.getSelectItems());
-    for (final String propertyName : type.getPropertyNames()) {
-      if (all || selected.contains(propertyName)) {
+    final SelectTree selection = SelectTree.of(select);
+    final List<String> propertyNames = type.getPropertyNames();
+    if (selection == null) {
+      for (final String propertyName : propertyNames) {
+        writeProperty(metadata, type.getStructuralProperty(propertyName), findProperty(propertyName, properties),
+            null, json);
+      }
+    } else {
+      final BitSet selected = selection.getSelectedProperties(type);
+      for (int index = selected.nextSetBit(0); index >= 0; index = selected.nextSetBit(index + 1)) {
+        final String propertyName = propertyNames.get(index);
         final EdmProperty edmProperty = type.getStructuralProperty(propertyName);
-        final Property property = findProperty(propertyName, properties);
-        final Set<List<String>> selectedPaths = all || edmProperty.isPrimitive() ? null :
-            ExpandSelectHelper.getSelectedPaths(select.getSelectItems(), propertyName);
-        writeProperty(metadata, edmProperty, property, selectedPaths, json);
+        writeProperty(metadata, edmProperty, findProperty(propertyName, properties),
+            edmProperty.isPrimitive() ? null : selection.getChild(propertyName), json);
       }
     }
   }
 
   protected void writeNavigationProperties(final ServiceMetadata metadata,
       final EdmStructuredType type, final Linked linked, final ExpandOption expand, final Integer toDepth,
-      final Set<String> ancestors, final String name, final JsonGenerator json) 
+      final Set<EntityKey> ancestors, final String name, final JsonGenerator json) 
           throws SerializerException, IOException {
     if (isODataMetadataFull) {
       for (final String propertyName : type.getNavigationPropertyNames()) {
@@ -512,9 +564,10 @@ public class ODataJsonSerializer extends AbstractODataSerializer {
       }
     }
     if ((toDepth != null && toDepth > 1) || (toDepth == null && ExpandSelectHelper.hasExpand(expand))) {
-      final ExpandItem expandAll = ExpandSelectHelper.getExpandAll(expand);
+      final ExpandTree expandTree = ExpandTree.of(expand);
+      final ExpandItem expandAll = expandTree == null ? null : expandTree.getExpandAll();
       for (final String propertyName : type.getNavigationPropertyNames()) {
-        final ExpandItem innerOptions = ExpandSelectHelper.getExpandItem(expand.getExpandItems(), propertyName);
+        final ExpandItem innerOptions = expandTree == null ? null : expandTree.getExpandItem(propertyName);
         if (innerOptions != null || expandAll != null || toDepth != null) {
           Integer levels = null;
           final EdmNavigationProperty property = type.getNavigationProperty(propertyName);
@@ -556,18 +609,20 @@ public class ODataJsonSerializer extends AbstractODataSerializer {
       final ServiceMetadata metadata, final EdmNavigationProperty property,
       final Link navigationLink, final ExpandOption innerExpand,
       Integer toDepth, final SelectOption innerSelect, final CountOption innerCount,
-      final boolean writeOnlyCount, final boolean writeOnlyRef, final Set<String> ancestors,
+      final boolean writeOnlyCount, final boolean writeOnlyRef, final Set<EntityKey> ancestors,
       String name, final JsonGenerator json) throws IOException, SerializerException {
 
     if (property.isCollection()) {
+      final AbstractEntityCollection inlineEntities =
+          navigationLink == null ? null : navigationLink.getInlineEntityCollection();
       if (writeOnlyCount) {
-        if (navigationLink == null || navigationLink.getInlineEntitySet() == null) {
+        if (inlineEntities == null) {
           writeInlineCount(property.getName(), 0, json);
         } else {
-          writeInlineCount(property.getName(), navigationLink.getInlineEntitySet().getCount(), json);
+          writeInlineCount(property.getName(), inlineEntities.getCount(), json);
         }
       } else {
-        if (navigationLink == null || navigationLink.getInlineEntitySet() == null) {
+        if (inlineEntities == null) {
           if (innerCount != null && innerCount.getValue()) {
             writeInlineCount(property.getName(), 0, json);
           }
@@ -576,10 +631,10 @@ public class ODataJsonSerializer extends AbstractODataSerializer {
           json.writeEndArray();
         } else {
           if (innerCount != null && innerCount.getValue()) {
-            writeInlineCount(property.getName(), navigationLink.getInlineEntitySet().getCount(), json);
+            writeInlineCount(property.getName(), inlineEntities.getCount(), json);
           }
           json.writeFieldName(property.getName());
-          writeEntitySet(metadata, property.getType(), navigationLink.getInlineEntitySet(), innerExpand, toDepth,
+          writeEntitySet(metadata, property.getType(), inlineEntities, innerExpand, toDepth,
               innerSelect, writeOnlyRef, ancestors, name, json);
         }
       }
@@ -599,9 +654,16 @@ public class ODataJsonSerializer extends AbstractODataSerializer {
     return (edmProperty.isPrimitive() && type == EdmPrimitiveTypeFactory.getInstance(EdmPrimitiveTypeKind.Stream));    
   }
 
+  /**
+   * Writes a property.
+   * <br/>
+   * The selected paths are given as compiled {@link SelectTree} (<code>null</code> if all properties are selected);
+   * they were given as <code>Set&lt;List&lt;String&gt;&gt;</code> before, so subclasses overriding or calling this
+   * method must be adapted.
+   */
   protected void writeProperty(final ServiceMetadata metadata,
       final EdmProperty edmProperty, final Property property,
-      final Set<List<String>> selectedPaths, final JsonGenerator json)
+      final SelectTree selectedPaths, final JsonGenerator json)
       throws IOException, SerializerException {
     boolean isStreamProperty = isStreamProperty(edmProperty);
     writePropertyType(edmProperty, json);
@@ -665,7 +727,7 @@ public class ODataJsonSerializer extends AbstractODataSerializer {
   }
 
   private void writePropertyValue(final ServiceMetadata metadata, final EdmProperty edmProperty,
-      final Property property, final Set<List<String>> selectedPaths, final JsonGenerator json)
+      final Property property, final SelectTree selectedPaths, final JsonGenerator json)
       throws IOException, SerializerException {
     final EdmType type = edmProperty.getType();
     try {
@@ -698,7 +760,7 @@ public class ODataJsonSerializer extends AbstractODataSerializer {
   }
 
   private void writeComplex(final ServiceMetadata metadata, final EdmComplexType type,
-      final Property property, final Set<List<String>> selectedPaths, final JsonGenerator json) 
+      final Property property, final SelectTree selectedPaths, final JsonGenerator json) 
           throws IOException, SerializerException{
         json.writeStartObject();        
         String derivedName = property.getType();
@@ -730,7 +792,7 @@ public class ODataJsonSerializer extends AbstractODataSerializer {
       final Boolean isUnicode, final JsonGenerator json)
       throws IOException, SerializerException {
     json.writeStartArray();
-    for (Object value : property.asCollection()) {
+    for (Object value : property.asIterable()) {
       switch (property.getValueType()) {
       case COLLECTION_PRIMITIVE:
       case COLLECTION_ENUM:
@@ -754,11 +816,11 @@ public class ODataJsonSerializer extends AbstractODataSerializer {
 
   private void writeComplexCollection(final ServiceMetadata metadata, final EdmComplexType type,
       final Property property,
-      final Set<List<String>> selectedPaths, final JsonGenerator json)
+      final SelectTree selectedPaths, final JsonGenerator json)
       throws IOException, SerializerException {
     json.writeStartArray();
     EdmComplexType derivedType = type;
-    for (Object value : property.asCollection()) {
+    for (Object value : property.asIterable()) {
       derivedType = ((ComplexValue) value).getTypeName()!=null ? metadata.getEdm().getComplexType
           (new FullQualifiedName(((ComplexValue) value).getTypeName())): type;
       switch (property.getValueType()) {
@@ -934,16 +996,22 @@ public class ODataJsonSerializer extends AbstractODataSerializer {
     }
   }
 
+  /**
+   * Writes the properties of a complex value.
+   * <br/>
+   * The selected paths are given as compiled {@link SelectTree} (<code>null</code> if all properties are selected);
+   * they were given as <code>Set&lt;List&lt;String&gt;&gt;</code> before, so subclasses overriding or calling this
+   * method must be adapted.
+   */
   protected void writeComplexValue(final ServiceMetadata metadata,
       final EdmComplexType type, final List<Property> properties,
-      final Set<List<String>> selectedPaths, final JsonGenerator json)
+      final SelectTree selectedPaths, final JsonGenerator json)
       throws IOException, SerializerException {
 
     for (final String propertyName : type.getPropertyNames()) {
-      final Property property = findProperty(propertyName, properties);
-      if (selectedPaths == null || ExpandSelectHelper.isSelected(selectedPaths, propertyName)) {
-        writeProperty(metadata, (EdmProperty) type.getProperty(propertyName), property,
-            selectedPaths == null ? null : ExpandSelectHelper.getReducedSelectedPaths(selectedPaths, propertyName),
+      if (selectedPaths == null || selectedPaths.isSelected(propertyName)) {
+        writeProperty(metadata, (EdmProperty) type.getProperty(propertyName), findProperty(propertyName, properties),
+            selectedPaths == null ? null : selectedPaths.getChild(propertyName),
             json);
       }
     }
@@ -965,7 +1033,7 @@ public class ODataJsonSerializer extends AbstractODataSerializer {
     SerializerException cachedException = null;
     try {
       final ContextURL contextURL = checkContextURL(options == null ? null : options.getContextURL());
-      CircleStreamBuffer buffer = new CircleStreamBuffer();
+      CircleStreamBuffer buffer = createBuffer();
       outputStream = buffer.getOutputStream();
       JsonGenerator json = new JsonFactory().createGenerator(outputStream);
       json.writeStartObject();
@@ -1011,7 +1079,7 @@ public class ODataJsonSerializer extends AbstractODataSerializer {
       final ContextURL contextURL = checkContextURL(options == null ? null : options.getContextURL());
       final String name =  contextURL == null ? null:
         contextURL.getEntitySetOrSingletonOrType();
-      CircleStreamBuffer buffer = new CircleStreamBuffer();
+      CircleStreamBuffer buffer = createBuffer();
       outputStream = buffer.getOutputStream();
       JsonGenerator json = new JsonFactory().createGenerator(outputStream);
       json.writeStartObject();
@@ -1064,7 +1132,7 @@ public class ODataJsonSerializer extends AbstractODataSerializer {
     SerializerException cachedException = null;
     try {
       final ContextURL contextURL = checkContextURL(options == null ? null : options.getContextURL());
-      CircleStreamBuffer buffer = new CircleStreamBuffer();
+      CircleStreamBuffer buffer = createBuffer();
       outputStream = buffer.getOutputStream();
       JsonGenerator json = new JsonFactory().createGenerator(outputStream);
       json.writeStartObject();
@@ -1102,7 +1170,7 @@ public class ODataJsonSerializer extends AbstractODataSerializer {
     SerializerException cachedException = null;
     try {
       final ContextURL contextURL = checkContextURL(options == null ? null : options.getContextURL());
-      CircleStreamBuffer buffer = new CircleStreamBuffer();
+      CircleStreamBuffer buffer = createBuffer();
       outputStream = buffer.getOutputStream();
       JsonGenerator json = new JsonFactory().createGenerator(outputStream);
       json.writeStartObject();
@@ -1137,7 +1205,7 @@ public class ODataJsonSerializer extends AbstractODataSerializer {
 
     try {
       final ContextURL contextURL = checkContextURL(options == null ? null : options.getContextURL());
-      CircleStreamBuffer buffer = new CircleStreamBuffer();
+      CircleStreamBuffer buffer = createBuffer();
       final UriHelper uriHelper = new UriHelperImpl();
       outputStream = buffer.getOutputStream();
       final JsonGenerator json = new JsonFactory().createGenerator(outputStream);
@@ -1168,7 +1236,7 @@ public class ODataJsonSerializer extends AbstractODataSerializer {
 
     try {
       final ContextURL contextURL = checkContextURL(options == null ? null : options.getContextURL());
-      CircleStreamBuffer buffer = new CircleStreamBuffer();
+      CircleStreamBuffer buffer = createBuffer();
       final UriHelper uriHelper = new UriHelperImpl();
       outputStream = buffer.getOutputStream();
       final JsonGenerator json = new JsonFactory().createGenerator(outputStream);
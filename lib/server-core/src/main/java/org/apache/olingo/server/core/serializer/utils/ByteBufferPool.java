@@ -0,0 +1,125 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.serializer.utils;
+
+import java.nio.ByteBuffer;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Bounded pool of equally sized {@link ByteBuffer}s which can be shared between
+ * several {@link CircleStreamBuffer}s (and hence between several requests).
+ * <p/>
+ * Buffers are created on demand if the pool is empty. Released buffers are kept
+ * until the configured maximum of pooled buffers is reached; further released buffers
+ * are left to the garbage collector.
+ */
+public class ByteBufferPool {
+
+  public static final int DEFAULT_BUFFER_SIZE = 8192;
+  public static final int DEFAULT_MAX_POOLED_BUFFERS = 1024;
+
+  private final int bufferSize;
+  private final int maxPooledBuffers;
+  private final boolean direct;
+
+  private final Queue<ByteBuffer> pool = new ConcurrentLinkedQueue<ByteBuffer>();
+  private final AtomicInteger pooled = new AtomicInteger();
+
+  /**
+   * Creates a pool of heap buffers with default buffer size and default maximum of pooled buffers.
+   */
+  public ByteBufferPool() {
+    this(DEFAULT_BUFFER_SIZE, DEFAULT_MAX_POOLED_BUFFERS, false);
+  }
+
+  /**
+   * Creates a pool.
+   *
+   * @param bufferSize       capacity of each buffer in the pool
+   * @param maxPooledBuffers maximum number of buffers which are kept in the pool
+   * @param direct           <code>true</code> if direct buffers should be allocated, otherwise heap buffers
+   */
+  public ByteBufferPool(final int bufferSize, final int maxPooledBuffers, final boolean direct) {
+    if (bufferSize <= 0) {
+      throw new IllegalArgumentException("Buffer size must be greater than zero.");
+    }
+    if (maxPooledBuffers < 0) {
+      throw new IllegalArgumentException("Maximum of pooled buffers must not be negative.");
+    }
+    this.bufferSize = bufferSize;
+    this.maxPooledBuffers = maxPooledBuffers;
+    this.direct = direct;
+  }
+
+  /**
+   * Gets a cleared buffer from the pool or allocates a new one if the pool is empty.
+   *
+   * @return buffer with a capacity of {@link #getBufferSize()}
+   */
+  public ByteBuffer acquire() {
+    ByteBuffer buffer = pool.poll();
+    if (buffer == null) {
+      return direct ? ByteBuffer.allocateDirect(bufferSize) : ByteBuffer.allocate(bufferSize);
+    }
+    pooled.decrementAndGet();
+    buffer.clear();
+    return buffer;
+  }
+
+  /**
+   * Returns a buffer into the pool.
+   * Buffers which have not been created by this pool (different capacity or kind) are ignored.
+   *
+   * @param buffer the buffer which is not used anymore by the caller
+   */
+  public void release(final ByteBuffer buffer) {
+    if (buffer == null || buffer.capacity() != bufferSize || buffer.isDirect() != direct) {
+      return;
+    }
+    if (pooled.incrementAndGet() <= maxPooledBuffers) {
+      buffer.clear();
+      pool.offer(buffer);
+    } else {
+      pooled.decrementAndGet();
+    }
+  }
+
+  /**
+   * @return capacity of each buffer of this pool
+   */
+  public int getBufferSize() {
+    return bufferSize;
+  }
+
+  /**
+   * @return <code>true</code> if this pool provides direct buffers
+   */
+  public boolean isDirect() {
+    return direct;
+  }
+
+  /**
+   * @return number of buffers currently available in the pool
+   */
+  public int getPooledBufferCount() {
+    return pooled.get();
+  }
+}
@@ -22,14 +22,18 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayDeque;
 import java.util.Queue;
-import java.util.concurrent.LinkedBlockingQueue;
 
 /**
  * Circular stream buffer to write/read into/from one single buffer.
  * With support of {@link InputStream} and {@link OutputStream} access to buffered data.
- *
- *
+ * <p/>
+ * If created with a {@link ByteBufferPool} all internal buffers are taken from that pool
+ * and given back as soon as they are read out or the read part is closed.
+ * <p/>
+ * A single {@link CircleStreamBuffer} is not thread safe.
  */
 public class CircleStreamBuffer {
 
@@ -44,7 +48,8 @@ public class CircleStreamBuffer {
   private boolean writeClosed = false;
   private boolean readClosed = false;
 
-  private Queue<ByteBuffer> bufferQueue = new LinkedBlockingQueue<ByteBuffer>();
+  private final Queue<ByteBuffer> bufferQueue = new ArrayDeque<ByteBuffer>();
+  private final ByteBufferPool bufferPool;
   private ByteBuffer currentWriteBuffer;
 
   private final InternalInputStream inStream;
@@ -54,7 +59,7 @@ public class CircleStreamBuffer {
    * Creates a {@link CircleStreamBuffer} with default buffer size.
    */
   public CircleStreamBuffer() {
-    this(DEFAULT_CAPACITY);
+    this(DEFAULT_CAPACITY, null);
   }
 
   /**
@@ -63,7 +68,21 @@ public class CircleStreamBuffer {
    * @param initialCapacity initial capacity of internal buffer
    */
   public CircleStreamBuffer(final int initialCapacity) {
+    this(initialCapacity, null);
+  }
+
+  /**
+   * Create a {@link CircleStreamBuffer} which takes all its buffers from the given pool.
+   *
+   * @param bufferPool pool for internal buffers
+   */
+  public CircleStreamBuffer(final ByteBufferPool bufferPool) {
+    this(DEFAULT_CAPACITY, bufferPool);
+  }
+
+  private CircleStreamBuffer(final int initialCapacity, final ByteBufferPool bufferPool) {
     currentAllocateCapacity = initialCapacity;
+    this.bufferPool = bufferPool;
     createNewWriteBuffer();
     inStream = new InternalInputStream(this);
     outStream = new InternalOutputStream(this);
@@ -110,9 +129,12 @@ public class CircleStreamBuffer {
     // clear references to byte buffers
     ByteBuffer buffer = bufferQueue.poll();
     while (buffer != null) {
-      buffer.clear();
+      releaseBuffer(buffer);
       buffer = bufferQueue.poll();
     }
+    // a released buffer must not be written anymore
+    currentWriteBuffer = null;
+    writeMode = false;
   }
 
   /**
@@ -154,7 +176,7 @@ public class CircleStreamBuffer {
     } else {
       tmp = bufferQueue.peek();
       if (tmp != null && !tmp.hasRemaining()) {
-        tmp = bufferQueue.poll();
+        releaseBuffer(bufferQueue.poll());
         next = true;
       }
     }
@@ -193,6 +215,57 @@ public class CircleStreamBuffer {
     return readBuffer.get();
   }
 
+  /**
+   * Writes all remaining readable data directly from the internal buffers into the given channel
+   * (without an intermediate copy buffer).
+   *
+   * @param channel channel in which the data is written
+   * @return number of written bytes
+   * @throws IOException if the read part is already closed or the channel write fails
+   */
+  private long transferTo(final WritableByteChannel channel) throws IOException {
+    long written = 0;
+    ByteBuffer readBuffer = getReadBuffer();
+    while (readBuffer != null) {
+      while (readBuffer.hasRemaining()) {
+        written += channel.write(readBuffer);
+      }
+      readBuffer = getReadBuffer();
+    }
+    return written;
+  }
+
+  /**
+   * Writes all remaining readable data directly from the internal buffers into the given stream.
+   * Heap buffers are written with their backing array so that no intermediate copy is necessary.
+   *
+   * @param stream stream in which the data is written
+   * @return number of written bytes
+   * @throws IOException if the read part is already closed or the stream write fails
+   */
+  private long transferTo(final OutputStream stream) throws IOException {
+    long written = 0;
+    byte[] tmp = null;
+    ByteBuffer readBuffer = getReadBuffer();
+    while (readBuffer != null) {
+      final int length = readBuffer.remaining();
+      if (readBuffer.hasArray()) {
+        stream.write(readBuffer.array(), readBuffer.arrayOffset() + readBuffer.position(), length);
+        readBuffer.position(readBuffer.limit());
+      } else {
+        // direct buffers have to be copied onto the heap; the copy array is reused
+        if (tmp == null || tmp.length < length) {
+          tmp = new byte[length];
+        }
+        readBuffer.get(tmp, 0, length);
+        stream.write(tmp, 0, length);
+      }
+      written += length;
+      readBuffer = getReadBuffer();
+    }
+    return written;
+  }
+
   public ByteBuffer getBuffer() throws IOException {
     if (readClosed) {
       throw new IOException("Tried to read from closed stream.");
@@ -219,8 +292,21 @@ public class CircleStreamBuffer {
   // #############################################
 
   private void write(final byte[] data, final int off, final int len) throws IOException {
-    ByteBuffer writeBuffer = getWriteBuffer(len);
-    writeBuffer.put(data, off, len);
+    if (bufferPool == null) {
+      ByteBuffer writeBuffer = getWriteBuffer(len);
+      writeBuffer.put(data, off, len);
+    } else {
+      // pooled buffers have a fixed size so the data is split over as many buffers as necessary
+      int offset = off;
+      int remaining = len;
+      while (remaining > 0) {
+        ByteBuffer writeBuffer = getWriteBuffer(1);
+        final int length = Math.min(remaining, writeBuffer.remaining());
+        writeBuffer.put(data, offset, length);
+        offset += length;
+        remaining -= length;
+      }
+    }
   }
 
   private ByteBuffer getWriteBuffer(final int size) throws IOException {
@@ -228,8 +314,8 @@ public class CircleStreamBuffer {
       throw new IOException("Tried to write into closed stream.");
     }
 
-    if (writeMode) {
-      if (remaining() < size) {
+    if (writeMode && currentWriteBuffer != null) {
+      if (currentWriteBuffer.remaining() < size) {
         createNewWriteBuffer(size);
       }
     } else {
@@ -269,6 +355,10 @@ public class CircleStreamBuffer {
    * @return the buffer
    */
   private ByteBuffer allocateBuffer(final int requestedCapacity) {
+    if (bufferPool != null) {
+      return bufferPool.acquire();
+    }
+
     if (requestedCapacity > MAX_CAPACITY) {
       currentAllocateCapacity = MAX_CAPACITY;
       return ByteBuffer.allocate(requestedCapacity);
@@ -286,6 +376,22 @@ public class CircleStreamBuffer {
     return ByteBuffer.allocate(currentAllocateCapacity);
   }
 
+  /**
+   * Gives the buffer back into the pool (if pooled) or just clears it.
+   *
+   * @param buffer buffer which is not used anymore
+   */
+  private void releaseBuffer(final ByteBuffer buffer) {
+    if (buffer == null) {
+      return;
+    }
+    if (bufferPool == null) {
+      buffer.clear();
+    } else {
+      bufferPool.release(buffer);
+    }
+  }
+
   // #############################################
   // #
   // # Inner classes (streams)
@@ -293,9 +399,10 @@ public class CircleStreamBuffer {
   // #############################################
 
   /**
-   *
+   * {@link InputStream} on the buffered data which additionally allows to write
+   * the buffered data directly into a target stream or channel.
    */
-  private static class InternalInputStream extends InputStream {
+  public static class InternalInputStream extends InputStream {
 
     private final CircleStreamBuffer inBuffer;
 
@@ -303,6 +410,26 @@ public class CircleStreamBuffer {
       inBuffer = csBuffer;
     }
 
+    /**
+     * Writes all remaining data into the given channel without intermediate copy buffer.
+     * @param channel target channel
+     * @return number of written bytes
+     * @throws IOException if the buffer is already closed or writing fails
+     */
+    public long transferTo(final WritableByteChannel channel) throws IOException {
+      return inBuffer.transferTo(channel);
+    }
+
+    /**
+     * Writes all remaining data into the given stream without intermediate copy buffer.
+     * @param stream target stream
+     * @return number of written bytes
+     * @throws IOException if the buffer is already closed or writing fails
+     */
+    public long transferTo(final OutputStream stream) throws IOException {
+      return inBuffer.transferTo(stream);
+    }
+
     @Override
     public int available() throws IOException {
       return inBuffer.remaining();
@@ -0,0 +1,107 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.serializer.utils;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.olingo.commons.api.data.Entity;
+import org.apache.olingo.commons.api.data.Property;
+import org.apache.olingo.commons.api.edm.EdmEntityType;
+import org.apache.olingo.commons.api.edm.EdmKeyPropertyRef;
+import org.apache.olingo.server.api.serializer.SerializerException;
+
+/**
+ * Identifies an entity by its id or, if the id has not been set, by its entity type and its key property values.
+ * Used to detect cycles while serializing expanded navigation properties without requiring the entity id.
+ * <br/>
+ * Without an id, entities of the same type with the same key values are considered the same entity even if they
+ * belong to different entity sets; set the ids to tell them apart.
+ */
+public final class EntityKey {
+
+  private final Object type;
+  private final Object[] values;
+  private final int hashCode;
+
+  private EntityKey(final Object type, final Object[] values) {
+    this.type = type;
+    this.values = values;
+    hashCode = 31 * type.hashCode() + Arrays.hashCode(values);
+  }
+
+  /**
+   * Creates the key of the given entity.
+   * @param entity the entity
+   * @param entityType the entity type
+   * @return the key
+   * @throws SerializerException if neither the entity id nor the key property values are available
+   */
+  public static EntityKey create(final Entity entity, final EdmEntityType entityType) throws SerializerException {
+    if (entity.getId() != null) {
+      return new EntityKey(EntityKey.class, new Object[] { entity.getId() });
+    }
+    if (entityType != null) {
+      final List<EdmKeyPropertyRef> keyRefs = entityType.getKeyPropertyRefs();
+      final Object[] values = new Object[keyRefs.size()];
+      boolean complete = !keyRefs.isEmpty();
+      for (int i = 0; i < values.length && complete; i++) {
+        final Property property = findProperty(entity.getProperties(), keyRefs.get(i).getName());
+        complete = property != null;
+        values[i] = complete ? property.getValue() : null;
+      }
+      if (complete) {
+        return new EntityKey(entityType.getFullQualifiedName(), values);
+      }
+    }
+    throw new SerializerException("Entity id is null.", SerializerException.MessageKeys.MISSING_ID);
+  }
+
+  private static Property findProperty(final List<Property> properties, final String path) {
+    final int index = path.indexOf('/');
+    final String name = index < 0 ? path : path.substring(0, index);
+    for (final Property property : properties) {
+      if (name.equals(property.getName())) {
+        if (index < 0) {
+          return property;
+        }
+        return property.asComplex() == null ? null
+            : findProperty(property.asComplex().getValue(), path.substring(index + 1));
+      }
+    }
+    return null;
+  }
+
+  @Override
+  public boolean equals(final Object obj) {
+    if (this == obj) {
+      return true;
+    }
+    if (!(obj instanceof EntityKey)) {
+      return false;
+    }
+    final EntityKey other = (EntityKey) obj;
+    return hashCode == other.hashCode && type.equals(other.type) && Arrays.equals(values, other.values);
+  }
+
+  @Override
+  public int hashCode() {
+    return hashCode;
+  }
+}
@@ -22,6 +22,7 @@ import java.io.IOException;
 import java.io.OutputStream;
 import java.net.URI;
 import java.text.SimpleDateFormat;
+import java.util.BitSet;
 import java.util.Date;
 import java.util.HashSet;
 import java.util.List;
@@ -59,6 +60,7 @@ import org.apache.olingo.commons.core.edm.primitivetype.EdmPrimitiveTypeFactory;
 import org.apache.olingo.commons.core.edm.primitivetype.EdmString;
 import org.apache.olingo.server.api.ODataServerError;
 import org.apache.olingo.server.api.ServiceMetadata;
+import org.apache.olingo.server.api.metrics.RequestPhase;
 import org.apache.olingo.server.api.serializer.ComplexSerializerOptions;
 import org.apache.olingo.server.api.serializer.EntityCollectionSerializerOptions;
 import org.apache.olingo.server.api.serializer.EntitySerializerOptions;
@@ -75,13 +77,18 @@ import org.apache.olingo.server.api.uri.queryoption.ExpandOption;
 import org.apache.olingo.server.api.uri.queryoption.LevelsExpandOption;
 import org.apache.olingo.server.api.uri.queryoption.SelectOption;
 import org.apache.olingo.server.core.ODataWritableContent;
+import org.apache.olingo.server.core.metrics.RequestMetricsRecorder;
 import org.apache.olingo.server.core.serializer.AbstractODataSerializer;
 import org.apache.olingo.server.core.serializer.SerializerResultImpl;
+import org.apache.olingo.server.core.serializer.utils.ByteBufferPool;
 import org.apache.olingo.server.core.serializer.utils.CircleStreamBuffer;
 import org.apache.olingo.server.core.serializer.utils.ContextURLBuilder;
+import org.apache.olingo.server.core.serializer.utils.EntityKey;
 import org.apache.olingo.server.core.serializer.utils.ExpandSelectHelper;
 import org.apache.olingo.server.core.uri.UriHelperImpl;
 import org.apache.olingo.server.core.uri.queryoption.ExpandOptionImpl;
+import org.apache.olingo.server.core.uri.queryoption.ExpandTree;
+import org.apache.olingo.server.core.uri.queryoption.SelectTree;
 
 public class ODataXmlSerializer extends AbstractODataSerializer {
 
@@ -93,13 +100,21 @@ public class ODataXmlSerializer extends AbstractODataSerializer {
   private static final String DATA = Constants.PREFIX_DATASERVICES;
   private static final String NS_DATA = Constants.NS_DATASERVICES;
 
+  public ODataXmlSerializer() {
+    this(null);
+  }
+
+  public ODataXmlSerializer(final ByteBufferPool bufferPool) {
+    super(bufferPool);
+  }
+
   @Override
   public SerializerResult serviceDocument(final ServiceMetadata metadata, final String serviceRoot)
       throws SerializerException {
     OutputStream outputStream = null;
     SerializerException cachedException = null;
     try {
-      CircleStreamBuffer buffer = new CircleStreamBuffer();
+      CircleStreamBuffer buffer = createBuffer();
       outputStream = buffer.getOutputStream();
       XMLStreamWriter writer = XMLOutputFactory.newInstance().createXMLStreamWriter(outputStream, DEFAULT_CHARSET);
       ServiceDocumentXmlSerializer serializer = new ServiceDocumentXmlSerializer(metadata, serviceRoot);
@@ -128,7 +143,7 @@ public class ODataXmlSerializer extends AbstractODataSerializer {
     OutputStream outputStream = null;
     SerializerException cachedException = null;
     try {
-      CircleStreamBuffer buffer = new CircleStreamBuffer();
+      CircleStreamBuffer buffer = createBuffer();
       outputStream = buffer.getOutputStream();
       XMLStreamWriter writer = XMLOutputFactory.newInstance().createXMLStreamWriter(outputStream, DEFAULT_CHARSET);
       MetadataDocumentXmlSerializer serializer = new MetadataDocumentXmlSerializer(serviceMetadata);
@@ -162,7 +177,7 @@ public class ODataXmlSerializer extends AbstractODataSerializer {
     OutputStream outputStream = null;
     SerializerException cachedException = null;
     try {
-      CircleStreamBuffer buffer = new CircleStreamBuffer();
+      CircleStreamBuffer buffer = createBuffer();
       outputStream = buffer.getOutputStream();
       XMLStreamWriter writer = XMLOutputFactory.newInstance().createXMLStreamWriter(outputStream, DEFAULT_CHARSET);
       writer.writeStartDocument(DEFAULT_CHARSET, "1.0");
@@ -233,8 +248,12 @@ public class ODataXmlSerializer extends AbstractODataSerializer {
 
     OutputStream outputStream = null;
     SerializerException cachedException = null;
+    final RequestPhase previousPhase = RequestMetricsRecorder.enter(RequestPhase.SERIALIZE);
+    if (entitySet instanceof EntityCollection) {
+      RequestMetricsRecorder.addEntities(((EntityCollection) entitySet).getEntities().size());
+    }
     try {
-      CircleStreamBuffer buffer = new CircleStreamBuffer();
+      CircleStreamBuffer buffer = createBuffer();
       outputStream = buffer.getOutputStream();
       XMLStreamWriter writer = XMLOutputFactory.newInstance().createXMLStreamWriter(outputStream, DEFAULT_CHARSET);
       writer.writeStartDocument(DEFAULT_CHARSET, "1.0");
@@ -253,8 +272,8 @@ public class ODataXmlSerializer extends AbstractODataSerializer {
         writer.writeEndElement();
       }
 
-      if (options != null && options.getCount() != null && options.getCount().getValue()
-          && entitySet.getCount() != null) {
+      final boolean writeCount = options != null && options.getCount() != null && options.getCount().getValue();
+      if (writeCount && !isCountDeferred(entitySet) && entitySet.getCount() != null) {
         writeCount(entitySet, writer);
       }
       if (entitySet.getNext() != null) {
@@ -269,6 +288,12 @@ public class ODataXmlSerializer extends AbstractODataSerializer {
             options.getExpand(), null, 
             options.getSelect(), options.xml10InvalidCharReplacement(), writer, writeOnlyRef, name, null);
       }
+      if (writeCount && isCountDeferred(entitySet)) {
+        final Integer count = entitySet.getCount();
+        if (count != null) {
+          writeCount(count, writer);
+        }
+      }
 
       writer.writeEndElement();
       writer.writeEndDocument();
@@ -288,6 +313,7 @@ public class ODataXmlSerializer extends AbstractODataSerializer {
       throw cachedException;
     } finally {
       closeCircleStreamBufferOutput(outputStream, cachedException);
+      RequestMetricsRecorder.enter(previousPhase);
     }
   }
 
@@ -297,6 +323,8 @@ public class ODataXmlSerializer extends AbstractODataSerializer {
     final ContextURL contextURL = checkContextURL(options == null ? null : options.getContextURL());
     final String name = contextURL == null ? null : contextURL.getEntitySetOrSingletonOrType();
     SerializerException cachedException;
+    // the entities are serialized directly into the response, so the writing is part of this phase
+    final RequestPhase previousPhase = RequestMetricsRecorder.enter(RequestPhase.SERIALIZE);
     try {
       XMLStreamWriter writer = XMLOutputFactory.newInstance().createXMLStreamWriter(outputStream, DEFAULT_CHARSET);
       writer.writeStartDocument(DEFAULT_CHARSET, "1.0");
@@ -315,8 +343,8 @@ public class ODataXmlSerializer extends AbstractODataSerializer {
         writer.writeEndElement();
       }
 
-      if (options != null && options.getCount() != null && options.getCount().getValue()
-          && entitySet.getCount() != null) {
+      final boolean writeCount = options != null && options.getCount() != null && options.getCount().getValue();
+      if (writeCount && !isCountDeferred(entitySet) && entitySet.getCount() != null) {
         writeCount(entitySet, writer);
       }
       if (entitySet!=null && entitySet.getNext() != null) {
@@ -330,6 +358,12 @@ public class ODataXmlSerializer extends AbstractODataSerializer {
             options.getExpand(), null, 
             options.getSelect(), options.xml10InvalidCharReplacement(), writer, writeOnlyRef, name, null);
       }
+      if (writeCount && isCountDeferred(entitySet)) {
+        final Integer count = entitySet.getCount();
+        if (count != null) {
+          writeCount(count, writer);
+        }
+      }
 
       writer.writeEndElement();
       writer.writeEndDocument();
@@ -339,6 +373,8 @@ public class ODataXmlSerializer extends AbstractODataSerializer {
       cachedException =
           new SerializerException(IO_EXCEPTION_TEXT, e, SerializerException.MessageKeys.IO_EXCEPTION);
       throw cachedException;
+    } finally {
+      RequestMetricsRecorder.enter(previousPhase);
     }
   }
 
@@ -360,8 +396,10 @@ public class ODataXmlSerializer extends AbstractODataSerializer {
 
     OutputStream outputStream = null;
     SerializerException cachedException = null;
+    final RequestPhase previousPhase = RequestMetricsRecorder.enter(RequestPhase.SERIALIZE);
+    RequestMetricsRecorder.addEntities(1);
     try {
-      CircleStreamBuffer buffer = new CircleStreamBuffer();
+      CircleStreamBuffer buffer = createBuffer();
       outputStream = buffer.getOutputStream();
       XMLStreamWriter writer = XMLOutputFactory.newInstance().createXMLStreamWriter(outputStream, DEFAULT_CHARSET);
       writer.writeStartDocument(DEFAULT_CHARSET, "1.0");
@@ -388,6 +426,7 @@ public class ODataXmlSerializer extends AbstractODataSerializer {
       throw cachedException;
     } finally {
       closeCircleStreamBufferOutput(outputStream, cachedException);
+      RequestMetricsRecorder.enter(previousPhase);
     }
   }
 
@@ -412,24 +451,28 @@ public class ODataXmlSerializer extends AbstractODataSerializer {
       final AbstractEntityCollection entitySet, final ExpandOption expand, 
       final Integer toDepth, final SelectOption select,
       final String xml10InvalidCharReplacement,final XMLStreamWriter writer, 
-      final boolean writeOnlyRef, final String name,final Set<String> ancestors) 
+      final boolean writeOnlyRef, final String name,final Set<EntityKey> ancestors) 
           throws XMLStreamException, SerializerException {
+    // the size of an iterated collection is known only after the iteration
+    final boolean countEntities = entitySet instanceof EntityIterator;
     for (final Entity entity : entitySet) {
+      if (countEntities) {
+        RequestMetricsRecorder.addEntities(1);
+      }
       writeEntity(metadata, entityType, entity, null, expand, toDepth, select, 
           xml10InvalidCharReplacement, writer, false, writeOnlyRef, name, ancestors);
     }
   }
   
   /**
-   * Get the ascii representation of the entity id
-   * or thrown an {@link SerializerException} if id is <code>null</code>.
+   * Sets the id of the entity from its key predicate if it has no id yet,
+   * or throws a {@link SerializerException} if the id cannot be built.
    *
    * @param entity the entity
    * @param entityType the entity Type
    * @param name the entity name
-   * @return ascii representation of the entity id
    */
-  private String getEntityId(Entity entity, EdmEntityType entityType, String name) throws SerializerException {
+  private void ensureEntityId(Entity entity, EdmEntityType entityType, String name) throws SerializerException {
     if(entity.getId() == null) {
       if((entity == null || entityType == null || entityType.getKeyPredicateNames() == null 
           || name == null)) {
@@ -439,21 +482,31 @@ public class ODataXmlSerializer extends AbstractODataSerializer {
         entity.setId(URI.create(name + '(' + uriHelper.buildKeyPredicate(entityType, entity) + ')'));
       }
     }
-    return entity.getId().toASCIIString();
   }  
 
-
+  /**
+   * Writes an entity.
+   * <br/>
+   * The ancestors are the keys of the entities this entity is expanded from, used to detect cycles; they were
+   * given as entity ids (<code>Set&lt;String&gt;</code>) before, so subclasses overriding or calling the methods
+   * taking ancestors must be adapted.
+   */
   protected void writeEntity(final ServiceMetadata metadata, final EdmEntityType entityType,
       final Entity entity, final ContextURL contextURL, final ExpandOption expand, final Integer toDepth,
       final SelectOption select, final String xml10InvalidCharReplacement,
-      final XMLStreamWriter writer, final boolean top, final boolean writeOnlyRef,String name,  Set<String> ancestors)
+      final XMLStreamWriter writer, final boolean top, final boolean writeOnlyRef, String name,
+      Set<EntityKey> ancestors)
       throws XMLStreamException, SerializerException {
     boolean cycle = false;
+    EntityKey key = null;
     if (expand != null) {
       if (ancestors == null) {
-        ancestors = new HashSet<String>();
+        ancestors = new HashSet<EntityKey>();
       }
-      cycle = !ancestors.add(getEntityId(entity, entityType, name));
+      key = EntityKey.create(entity, entityType);
+      cycle = !ancestors.add(key);
+      // the id of expanded entities is always written, also as reference in case of a cycle
+      ensureEntityId(entity, entityType, name);
     }
 
     if (cycle || writeOnlyRef) {
@@ -539,7 +592,7 @@ public class ODataXmlSerializer extends AbstractODataSerializer {
       writer.writeEndElement(); // entry
     } finally {
       if (!cycle && ancestors != null) {
-        ancestors.remove(getEntityId(entity, entityType, name));
+        ancestors.remove(key);
       }
     }
   }
@@ -627,28 +680,34 @@ public class ODataXmlSerializer extends AbstractODataSerializer {
   protected void writeProperties(final ServiceMetadata metadata, final EdmStructuredType type,
       final List<Property> properties, final SelectOption select, final String xml10InvalidCharReplacement, 
       final XMLStreamWriter writer) throws XMLStreamException, SerializerException {
-    final boolean all = ExpandSelectHelper.isAll(select);
-    final Set<String> selected = all ? new HashSet<String>() :
-        ExpandSelectHelper.getSelectedPropertyNames(select.getSelectItems());
-    for (final String propertyName : type.getPropertyNames()) {
-      if (all || selected.contains(propertyName)) {
+    final SelectTree selection = SelectTree.of(select);
+    final List<String> propertyNames = type.getPropertyNames();
+    if (selection == null) {
+      for (final String propertyName : propertyNames) {
+        writeProperty(metadata, type.getStructuralProperty(propertyName), findProperty(propertyName, properties),
+            null, xml10InvalidCharReplacement, writer);
+      }
+    } else {
+      final BitSet selected = selection.getSelectedProperties(type);
+      for (int index = selected.nextSetBit(0); index >= 0; index = selected.nextSetBit(index + 1)) {
+        final String propertyName = propertyNames.get(index);
         final EdmProperty edmProperty = type.getStructuralProperty(propertyName);
-        final Property property = findProperty(propertyName, properties);
-        final Set<List<String>> selectedPaths = all || edmProperty.isPrimitive() ? null :
-            ExpandSelectHelper.getSelectedPaths(select.getSelectItems(), propertyName);
-        writeProperty(metadata, edmProperty, property, selectedPaths, xml10InvalidCharReplacement, writer);
+        writeProperty(metadata, edmProperty, findProperty(propertyName, properties),
+            edmProperty.isPrimitive() ? null : selection.getChild(propertyName), xml10InvalidCharReplacement, writer);
       }
     }
   }
 
   protected void writeNavigationProperties(final ServiceMetadata metadata,
       final EdmStructuredType type, final Linked linked, final ExpandOption expand, final Integer toDepth,
-      final String xml10InvalidCharReplacement, final Set<String> ancestors, String name, final XMLStreamWriter writer) 
+      final String xml10InvalidCharReplacement, final Set<EntityKey> ancestors, String name,
+      final XMLStreamWriter writer) 
           throws SerializerException, XMLStreamException {
     if ((toDepth != null && toDepth > 1) || (toDepth == null && ExpandSelectHelper.hasExpand(expand))) {
-      final ExpandItem expandAll = ExpandSelectHelper.getExpandAll(expand);
+      final ExpandTree expandTree = ExpandTree.of(expand);
+      final ExpandItem expandAll = expandTree == null ? null : expandTree.getExpandAll();
       for (final String propertyName : type.getNavigationPropertyNames()) {
-        final ExpandItem innerOptions = ExpandSelectHelper.getExpandItem(expand.getExpandItems(), propertyName);
+        final ExpandItem innerOptions = expandTree == null ? null : expandTree.getExpandItem(propertyName);
         if (expandAll != null || innerOptions != null || toDepth != null) {
           Integer levels = null;
           final EdmNavigationProperty property = type.getNavigationProperty(propertyName);
@@ -742,18 +801,20 @@ public class ODataXmlSerializer extends AbstractODataSerializer {
       final ExpandOption innerExpand, final Integer toDepth, 
       final SelectOption innerSelect, final CountOption coutOption, 
       final boolean writeNavigationCount, final boolean writeOnlyRef,final String xml10InvalidCharReplacement,
-      final Set<String> ancestors, String name,
+      final Set<EntityKey> ancestors, String name,
       final XMLStreamWriter writer) throws XMLStreamException, SerializerException {
     if (property.isCollection()) {
-      if (navigationLink != null && navigationLink.getInlineEntitySet() != null) {
+      final AbstractEntityCollection inlineEntities =
+          navigationLink == null ? null : navigationLink.getInlineEntityCollection();
+      if (inlineEntities != null) {
         writer.writeStartElement(ATOM, Constants.ATOM_ELEM_FEED, NS_ATOM);
         if (writeNavigationCount) {
-          writeCount(navigationLink.getInlineEntitySet(), writer);
+          writeCount(inlineEntities, writer);
         } else {
           if (coutOption != null && coutOption.getValue()) {
-            writeCount(navigationLink.getInlineEntitySet(), writer);
+            writeCount(inlineEntities, writer);
           }
-          writeEntitySet(metadata, property.getType(), navigationLink.getInlineEntitySet(), innerExpand, toDepth,
+          writeEntitySet(metadata, property.getType(), inlineEntities, innerExpand, toDepth,
               innerSelect, xml10InvalidCharReplacement, writer, writeOnlyRef, name, ancestors);
         }
         writer.writeEndElement();
@@ -767,9 +828,16 @@ public class ODataXmlSerializer extends AbstractODataSerializer {
     }
   }
 
+  /**
+   * Writes a property.
+   * <br/>
+   * The selected paths are given as compiled {@link SelectTree} (<code>null</code> if all properties are selected);
+   * they were given as <code>Set&lt;List&lt;String&gt;&gt;</code> before, so subclasses overriding or calling this
+   * method must be adapted.
+   */
   protected void writeProperty(final ServiceMetadata metadata,
       final EdmProperty edmProperty, final Property property,
-      final Set<List<String>> selectedPaths,
+      final SelectTree selectedPaths,
       final String xml10InvalidCharReplacement, final XMLStreamWriter writer)
       throws XMLStreamException, SerializerException {
     writer.writeStartElement(DATA, edmProperty.getName(), NS_DATA);
@@ -807,7 +875,7 @@ public class ODataXmlSerializer extends AbstractODataSerializer {
 
   private void writePropertyValue(final ServiceMetadata metadata,
       final EdmProperty edmProperty, final Property property,
-      final Set<List<String>> selectedPaths,
+      final SelectTree selectedPaths,
       final String xml10InvalidCharReplacement, final XMLStreamWriter writer)
       throws XMLStreamException, SerializerException {
     try {
@@ -850,7 +918,7 @@ public class ODataXmlSerializer extends AbstractODataSerializer {
 
   private void writeComplex(final ServiceMetadata metadata,
       final EdmProperty edmProperty, final Property property,
-      final Set<List<String>> selectedPaths,
+      final SelectTree selectedPaths,
       final String xml10InvalidCharReplacement, final XMLStreamWriter writer) 
           throws XMLStreamException, SerializerException{
       
@@ -868,7 +936,7 @@ public class ODataXmlSerializer extends AbstractODataSerializer {
       final Boolean isNullable, final Integer maxLength, final Integer precision, final Integer scale,
       final Boolean isUnicode, final String xml10InvalidCharReplacement,
       final XMLStreamWriter writer) throws XMLStreamException, EdmPrimitiveTypeException, SerializerException {
-    for (Object value : property.asCollection()) {
+    for (Object value : property.asIterable()) {
       writer.writeStartElement(METADATA, Constants.ELEM_ELEMENT, NS_METADATA);
       switch (property.getValueType()) {
       case COLLECTION_PRIMITIVE:
@@ -888,11 +956,11 @@ public class ODataXmlSerializer extends AbstractODataSerializer {
   }
 
   private void writeComplexCollection(final ServiceMetadata metadata,
-      final EdmComplexType type, final Property property, final Set<List<String>> selectedPaths,
+      final EdmComplexType type, final Property property, final SelectTree selectedPaths,
       final String xml10InvalidCharReplacement, final XMLStreamWriter writer)
       throws XMLStreamException, SerializerException {
     EdmComplexType complexType = type;
-    for (Object value : property.asCollection()) {
+    for (Object value : property.asIterable()) {
       writer.writeStartElement(METADATA, Constants.ELEM_ELEMENT, NS_METADATA);
       String typeName = ((ComplexValue)value).getTypeName();
       String propertyType = typeName != null ? typeName :property.getType();
@@ -960,16 +1028,22 @@ public class ODataXmlSerializer extends AbstractODataSerializer {
     }
   }
 
+  /**
+   * Writes the properties of a complex value.
+   * <br/>
+   * The selected paths are given as compiled {@link SelectTree} (<code>null</code> if all properties are selected);
+   * they were given as <code>Set&lt;List&lt;String&gt;&gt;</code> before, so subclasses overriding or calling this
+   * method must be adapted.
+   */
   protected void writeComplexValue(final ServiceMetadata metadata,
       final EdmComplexType type, final List<Property> properties, 
-      final Set<List<String>> selectedPaths, final String xml10InvalidCharReplacement, 
+      final SelectTree selectedPaths, final String xml10InvalidCharReplacement, 
       final XMLStreamWriter writer) throws XMLStreamException, SerializerException {   
     
     for (final String propertyName : type.getPropertyNames()) {
-      final Property property = findProperty(propertyName, properties);
-      if (selectedPaths == null || ExpandSelectHelper.isSelected(selectedPaths, propertyName)) {
-        writeProperty(metadata, (EdmProperty) type.getProperty(propertyName), property,
-            selectedPaths == null ? null : ExpandSelectHelper.getReducedSelectedPaths(selectedPaths, propertyName),
+      if (selectedPaths == null || selectedPaths.isSelected(propertyName)) {
+        writeProperty(metadata, (EdmProperty) type.getProperty(propertyName), findProperty(propertyName, properties),
+            selectedPaths == null ? null : selectedPaths.getChild(propertyName),
             xml10InvalidCharReplacement, writer);
       }
     }
@@ -992,7 +1066,7 @@ public class ODataXmlSerializer extends AbstractODataSerializer {
     OutputStream outputStream = null;
     SerializerException cachedException = null;
     try {
-      CircleStreamBuffer buffer = new CircleStreamBuffer();
+      CircleStreamBuffer buffer = createBuffer();
       outputStream = buffer.getOutputStream();
       XMLStreamWriter writer = XMLOutputFactory.newInstance().createXMLStreamWriter(outputStream, DEFAULT_CHARSET);
 
@@ -1063,7 +1137,7 @@ public class ODataXmlSerializer extends AbstractODataSerializer {
       } else {
         resolvedType = resolveComplexType(metadata, type, property.getType());
       }
-      CircleStreamBuffer buffer = new CircleStreamBuffer();
+      CircleStreamBuffer buffer = createBuffer();
       outputStream = buffer.getOutputStream();
       XMLStreamWriter writer = XMLOutputFactory.newInstance().createXMLStreamWriter(outputStream, DEFAULT_CHARSET);
       writer.writeStartDocument(DEFAULT_CHARSET, "1.0");
@@ -1111,7 +1185,7 @@ public class ODataXmlSerializer extends AbstractODataSerializer {
     OutputStream outputStream = null;
     SerializerException cachedException = null;
     try {
-      CircleStreamBuffer buffer = new CircleStreamBuffer();
+      CircleStreamBuffer buffer = createBuffer();
       outputStream = buffer.getOutputStream();
       XMLStreamWriter writer = XMLOutputFactory.newInstance().createXMLStreamWriter(outputStream, DEFAULT_CHARSET);
 
@@ -1165,7 +1239,7 @@ public class ODataXmlSerializer extends AbstractODataSerializer {
     OutputStream outputStream = null;
     SerializerException cachedException = null;
     try {
-      CircleStreamBuffer buffer = new CircleStreamBuffer();
+      CircleStreamBuffer buffer = createBuffer();
       outputStream = buffer.getOutputStream();
       XMLStreamWriter writer = XMLOutputFactory.newInstance().createXMLStreamWriter(outputStream, DEFAULT_CHARSET);
       writer.writeStartDocument(DEFAULT_CHARSET, "1.0");
@@ -1208,7 +1282,7 @@ public class ODataXmlSerializer extends AbstractODataSerializer {
     OutputStream outputStream = null;
     SerializerException cachedException = null;
     try {
-      CircleStreamBuffer buffer = new CircleStreamBuffer();
+      CircleStreamBuffer buffer = createBuffer();
       outputStream = buffer.getOutputStream();
       XMLStreamWriter writer = XMLOutputFactory.newInstance().createXMLStreamWriter(outputStream, DEFAULT_CHARSET);
       writer.writeStartDocument(DEFAULT_CHARSET, "1.0");
@@ -1259,7 +1333,7 @@ public class ODataXmlSerializer extends AbstractODataSerializer {
     OutputStream outputStream = null;
     SerializerException cachedException = null;
     try {
-      CircleStreamBuffer buffer = new CircleStreamBuffer();
+      CircleStreamBuffer buffer = createBuffer();
       outputStream = buffer.getOutputStream();
       XMLStreamWriter writer = XMLOutputFactory.newInstance().createXMLStreamWriter(outputStream, DEFAULT_CHARSET);
       writer.writeStartDocument(DEFAULT_CHARSET, "1.0");
@@ -1302,8 +1376,12 @@ public class ODataXmlSerializer extends AbstractODataSerializer {
 
   private void writeCount(final AbstractEntityCollection entitySet, final XMLStreamWriter writer)
       throws XMLStreamException {
+    writeCount(entitySet.getCount()==null?0:entitySet.getCount(), writer);
+  }
+
+  private void writeCount(final int count, final XMLStreamWriter writer) throws XMLStreamException {
     writer.writeStartElement(METADATA, Constants.ATOM_ELEM_COUNT, NS_METADATA);
-    writer.writeCharacters(String.valueOf(entitySet.getCount()==null?0:entitySet.getCount()));
+    writer.writeCharacters(String.valueOf(count));
     writer.writeEndElement();
   }
 
@@ -1098,7 +1098,8 @@ public class ExpressionParser {
     }
   }
 
-  protected static EdmType getType(final Expression expression) throws UriParserException {
+  /** Determines the EDM type of an expression (with type definitions resolved to their underlying type). */
+  public static EdmType getType(final Expression expression) throws UriParserException {
     EdmType type;
     if (expression instanceof Literal) {
       type = ((Literal) expression).getType();
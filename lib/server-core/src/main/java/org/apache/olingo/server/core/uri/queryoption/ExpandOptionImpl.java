@@ -29,6 +29,7 @@ import org.apache.olingo.server.api.uri.queryoption.SystemQueryOptionKind;
 public class ExpandOptionImpl extends SystemQueryOptionImpl implements ExpandOption {
 
   private final List<ExpandItem> expandItems = new ArrayList<ExpandItem>();
+  private volatile ExpandTree expandTree = ExpandTree.NOT_COMPILED;
 
   public ExpandOptionImpl() {
     setKind(SystemQueryOptionKind.EXPAND);
@@ -36,6 +37,7 @@ public class ExpandOptionImpl extends SystemQueryOptionImpl implements ExpandOpt
 
   public ExpandOptionImpl addExpandItem(final ExpandItem expandItem) {
     expandItems.add(expandItem);
+    expandTree = ExpandTree.NOT_COMPILED;
     return this;
   }
 
@@ -43,4 +45,18 @@ public class ExpandOptionImpl extends SystemQueryOptionImpl implements ExpandOpt
   public List<ExpandItem> getExpandItems() {
     return Collections.unmodifiableList(expandItems);
   }
+
+  /**
+   * Gets the compiled form of this option; it is computed on first access.
+   * @return the expand tree or <code>null</code> if there are no expand items
+   */
+  public ExpandTree getExpandTree() {
+    // A concurrent first access may compile twice, but every thread sees a complete tree.
+    ExpandTree tree = expandTree;
+    if (tree == ExpandTree.NOT_COMPILED) {
+      tree = ExpandTree.compile(this);
+      expandTree = tree;
+    }
+    return tree;
+  }
 }
@@ -0,0 +1,101 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.uri.queryoption;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.olingo.server.api.uri.UriResource;
+import org.apache.olingo.server.api.uri.UriResourceNavigation;
+import org.apache.olingo.server.api.uri.queryoption.ExpandItem;
+import org.apache.olingo.server.api.uri.queryoption.ExpandOption;
+
+/**
+ * Compiled form of an $expand option.
+ * <p/>
+ * The expand items are indexed by the name of their (first) navigation property.
+ * The nested expand options of the items have their own trees.
+ * The tree is immutable and computed only once per {@link ExpandOptionImpl},
+ * so the serializers need not search the expand items again for every entity.
+ */
+public final class ExpandTree {
+
+  /** Marks an option whose tree has not been compiled yet, as <code>null</code> is a valid tree. */
+  static final ExpandTree NOT_COMPILED = new ExpandTree(Collections.<String, ExpandItem> emptyMap(), null);
+
+  private final Map<String, ExpandItem> items;
+  private final ExpandItem expandAll;
+
+  private ExpandTree(final Map<String, ExpandItem> items, final ExpandItem expandAll) {
+    this.items = Collections.unmodifiableMap(items);
+    this.expandAll = expandAll;
+  }
+
+  /**
+   * Gets the compiled form of an expand option.
+   * @param expand the expand option (may be <code>null</code>)
+   * @return the tree or <code>null</code> if nothing is expanded
+   */
+  public static ExpandTree of(final ExpandOption expand) {
+    return expand instanceof ExpandOptionImpl ? ((ExpandOptionImpl) expand).getExpandTree() : compile(expand);
+  }
+
+  static ExpandTree compile(final ExpandOption expand) {
+    if (expand == null || expand.getExpandItems() == null || expand.getExpandItems().isEmpty()) {
+      return null;
+    }
+    Map<String, ExpandItem> items = new HashMap<String, ExpandItem>();
+    ExpandItem expandAll = null;
+    for (final ExpandItem item : expand.getExpandItems()) {
+      if (item.isStar()) {
+        if (expandAll == null) {
+          expandAll = item;
+        }
+      } else if (item.getResourcePath() != null) {
+        final List<UriResource> parts = item.getResourcePath().getUriResourceParts();
+        if (!parts.isEmpty() && parts.get(0) instanceof UriResourceNavigation) {
+          final String name = ((UriResourceNavigation) parts.get(0)).getProperty().getName();
+          if (!items.containsKey(name)) {
+            items.put(name, item);
+          }
+        }
+      }
+    }
+    return new ExpandTree(items, expandAll);
+  }
+
+  /**
+   * Gets the expand item for a navigation property.
+   * @param navigationPropertyName the name of the navigation property
+   * @return the (first) expand item for this navigation property or <code>null</code>
+   */
+  public ExpandItem getExpandItem(final String navigationPropertyName) {
+    return items.get(navigationPropertyName);
+  }
+
+  /**
+   * Gets the expand item with a star ('*') if there is one.
+   * @return the expand item or <code>null</code>
+   */
+  public ExpandItem getExpandAll() {
+    return expandAll;
+  }
+}
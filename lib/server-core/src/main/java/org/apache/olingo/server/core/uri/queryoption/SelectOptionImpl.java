@@ -28,6 +28,7 @@ import org.apache.olingo.server.api.uri.queryoption.SystemQueryOptionKind;
 public class SelectOptionImpl extends SystemQueryOptionImpl implements SelectOption {
 
   private List<SelectItem> selectItems;
+  private volatile SelectTree selectTree = SelectTree.NOT_COMPILED;
 
   public SelectOptionImpl() {
     setKind(SystemQueryOptionKind.SELECT);
@@ -35,6 +36,7 @@ public class SelectOptionImpl extends SystemQueryOptionImpl implements SelectOpt
 
   public SelectOptionImpl setSelectItems(final List<SelectItem> selectItems) {
     this.selectItems = selectItems;
+    selectTree = SelectTree.NOT_COMPILED;
     return this;
   }
 
@@ -43,4 +45,18 @@ public class SelectOptionImpl extends SystemQueryOptionImpl implements SelectOpt
     return selectItems == null ? Collections.<SelectItem> emptyList() : Collections.unmodifiableList(selectItems);
   }
 
+  /**
+   * Gets the compiled form of this option; it is computed on first access.
+   * @return the select tree or <code>null</code> if all properties are selected
+   */
+  public SelectTree getSelectTree() {
+    // A concurrent first access may compile twice, but every thread sees a complete tree.
+    SelectTree tree = selectTree;
+    if (tree == SelectTree.NOT_COMPILED) {
+      tree = SelectTree.compile(this);
+      selectTree = tree;
+    }
+    return tree;
+  }
+
 }
@@ -0,0 +1,167 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.uri.queryoption;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.apache.olingo.commons.api.edm.EdmStructuredType;
+import org.apache.olingo.server.api.uri.UriResource;
+import org.apache.olingo.server.api.uri.UriResourceProperty;
+import org.apache.olingo.server.api.uri.queryoption.SelectItem;
+import org.apache.olingo.server.api.uri.queryoption.SelectOption;
+
+/**
+ * Compiled form of a $select option.
+ * <p/>
+ * Each node contains the names of the selected properties of a structured type together with
+ * the nodes for the selected sub-properties of complex properties.
+ * A <code>null</code> node means that all properties are selected.
+ * The tree is immutable and computed only once per {@link SelectOptionImpl},
+ * so the serializers need not evaluate the select items again for every entity and complex value.
+ */
+public final class SelectTree {
+
+  /** Marks an option whose tree has not been compiled yet, as <code>null</code> is a valid tree. */
+  static final SelectTree NOT_COMPILED = new SelectTree(Collections.<String, SelectTree> emptyMap());
+
+  private final Map<String, SelectTree> children;
+  private final ConcurrentMap<EdmStructuredType, BitSet> selectedProperties =
+      new ConcurrentHashMap<EdmStructuredType, BitSet>();
+
+  private SelectTree(final Map<String, SelectTree> children) {
+    this.children = Collections.unmodifiableMap(children);
+  }
+
+  /**
+   * Gets the compiled form of a select option.
+   * @param select the select option (may be <code>null</code>)
+   * @return the tree or <code>null</code> if all properties are selected
+   */
+  public static SelectTree of(final SelectOption select) {
+    return select instanceof SelectOptionImpl ? ((SelectOptionImpl) select).getSelectTree() : compile(select);
+  }
+
+  static SelectTree compile(final SelectOption select) {
+    if (select == null || select.getSelectItems() == null || select.getSelectItems().isEmpty()) {
+      return null;
+    }
+    List<List<String>> paths = new ArrayList<List<String>>();
+    for (final SelectItem item : select.getSelectItems()) {
+      if (item.isStar()) {
+        return null;
+      }
+      if (item.getResourcePath() == null) {
+        continue;
+      }
+      final List<UriResource> parts = item.getResourcePath().getUriResourceParts();
+      if (!parts.isEmpty() && parts.get(0) instanceof UriResourceProperty) {
+        List<String> path = new ArrayList<String>();
+        for (final UriResource part : parts) {
+          if (part instanceof UriResourceProperty) {
+            path.add(((UriResourceProperty) part).getProperty().getName());
+          }
+        }
+        paths.add(path);
+      }
+    }
+    return build(paths);
+  }
+
+  private static SelectTree build(final List<List<String>> paths) {
+    Map<String, List<List<String>>> subPaths = new LinkedHashMap<String, List<List<String>>>();
+    for (final List<String> path : paths) {
+      final String name = path.get(0);
+      List<List<String>> reduced = subPaths.get(name);
+      if (reduced == null) {
+        reduced = new ArrayList<List<String>>();
+        subPaths.put(name, reduced);
+      }
+      // An empty list marks the selection of the complete property.
+      if (path.size() == 1) {
+        reduced.clear();
+        reduced.add(Collections.<String> emptyList());
+      } else if (reduced.isEmpty() || !reduced.get(0).isEmpty()) {
+        reduced.add(path.subList(1, path.size()));
+      }
+    }
+    Map<String, SelectTree> children = new LinkedHashMap<String, SelectTree>();
+    for (final Map.Entry<String, List<List<String>>> entry : subPaths.entrySet()) {
+      final List<List<String>> reduced = entry.getValue();
+      children.put(entry.getKey(), reduced.get(0).isEmpty() ? null : build(reduced));
+    }
+    return new SelectTree(children);
+  }
+
+  /**
+   * Determines whether a property is selected.
+   * @param propertyName the name of the property
+   * @return <code>true</code> if the property itself or at least one of its sub-properties is selected
+   */
+  public boolean isSelected(final String propertyName) {
+    return children.containsKey(propertyName);
+  }
+
+  /**
+   * Gets the node for the selected sub-properties of a complex property.
+   * @param propertyName the name of the property
+   * @return the node or <code>null</code> if the property is selected completely or not at all
+   */
+  public SelectTree getChild(final String propertyName) {
+    return children.get(propertyName);
+  }
+
+  /**
+   * Gets the names of the selected properties.
+   * @return the property names in the order of the select option
+   */
+  public Iterable<String> getSelectedPropertyNames() {
+    return children.keySet();
+  }
+
+  /**
+   * Gets the selected properties of a structured type, indexed by the position of the property
+   * in {@link EdmStructuredType#getPropertyNames()}. The result is computed only once per type.
+   * @param type the structured type
+   * @return the set of selected property positions; it must not be modified
+   */
+  public BitSet getSelectedProperties(final EdmStructuredType type) {
+    BitSet selected = selectedProperties.get(type);
+    if (selected == null) {
+      selected = new BitSet();
+      final List<String> propertyNames = type.getPropertyNames();
+      for (int index = 0; index < propertyNames.size(); index++) {
+        if (children.containsKey(propertyNames.get(index))) {
+          selected.set(index);
+        }
+      }
+      final BitSet previous = selectedProperties.putIfAbsent(type, selected);
+      if (previous != null) {
+        selected = previous;
+      }
+    }
+    return selected;
+  }
+}
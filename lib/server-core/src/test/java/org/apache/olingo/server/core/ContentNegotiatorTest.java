@@ -20,6 +20,8 @@ package org.apache.olingo.server.core;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.fail;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyListOf;
@@ -175,6 +177,41 @@ public class ContentNegotiatorTest {
     }
   }
 
+  @Test
+  public void negotiationResultIsReused() throws Exception {
+    ODataRequest request = new ODataRequest();
+    request.addHeader(HttpHeader.ACCEPT, Arrays.asList(ACCEPT_CASE_MIN_UTF8_IEEE754));
+    final ContentType first = ContentNegotiator.doContentNegotiation(null, request, null, RepresentationType.ENTITY);
+    assertEquals(ContentType.create(ACCEPT_CASE_MIN_UTF8_IEEE754), first);
+    assertSame(first, ContentNegotiator.doContentNegotiation(null, request, null, RepresentationType.ENTITY));
+
+    // The same header value leads to a different result for another representation type.
+    request = new ODataRequest();
+    request.addHeader(HttpHeader.ACCEPT, Arrays.asList(ACCEPT_CASE_WILDCARD1));
+    assertEquals(ContentType.APPLICATION_XML,
+        ContentNegotiator.doContentNegotiation(null, request, null, RepresentationType.METADATA));
+    assertEquals(ContentType.JSON,
+        ContentNegotiator.doContentNegotiation(null, request, null, RepresentationType.ENTITY));
+
+    // The result is not re-used if the application modifies the supported content types.
+    assertEquals(ContentType.create("a/b"), ContentNegotiator.doContentNegotiation(null, request,
+        createCustomContentTypeSupport("a/b"), RepresentationType.ENTITY));
+  }
+
+  @Test
+  public void parsedHeaderValuesAreReused() {
+    final ContentType contentType = ContentTypeCache.getContentType(ACCEPT_CASE_MIN_UTF8);
+    assertEquals(ContentType.create(ACCEPT_CASE_MIN_UTF8), contentType);
+    assertSame(contentType, ContentTypeCache.getContentType(ACCEPT_CASE_MIN_UTF8));
+    assertNull(ContentTypeCache.parseContentType("illegal"));
+    assertSame(ContentTypeCache.getAcceptTypes(ACCEPT_CASE_JSONQ), ContentTypeCache.getAcceptTypes(ACCEPT_CASE_JSONQ));
+
+    for (int i = 0; i <= ContentTypeCache.MAX_ENTRIES; i++) {
+      assertNotNull(ContentTypeCache.getContentType("a/b;c=" + i));
+    }
+    assertEquals(contentType, ContentTypeCache.getContentType(ACCEPT_CASE_MIN_UTF8));
+  }
+
   private void testContentNegotiation(final String[] useCase, final RepresentationType representationType)
       throws ContentNegotiatorException {
 
@@ -18,17 +18,48 @@
  */
 package org.apache.olingo.server.core;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import javax.servlet.ServletOutputStream;
 import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 
+import org.apache.olingo.commons.api.edm.provider.CsdlAbstractEdmProvider;
+import org.apache.olingo.commons.api.edmx.EdmxReference;
+import org.apache.olingo.commons.api.http.HttpHeader;
 import org.apache.olingo.commons.api.http.HttpMethod;
+import org.apache.olingo.server.api.MediaContent;
+import org.apache.olingo.server.api.OData;
 import org.apache.olingo.server.api.ODataLibraryException;
 import org.apache.olingo.server.api.ODataRequest;
+import org.apache.olingo.server.api.ODataResponse;
+import org.apache.olingo.server.api.metrics.RequestMetrics;
+import org.apache.olingo.server.api.metrics.RequestMetricsListener;
+import org.apache.olingo.server.api.metrics.RequestPhase;
+import org.apache.olingo.server.api.uri.UriInfoKind;
+import org.apache.olingo.server.core.metrics.RequestMetricsCollector;
+import org.apache.olingo.server.core.serializer.utils.CircleStreamBuffer;
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
 
 public class ODataHttpHandlerImplTest {
 
@@ -224,4 +255,176 @@ public class ODataHttpHandlerImplTest {
     
     }
   }
+
+  @Test
+  public void copyContentFromSerializerBuffer() throws Exception {
+    CircleStreamBuffer buffer = new CircleStreamBuffer(16);
+    OutputStream bufferOut = buffer.getOutputStream();
+    bufferOut.write("{\"value\":\"some serialized content\"}".getBytes("UTF-8"));
+    bufferOut.close();
+
+    ByteArrayOutputStream result = new ByteArrayOutputStream();
+    ODataHttpHandlerImpl.copyContent(buffer.getInputStream(), mockResponse(result));
+
+    assertEquals("{\"value\":\"some serialized content\"}", new String(result.toByteArray(), "UTF-8"));
+  }
+
+  @Test
+  public void copyContentFromFile() throws Exception {
+    File file = File.createTempFile("olingo", ".bin");
+    file.deleteOnExit();
+    FileOutputStream fileOut = new FileOutputStream(file);
+    byte[] data = new byte[ODataHttpHandlerImpl.COPY_BUFFER_SIZE * 3 + 5];
+    for (int i = 0; i < data.length; i++) {
+      data[i] = (byte) i;
+    }
+    fileOut.write(data);
+    fileOut.close();
+
+    ByteArrayOutputStream result = new ByteArrayOutputStream();
+    ODataHttpHandlerImpl.copyContent(new FileInputStream(file), mockResponse(result));
+
+    assertArrayEquals(data, result.toByteArray());
+  }
+
+  @Test
+  public void mediaContentWithRange() throws Exception {
+    final byte[] data = "0123456789".getBytes("UTF-8");
+
+    ByteArrayOutputStream result = new ByteArrayOutputStream();
+    HttpServletResponse response = mockResponse(result);
+    ODataHttpHandlerImpl.convertToHttp(mockMediaRequest(null), response, mediaResponse(data));
+    verify(response).setStatus(200);
+    verify(response).setHeader(HttpHeader.ACCEPT_RANGES, "bytes");
+    verify(response).setHeader(HttpHeader.CONTENT_LENGTH, "10");
+    assertArrayEquals(data, result.toByteArray());
+
+    result.reset();
+    response = mockResponse(result);
+    ODataHttpHandlerImpl.convertToHttp(mockMediaRequest("bytes=2-4"), response, mediaResponse(data));
+    verify(response).setStatus(206);
+    verify(response).setHeader(HttpHeader.CONTENT_RANGE, "bytes 2-4/10");
+    verify(response).setHeader(HttpHeader.CONTENT_LENGTH, "3");
+    assertEquals("234", new String(result.toByteArray(), "UTF-8"));
+
+    result.reset();
+    response = mockResponse(result);
+    ODataHttpHandlerImpl.convertToHttp(mockMediaRequest("bytes=12-"), response, mediaResponse(data));
+    verify(response).setStatus(416);
+    verify(response).setHeader(HttpHeader.CONTENT_RANGE, "bytes */10");
+    assertEquals(0, result.size());
+  }
+
+  @Test
+  public void mediaContentWithIfRange() throws Exception {
+    // the range is only applied if both entity tags are strong and equal
+    assertEquals(206, ifRangeStatus("\"v1\"", "\"v1\""));
+    assertEquals(200, ifRangeStatus("\"v1\"", "\"v2\""));
+    assertEquals(200, ifRangeStatus("W/\"v1\"", "W/\"v1\""));
+    assertEquals(200, ifRangeStatus("W/\"v1\"", "\"v1\""));
+    assertEquals(200, ifRangeStatus("\"v1\"", "W/\"v1\""));
+    assertEquals(200, ifRangeStatus("\"v1\"", null));
+  }
+
+  private int ifRangeStatus(final String ifRange, final String eTag) throws Exception {
+    HttpServletRequest request = mockMediaRequest("bytes=2-4");
+    when(request.getHeader(HttpHeader.IF_RANGE)).thenReturn(ifRange);
+    ODataResponse odResponse = mediaResponse("0123456789".getBytes("UTF-8"));
+    if (eTag != null) {
+      odResponse.setHeader(HttpHeader.ETAG, eTag);
+    }
+    HttpServletResponse response = mockResponse(new ByteArrayOutputStream());
+    ODataHttpHandlerImpl.convertToHttp(request, response, odResponse);
+    ArgumentCaptor<Integer> status = ArgumentCaptor.forClass(Integer.class);
+    verify(response).setStatus(status.capture());
+    return status.getValue();
+  }
+
+  @Test
+  public void parseRange() {
+    assertArrayEquals(new long[] { 0, 9 }, ODataHttpHandlerImpl.parseRange("bytes=0-", 10));
+    assertArrayEquals(new long[] { 5, 9 }, ODataHttpHandlerImpl.parseRange("bytes=5-100", 10));
+    assertArrayEquals(new long[] { 7, 9 }, ODataHttpHandlerImpl.parseRange("bytes=-3", 10));
+    assertArrayEquals(new long[] { 0, 9 }, ODataHttpHandlerImpl.parseRange("bytes=-30", 10));
+    assertEquals(0, ODataHttpHandlerImpl.parseRange("bytes=10-", 10).length);
+    assertEquals(0, ODataHttpHandlerImpl.parseRange("bytes=-0", 10).length);
+    // ignored ranges
+    assertNull(ODataHttpHandlerImpl.parseRange("bytes=1-2,4-5", 10));
+    assertNull(ODataHttpHandlerImpl.parseRange("bytes=5-1", 10));
+    assertNull(ODataHttpHandlerImpl.parseRange("items=1-2", 10));
+    assertNull(ODataHttpHandlerImpl.parseRange("bytes=a-b", 10));
+  }
+
+  private HttpServletRequest mockMediaRequest(final String range) {
+    HttpServletRequest request = mock(HttpServletRequest.class);
+    when(request.getMethod()).thenReturn("GET");
+    when(request.getHeader(HttpHeader.RANGE)).thenReturn(range);
+    return request;
+  }
+
+  private ODataResponse mediaResponse(final byte[] data) {
+    ODataResponse response = new ODataResponse();
+    response.setStatusCode(200);
+    response.setMediaContent(MediaContent.of(ByteBuffer.wrap(data)));
+    return response;
+  }
+
+  @Test
+  public void requestMetrics() throws Exception {
+    HttpServletRequest request = mock(HttpServletRequest.class);
+    when(request.getMethod()).thenReturn("GET");
+    when(request.getRequestURL()).thenReturn(new StringBuffer("http://localhost/odata.svc/"));
+    when(request.getServletPath()).thenReturn("/odata.svc");
+    when(request.getHeaderNames()).thenReturn(Collections.enumeration(Collections.<String> emptyList()));
+    when(request.getContentLength()).thenReturn(-1);
+    ByteArrayOutputStream result = new ByteArrayOutputStream();
+
+    final OData odata = OData.newInstance();
+    ODataHttpHandlerImpl handler = new ODataHttpHandlerImpl(odata,
+        odata.createServiceMetadata(new CsdlAbstractEdmProvider() {}, Collections.<EdmxReference> emptyList()));
+    RequestMetricsCollector collector = new RequestMetricsCollector();
+    handler.register(collector);
+    final List<Object> recorded = new ArrayList<Object>();
+    handler.register(new RequestMetricsListener() {
+      @Override
+      public void requestCompleted(final RequestMetrics metrics) {
+        recorded.add(metrics.getMethod());
+        recorded.add(metrics.getStatusCode());
+        recorded.add(metrics.getUriInfoKind());
+        long phases = 0;
+        for (final RequestPhase phase : RequestPhase.values()) {
+          phases += metrics.getPhaseNanos(phase);
+        }
+        recorded.add(phases == metrics.getTotalNanos());
+      }
+    });
+
+    handler.process(request, mockResponse(result));
+    assertEquals(Arrays.<Object> asList(HttpMethod.GET, 200, UriInfoKind.service, true), recorded);
+    assertEquals(1, collector.getRequestCount());
+    assertEquals(result.size(), collector.getResponseBytes());
+    assertTrue(collector.getHistogram(RequestPhase.PARSE).getMax() > 0);
+    assertTrue(collector.toString().contains("odata_requests_total 1\n"));
+
+    // the recording of the thread has been finished, so a second request is recorded, too
+    result.reset();
+    handler.process(request, mockResponse(result));
+    assertEquals(2, collector.getRequestCount());
+  }
+
+  private HttpServletResponse mockResponse(final OutputStream target) throws IOException {
+    HttpServletResponse response = mock(HttpServletResponse.class);
+    when(response.getOutputStream()).thenReturn(new ServletOutputStream() {
+      @Override
+      public void write(final int b) throws IOException {
+        target.write(b);
+      }
+
+      @Override
+      public void write(final byte[] b, final int off, final int len) throws IOException {
+        target.write(b, off, len);
+      }
+    });
+    return response;
+  }
 }
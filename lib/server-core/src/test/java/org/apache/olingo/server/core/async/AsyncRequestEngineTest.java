@@ -0,0 +1,308 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.async;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.olingo.commons.api.http.HttpHeader;
+import org.apache.olingo.commons.api.http.HttpMethod;
+import org.apache.olingo.commons.api.http.HttpStatusCode;
+import org.apache.olingo.server.api.OData;
+import org.apache.olingo.server.api.ODataHandler;
+import org.apache.olingo.server.api.ODataRequest;
+import org.apache.olingo.server.api.ODataResponse;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+public class AsyncRequestEngineTest {
+
+  private static final String BASE_URI = "http://localhost/odata.svc";
+
+  private static class QueueingExecutorService extends AbstractExecutorService {
+    private final List<Runnable> tasks = new ArrayList<Runnable>();
+    private boolean shutdown = false;
+    private boolean reject = false;
+
+    @Override
+    public void execute(final Runnable command) {
+      if (reject) {
+        throw new RejectedExecutionException();
+      }
+      tasks.add(command);
+    }
+
+    public void runAll() {
+      for (Runnable task : tasks) {
+        task.run();
+      }
+      tasks.clear();
+    }
+
+    @Override
+    public void shutdown() {
+      shutdown = true;
+    }
+
+    @Override
+    public List<Runnable> shutdownNow() {
+      shutdown = true;
+      return tasks;
+    }
+
+    @Override
+    public boolean isShutdown() {
+      return shutdown;
+    }
+
+    @Override
+    public boolean isTerminated() {
+      return shutdown;
+    }
+
+    @Override
+    public boolean awaitTermination(final long timeout, final TimeUnit unit) {
+      return true;
+    }
+  }
+
+  private final OData odata = OData.newInstance();
+
+  @Test
+  public void respondAsync() throws Exception {
+    final QueueingExecutorService executor = new QueueingExecutorService();
+    final AsyncRequestEngine engine = new AsyncRequestEngine(odata, executor, new InMemoryAsyncJobStore());
+    final ODataHandler handler = mockHandler();
+
+    ODataRequest request = createRequest(HttpMethod.POST, "/ESAllPrim");
+    request.addHeader(HttpHeader.PREFER, "respond-async, return=minimal");
+    request.setBody(new ByteArrayInputStream("body".getBytes("UTF-8")));
+
+    final ODataResponse accepted = engine.process(request, handler);
+    assertEquals(HttpStatusCode.ACCEPTED.getStatusCode(), accepted.getStatusCode());
+    assertEquals("respond-async", accepted.getHeader(HttpHeader.PREFERENCE_APPLIED));
+    assertNotNull(accepted.getHeader(HttpHeader.RETRY_AFTER));
+    final String location = accepted.getHeader(HttpHeader.LOCATION);
+    assertTrue(location.startsWith(BASE_URI + "/$async/"));
+    Mockito.verifyZeroInteractions(handler);
+
+    final ODataRequest monitor = createRequest(HttpMethod.GET, location.substring(BASE_URI.length()));
+    assertTrue(engine.isStatusMonitorRequest(monitor));
+    assertFalse(engine.isRespondAsyncRequested(monitor));
+    assertEquals(HttpStatusCode.ACCEPTED.getStatusCode(), engine.process(monitor, handler).getStatusCode());
+
+    executor.runAll();
+
+    ODataResponse result = engine.process(monitor, handler);
+    assertEquals(HttpStatusCode.OK.getStatusCode(), result.getStatusCode());
+    assertEquals("application/http", result.getHeader(HttpHeader.CONTENT_TYPE));
+    final String content = read(result.getContent());
+    assertTrue(content.startsWith("HTTP/1.1 201 Created"));
+    assertTrue(content.contains("return=minimal body"));
+
+    // result can be retrieved repeatedly until it has been evicted
+    assertEquals(HttpStatusCode.OK.getStatusCode(), engine.process(monitor, handler).getStatusCode());
+  }
+
+  @Test
+  public void synchronousRequest() {
+    final QueueingExecutorService executor = new QueueingExecutorService();
+    final AsyncRequestEngine engine = new AsyncRequestEngine(odata, executor, new InMemoryAsyncJobStore());
+    final ODataHandler handler = mockHandler();
+
+    final ODataResponse response = engine.process(createRequest(HttpMethod.GET, "/ESAllPrim"), handler);
+    assertEquals(HttpStatusCode.CREATED.getStatusCode(), response.getStatusCode());
+    assertTrue(executor.tasks.isEmpty());
+  }
+
+  @Test
+  public void cancel() {
+    final QueueingExecutorService executor = new QueueingExecutorService();
+    final AsyncRequestEngine engine = new AsyncRequestEngine(odata, executor, new InMemoryAsyncJobStore());
+    final ODataHandler handler = mockHandler();
+
+    ODataRequest request = createRequest(HttpMethod.GET, "/ESAllPrim");
+    request.addHeader(HttpHeader.PREFER, "respond-async");
+    final String location = engine.process(request, handler).getHeader(HttpHeader.LOCATION);
+    final String path = location.substring(BASE_URI.length());
+
+    assertEquals(HttpStatusCode.NO_CONTENT.getStatusCode(),
+        engine.process(createRequest(HttpMethod.DELETE, path), handler).getStatusCode());
+    executor.runAll();
+    Mockito.verifyZeroInteractions(handler);
+    assertEquals(HttpStatusCode.NOT_FOUND.getStatusCode(),
+        engine.process(createRequest(HttpMethod.GET, path), handler).getStatusCode());
+  }
+
+  @Test
+  public void unknownJob() {
+    final AsyncRequestEngine engine =
+        new AsyncRequestEngine(odata, new QueueingExecutorService(), new InMemoryAsyncJobStore());
+    assertEquals(HttpStatusCode.NOT_FOUND.getStatusCode(),
+        engine.process(createRequest(HttpMethod.GET, "/$async/unknown"), mockHandler()).getStatusCode());
+  }
+
+  @Test
+  public void rejected() {
+    final QueueingExecutorService executor = new QueueingExecutorService();
+    executor.reject = true;
+    final InMemoryAsyncJobStore store = new InMemoryAsyncJobStore();
+    final AsyncRequestEngine engine = new AsyncRequestEngine(odata, executor, store);
+
+    ODataRequest request = createRequest(HttpMethod.GET, "/ESAllPrim");
+    request.addHeader(HttpHeader.PREFER, "respond-async");
+    final ODataResponse response = engine.process(request, mockHandler());
+    assertEquals(HttpStatusCode.SERVICE_UNAVAILABLE.getStatusCode(), response.getStatusCode());
+    assertNotNull(response.getHeader(HttpHeader.RETRY_AFTER));
+  }
+
+  @Test
+  public void eviction() throws Exception {
+    final QueueingExecutorService executor = new QueueingExecutorService();
+    final InMemoryAsyncJobStore store = new InMemoryAsyncJobStore();
+    final AsyncRequestEngine engine = new AsyncRequestEngine(odata, executor, store);
+    engine.setResultRetention(-1);
+
+    ODataRequest request = createRequest(HttpMethod.GET, "/ESAllPrim");
+    request.addHeader(HttpHeader.PREFER, "respond-async");
+    engine.process(request, mockHandler());
+    executor.runAll();
+    assertEquals(1, store.getAll().size());
+
+    engine.evictExpired();
+    assertTrue(store.getAll().isEmpty());
+  }
+
+  @Test
+  public void evictionInterval() throws Exception {
+    final QueueingExecutorService executor = new QueueingExecutorService();
+    final InMemoryAsyncJobStore store = new InMemoryAsyncJobStore();
+    final AsyncRequestEngine engine = new AsyncRequestEngine(odata, executor, store);
+    engine.setResultRetention(-1);
+    engine.setEvictionInterval(60L * 60L * 1000L);
+
+    ODataRequest request = createRequest(HttpMethod.GET, "/ESAllPrim");
+    request.addHeader(HttpHeader.PREFER, "respond-async");
+    engine.process(request, mockHandler());
+    executor.runAll();
+
+    // the finished job is not evicted before the interval is over
+    engine.process(request, mockHandler());
+    assertEquals(2, store.getAll().size());
+
+    // the finished job is evicted with the next new job; the running one stays
+    engine.setEvictionInterval(0);
+    engine.process(request, mockHandler());
+    assertEquals(2, store.getAll().size());
+    for (AsyncJob job : store.getAll()) {
+      assertTrue(job.isRunning());
+    }
+  }
+
+  @Test
+  public void fileStore() throws Exception {
+    File directory = File.createTempFile("olingo", "async");
+    directory.delete();
+    try {
+      FileAsyncJobStore store = new FileAsyncJobStore(directory);
+      store.save(new AsyncJob("job1", 42));
+      OutputStream output = store.openResult("job1");
+      output.write("result".getBytes("UTF-8"));
+      assertNull(store.readResult("job1"));
+      output.close();
+      AsyncJob job = store.get("job1");
+      assertTrue(job.isRunning());
+      assertEquals(42, job.getCreated());
+      job.finish(AsyncJob.Status.COMPLETED, 43);
+      store.save(job);
+
+      store = new FileAsyncJobStore(directory);
+      assertEquals(AsyncJob.Status.COMPLETED, store.get("job1").getStatus());
+      assertEquals(43, store.get("job1").getFinished());
+      assertEquals("result", read(store.readResult("job1")));
+      assertEquals(1, store.getAll().size());
+      assertNull(store.get("../job1"));
+
+      store.remove("job1");
+      assertNull(store.get("job1"));
+      assertNull(store.readResult("job1"));
+    } finally {
+      for (File file : directory.listFiles()) {
+        file.delete();
+      }
+      directory.delete();
+    }
+  }
+
+  private ODataHandler mockHandler() {
+    ODataHandler handler = Mockito.mock(ODataHandler.class);
+    Mockito.when(handler.process(Mockito.any(ODataRequest.class))).thenAnswer(new Answer<ODataResponse>() {
+      @Override
+      public ODataResponse answer(final InvocationOnMock invocation) throws Throwable {
+        final ODataRequest request = (ODataRequest) invocation.getArguments()[0];
+        ODataResponse response = new ODataResponse();
+        response.setStatusCode(HttpStatusCode.CREATED.getStatusCode());
+        final String prefer = request.getHeader(HttpHeader.PREFER);
+        final String body = request.getBody() == null ? "" : read(request.getBody());
+        response.setContent(new ByteArrayInputStream((prefer + " " + body).getBytes("UTF-8")));
+        return response;
+      }
+    });
+    return handler;
+  }
+
+  private ODataRequest createRequest(final HttpMethod method, final String path) {
+    ODataRequest request = new ODataRequest();
+    request.setMethod(method);
+    request.setProtocol("HTTP/1.1");
+    request.setRawBaseUri(BASE_URI);
+    request.setRawODataPath(path);
+    request.setRawRequestUri(BASE_URI + path);
+    request.setRawQueryPath("");
+    return request;
+  }
+
+  private static String read(final InputStream input) throws IOException {
+    ByteArrayOutputStream output = new ByteArrayOutputStream();
+    byte[] buffer = new byte[1024];
+    int count;
+    while ((count = input.read(buffer)) >= 0) {
+      output.write(buffer, 0, count);
+    }
+    input.close();
+    return output.toString("UTF-8");
+  }
+}
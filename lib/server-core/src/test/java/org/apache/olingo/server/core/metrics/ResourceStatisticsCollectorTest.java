@@ -0,0 +1,140 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.Collections;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+
+import org.apache.olingo.server.api.metrics.RequestMetrics;
+import org.apache.olingo.server.api.uri.UriInfo;
+import org.apache.olingo.server.api.uri.UriInfoKind;
+import org.apache.olingo.server.api.uri.UriParameter;
+import org.apache.olingo.server.api.uri.UriResource;
+import org.apache.olingo.server.api.uri.UriResourceEntitySet;
+import org.apache.olingo.server.api.uri.UriResourceFunction;
+import org.apache.olingo.server.api.uri.UriResourceNavigation;
+import org.junit.Test;
+
+public class ResourceStatisticsCollectorTest {
+
+  @Test
+  public void templates() {
+    assertEquals("ESAllPrim(key)/NavPropertyETTwoPrimMany",
+        ResourcePathTemplate.of(resource(entitySet("ESAllPrim", true), navigation("NavPropertyETTwoPrimMany"))));
+    assertEquals("FICRTString()", ResourcePathTemplate.of(resource(function("FICRTString"))));
+    assertEquals("$metadata", ResourcePathTemplate.of(uriInfo(UriInfoKind.metadata)));
+    assertEquals(ResourcePathTemplate.INVALID, ResourcePathTemplate.of(null));
+  }
+
+  @Test
+  public void statisticsPerTemplate() throws Exception {
+    ResourceStatisticsCollector collector = new ResourceStatisticsCollector(2);
+    final UriInfo entity = resource(entitySet("ESAllPrim", true));
+    collector.requestCompleted(metrics(entity, 200, 1000000, 100, 1));
+    collector.requestCompleted(metrics(resource(entitySet("ESAllPrim", true)), 404, 2000000, 50, 0));
+    collector.requestCompleted(metrics(resource(entitySet("ESAllPrim", false)), 200, 3000000, 500, 10));
+    collector.requestCompleted(metrics(resource(function("FICRTString")), 200, 1000, 10, 0));
+
+    final ResourceStatistics statistics = collector.getStatistics("ESAllPrim(key)");
+    assertEquals(2, statistics.getRequestCount());
+    assertEquals(1, statistics.getErrorCount());
+    assertEquals(150, statistics.getResponseBytes());
+    assertEquals(1, statistics.getEntityCount());
+    assertEquals(2000000, statistics.getLatencyHistogram().getValueAtPercentile(99));
+    // the limit of two templates is reached
+    assertEquals(1, collector.getStatistics(ResourceStatisticsCollector.OTHER).getRequestCount());
+    assertEquals(4, collector.getRequestCount());
+    assertEquals("ESAllPrim(key)", collector.getResources().get(0).getTemplate());
+    assertTrue(collector.toString().contains("odata_resource_requests_total{resource=\"ESAllPrim(key)\"} 2\n"));
+  }
+
+  @Test
+  public void jmx() throws Exception {
+    ResourceStatisticsCollector collector = new ResourceStatisticsCollector();
+    collector.requestCompleted(metrics(resource(entitySet("ESAllPrim", false)), 200, 1000, 100, 3));
+
+    final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+    final ObjectName name = new ObjectName("org.apache.olingo:type=ResourceStatistics,name=test");
+    server.registerMBean(collector, name);
+    try {
+      assertEquals(1L, server.getAttribute(name, "RequestCount"));
+      final CompositeData[] resources = (CompositeData[]) server.getAttribute(name, "Resources");
+      assertEquals(1, resources.length);
+      assertEquals("ESAllPrim", resources[0].get("template"));
+      assertEquals(3L, resources[0].get("entityCount"));
+    } finally {
+      server.unregisterMBean(name);
+    }
+  }
+
+  private RequestMetrics metrics(final UriInfo uriInfo, final int statusCode, final long nanos,
+      final long bytes, final int entities) {
+    RequestMetrics metrics = mock(RequestMetrics.class);
+    when(metrics.getUriInfo()).thenReturn(uriInfo);
+    when(metrics.getStatusCode()).thenReturn(statusCode);
+    when(metrics.getTotalNanos()).thenReturn(nanos);
+    when(metrics.getResponseBytes()).thenReturn(bytes);
+    when(metrics.getEntityCount()).thenReturn(entities);
+    return metrics;
+  }
+
+  private UriInfo uriInfo(final UriInfoKind kind) {
+    UriInfo uriInfo = mock(UriInfo.class);
+    when(uriInfo.getKind()).thenReturn(kind);
+    return uriInfo;
+  }
+
+  private UriInfo resource(final UriResource... parts) {
+    UriInfo uriInfo = uriInfo(UriInfoKind.resource);
+    when(uriInfo.getUriResourceParts()).thenReturn(Arrays.asList(parts));
+    return uriInfo;
+  }
+
+  private UriResource entitySet(final String name, final boolean withKey) {
+    UriResourceEntitySet resource = mock(UriResourceEntitySet.class);
+    when(resource.getSegmentValue()).thenReturn(name);
+    when(resource.getKeyPredicates()).thenReturn(withKey ?
+        Collections.singletonList(mock(UriParameter.class)) : Collections.<UriParameter> emptyList());
+    return resource;
+  }
+
+  private UriResource navigation(final String name) {
+    UriResourceNavigation resource = mock(UriResourceNavigation.class);
+    when(resource.getSegmentValue()).thenReturn(name);
+    when(resource.getKeyPredicates()).thenReturn(Collections.<UriParameter> emptyList());
+    return resource;
+  }
+
+  private UriResource function(final String name) {
+    UriResourceFunction resource = mock(UriResourceFunction.class);
+    when(resource.getSegmentValue()).thenReturn(name);
+    when(resource.getKeyPredicates()).thenReturn(Collections.<UriParameter> emptyList());
+    return resource;
+  }
+}
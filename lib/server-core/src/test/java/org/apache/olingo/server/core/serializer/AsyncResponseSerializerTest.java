@@ -20,13 +20,20 @@ package org.apache.olingo.server.core.serializer;
 
 import static org.junit.Assert.assertEquals;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
 import java.util.Random;
 
 import org.apache.commons.io.IOUtils;
+import org.apache.olingo.commons.api.ex.ODataRuntimeException;
 import org.apache.olingo.commons.api.format.ContentType;
 import org.apache.olingo.commons.api.http.HttpHeader;
 import org.apache.olingo.commons.api.http.HttpStatusCode;
+import org.apache.olingo.server.api.ODataContent;
 import org.apache.olingo.server.api.ODataResponse;
 import org.junit.Test;
 
@@ -70,6 +77,34 @@ public class AsyncResponseSerializerTest {
         + testData, result);
   }
 
+  @Test
+  public void streamedResponseIntoOutputStream() throws Exception {
+    ODataResponse response = new ODataResponse();
+    response.setStatusCode(HttpStatusCode.OK.getStatusCode());
+    response.setHeader(HttpHeader.CONTENT_TYPE, ContentType.APPLICATION_JSON.toContentTypeString());
+    response.setODataContent(new ODataContent() {
+      @Override
+      public void write(final WritableByteChannel channel) {
+        write(Channels.newOutputStream(channel));
+      }
+
+      @Override
+      public void write(final OutputStream stream) {
+        try {
+          stream.write("{\"value\":[]}".getBytes("UTF-8"));
+        } catch (final IOException e) {
+          throw new ODataRuntimeException(e);
+        }
+      }
+    });
+
+    ByteArrayOutputStream output = new ByteArrayOutputStream();
+    new AsyncResponseSerializer().serialize(response, output);
+    assertEquals("HTTP/1.1 200 OK" + CRLF
+        + "Content-Type: application/json" + CRLF + CRLF
+        + "{\"value\":[]}", output.toString("UTF-8"));
+  }
+
   private String testData(final int amount) {
     StringBuilder result = new StringBuilder();
     Random r = new Random();
@@ -20,9 +20,11 @@ package org.apache.olingo.server.core.serializer.utils;
 
 import static org.junit.Assert.assertEquals;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.channels.Channels;
 import java.nio.charset.Charset;
 
 import org.junit.Test;
@@ -245,6 +247,110 @@ public class CircleStreamBufferTest {
     assertEquals(testData, result);
   }
 
+  @Test
+  public void testTransferToStream() throws Exception {
+    CircleStreamBuffer csb = new CircleStreamBuffer(128);
+
+    OutputStream write = csb.getOutputStream();
+    String testData = createTestString(1024);
+    write.write(testData.getBytes(DEFAULT_CHARSET));
+    write.close();
+
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    long written = ((CircleStreamBuffer.InternalInputStream) csb.getInputStream()).transferTo(out);
+
+    assertEquals(1024, written);
+    assertEquals(testData, new String(out.toByteArray(), DEFAULT_CHARSET));
+    assertEquals(-1, csb.getInputStream().read());
+  }
+
+  @Test
+  public void testTransferToChannel() throws Exception {
+    CircleStreamBuffer csb = new CircleStreamBuffer(128);
+
+    OutputStream write = csb.getOutputStream();
+    String testData = createTestString(1024);
+    write.write(testData.getBytes(DEFAULT_CHARSET));
+    write.close();
+
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    long written = ((CircleStreamBuffer.InternalInputStream) csb.getInputStream())
+        .transferTo(Channels.newChannel(out));
+
+    assertEquals(1024, written);
+    assertEquals(testData, new String(out.toByteArray(), DEFAULT_CHARSET));
+  }
+
+  @Test
+  public void testPooledWriteAndReadMoreThenBufferSize() throws Exception {
+    ByteBufferPool pool = new ByteBufferPool(128, 16, false);
+    CircleStreamBuffer csb = new CircleStreamBuffer(pool);
+
+    OutputStream outStream = csb.getOutputStream();
+    String testData = createTestString(1000);
+    outStream.write(testData.getBytes(DEFAULT_CHARSET));
+    outStream.close();
+
+    assertEquals(testData, readFrom(csb.getInputStream()));
+    csb.closeRead();
+    // all (8) used buffers are back in the pool
+    assertEquals(8, pool.getPooledBufferCount());
+
+    // a second buffer reuses the pooled buffers
+    CircleStreamBuffer second = new CircleStreamBuffer(pool);
+    second.getOutputStream().write(testData.getBytes(DEFAULT_CHARSET));
+    assertEquals(0, pool.getPooledBufferCount());
+    assertEquals(testData, readFrom(second.getInputStream()));
+  }
+
+  @Test
+  public void testPooledDirectBuffers() throws Exception {
+    ByteBufferPool pool = new ByteBufferPool(64, 2, true);
+    CircleStreamBuffer csb = new CircleStreamBuffer(pool);
+
+    String testData = createTestString(300);
+    csb.getOutputStream().write(testData.getBytes(DEFAULT_CHARSET));
+    csb.closeWrite();
+
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    ((CircleStreamBuffer.InternalInputStream) csb.getInputStream()).transferTo(out);
+    csb.closeRead();
+
+    assertEquals(testData, new String(out.toByteArray(), DEFAULT_CHARSET));
+    // pool is bounded
+    assertEquals(2, pool.getPooledBufferCount());
+  }
+
+  @Test
+  public void testPooledSignBySign() throws Exception {
+    CircleStreamBuffer csb = new CircleStreamBuffer(new ByteBufferPool(16, 4, false));
+
+    OutputStream write = csb.getOutputStream();
+    String testData = createTestString(100);
+    for (byte element : testData.getBytes(DEFAULT_CHARSET)) {
+      write.write(element);
+    }
+
+    assertEquals(testData, readFrom(csb.getInputStream(), 7));
+  }
+
+  @Test
+  public void testBuffersReturnedToPool() throws Exception {
+    ByteBufferPool pool = new ByteBufferPool(32, 8, false);
+    CircleStreamBuffer csb = new CircleStreamBuffer(pool);
+    String testData = createTestString(100);
+    csb.getOutputStream().write(testData.getBytes(DEFAULT_CHARSET));
+    assertEquals(testData, readFrom(csb.getInputStream()));
+    csb.getInputStream().close();
+    assertEquals(4, pool.getPooledBufferCount());
+
+    CircleStreamBuffer unpooled = new CircleStreamBuffer();
+    unpooled.getOutputStream().write(testData.getBytes(DEFAULT_CHARSET));
+    assertEquals(testData, readFrom(unpooled.getInputStream()));
+    unpooled.getInputStream().close();
+    assertEquals(4, pool.getPooledBufferCount());
+  }
+
   @Test(expected = IOException.class)
   public void testCloseInputStream() throws Exception {
     CircleStreamBuffer csb = new CircleStreamBuffer();
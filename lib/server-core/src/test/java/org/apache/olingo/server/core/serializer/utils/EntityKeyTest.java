@@ -0,0 +1,109 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.serializer.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+
+import java.net.URI;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.apache.olingo.commons.api.data.ComplexValue;
+import org.apache.olingo.commons.api.data.Entity;
+import org.apache.olingo.commons.api.data.Property;
+import org.apache.olingo.commons.api.data.ValueType;
+import org.apache.olingo.commons.api.edm.EdmEntityType;
+import org.apache.olingo.commons.api.edm.EdmKeyPropertyRef;
+import org.apache.olingo.commons.api.edm.FullQualifiedName;
+import org.apache.olingo.server.api.serializer.SerializerException;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+public class EntityKeyTest {
+
+  private static EdmEntityType mockType(final String name, final String... keyPaths) {
+    EdmEntityType type = Mockito.mock(EdmEntityType.class);
+    Mockito.when(type.getFullQualifiedName()).thenReturn(new FullQualifiedName("Namespace", name));
+    EdmKeyPropertyRef[] refs = new EdmKeyPropertyRef[keyPaths.length];
+    for (int i = 0; i < keyPaths.length; i++) {
+      refs[i] = Mockito.mock(EdmKeyPropertyRef.class);
+      Mockito.when(refs[i].getName()).thenReturn(keyPaths[i]);
+    }
+    Mockito.when(type.getKeyPropertyRefs()).thenReturn(Arrays.asList(refs));
+    return type;
+  }
+
+  private static Entity entity(final Object key) {
+    return new Entity().addProperty(new Property(null, "ID", ValueType.PRIMITIVE, key));
+  }
+
+  @Test
+  public void keyValues() throws Exception {
+    final EdmEntityType type = mockType("ET", "ID");
+    assertEquals(EntityKey.create(entity(1), type), EntityKey.create(entity(1), type));
+    assertEquals(EntityKey.create(entity(1), type).hashCode(), EntityKey.create(entity(1), type).hashCode());
+    assertNotEquals(EntityKey.create(entity(1), type), EntityKey.create(entity(2), type));
+    assertNotEquals(EntityKey.create(entity(1), type), EntityKey.create(entity(1), mockType("Other", "ID")));
+  }
+
+  @Test
+  public void keyInComplexProperty() throws Exception {
+    final EdmEntityType type = mockType("ET", "ID", "Complex/Key");
+    ComplexValue complexValue = new ComplexValue();
+    complexValue.getValue().add(new Property(null, "Key", ValueType.PRIMITIVE, "A"));
+    final Entity entity = entity(1).addProperty(new Property(null, "Complex", ValueType.COMPLEX, complexValue));
+
+    ComplexValue otherValue = new ComplexValue();
+    otherValue.getValue().add(new Property(null, "Key", ValueType.PRIMITIVE, "B"));
+    final Entity other = entity(1).addProperty(new Property(null, "Complex", ValueType.COMPLEX, otherValue));
+
+    assertEquals(EntityKey.create(entity, type), EntityKey.create(entity, type));
+    assertNotEquals(EntityKey.create(entity, type), EntityKey.create(other, type));
+  }
+
+  @Test
+  public void idWithoutKeyValues() throws Exception {
+    final EdmEntityType type = mockType("ET", "Missing");
+    final Entity entity = entity(1);
+    entity.setId(URI.create("ESTest(1)"));
+    final Entity same = entity(2);
+    same.setId(URI.create("ESTest(1)"));
+    assertEquals(EntityKey.create(entity, type), EntityKey.create(same, type));
+    assertFalse(EntityKey.create(entity, type).equals(EntityKey.create(entity(1), mockType("ET", "ID"))));
+  }
+
+  @Test
+  public void idPreferredOverKeyValues() throws Exception {
+    final EdmEntityType type = mockType("ET", "ID");
+    final Entity entity = entity(1);
+    entity.setId(URI.create("ESTest(1)"));
+    final Entity other = entity(1);
+    other.setId(URI.create("ESOther(1)"));
+    assertNotEquals(EntityKey.create(entity, type), EntityKey.create(other, type));
+  }
+
+  @Test(expected = SerializerException.class)
+  public void neitherKeyValuesNorId() throws Exception {
+    EdmEntityType type = Mockito.mock(EdmEntityType.class);
+    Mockito.when(type.getKeyPropertyRefs()).thenReturn(Collections.<EdmKeyPropertyRef> emptyList());
+    EntityKey.create(entity(1), type);
+  }
+}
@@ -23,10 +23,12 @@ import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
@@ -125,26 +127,38 @@ public class DataProvider {
   
   public Entity read(final EdmEntityType edmEntityType, final EntityCollection entitySet,
       final List<UriParameter> keys) throws DataProviderException {
+    // The key literals are parsed only once (and again only if the Java type of the stored values changes)
+    // instead of once for every entity in the collection.
+    final int size = keys.size();
+    final EdmKeyPropertyRef[] refs = new EdmKeyPropertyRef[size];
+    final String[] texts = new String[size];
+    final Object[] keyValues = new Object[size];
+    final Class<?>[] keyClasses = new Class<?>[size];
+    for (int i = 0; i < size; i++) {
+      final UriParameter key = keys.get(i);
+      if (key.getExpression() != null && !(key.getExpression() instanceof Literal)) {
+        throw new DataProviderException("Expression in key value is not supported yet!",
+            HttpStatusCode.NOT_IMPLEMENTED);
+      }
+      refs[i] = edmEntityType.getKeyPropertyRef(key.getName());
+      texts[i] = key.getAlias() == null ? key.getText() : ((Literal) key.getExpression()).getText();
+    }
     try {
       for (final Entity entity : entitySet.getEntities()) {
         boolean found = true;
-        for (final UriParameter key : keys) {
-          EdmKeyPropertyRef refType = edmEntityType.getKeyPropertyRef(key.getName());
-          Object value =  findPropertyRefValue(entity, refType);
-          
-          final EdmProperty property = refType.getProperty();
-          final EdmPrimitiveType type = (EdmPrimitiveType) property.getType();
-          
-          if (key.getExpression() != null && !(key.getExpression() instanceof Literal)) {
-            throw new DataProviderException("Expression in key value is not supported yet!",
-                HttpStatusCode.NOT_IMPLEMENTED);
+        for (int i = 0; i < size; i++) {
+          final Object value = findPropertyRefValue(entity, refs[i]);
+          final Class<?> valueClass =
+              Calendar.class.isAssignableFrom(value.getClass()) ? Calendar.class : value.getClass();
+          if (keyClasses[i] != valueClass) {
+            final EdmProperty property = refs[i].getProperty();
+            final EdmPrimitiveType type = (EdmPrimitiveType) property.getType();
+            keyValues[i] = type.valueOfString(type.fromUriLiteral(texts[i]),
+                property.isNullable(), property.getMaxLength(), property.getPrecision(), property.getScale(),
+                property.isUnicode(), valueClass);
+            keyClasses[i] = valueClass;
           }
-          final String text = key.getAlias() == null ? key.getText() : ((Literal) key.getExpression()).getText();
-          final Object keyValue = type.valueOfString(type.fromUriLiteral(text),
-              property.isNullable(), property.getMaxLength(), property.getPrecision(), property.getScale(),
-              property.isUnicode(),
-              Calendar.class.isAssignableFrom(value.getClass()) ? Calendar.class : value.getClass());
-          if (!value.equals(keyValue)) {
+          if (!value.equals(keyValues[i])) {
             found = false;
             break;
           }
@@ -220,31 +234,32 @@ public class DataProvider {
         typeName = ((EdmTypeDefinition) type).getUnderlyingType().getFullQualifiedName();
       }
       Object newValue;
+      final Set<Object> usedValues = getUsedValues(keyName, entities);
 
       if (EdmPrimitiveTypeKind.Int16.getFullQualifiedName().equals(typeName)) {
         newValue = (short) KEY_INT_16.incrementAndGet();
 
-        while (!isFree(newValue, keyName, entities)) {
+        while (usedValues.contains(newValue)) {
           newValue = (short) KEY_INT_16.incrementAndGet();
         }
       } else if (EdmPrimitiveTypeKind.Int32.getFullQualifiedName().equals(typeName)) {
         newValue = KEY_INT_32.incrementAndGet();
 
-        while (!isFree(newValue, keyName, entities)) {
+        while (usedValues.contains(newValue)) {
           newValue = KEY_INT_32.incrementAndGet();
         }
       } else if (EdmPrimitiveTypeKind.Int64.getFullQualifiedName().equals(typeName)) {
         // Integer keys
         newValue = KEY_INT_64.incrementAndGet();
 
-        while (!isFree(newValue, keyName, entities)) {
+        while (usedValues.contains(newValue)) {
           newValue = KEY_INT_64.incrementAndGet();
         }
       } else if (EdmPrimitiveTypeKind.String.getFullQualifiedName().equals(typeName)) {
         // String keys
         newValue = String.valueOf(KEY_STRING.incrementAndGet());
 
-        while (!isFree(newValue, keyName, entities)) {
+        while (usedValues.contains(newValue)) {
           newValue = String.valueOf(KEY_STRING.incrementAndGet());
         }
       } else if (type instanceof EdmEnumType) {
@@ -263,14 +278,16 @@ public class DataProvider {
     return keys;
   }
 
-  private boolean isFree(final Object value, final String keyPropertyName, final List<Entity> entities) {
+  /** Collects the values of the given key property once, so that free candidates are checked in constant time. */
+  private Set<Object> getUsedValues(final String keyPropertyName, final List<Entity> entities) {
+    Set<Object> values = new HashSet<Object>();
     for (final Entity entity : entities) {
-      if (value != null && value.equals(entity.getProperty(keyPropertyName).getValue())) {
-        return false;
+      final Property property = entity.getProperty(keyPropertyName);
+      if (property != null && property.getValue() != null) {
+        values.add(property.getValue());
       }
     }
-
-    return true;
+    return values;
   }
 
   private void createProperties(final EdmStructuredType type, final List<Property> properties)
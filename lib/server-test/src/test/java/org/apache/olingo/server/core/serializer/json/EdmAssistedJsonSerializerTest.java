@@ -24,6 +24,7 @@ import java.net.URI;
 import java.util.Arrays;
 import java.util.Calendar;
 import java.util.Collections;
+import java.util.Iterator;
 import java.util.TimeZone;
 import java.util.UUID;
 
@@ -119,6 +120,36 @@ public class EdmAssistedJsonSerializerTest {
         serialize(serializer, metadata, null, entityCollection, null));
   }
 
+  @Test
+  public void entityCollectionWithLazyCollectionValues() throws Exception {
+    Entity entity = new Entity()
+        .addProperty(new Property(null, "Property1", ValueType.COLLECTION_PRIMITIVE, once(true, false)))
+        .addProperty(new Property("Collection(Edm.Int32)", "Property2", ValueType.COLLECTION_PRIMITIVE,
+            once(1, 2)));
+    EntityCollection entityCollection = new EntityCollection();
+    entityCollection.getEntities().add(entity);
+    Assert.assertEquals(
+        "{\"@odata.context\":\"$metadata#EntitySet(Property1,Property2)\","
+            + "\"value\":[{\"@odata.id\":null,"
+            + "\"Property1@odata.type\":\"#Collection(Boolean)\",\"Property1\":[true,false],"
+            + "\"Property2@odata.type\":\"#Collection(Int32)\",\"Property2\":[1,2]}]}",
+        serialize(serializer, metadata, null, entityCollection, null));
+  }
+
+  /** Creates a collection value which is not a list and can be iterated only once. */
+  private static Iterable<Object> once(final Object... values) {
+    return new Iterable<Object>() {
+      private boolean iterated;
+
+      @Override
+      public Iterator<Object> iterator() {
+        Assert.assertFalse("iterated twice", iterated);
+        iterated = true;
+        return Arrays.asList(values).iterator();
+      }
+    };
+  }
+
   @Test
   public void entityCollectionIEEE754Compatible() throws Exception {
     EntityCollection entityCollection = new EntityCollection();
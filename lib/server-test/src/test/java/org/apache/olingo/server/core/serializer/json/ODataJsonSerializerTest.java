@@ -26,6 +26,7 @@ import java.io.InputStream;
 import java.net.URI;
 import java.nio.ByteBuffer;
 import java.nio.channels.WritableByteChannel;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Iterator;
@@ -36,9 +37,11 @@ import org.apache.commons.io.output.ByteArrayOutputStream;
 import org.apache.olingo.commons.api.data.ComplexValue;
 import org.apache.olingo.commons.api.data.ContextURL;
 import org.apache.olingo.commons.api.data.ContextURL.Suffix;
+import org.apache.olingo.commons.api.data.CountProvider;
 import org.apache.olingo.commons.api.data.Entity;
 import org.apache.olingo.commons.api.data.EntityCollection;
 import org.apache.olingo.commons.api.data.EntityIterator;
+import org.apache.olingo.commons.api.data.Link;
 import org.apache.olingo.commons.api.data.Operation;
 import org.apache.olingo.commons.api.data.Property;
 import org.apache.olingo.commons.api.data.ValueType;
@@ -66,6 +69,7 @@ import org.apache.olingo.server.api.ODataContent;
 import org.apache.olingo.server.api.ODataContentWriteErrorCallback;
 import org.apache.olingo.server.api.ODataContentWriteErrorContext;
 import org.apache.olingo.server.api.ServiceMetadata;
+import org.apache.olingo.server.api.metrics.RequestPhase;
 import org.apache.olingo.server.api.serializer.ComplexSerializerOptions;
 import org.apache.olingo.server.api.serializer.EntityCollectionSerializerOptions;
 import org.apache.olingo.server.api.serializer.EntitySerializerOptions;
@@ -82,6 +86,7 @@ import org.apache.olingo.server.api.uri.queryoption.ExpandOption;
 import org.apache.olingo.server.api.uri.queryoption.LevelsExpandOption;
 import org.apache.olingo.server.api.uri.queryoption.SelectItem;
 import org.apache.olingo.server.api.uri.queryoption.SelectOption;
+import org.apache.olingo.server.core.metrics.RequestMetricsRecorder;
 import org.apache.olingo.server.core.serializer.ExpandSelectMock;
 import org.apache.olingo.server.tecsvc.MetadataETagSupport;
 import org.apache.olingo.server.tecsvc.data.DataProvider;
@@ -481,6 +486,126 @@ public class ODataJsonSerializerTest {
     Assert.assertEquals(3, count);
   }
 
+  @Test
+  public void entityCollectionStreamedMetrics() throws Exception {
+    final EdmEntitySet edmEntitySet = entityContainer.getEntitySet("ESAllPrim");
+    final Iterator<Entity> innerIterator = data.readAll(edmEntitySet).iterator();
+    final EntityIterator entityIterator = new EntityIterator() {
+      @Override
+      public boolean hasNext() {
+        return innerIterator.hasNext();
+      }
+      @Override
+      public Entity next() {
+        return innerIterator.next();
+      }
+    };
+    final ODataContent result = serializer.entityCollectionStreamed(
+        metadata, edmEntitySet.getEntityType(), entityIterator,
+        EntityCollectionSerializerOptions.with()
+            .contextURL(ContextURL.with().entitySet(edmEntitySet).build())
+            .build()).getODataContent();
+
+    final RequestMetricsRecorder recorder = new RequestMetricsRecorder();
+    Assert.assertTrue(recorder.start());
+    try {
+      RequestMetricsRecorder.enter(RequestPhase.WRITE);
+      result.write(new ByteArrayOutputStream());
+      Assert.assertEquals(RequestPhase.WRITE, RequestMetricsRecorder.enter(RequestPhase.WRITE));
+    } finally {
+      recorder.stop();
+    }
+    Assert.assertEquals(3, recorder.getEntityCount());
+    Assert.assertTrue(recorder.getPhaseNanos(RequestPhase.SERIALIZE) > 0);
+  }
+
+  @Test
+  public void entityCollectionStreamedWithDeferredCount() throws Exception {
+    final EdmEntitySet edmEntitySet = entityContainer.getEntitySet("ESAllPrim");
+    final Iterator<Entity> innerIterator = data.readAll(edmEntitySet).iterator();
+    final int[] iterated = new int[1];
+    final EntityIterator entityIterator = new EntityIterator() {
+      @Override
+      public boolean hasNext() {
+        return innerIterator.hasNext();
+      }
+      @Override
+      public Entity next() {
+        iterated[0]++;
+        return innerIterator.next();
+      }
+    };
+    entityIterator.setCountProvider(new CountProvider() {
+      @Override
+      public Integer getCount() {
+        // counted while iterating, so only known at the end
+        return innerIterator.hasNext() ? null : iterated[0];
+      }
+    });
+    CountOption countOption = Mockito.mock(CountOption.class);
+    Mockito.when(countOption.getValue()).thenReturn(true);
+
+    ODataContent result = serializer.entityCollectionStreamed(
+        metadata, edmEntitySet.getEntityType(), entityIterator,
+        EntityCollectionSerializerOptions.with()
+            .contextURL(ContextURL.with().entitySet(edmEntitySet).build())
+            .count(countOption)
+            .build()).getODataContent();
+    ByteArrayOutputStream bout = new ByteArrayOutputStream();
+    result.write(bout);
+    final String resultString = new String(bout.toByteArray(), "UTF-8");
+
+    Assert.assertThat(resultString, CoreMatchers.startsWith("{"
+        + "\"@odata.context\":\"$metadata#ESAllPrim\","
+        + "\"@odata.metadataEtag\":\"W/\\\"metadataETag\\\"\","
+        + "\"value\":[{\"PropertyInt16\":32767,\"PropertyString\""));
+    Assert.assertThat(resultString, CoreMatchers.endsWith(
+        "\"PropertyTimeOfDay\":\"00:01:01\"}],\"@odata.count\":3}"));
+  }
+
+  @Test
+  public void entityCollectionStreamedWithExplicitCountAndCountProvider() throws Exception {
+    final EdmEntitySet edmEntitySet = entityContainer.getEntitySet("ESAllPrim");
+    final Iterator<Entity> innerIterator = data.readAll(edmEntitySet).iterator();
+    final EntityIterator entityIterator = new EntityIterator() {
+      @Override
+      public boolean hasNext() {
+        return innerIterator.hasNext();
+      }
+      @Override
+      public Entity next() {
+        return innerIterator.next();
+      }
+    };
+    entityIterator.setCount(7);
+    entityIterator.setCountProvider(new CountProvider() {
+      @Override
+      public Integer getCount() {
+        return 3;
+      }
+    });
+    CountOption countOption = Mockito.mock(CountOption.class);
+    Mockito.when(countOption.getValue()).thenReturn(true);
+
+    ODataContent result = serializer.entityCollectionStreamed(
+        metadata, edmEntitySet.getEntityType(), entityIterator,
+        EntityCollectionSerializerOptions.with()
+            .contextURL(ContextURL.with().entitySet(edmEntitySet).build())
+            .count(countOption)
+            .build()).getODataContent();
+    ByteArrayOutputStream bout = new ByteArrayOutputStream();
+    result.write(bout);
+    final String resultString = new String(bout.toByteArray(), "UTF-8");
+
+    // the explicit count is known in advance and takes precedence over the count provider
+    Assert.assertThat(resultString, CoreMatchers.startsWith("{"
+        + "\"@odata.context\":\"$metadata#ESAllPrim\","
+        + "\"@odata.metadataEtag\":\"W/\\\"metadataETag\\\"\","
+        + "\"@odata.count\":7,"
+        + "\"value\":[{\"PropertyInt16\":32767,\"PropertyString\""));
+    Assert.assertThat(resultString, CoreMatchers.endsWith("\"PropertyTimeOfDay\":\"00:01:01\"}]}"));
+  }
+
   @Test
   public void entityCollectionStreamedWithError() throws Exception {
     final EdmEntitySet edmEntitySet = entityContainer.getEntitySet("ESAllPrim");
@@ -1460,6 +1585,40 @@ public class ODataJsonSerializerTest {
         resultString);
   }
 
+  @Test
+  public void expandInlineEntityIterator() throws Exception {
+    final EdmEntitySet edmEntitySet = entityContainer.getEntitySet("ESAllPrim");
+    final Entity entity = data.readAll(edmEntitySet).getEntities().get(0);
+    final ExpandOption expand = ExpandSelectMock.mockExpandOption(Collections.singletonList(
+        ExpandSelectMock.mockExpandItem(edmEntitySet, "NavPropertyETTwoPrimMany")));
+    final EntitySerializerOptions options = EntitySerializerOptions.with()
+        .contextURL(ContextURL.with().entitySet(edmEntitySet).suffix(Suffix.ENTITY).build())
+        .expand(expand)
+        .build();
+    final String expected = IOUtils.toString(
+        serializer.entity(metadata, edmEntitySet.getEntityType(), entity, options).getContent());
+    Assert.assertTrue(expected.contains("\"NavPropertyETTwoPrimMany\":[{\"PropertyInt16\""));
+
+    // the same expanded entities, but provided lazily as iterator
+    final Link link = entity.getNavigationLink("NavPropertyETTwoPrimMany");
+    final Iterator<Entity> innerIterator = link.getInlineEntitySet().iterator();
+    link.setInlineEntitySet(null);
+    link.setInlineEntityIterator(new EntityIterator() {
+      @Override
+      public boolean hasNext() {
+        return innerIterator.hasNext();
+      }
+
+      @Override
+      public Entity next() {
+        return innerIterator.next();
+      }
+    });
+    final String resultString = IOUtils.toString(
+        serializer.entity(metadata, edmEntitySet.getEntityType(), entity, options).getContent());
+    Assert.assertEquals(expected, resultString);
+  }
+
   @Test
   public void expandSelect() throws Exception {
     final EdmEntitySet edmEntitySet = entityContainer.getEntitySet("ESTwoPrim");
@@ -1719,6 +1878,34 @@ public class ODataJsonSerializerTest {
         resultString);
   }
 
+  @Test
+  public void primitiveCollectionPropertyLazyIterable() throws Exception {
+    final EdmEntitySet edmEntitySet = entityContainer.getEntitySet("ESCollAllPrim");
+    final EdmProperty edmProperty = (EdmProperty) edmEntitySet.getEntityType().getProperty("CollPropertyString");
+    final List<?> values = data.readAll(edmEntitySet).getEntities().get(0)
+        .getProperty(edmProperty.getName()).asCollection();
+    final Iterable<Object> lazyValues = new Iterable<Object>() {
+      @Override
+      public Iterator<Object> iterator() {
+        return new ArrayList<Object>(values).iterator();
+      }
+    };
+    final Property property = new Property(null, edmProperty.getName(), ValueType.COLLECTION_PRIMITIVE, lazyValues);
+
+    final String resultString = IOUtils.toString(serializer
+        .primitiveCollection(metadata, (EdmPrimitiveType) edmProperty.getType(), property,
+            PrimitiveSerializerOptions.with()
+                .contextURL(ContextURL.with()
+                    .entitySet(edmEntitySet).keyPath("1").navOrPropertyPath(edmProperty.getName())
+                    .build())
+                .build()).getContent());
+    Assert.assertEquals("{"
+        + "\"@odata.context\":\"$metadata#ESCollAllPrim(1)/CollPropertyString\","
+        + "\"@odata.metadataEtag\":\"W/\\\"metadataETag\\\"\","
+        + "\"value\":[\"Employee1@company.example\",\"Employee2@company.example\",\"Employee3@company.example\"]}",
+        resultString);
+  }
+
   @Test
   public void primitiveCollectionNoMetadata() throws Exception {
     final EdmEntitySet edmEntitySet = entityContainer.getEntitySet("ESCollAllPrim");
@@ -2367,6 +2554,45 @@ public class ODataJsonSerializerTest {
     Assert.assertEquals(expected, resultString);
   }
 
+  @Test
+  public void expandSameKeyFromOtherEntitySet() throws Exception {
+    final EdmEntitySet edmEntitySet = entityContainer.getEntitySet("ESPeople");
+    final Entity entity = new Entity()
+        .addProperty(new Property(null, "id", ValueType.PRIMITIVE, 1))
+        .addProperty(new Property(null, "name", ValueType.PRIMITIVE, "B"));
+    entity.setId(URI.create("ESPeople(1)"));
+    // same entity type and key, but another entity
+    final Entity other = new Entity()
+        .addProperty(new Property(null, "id", ValueType.PRIMITIVE, 1))
+        .addProperty(new Property(null, "name", ValueType.PRIMITIVE, "X"));
+    other.setId(URI.create("ESOtherPeople(1)"));
+    final EntityCollection friends = new EntityCollection();
+    friends.getEntities().add(other);
+    final Link link = new Link();
+    link.setTitle("friends");
+    link.setInlineEntitySet(friends);
+    entity.getNavigationLinks().add(link);
+
+    ExpandItem mockExpandItem = ExpandSelectMock.mockExpandItem(edmEntitySet, "friends");
+    LevelsExpandOption levels = Mockito.mock(LevelsExpandOption.class);
+    Mockito.when(levels.isMax()).thenReturn(Boolean.TRUE);
+    Mockito.when(mockExpandItem.getLevelsOption()).thenReturn(levels);
+    final ExpandOption expand = ExpandSelectMock.mockExpandOption(Collections.singletonList(mockExpandItem));
+    final String resultString = IOUtils.toString(serializer.entity(metadata, edmEntitySet.getEntityType(), entity,
+        EntitySerializerOptions.with()
+            .contextURL(ContextURL.with().entitySet(edmEntitySet).suffix(Suffix.ENTITY).build())
+            .expand(expand)
+            .build())
+        .getContent());
+    Assert.assertEquals("{"
+        + "\"@odata.context\":\"$metadata#ESPeople/$entity\","
+        + "\"@odata.metadataEtag\":\"W/\\\"metadataETag\\\"\","
+        + "\"id\":1,\"name\":\"B\","
+        + "\"friends\":[{\"id\":1,\"name\":\"X\",\"friends\":[]}]"
+        + "}",
+        resultString);
+  }
+
   @Test
   public void expandCycleWith3Level() throws Exception {
     final EdmEntitySet edmEntitySet = entityContainer.getEntitySet("ESPeople");
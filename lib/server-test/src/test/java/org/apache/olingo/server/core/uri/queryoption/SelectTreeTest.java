@@ -0,0 +1,129 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.uri.queryoption;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+
+import org.apache.olingo.commons.api.edm.Edm;
+import org.apache.olingo.commons.api.edm.EdmEntitySet;
+import org.apache.olingo.commons.api.edm.EdmEntityType;
+import org.apache.olingo.commons.api.edmx.EdmxReference;
+import org.apache.olingo.server.api.OData;
+import org.apache.olingo.server.api.uri.queryoption.ExpandItem;
+import org.apache.olingo.server.api.uri.queryoption.SelectItem;
+import org.apache.olingo.server.core.serializer.ExpandSelectMock;
+import org.apache.olingo.server.tecsvc.provider.EdmTechProvider;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+public class SelectTreeTest {
+
+  private static final Edm edm = OData.newInstance().createServiceMetadata(
+      new EdmTechProvider(), Collections.<EdmxReference> emptyList()).getEdm();
+
+  @Test
+  public void selectAll() {
+    final EdmEntitySet entitySet = edm.getEntityContainer().getEntitySet("ESAllPrim");
+    assertNull(SelectTree.of(null));
+    assertNull(SelectTree.of(new SelectOptionImpl()));
+    SelectItem star = Mockito.mock(SelectItem.class);
+    Mockito.when(star.isStar()).thenReturn(true);
+    assertNull(SelectTree.of(new SelectOptionImpl().setSelectItems(Arrays.asList(
+        ExpandSelectMock.mockSelectItem(entitySet, "PropertyString"), star))));
+  }
+
+  @Test
+  public void selectComplex() {
+    final EdmEntitySet entitySet = edm.getEntityContainer().getEntitySet("ESCompMixPrimCollComp");
+    final SelectOptionImpl select = new SelectOptionImpl().setSelectItems(Arrays.asList(
+        ExpandSelectMock.mockSelectItem(entitySet, "PropertyMixedPrimCollComp", "PropertyComp", "PropertyString"),
+        ExpandSelectMock.mockSelectItem(entitySet, "PropertyMixedPrimCollComp", "CollPropertyString"),
+        ExpandSelectMock.mockSelectItem(entitySet, "PropertyMixedPrimCollComp", "PropertyComp")));
+    final SelectTree tree = SelectTree.of(select);
+    assertSame(tree, SelectTree.of(select));
+
+    assertTrue(tree.isSelected("PropertyMixedPrimCollComp"));
+    assertFalse(tree.isSelected("PropertyInt16"));
+    final SelectTree complex = tree.getChild("PropertyMixedPrimCollComp");
+    assertTrue(complex.isSelected("CollPropertyString"));
+    assertTrue(complex.isSelected("PropertyComp"));
+    assertFalse(complex.isSelected("PropertyInt16"));
+    // The complete complex property is selected, overriding the selection of a sub-property.
+    assertNull(complex.getChild("PropertyComp"));
+
+    final EdmEntityType type = entitySet.getEntityType();
+    final BitSet selected = tree.getSelectedProperties(type);
+    assertEquals(1, selected.cardinality());
+    assertEquals("PropertyMixedPrimCollComp", type.getPropertyNames().get(selected.nextSetBit(0)));
+    assertSame(selected, tree.getSelectedProperties(type));
+  }
+
+  @Test
+  public void recompileAfterChange() {
+    final EdmEntitySet entitySet = edm.getEntityContainer().getEntitySet("ESAllPrim");
+    SelectOptionImpl select = new SelectOptionImpl().setSelectItems(Collections.singletonList(
+        ExpandSelectMock.mockSelectItem(entitySet, "PropertyString")));
+    assertTrue(SelectTree.of(select).isSelected("PropertyString"));
+    select.setSelectItems(Collections.singletonList(ExpandSelectMock.mockSelectItem(entitySet, "PropertyInt16")));
+    assertFalse(SelectTree.of(select).isSelected("PropertyString"));
+    assertTrue(SelectTree.of(select).isSelected("PropertyInt16"));
+  }
+
+  @Test
+  public void cacheAllSelected() {
+    SelectItem star = Mockito.mock(SelectItem.class);
+    Mockito.when(star.isStar()).thenReturn(true);
+    final SelectOptionImpl select = new SelectOptionImpl().setSelectItems(Collections.singletonList(star));
+    assertNull(SelectTree.of(select));
+    assertNull(SelectTree.of(select));
+    // The null tree is kept, too, so the select items are evaluated only once.
+    Mockito.verify(star, Mockito.times(1)).isStar();
+  }
+
+  @Test
+  public void expand() {
+    final EdmEntitySet entitySet = edm.getEntityContainer().getEntitySet("ESTwoPrim");
+    assertNull(ExpandTree.of(null));
+    assertNull(ExpandTree.of(new ExpandOptionImpl()));
+
+    final ExpandItem first = ExpandSelectMock.mockExpandItem(entitySet, "NavPropertyETAllPrimOne");
+    final ExpandItem second = ExpandSelectMock.mockExpandItem(entitySet, "NavPropertyETAllPrimOne");
+    ExpandItem star = Mockito.mock(ExpandItem.class);
+    Mockito.when(star.isStar()).thenReturn(true);
+    final ExpandOptionImpl expand = new ExpandOptionImpl().addExpandItem(first).addExpandItem(second);
+    ExpandTree tree = ExpandTree.of(expand);
+    assertSame(tree, ExpandTree.of(expand));
+    assertSame(first, tree.getExpandItem("NavPropertyETAllPrimOne"));
+    assertNull(tree.getExpandItem("NavPropertyETAllPrimMany"));
+    assertNull(tree.getExpandAll());
+
+    expand.addExpandItem(star);
+    tree = ExpandTree.of(expand);
+    assertSame(star, tree.getExpandAll());
+    assertNull(tree.getExpandItem("NavPropertyETAllPrimMany"));
+  }
+}